@@ -0,0 +1,28 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package gov.nih.ncats.common.functions;
+
+/**
+ * A LongConsumer that can throw.
+ * @since 0.3.7
+ */
+@FunctionalInterface
+public interface ThrowableLongConsumer<T extends Throwable> {
+    void accept(long l) throws T;
+}
@@ -0,0 +1,39 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package gov.nih.ncats.common.functions;
+/**
+ * Functional interface that is called for each code
+ * of a {@link gov.nih.ncats.common.util.GrayCode}.
+ *
+ * @param <E> the exception that could be thrown.
+ * @since 0.3.7
+ */
+@FunctionalInterface
+public interface ThrowingGrayCodeConsumer<E extends Throwable> {
+    /**
+     * Accept the next code.
+     * @param rank the position of the code in the Gray code sequence.
+     * @param code the digits of the code; this array is reused for the next code
+     *             so it must not be modified or kept after this method returns.
+     * @param changedDigit the offset of the only digit that changed from the previous code,
+     *                     or -1 if this is the first code visited.
+     * @throws E the exception that could be thrown.
+     */
+    void accept(long rank, int[] code, int changedDigit) throws E;
+}
@@ -148,48 +148,53 @@ public final class TextLineParser implements LineParser{
 		if(doneFile){
 			return;
 		}
-		GrowableCharArray builder = new GrowableCharArray(INITIAL_LINE_CAPACITY);
-		int value;
-		if(pushedBackValue ==NOT_SET){
-			value = in.read();
-		}else{			
-			value = pushedBackValue;
-			pushedBackValue=NOT_SET;
-		}
-		numberOfBytesInNextLine=0;
+		//reuse a pooled buffer since createNewString() copies the chars anyway
+		GrowableCharArray builder = GrowableCharArray.acquire(INITIAL_LINE_CAPACITY);
+		try{
+			int value;
+			if(pushedBackValue ==NOT_SET){
+				value = in.read();
+			}else{			
+				value = pushedBackValue;
+				pushedBackValue=NOT_SET;
+			}
+			numberOfBytesInNextLine=0;
 		
 		
-		while(true){	
-			if(value == EOF){
-				doneFile =true;
-				close();
-				break;
-			}
-			++numberOfBytesInNextLine;
-			builder.append((char)value);
-			if(value == CR){
-				//check if next value is LF
-				//since CR+LF is how Windows represents an end of line
-				int nextChar = in.read();
-				if(nextChar == LF){
-					++numberOfBytesInNextLine;
-					builder.append(LF);
-				}else if(nextChar !=EOF){
-					//not windows formatted line
-					//could be Mac 0S 9 which only uses '\r'
-					//put that value back
-					pushedBackValue =nextChar;
+			while(true){	
+				if(value == EOF){
+					doneFile =true;
+					close();
+					break;
 				}
+				++numberOfBytesInNextLine;
+				builder.append((char)value);
+				if(value == CR){
+					//check if next value is LF
+					//since CR+LF is how Windows represents an end of line
+					int nextChar = in.read();
+					if(nextChar == LF){
+						++numberOfBytesInNextLine;
+						builder.append(LF);
+					}else if(nextChar !=EOF){
+						//not windows formatted line
+						//could be Mac 0S 9 which only uses '\r'
+						//put that value back
+						pushedBackValue =nextChar;
+					}
 				
-				break;
+					break;
+				}
+				if(value == LF){
+					break;
+				}
+				value = in.read();
 			}
-			if(value == LF){
-				break;
+			if(builder.getCurrentLength()>0){
+				nextQueue.add(builder.createNewString());
 			}
-			value = in.read();
-		}
-		if(builder.getCurrentLength()>0){
-			nextQueue.add(builder.createNewString());
+		}finally{
+			builder.release();
 		}
 		if(doneFile){
 			nextQueue.add(endOfFile);
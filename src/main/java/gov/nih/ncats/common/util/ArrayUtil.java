@@ -18,6 +18,11 @@
 package gov.nih.ncats.common.util;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
 
 public final class ArrayUtil {
 	/**
@@ -29,6 +34,8 @@ public final class ArrayUtil {
 	 * there is no memory or performance
 	 * penalty for boxing/unboxing until
 	 * users perform a {@link List#get(int)}.
+	 * The List is a {@link RandomAccess} view of the array
+	 * so changes to one are seen by the other.
 	 * 
 	 * @param array the array to wrap in a List.
 	 * 
@@ -37,6 +44,76 @@ public final class ArrayUtil {
 	public static List<Integer> asList(int[] array){
 		return new IntArrayList(array);
 	}
+
+	/**
+	 * Create a new List view of the long array
+	 * which, like {@link #asList(int[])}, keeps the
+	 * values as primitives until they are accessed.
+	 * 
+	 * @param array the array to wrap in a List.
+	 * 
+	 * @return a new List of Longs.
+	 * @since 0.3.7
+	 */
+	public static List<Long> asList(long[] array){
+		return new LongArrayList(array);
+	}
+
+	/**
+	 * Create a new List view of the short array
+	 * which, like {@link #asList(int[])}, keeps the
+	 * values as primitives until they are accessed.
+	 * 
+	 * @param array the array to wrap in a List.
+	 * 
+	 * @return a new List of Shorts.
+	 * @since 0.3.7
+	 */
+	public static List<Short> asList(short[] array){
+		return new ShortArrayList(array);
+	}
+
+	/**
+	 * Create a new List view of the byte array
+	 * which, like {@link #asList(int[])}, keeps the
+	 * values as primitives until they are accessed.
+	 * 
+	 * @param array the array to wrap in a List.
+	 * 
+	 * @return a new List of Bytes.
+	 * @since 0.3.7
+	 */
+	public static List<Byte> asList(byte[] array){
+		return new ByteArrayList(array);
+	}
+
+	/**
+	 * Create a new List view of the char array
+	 * which, like {@link #asList(int[])}, keeps the
+	 * values as primitives until they are accessed.
+	 * 
+	 * @param array the array to wrap in a List.
+	 * 
+	 * @return a new List of Characters.
+	 * @since 0.3.7
+	 */
+	public static List<Character> asList(char[] array){
+		return new CharArrayList(array);
+	}
+
+	/**
+	 * Create a new List view of the double array
+	 * which, like {@link #asList(int[])}, keeps the
+	 * values as primitives until they are accessed.
+	 * 
+	 * @param array the array to wrap in a List.
+	 * 
+	 * @return a new List of Doubles.
+	 * @since 0.3.7
+	 */
+	public static List<Double> asList(double[] array){
+		return new DoubleArrayList(array);
+	}
 	
 	private ArrayUtil(){
 		//can not instantiate
@@ -85,9 +162,59 @@ public final class ArrayUtil {
             return -1;
         }
 
+        public int lastIndexOf(Object o) {
+           if(!(o instanceof Integer)){
+        	   return -1;
+           }
+           int val = ((Integer)o).intValue();
+           
+            for (int i=array.length-1; i>=0; i--){
+                if (val==array[i]){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
         public boolean contains(Object o) {
             return indexOf(o) != -1;
         }
+        /**
+         * Check each element with a loop over the primitives
+         * instead of creating an iterator over this list.
+         */
+        @Override
+        public boolean containsAll(Collection<?> c) {
+            for(Object o : c){
+                if(indexOf(o) == -1){
+                    return false;
+                }
+            }
+            return true;
+        }
+        /**
+         * Loop over the primitives directly; if the consumer
+         * is also a {@link IntConsumer} the values are never boxed.
+         */
+        @Override
+        public void forEach(Consumer<? super Integer> action) {
+            Objects.requireNonNull(action);
+            if(action instanceof IntConsumer){
+                IntConsumer consumer = (IntConsumer) action;
+                for(int value : array){
+                    consumer.accept(value);
+                }
+            }else{
+                for(int value : array){
+                    action.accept(value);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<Integer> spliterator() {
+            return Spliterators.spliterator(array, Spliterator.ORDERED);
+        }
         /**
          * Optimization of equals since
          * we know we are have an array of ints
@@ -128,6 +255,746 @@ public final class ArrayUtil {
             }
 		
 	}
-	
+
+	private static final class LongArrayList extends AbstractList<Long> implements RandomAccess {
+
+		private final long[] array;
+		
+		
+		private LongArrayList(long[] array) {
+			this.array = array;
+		}
+
+		@Override
+		public Long get(int index) {
+			return array[index];
+		}
+
+		@Override
+		public int size() {
+			return array.length;
+		}
+
+		@Override
+		public Long set(int index, Long element) {
+			Long old = array[index];
+			array[index] = element.longValue();
+			return old;
+		}
+		
+		public int indexOf(Object o) {
+           if(o==null){
+        	   return -1;
+           }
+           if(!(o instanceof Long)){
+        	   return -1;
+           }
+           long val = ((Long)o).longValue();
+           
+            for (int i=0; i<array.length; i++){
+                if (val==array[i]){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public int lastIndexOf(Object o) {
+           if(!(o instanceof Long)){
+        	   return -1;
+           }
+           long val = ((Long)o).longValue();
+           
+            for (int i=array.length-1; i>=0; i--){
+                if (val==array[i]){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public boolean contains(Object o) {
+            return indexOf(o) != -1;
+        }
+        /**
+         * Check each element with a loop over the primitives
+         * instead of creating an iterator over this list.
+         */
+        @Override
+        public boolean containsAll(Collection<?> c) {
+            for(Object o : c){
+                if(indexOf(o) == -1){
+                    return false;
+                }
+            }
+            return true;
+        }
+        /**
+         * Loop over the primitives directly; if the consumer
+         * is also a {@link LongConsumer} the values are never boxed.
+         */
+        @Override
+        public void forEach(Consumer<? super Long> action) {
+            Objects.requireNonNull(action);
+            if(action instanceof LongConsumer){
+                LongConsumer consumer = (LongConsumer) action;
+                for(long value : array){
+                    consumer.accept(value);
+                }
+            }else{
+                for(long value : array){
+                    action.accept(value);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<Long> spliterator() {
+            return Spliterators.spliterator(array, Spliterator.ORDERED);
+        }
+        /**
+         * Optimization of equals since
+         * we know we are have an array of longs
+         * this should reduce boxing/unboxing
+         * on our end at least.
+         */
+        @SuppressWarnings("rawtypes")
+		public boolean equals(Object o) {
+        	if (o == this){
+        	    return true;
+        	}
+        	if (!(o instanceof List)){
+        	    return false;
+        	}
+
+        	int currentOffset=0;
+        	ListIterator e2 = ((List) o).listIterator();
+        	while(currentOffset<array.length && e2.hasNext()) {
+        	    Object o2 = e2.next();
+        	    //will return false if o2 is null
+        	    if(!(o2 instanceof Long)){
+        	    	return false;
+        	    }
+        	    if(array[currentOffset] !=((Long)o2).longValue()){
+        	    	return false;
+        	    }
+        	    currentOffset++;
+        	}
+        	return !(currentOffset<array.length || e2.hasNext());
+            }
+
+            /**
+             * Optimization of hashcode since
+             * we know we have an array of longs.
+             */
+            public int hashCode() {
+            	return Arrays.hashCode(array);
+            }
+		
+	}
+
+	private static final class ShortArrayList extends AbstractList<Short> implements RandomAccess {
+
+		private final short[] array;
+		
+		
+		private ShortArrayList(short[] array) {
+			this.array = array;
+		}
+
+		@Override
+		public Short get(int index) {
+			return array[index];
+		}
+
+		@Override
+		public int size() {
+			return array.length;
+		}
+
+		@Override
+		public Short set(int index, Short element) {
+			Short old = array[index];
+			array[index] = element.shortValue();
+			return old;
+		}
+		
+		public int indexOf(Object o) {
+           if(o==null){
+        	   return -1;
+           }
+           if(!(o instanceof Short)){
+        	   return -1;
+           }
+           short val = ((Short)o).shortValue();
+           
+            for (int i=0; i<array.length; i++){
+                if (val==array[i]){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public int lastIndexOf(Object o) {
+           if(!(o instanceof Short)){
+        	   return -1;
+           }
+           short val = ((Short)o).shortValue();
+           
+            for (int i=array.length-1; i>=0; i--){
+                if (val==array[i]){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public boolean contains(Object o) {
+            return indexOf(o) != -1;
+        }
+        /**
+         * Check each element with a loop over the primitives
+         * instead of creating an iterator over this list.
+         */
+        @Override
+        public boolean containsAll(Collection<?> c) {
+            for(Object o : c){
+                if(indexOf(o) == -1){
+                    return false;
+                }
+            }
+            return true;
+        }
+        /**
+         * Loop over the primitives directly; if the consumer
+         * is also a {@link IntConsumer} the values are never boxed.
+         */
+        @Override
+        public void forEach(Consumer<? super Short> action) {
+            Objects.requireNonNull(action);
+            if(action instanceof IntConsumer){
+                IntConsumer consumer = (IntConsumer) action;
+                for(short value : array){
+                    consumer.accept(value);
+                }
+            }else{
+                for(short value : array){
+                    action.accept(value);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<Short> spliterator() {
+            return new BoxingArraySpliterator<>(0, array.length, i -> array[i]);
+        }
+        /**
+         * Optimization of equals since
+         * we know we are have an array of shorts
+         * this should reduce boxing/unboxing
+         * on our end at least.
+         */
+        @SuppressWarnings("rawtypes")
+		public boolean equals(Object o) {
+        	if (o == this){
+        	    return true;
+        	}
+        	if (!(o instanceof List)){
+        	    return false;
+        	}
+
+        	int currentOffset=0;
+        	ListIterator e2 = ((List) o).listIterator();
+        	while(currentOffset<array.length && e2.hasNext()) {
+        	    Object o2 = e2.next();
+        	    //will return false if o2 is null
+        	    if(!(o2 instanceof Short)){
+        	    	return false;
+        	    }
+        	    if(array[currentOffset] !=((Short)o2).shortValue()){
+        	    	return false;
+        	    }
+        	    currentOffset++;
+        	}
+        	return !(currentOffset<array.length || e2.hasNext());
+            }
+
+            /**
+             * Optimization of hashcode since
+             * we know we have an array of shorts.
+             */
+            public int hashCode() {
+            	return Arrays.hashCode(array);
+            }
+		
+	}
+
+	private static final class ByteArrayList extends AbstractList<Byte> implements RandomAccess {
+
+		private final byte[] array;
+		
+		
+		private ByteArrayList(byte[] array) {
+			this.array = array;
+		}
+
+		@Override
+		public Byte get(int index) {
+			return array[index];
+		}
+
+		@Override
+		public int size() {
+			return array.length;
+		}
+
+		@Override
+		public Byte set(int index, Byte element) {
+			Byte old = array[index];
+			array[index] = element.byteValue();
+			return old;
+		}
+		
+		public int indexOf(Object o) {
+           if(o==null){
+        	   return -1;
+           }
+           if(!(o instanceof Byte)){
+        	   return -1;
+           }
+           byte val = ((Byte)o).byteValue();
+           
+            for (int i=0; i<array.length; i++){
+                if (val==array[i]){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public int lastIndexOf(Object o) {
+           if(!(o instanceof Byte)){
+        	   return -1;
+           }
+           byte val = ((Byte)o).byteValue();
+           
+            for (int i=array.length-1; i>=0; i--){
+                if (val==array[i]){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public boolean contains(Object o) {
+            return indexOf(o) != -1;
+        }
+        /**
+         * Check each element with a loop over the primitives
+         * instead of creating an iterator over this list.
+         */
+        @Override
+        public boolean containsAll(Collection<?> c) {
+            for(Object o : c){
+                if(indexOf(o) == -1){
+                    return false;
+                }
+            }
+            return true;
+        }
+        /**
+         * Loop over the primitives directly; if the consumer
+         * is also a {@link IntConsumer} the values are never boxed.
+         */
+        @Override
+        public void forEach(Consumer<? super Byte> action) {
+            Objects.requireNonNull(action);
+            if(action instanceof IntConsumer){
+                IntConsumer consumer = (IntConsumer) action;
+                for(byte value : array){
+                    consumer.accept(value);
+                }
+            }else{
+                for(byte value : array){
+                    action.accept(value);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<Byte> spliterator() {
+            return new BoxingArraySpliterator<>(0, array.length, i -> array[i]);
+        }
+        /**
+         * Optimization of equals since
+         * we know we are have an array of bytes
+         * this should reduce boxing/unboxing
+         * on our end at least.
+         */
+        @SuppressWarnings("rawtypes")
+		public boolean equals(Object o) {
+        	if (o == this){
+        	    return true;
+        	}
+        	if (!(o instanceof List)){
+        	    return false;
+        	}
+
+        	int currentOffset=0;
+        	ListIterator e2 = ((List) o).listIterator();
+        	while(currentOffset<array.length && e2.hasNext()) {
+        	    Object o2 = e2.next();
+        	    //will return false if o2 is null
+        	    if(!(o2 instanceof Byte)){
+        	    	return false;
+        	    }
+        	    if(array[currentOffset] !=((Byte)o2).byteValue()){
+        	    	return false;
+        	    }
+        	    currentOffset++;
+        	}
+        	return !(currentOffset<array.length || e2.hasNext());
+            }
+
+            /**
+             * Optimization of hashcode since
+             * we know we have an array of bytes.
+             */
+            public int hashCode() {
+            	return Arrays.hashCode(array);
+            }
+		
+	}
+
+	private static final class CharArrayList extends AbstractList<Character> implements RandomAccess {
+
+		private final char[] array;
+		
+		
+		private CharArrayList(char[] array) {
+			this.array = array;
+		}
+
+		@Override
+		public Character get(int index) {
+			return array[index];
+		}
+
+		@Override
+		public int size() {
+			return array.length;
+		}
+
+		@Override
+		public Character set(int index, Character element) {
+			Character old = array[index];
+			array[index] = element.charValue();
+			return old;
+		}
+		
+		public int indexOf(Object o) {
+           if(o==null){
+        	   return -1;
+           }
+           if(!(o instanceof Character)){
+        	   return -1;
+           }
+           char val = ((Character)o).charValue();
+           
+            for (int i=0; i<array.length; i++){
+                if (val==array[i]){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public int lastIndexOf(Object o) {
+           if(!(o instanceof Character)){
+        	   return -1;
+           }
+           char val = ((Character)o).charValue();
+           
+            for (int i=array.length-1; i>=0; i--){
+                if (val==array[i]){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public boolean contains(Object o) {
+            return indexOf(o) != -1;
+        }
+        /**
+         * Check each element with a loop over the primitives
+         * instead of creating an iterator over this list.
+         */
+        @Override
+        public boolean containsAll(Collection<?> c) {
+            for(Object o : c){
+                if(indexOf(o) == -1){
+                    return false;
+                }
+            }
+            return true;
+        }
+        /**
+         * Loop over the primitives directly; if the consumer
+         * is also a {@link IntConsumer} the values are never boxed.
+         */
+        @Override
+        public void forEach(Consumer<? super Character> action) {
+            Objects.requireNonNull(action);
+            if(action instanceof IntConsumer){
+                IntConsumer consumer = (IntConsumer) action;
+                for(char value : array){
+                    consumer.accept(value);
+                }
+            }else{
+                for(char value : array){
+                    action.accept(value);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<Character> spliterator() {
+            return new BoxingArraySpliterator<>(0, array.length, i -> array[i]);
+        }
+        /**
+         * Optimization of equals since
+         * we know we are have an array of chars
+         * this should reduce boxing/unboxing
+         * on our end at least.
+         */
+        @SuppressWarnings("rawtypes")
+		public boolean equals(Object o) {
+        	if (o == this){
+        	    return true;
+        	}
+        	if (!(o instanceof List)){
+        	    return false;
+        	}
+
+        	int currentOffset=0;
+        	ListIterator e2 = ((List) o).listIterator();
+        	while(currentOffset<array.length && e2.hasNext()) {
+        	    Object o2 = e2.next();
+        	    //will return false if o2 is null
+        	    if(!(o2 instanceof Character)){
+        	    	return false;
+        	    }
+        	    if(array[currentOffset] !=((Character)o2).charValue()){
+        	    	return false;
+        	    }
+        	    currentOffset++;
+        	}
+        	return !(currentOffset<array.length || e2.hasNext());
+            }
+
+            /**
+             * Optimization of hashcode since
+             * we know we have an array of chars.
+             */
+            public int hashCode() {
+            	return Arrays.hashCode(array);
+            }
+		
+	}
+
+	private static final class DoubleArrayList extends AbstractList<Double> implements RandomAccess {
+
+		private final double[] array;
+		
+		
+		private DoubleArrayList(double[] array) {
+			this.array = array;
+		}
+
+		@Override
+		public Double get(int index) {
+			return array[index];
+		}
+
+		@Override
+		public int size() {
+			return array.length;
+		}
+
+		@Override
+		public Double set(int index, Double element) {
+			Double old = array[index];
+			array[index] = element.doubleValue();
+			return old;
+		}
+		
+		public int indexOf(Object o) {
+           if(o==null){
+        	   return -1;
+           }
+           if(!(o instanceof Double)){
+        	   return -1;
+           }
+           long bits = Double.doubleToLongBits(((Double)o).doubleValue());
+           
+            for (int i=0; i<array.length; i++){
+                if (Double.doubleToLongBits(array[i]) == bits){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public int lastIndexOf(Object o) {
+           if(!(o instanceof Double)){
+        	   return -1;
+           }
+           long bits = Double.doubleToLongBits(((Double)o).doubleValue());
+           
+            for (int i=array.length-1; i>=0; i--){
+                if (Double.doubleToLongBits(array[i]) == bits){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public boolean contains(Object o) {
+            return indexOf(o) != -1;
+        }
+        /**
+         * Check each element with a loop over the primitives
+         * instead of creating an iterator over this list.
+         */
+        @Override
+        public boolean containsAll(Collection<?> c) {
+            for(Object o : c){
+                if(indexOf(o) == -1){
+                    return false;
+                }
+            }
+            return true;
+        }
+        /**
+         * Loop over the primitives directly; if the consumer
+         * is also a {@link DoubleConsumer} the values are never boxed.
+         */
+        @Override
+        public void forEach(Consumer<? super Double> action) {
+            Objects.requireNonNull(action);
+            if(action instanceof DoubleConsumer){
+                DoubleConsumer consumer = (DoubleConsumer) action;
+                for(double value : array){
+                    consumer.accept(value);
+                }
+            }else{
+                for(double value : array){
+                    action.accept(value);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<Double> spliterator() {
+            return Spliterators.spliterator(array, Spliterator.ORDERED);
+        }
+        /**
+         * Optimization of equals since
+         * we know we are have an array of doubles
+         * this should reduce boxing/unboxing
+         * on our end at least.
+         */
+        @SuppressWarnings("rawtypes")
+		public boolean equals(Object o) {
+        	if (o == this){
+        	    return true;
+        	}
+        	if (!(o instanceof List)){
+        	    return false;
+        	}
+
+        	int currentOffset=0;
+        	ListIterator e2 = ((List) o).listIterator();
+        	while(currentOffset<array.length && e2.hasNext()) {
+        	    Object o2 = e2.next();
+        	    //will return false if o2 is null
+        	    if(!(o2 instanceof Double)){
+        	    	return false;
+        	    }
+        	    if(Double.doubleToLongBits(array[currentOffset]) != Double.doubleToLongBits(((Double)o2).doubleValue())){
+        	    	return false;
+        	    }
+        	    currentOffset++;
+        	}
+        	return !(currentOffset<array.length || e2.hasNext());
+            }
+
+            /**
+             * Optimization of hashcode since
+             * we know we have an array of doubles.
+             */
+            public int hashCode() {
+            	return Arrays.hashCode(array);
+            }
+		
+	}
+
+	/**
+	 * A {@link Spliterator} over a range of offsets of an array of a
+	 * primitive type that has no primitive Spliterator of its own,
+	 * which only boxes each value as it is handed to the action.
+	 */
+	private static final class BoxingArraySpliterator<T> implements Spliterator<T> {
+		private int offset;
+		private final int end;
+		private final IntFunction<T> valueAt;
+
+		private BoxingArraySpliterator(int offset, int end, IntFunction<T> valueAt) {
+			this.offset = offset;
+			this.end = end;
+			this.valueAt = valueAt;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			Objects.requireNonNull(action);
+			if(offset < end){
+				action.accept(valueAt.apply(offset++));
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			Objects.requireNonNull(action);
+			for(; offset < end; offset++){
+				action.accept(valueAt.apply(offset));
+			}
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			int mid = (offset + end) >>> 1;
+			if(mid <= offset){
+				return null;
+			}
+			Spliterator<T> prefix = new BoxingArraySpliterator<>(offset, mid, valueAt);
+			offset = mid;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - offset;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL;
+		}
+	}
 	
 }
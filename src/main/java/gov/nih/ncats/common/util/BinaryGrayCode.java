@@ -18,8 +18,13 @@
 
 package gov.nih.ncats.common.util;
 
+import gov.nih.ncats.common.functions.ThrowingLongIntConsumer;
+
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Simpliified implementation of GrayCode
@@ -32,7 +37,17 @@ import java.util.function.Consumer;
  * Created by katzelda on 6/16/17.
  */
 public class BinaryGrayCode {
-    private final List<BitSet> list;
+    /**
+     * The max number of bits {@link #traverseMasks(LongConsumer)} supports.
+     */
+    public static final int MAX_MASK_BITS = Long.SIZE - 1;
+    /**
+     * Code spaces with fewer bits are never traversed in parallel.
+     */
+    private static final int MIN_PARALLEL_BITS = 12;
+
+    private final int numBits;
+    private List<BitSet> list;
 
     /**
      * Create a new Binary Gray Code with the given
@@ -43,7 +58,17 @@ public class BinaryGrayCode {
         if(numBits< 1){
             throw new IllegalArgumentException("num Bits must be >=1");
         }
+        this.numBits = numBits;
+    }
 
+    public int getNumberOfBits(){
+        return numBits;
+    }
+
+    private synchronized List<BitSet> getList(){
+        if(list !=null){
+            return list;
+        }
         //follows simple algorithm of creating
         //grey code recursively by
         //making a copy of the list, reversing it, then prepending a 1 to each of the copies
@@ -74,18 +99,113 @@ public class BinaryGrayCode {
 
             list.addAll(reflected);
         }
-
+        return list;
     }
 
     public void traverse(Consumer<BitSet> consumer){
         Objects.requireNonNull(consumer);
 
-        for(BitSet bs : list){
+        for(BitSet bs : getList()){
             //make defensive copy
             consumer.accept((BitSet) bs.clone());
         }
     }
 
+    private void checkMaskBits(){
+        if(numBits > MAX_MASK_BITS){
+            throw new IllegalStateException("masks only support up to " + MAX_MASK_BITS + " bits: " + numBits);
+        }
+    }
+
+    /**
+     * Get the code at the given position of the traversal as a mask
+     * where bit i of the mask is the same as bit i of the BitSet
+     * passed to {@link #traverse(Consumer)}.
+     * @param rank the position of the code; the first code has rank 0.
+     * @return the mask.
+     * @throws IndexOutOfBoundsException if rank is not between 0 and 2^numBits (exclusive).
+     * @throws IllegalStateException if there are more than {@link #MAX_MASK_BITS} bits.
+     */
+    public long getMask(long rank){
+        checkMaskBits();
+        if(rank <0 || (rank >>> numBits) !=0){
+            throw new IndexOutOfBoundsException("rank " + rank + " num bits " + numBits);
+        }
+        //the standard reflected code flips bit 0 first
+        //but the BitSets flip bit numBits-1 first so reverse the bits
+        return Long.reverse(rank ^ (rank >>> 1)) >>> (Long.SIZE - numBits);
+    }
+
+    /**
+     * Traverse the same codes as {@link #traverse(Consumer)} in the same order,
+     * but as {@code long} masks so nothing is allocated per code.
+     * @param consumer the consumer of each mask; can not be null.
+     * @throws IllegalStateException if there are more than {@link #MAX_MASK_BITS} bits.
+     */
+    public void traverseMasks(LongConsumer consumer){
+        Objects.requireNonNull(consumer);
+        traverseFlips((mask, flippedBit) -> consumer.accept(mask));
+    }
+
+    /**
+     * Traverse the same codes as {@link #traverseMasks(LongConsumer)}
+     * but also pass the consumer the offset of the only bit that changed from the previous mask,
+     * so incremental algorithms can update their state instead of recomputing it.
+     * @param consumer the consumer of each mask and the flipped bit, which is -1
+     *                 for the first mask; can not be null.
+     * @param <E> the exception that could be thrown by the consumer.
+     * @throws E the exception from the consumer.
+     * @throws IllegalStateException if there are more than {@link #MAX_MASK_BITS} bits.
+     */
+    public <E extends Throwable> void traverseFlips(ThrowingLongIntConsumer<E> consumer) throws E{
+        Objects.requireNonNull(consumer);
+        checkMaskBits();
+        traverseFlips(0, 1L << numBits, consumer);
+    }
+
+    /**
+     * Traverse the masks with ranks from {@code fromRank} (inclusive) to {@code toRank} (exclusive).
+     * {@code 1L << 63} overflows to {@link Long#MIN_VALUE} so stopping
+     * when the rank equals toRank works even for 63 bits.
+     */
+    private <E extends Throwable> void traverseFlips(long fromRank, long toRank, ThrowingLongIntConsumer<E> consumer) throws E{
+        long mask = getMask(fromRank);
+        consumer.accept(mask, -1);
+        int highestBit = numBits -1;
+        for(long rank = fromRank +1; rank != toRank; rank++){
+            int flippedBit = highestBit - Long.numberOfTrailingZeros(rank);
+            mask ^= 1L << flippedBit;
+            consumer.accept(mask, flippedBit);
+        }
+    }
+
+    /**
+     * Traverse every mask like {@link #traverseFlips(ThrowingLongIntConsumer)}
+     * in parallel using the common fork-join pool.
+     * The codes are partitioned by their prefix: the low bits of the masks
+     * which only change between partitions.  Each partition is traversed in order
+     * and its first mask is passed with a flipped bit of -1, so incremental
+     * algorithms know to start over.
+     * @param consumer the consumer of each mask and the flipped bit, which must be
+     *                 thread safe; can not be null.
+     * @throws IllegalStateException if there are more than {@link #MAX_MASK_BITS} bits.
+     */
+    public void parallelTraverseFlips(ThrowingLongIntConsumer<? extends RuntimeException> consumer){
+        Objects.requireNonNull(consumer);
+        checkMaskBits();
+        if(numBits < MIN_PARALLEL_BITS){
+            traverseFlips(consumer);
+            return;
+        }
+        int parallelism = ForkJoinPool.getCommonPoolParallelism() * 8;
+        int prefixBits = Math.min(numBits - MIN_PARALLEL_BITS, 32 - Integer.numberOfLeadingZeros(parallelism -1));
+        int suffixBits = numBits - prefixBits;
+        IntStream.range(0, 1 << prefixBits).parallel().forEach(prefix -> {
+            long fromRank = (long) prefix << suffixBits;
+            traverseFlips(fromRank, fromRank + (1L << suffixBits), consumer);
+        });
+    }
+
     public static void main(String[] args){
         new BinaryGrayCode(3).traverse( bs ->  System.out.println( createPaddedToString(bs)) );
 
@@ -20,11 +20,11 @@ package gov.nih.ncats.common.util;
 
 import gov.nih.ncats.common.sneak.Sneak;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
@@ -57,13 +57,22 @@ public class CachedSupplier<T> implements Supplier<T>, Callable<T>, ResetableCac
         CachedSupplier.generatedVersion.incrementAndGet();
     }
 
+    /**
+     * Get the number of times {@link #resetAllCaches()} has been called
+     * so subclasses can tell when every cache was reset.
+     */
+    static long getGeneratedVersion(){
+        return CachedSupplier.generatedVersion.get();
+    }
+
     private final Supplier<T> c;
     private T cache;
     private volatile boolean runAtLeastOnce=false;
     private AtomicBoolean run=new AtomicBoolean(false);
     private long generatedWithVersion;
-    //most cached suppliers won't have listeners so initialize to 0
-    private List<SupplierInvocationListener> listeners = new ArrayList<>(0);
+    //listeners are rarely changed but may be fired on a prefetch or read-ahead thread
+    //while the list's thread removes them, so copy on write; an empty one shares a 0 length array
+    private final List<SupplierInvocationListener> listeners = new CopyOnWriteArrayList<>();
     public CachedSupplier(final Supplier<T> c){
         this.c= Objects.requireNonNull(c);
     }
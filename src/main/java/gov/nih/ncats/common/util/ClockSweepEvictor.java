@@ -0,0 +1,199 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free approximation of a least recently used eviction policy
+ * for {@link CachedSupplier}s using the CLOCK (second chance) algorithm.
+ * Each {@link StampedCachedSupplier} records the sweep revolution
+ * (epoch) it was last accessed in, a single "hand" walks over the elements
+ * whenever more than {@code capacity} suppliers are computed, and resets
+ * any computed supplier that hasn't been accessed since the hand last went around.
+ * <p>
+ * Only one thread sweeps at a time; other threads never wait for
+ * the sweep, they just carry on computing and reading their values.
+ */
+final class ClockSweepEvictor {
+    /**
+     * The position of the clock hand over the elements being tracked.
+     */
+    interface Hand{
+        /**
+         * Get the next element under the hand and advance it.
+         * @return the next element, which may not be a {@link StampedCachedSupplier},
+         * or {@code null} if the hand has finished a full revolution
+         * and has been wrapped back around to the beginning.
+         */
+        Object next();
+    }
+
+    private final int capacity;
+    private final Hand hand;
+    private final AtomicInteger computedCount = new AtomicInteger();
+    private final AtomicBoolean sweeping = new AtomicBoolean(false);
+    //only written to by the sweeping thread
+    private volatile long epoch = 1;
+
+    ClockSweepEvictor(int capacity, Hand hand) {
+        if(capacity < 1){
+            throw new IllegalArgumentException("capacity must be >= 1");
+        }
+        this.capacity = capacity;
+        this.hand = Objects.requireNonNull(hand);
+    }
+
+    public <T> StampedCachedSupplier<T> create(Supplier<T> supplier){
+        return new StampedCachedSupplier<>(supplier, this);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the number of tracked suppliers that currently hold computed values.
+     * @return the number of computed values, this might be briefly
+     * above capacity while another thread is sweeping.
+     */
+    public int getComputedCount(){
+        return computedCount.get();
+    }
+
+    /**
+     * Stop tracking the given supplier because it was removed from its collection.
+     * The supplier keeps whatever value it has computed and is no longer eligible for eviction.
+     * @param cachedSupplier the supplier to detach; if it isn't a {@link StampedCachedSupplier}
+     *                       then this does nothing.
+     */
+    public void detach(CachedSupplier<?> cachedSupplier){
+        if(cachedSupplier instanceof StampedCachedSupplier){
+            ((StampedCachedSupplier<?>) cachedSupplier).detach();
+        }
+    }
+
+    private void accessed(StampedCachedSupplier<?> cachedSupplier){
+        long currentEpoch = epoch;
+        //only write when it changes to avoid needless cache line traffic
+        if(cachedSupplier.accessStamp != currentEpoch){
+            cachedSupplier.accessStamp = currentEpoch;
+        }
+        while(computedCount.get() > capacity && sweeping.compareAndSet(false, true)){
+            try{
+                sweep();
+            }finally{
+                sweeping.set(false);
+            }
+        }
+    }
+
+    private void sweep(){
+        boolean evictedThisRevolution=false;
+        int revolutionsWithoutEvictions=0;
+        while(computedCount.get() > capacity){
+            Object next = hand.next();
+            if(next ==null){
+                epoch++;
+                if(!evictedThisRevolution && ++revolutionsWithoutEvictions >=2){
+                    //everything is in use; try again on a later access
+                    return;
+                }
+                evictedThisRevolution=false;
+                continue;
+            }
+            if(!(next instanceof StampedCachedSupplier)){
+                continue;
+            }
+            StampedCachedSupplier<?> candidate = (StampedCachedSupplier<?>) next;
+            if(!candidate.counted){
+                continue;
+            }
+            //suppliers reset some other way (like CachedSupplier.resetAllCaches())
+            //are still counted so give them back without waiting for the epoch
+            if(!candidate.hasRun() || candidate.accessStamp < epoch){
+                candidate.resetCache();
+                evictedThisRevolution=true;
+                revolutionsWithoutEvictions=0;
+            }
+        }
+    }
+
+    /**
+     * A {@link CachedSupplier} that stamps each access with the current
+     * epoch of its {@link ClockSweepEvictor}.
+     * @param <T> the type returned by the supplier.
+     */
+    static final class StampedCachedSupplier<T> extends CachedSupplier<T>{
+        private final ClockSweepEvictor evictor;
+        private volatile long accessStamp;
+        //only written while holding this lock
+        private volatile boolean counted;
+        private volatile boolean detached;
+
+        StampedCachedSupplier(Supplier<T> c, ClockSweepEvictor evictor) {
+            super(c);
+            this.evictor = evictor;
+        }
+
+        @Override
+        public T get() {
+            T value = super.get();
+            //outside of our lock so sweeping never holds two supplier locks at once
+            if(!detached) {
+                evictor.accessed(this);
+            }
+            return value;
+        }
+
+        @Override
+        protected T directCall() {
+            T value = super.directCall();
+            //we are synchronized here
+            if(!detached && !counted){
+                counted=true;
+                accessStamp = evictor.epoch;
+                evictor.computedCount.incrementAndGet();
+            }
+            return value;
+        }
+
+        @Override
+        public synchronized void resetCache() {
+            uncount();
+            super.resetCache();
+        }
+
+        private synchronized void detach(){
+            uncount();
+            detached=true;
+        }
+
+        private void uncount(){
+            if(counted){
+                counted=false;
+                evictor.computedCount.decrementAndGet();
+            }
+        }
+    }
+}
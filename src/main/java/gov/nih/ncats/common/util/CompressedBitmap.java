@@ -0,0 +1,1096 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A compressed bitmap of non-negative int positions that is
+ * much smaller than a {@link GrowableBitArray} or {@link BitSet}
+ * when the "on" bits are sparse or clustered.
+ * <p>
+ * The positions are split into chunks of 65536 by their upper 16 bits.
+ * Each chunk that has any on bits is stored in whichever container is smallest:
+ * <ul>
+ *     <li>a sorted array of the lower 16 bits if there are at most 4096 bits set.</li>
+ *     <li>a fixed 8KB bitmap if there are more than 4096 bits set.</li>
+ *     <li>a list of runs of consecutive bits after {@link #runOptimize()} is called
+ *     if that's smaller than either of the above.</li>
+ * </ul>
+ * This is the same layout as a Roaring bitmap.
+ * This class is not Thread-safe.
+ */
+public final class CompressedBitmap {
+
+    private static final int CHUNK_BITS = 1 << 16;
+    private static final int WORDS_PER_CHUNK = CHUNK_BITS / 64;
+    /**
+     * The max number of values in an array container, any more
+     * and a bitmap container is smaller.
+     */
+    private static final int MAX_ARRAY_SIZE = 4096;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    public CompressedBitmap(){
+        keys = new char[4];
+        containers = new Container[4];
+    }
+
+    private CompressedBitmap(CompressedBitmap copy){
+        keys = Arrays.copyOf(copy.keys, copy.keys.length);
+        containers = new Container[copy.containers.length];
+        for(int i=0; i< copy.size; i++){
+            containers[i] = copy.containers[i].copy();
+        }
+        size = copy.size;
+    }
+
+    /**
+     * Create a new CompressedBitmap with the same on bits as the given BitSet.
+     * @param bs the BitSet to copy; can not be null.
+     * @return a new CompressedBitmap, already run optimized.
+     * @throws NullPointerException if bs is null.
+     */
+    public static CompressedBitmap valueOf(BitSet bs){
+        return fromWords(bs.toLongArray());
+    }
+
+    /**
+     * Create a new CompressedBitmap with the same on bits as the given GrowableBitArray.
+     * @param bits the GrowableBitArray to copy; can not be null.
+     * @return a new CompressedBitmap, already run optimized.
+     * @throws NullPointerException if bits is null.
+     */
+    public static CompressedBitmap valueOf(GrowableBitArray bits){
+        return valueOf(bits.asBitSet());
+    }
+
+    private static CompressedBitmap fromWords(long[] words){
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for(int offset = 0; offset < words.length; offset+=WORDS_PER_CHUNK){
+            long[] chunk = Arrays.copyOfRange(words, offset, offset + WORDS_PER_CHUNK);
+            Container container = Container.fromWords(chunk, true);
+            if(container !=null){
+                bitmap.append((char) (offset / WORDS_PER_CHUNK), container);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Create a new instance of CompressedBitmap
+     * that is an exact copy of this instance.
+     * @return a new CompressedBitmap.
+     */
+    public CompressedBitmap copy(){
+        return new CompressedBitmap(this);
+    }
+
+    /**
+     * Create a new BitSet with the same on bits.
+     * @return a new BitSet; will never be null.
+     */
+    public BitSet toBitSet(){
+        if(size ==0){
+            return new BitSet();
+        }
+        long[] words = new long[(keys[size-1]+1) * WORDS_PER_CHUNK];
+        for(int i=0; i< size; i++){
+            containers[i].copyWordsTo(words, keys[i] * WORDS_PER_CHUNK);
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Create a new GrowableBitArray with the same on bits
+     * whose length is one past the last on bit.
+     * @return a new GrowableBitArray; will never be null.
+     */
+    public GrowableBitArray toGrowableBitArray(){
+        return new GrowableBitArray(toBitSet());
+    }
+
+    private static int highBits(int position){
+        if(position <0){
+            throw new IllegalArgumentException("position can not be negative: " + position);
+        }
+        return position >>> 16;
+    }
+
+    private int indexOf(int high){
+        return Arrays.binarySearch(keys, 0, size, (char) high);
+    }
+
+    public boolean contains(int position){
+        if(position <0){
+            return false;
+        }
+        int index = indexOf(position >>> 16);
+        return index >=0 && containers[index].contains((char) position);
+    }
+
+    /**
+     * Turn on the bit at the given position.
+     * @param position the position to turn on; must be &ge; 0.
+     * @return {@code true} if the bit was not already on.
+     */
+    public boolean add(int position){
+        int high = highBits(position);
+        int index = indexOf(high);
+        if(index >=0){
+            Container container = containers[index];
+            int oldCardinality = container.cardinality();
+            containers[index] = container.add((char) position);
+            return containers[index].cardinality() != oldCardinality;
+        }
+        insertContainer(-index -1, (char) high, new ArrayContainer().add((char) position));
+        return true;
+    }
+
+    /**
+     * Turn on all the bits in the given range.
+     * @param range the inclusive range of positions to turn on; can not be null.
+     * @throws IllegalArgumentException if the range includes negative
+     * positions or positions larger than {@link Integer#MAX_VALUE}.
+     */
+    public void add(Range range){
+        long begin = range.getBegin();
+        long end = range.getEnd();
+        if(begin <0 || end > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("range must be between 0 and Integer.MAX_VALUE: " + range);
+        }
+        for(long chunkStart = begin & ~(CHUNK_BITS -1L); chunkStart <= end; chunkStart += CHUNK_BITS){
+            int high = (int) (chunkStart >>> 16);
+            int from = (int) (Math.max(begin, chunkStart) - chunkStart);
+            int to = (int) (Math.min(end, chunkStart + CHUNK_BITS -1) - chunkStart);
+            int index = indexOf(high);
+            long[] words = index >=0 ? containers[index].toWords() : new long[WORDS_PER_CHUNK];
+            setRange(words, 0, from, to +1);
+            Container container = Container.fromWords(words, true);
+            if(index >=0){
+                containers[index] = container;
+            }else{
+                insertContainer(-index -1, (char) high, container);
+            }
+        }
+    }
+
+    /**
+     * Turn off the bit at the given position.
+     * @param position the position to turn off.
+     * @return {@code true} if the bit was on.
+     */
+    public boolean remove(int position){
+        if(position <0){
+            return false;
+        }
+        int index = indexOf(position >>> 16);
+        if(index <0){
+            return false;
+        }
+        Container container = containers[index];
+        int oldCardinality = container.cardinality();
+        Container updated = container.remove((char) position);
+        if(updated.cardinality() ==0){
+            removeContainer(index);
+        }else{
+            containers[index] = updated;
+        }
+        return updated.cardinality() != oldCardinality;
+    }
+
+    /**
+     * Get the number of bits that are on.
+     * @return the number of on bits.
+     */
+    public int cardinality(){
+        int count=0;
+        for(int i=0; i< size; i++){
+            count += containers[i].cardinality();
+        }
+        return count;
+    }
+
+    public boolean isEmpty(){
+        return size ==0;
+    }
+
+    /**
+     * Get the number of on bits that are less than or equal to the given position.
+     * @param position the position to count up to.
+     * @return the rank of the position.
+     */
+    public int rank(int position){
+        if(position <0){
+            return 0;
+        }
+        int high = position >>> 16;
+        int count=0;
+        for(int i=0; i< size; i++){
+            int key = keys[i];
+            if(key > high){
+                break;
+            }
+            if(key < high){
+                count += containers[i].cardinality();
+            }else{
+                count += containers[i].rank((char) position);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the position of the jth on bit.
+     * @param j the 0-based index of the on bit to get.
+     * @return the position of that bit.
+     * @throws IndexOutOfBoundsException if j is negative or &ge; {@link #cardinality()}.
+     */
+    public int select(int j){
+        if(j <0){
+            throw new IndexOutOfBoundsException("j can not be negative: " + j);
+        }
+        int remaining = j;
+        for(int i=0; i< size; i++){
+            int cardinality = containers[i].cardinality();
+            if(remaining < cardinality){
+                return keys[i] << 16 | containers[i].select(remaining);
+            }
+            remaining -= cardinality;
+        }
+        throw new IndexOutOfBoundsException("j: " + j + " cardinality: " + cardinality());
+    }
+
+    /**
+     * Set this bitmap to the intersection of this bitmap and the other one.
+     * @param other the other bitmap; can not be null.
+     */
+    public void and(CompressedBitmap other){
+        int newSize=0;
+        int i=0, j=0;
+        while(i < size && j < other.size){
+            if(keys[i] < other.keys[j]){
+                i++;
+            }else if(keys[i] > other.keys[j]){
+                j++;
+            }else{
+                Container result = containers[i].and(other.containers[j]);
+                if(result !=null){
+                    keys[newSize] = keys[i];
+                    containers[newSize++] = result;
+                }
+                i++;
+                j++;
+            }
+        }
+        Arrays.fill(containers, newSize, size, null);
+        size = newSize;
+    }
+
+    /**
+     * Set this bitmap to the union of this bitmap and the other one.
+     * @param other the other bitmap; can not be null.
+     */
+    public void or(CompressedBitmap other){
+        merge(other, true);
+    }
+
+    /**
+     * Set this bitmap to the symmetric difference of this bitmap and the other one.
+     * @param other the other bitmap; can not be null.
+     */
+    public void xor(CompressedBitmap other){
+        merge(other, false);
+    }
+
+    /**
+     * Turn off all the bits in this bitmap that are on in the other one.
+     * @param other the other bitmap; can not be null.
+     */
+    public void andNot(CompressedBitmap other){
+        int newSize=0;
+        int j=0;
+        for(int i=0; i< size; i++){
+            while(j < other.size && other.keys[j] < keys[i]){
+                j++;
+            }
+            Container result = containers[i];
+            if(j < other.size && other.keys[j] == keys[i]){
+                result = result.andNot(other.containers[j]);
+            }
+            if(result !=null){
+                keys[newSize] = keys[i];
+                containers[newSize++] = result;
+            }
+        }
+        Arrays.fill(containers, newSize, size, null);
+        size = newSize;
+    }
+
+    private void merge(CompressedBitmap other, boolean union){
+        int maxSize = size + other.size;
+        char[] newKeys = new char[Math.max(4, maxSize)];
+        Container[] newContainers = new Container[newKeys.length];
+        int newSize=0;
+        int i=0, j=0;
+        while(i < size || j < other.size){
+            Container result;
+            char key;
+            if(j == other.size || (i < size && keys[i] < other.keys[j])){
+                key = keys[i];
+                result = containers[i++];
+            }else if(i == size || keys[i] > other.keys[j]){
+                key = other.keys[j];
+                result = other.containers[j++].copy();
+            }else{
+                key = keys[i];
+                result = union ? containers[i].or(other.containers[j]) : containers[i].xor(other.containers[j]);
+                i++;
+                j++;
+            }
+            if(result !=null){
+                newKeys[newSize] = key;
+                newContainers[newSize++] = result;
+            }
+        }
+        keys = newKeys;
+        containers = newContainers;
+        size = newSize;
+    }
+
+    /**
+     * Convert each chunk to use runs of consecutive bits if that is smaller
+     * than its current representation.  This is best called after bulk
+     * loading data that has long stretches of on bits; later changes
+     * to a run container will convert it back.
+     */
+    public void runOptimize(){
+        for(int i=0; i< size; i++){
+            containers[i] = Container.fromWords(containers[i].toWords(), true);
+        }
+    }
+
+    /**
+     * Call the given consumer for each on bit in ascending order.
+     * @param consumer the consumer; can not be null.
+     */
+    public void forEach(IntConsumer consumer){
+        for(int i=0; i< size; i++){
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    /**
+     * Get an {@link IntStream} of all the on bit positions in ascending order.
+     * @return an IntStream that may be empty.
+     */
+    public IntStream stream(){
+        return StreamSupport.intStream(Spliterators.spliterator(iterator(), cardinality(),
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Iterate over the on bit positions in ascending order.
+     * @return a new iterator.
+     */
+    public PrimitiveIterator.OfInt iterator(){
+        return new PrimitiveIterator.OfInt() {
+            private int containerIndex=0;
+            private PrimitiveIterator.OfInt current = size ==0 ? null : containers[0].iterator(keys[0] << 16);
+            @Override
+            public int nextInt() {
+                if(!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                return current.nextInt();
+            }
+
+            @Override
+            public boolean hasNext() {
+                while(current !=null && !current.hasNext()){
+                    containerIndex++;
+                    current = containerIndex < size ? containers[containerIndex].iterator(keys[containerIndex] << 16) : null;
+                }
+                return current !=null;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompressedBitmap)) {
+            return false;
+        }
+        CompressedBitmap other = (CompressedBitmap) o;
+        if(size != other.size || !Arrays.equals(Arrays.copyOf(keys, size), Arrays.copyOf(other.keys, other.size))){
+            return false;
+        }
+        for(int i=0; i< size; i++){
+            if(containers[i].cardinality() != other.containers[i].cardinality()
+                    || !Arrays.equals(containers[i].toWords(), other.containers[i].toWords())){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        PrimitiveIterator.OfInt iter = iterator();
+        while(iter.hasNext()){
+            hash = 31 * hash + iter.nextInt();
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedBitmap{cardinality=" + cardinality() + ", chunks=" + size + "}";
+    }
+
+    /**
+     * Turn on the bits from start (inclusive) to end (exclusive)
+     * of the chunk whose words start at the given offset.
+     */
+    private static void setRange(long[] words, int wordOffset, int start, int end){
+        int firstWord = wordOffset + (start >>> 6);
+        int lastWord = wordOffset + ((end-1) >>> 6);
+        long firstMask = -1L << start;
+        long lastMask = -1L >>> -end;
+        if(firstWord == lastWord){
+            words[firstWord] |= firstMask & lastMask;
+        }else{
+            words[firstWord] |= firstMask;
+            for(int w = firstWord+1; w < lastWord; w++){
+                words[w] = -1L;
+            }
+            words[lastWord] |= lastMask;
+        }
+    }
+
+    private void append(char key, Container container){
+        insertContainer(size, key, container);
+    }
+
+    private void insertContainer(int index, char key, Container container){
+        if(size == keys.length){
+            int newCapacity = (keys.length * 3)/2 +1;
+            keys = Arrays.copyOf(keys, newCapacity);
+            containers = Arrays.copyOf(containers, newCapacity);
+        }
+        System.arraycopy(keys, index, keys, index+1, size - index);
+        System.arraycopy(containers, index, containers, index+1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index){
+        int numMoved = size - index -1;
+        System.arraycopy(keys, index+1, keys, index, numMoved);
+        System.arraycopy(containers, index+1, containers, index, numMoved);
+        containers[--size] = null;
+    }
+
+    /**
+     * The on bits for a single chunk of 65536 positions, stored as the lower 16 bits.
+     * Mutating methods may return a different container if a different type
+     * is now a better fit.
+     */
+    private abstract static class Container{
+
+        abstract boolean contains(char value);
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract int cardinality();
+
+        /**
+         * Number of values &le; the given value.
+         */
+        abstract int rank(char value);
+
+        abstract int select(int j);
+
+        abstract void forEach(int highBits, IntConsumer consumer);
+
+        abstract PrimitiveIterator.OfInt iterator(int highBits);
+
+        abstract Container copy();
+
+        /**
+         * Copy the bits into the given word array starting at the given word offset.
+         */
+        abstract void copyWordsTo(long[] words, int wordOffset);
+
+        long[] toWords(){
+            long[] words = new long[WORDS_PER_CHUNK];
+            copyWordsTo(words, 0);
+            return words;
+        }
+
+        Container and(Container other){
+            if(this instanceof ArrayContainer){
+                return ((ArrayContainer) this).filter(other, true);
+            }
+            if(other instanceof ArrayContainer){
+                return ((ArrayContainer) other).filter(this, true);
+            }
+            long[] words = toWords();
+            long[] otherWords = other.toWords();
+            for(int i=0; i< WORDS_PER_CHUNK; i++){
+                words[i] &= otherWords[i];
+            }
+            return fromWords(words, false);
+        }
+
+        Container andNot(Container other){
+            if(this instanceof ArrayContainer){
+                return ((ArrayContainer) this).filter(other, false);
+            }
+            long[] words = toWords();
+            long[] otherWords = other.toWords();
+            for(int i=0; i< WORDS_PER_CHUNK; i++){
+                words[i] &= ~otherWords[i];
+            }
+            return fromWords(words, false);
+        }
+
+        Container or(Container other){
+            long[] words = toWords();
+            other.orInto(words);
+            return fromWords(words, false);
+        }
+
+        Container xor(Container other){
+            long[] words = toWords();
+            long[] otherWords = other.toWords();
+            for(int i=0; i< WORDS_PER_CHUNK; i++){
+                words[i] ^= otherWords[i];
+            }
+            return fromWords(words, false);
+        }
+
+        void orInto(long[] words){
+            long[] otherWords = toWords();
+            for(int i=0; i< WORDS_PER_CHUNK; i++){
+                words[i] |= otherWords[i];
+            }
+        }
+
+        /**
+         * Make the smallest container for the given words.
+         * @return the new container or {@code null} if there are no bits set.
+         */
+        static Container fromWords(long[] words, boolean allowRuns){
+            int cardinality=0;
+            int numberOfRuns=0;
+            long previousWord = 0;
+            for(long word : words){
+                cardinality += Long.bitCount(word);
+                //a run starts at each on bit whose lower neighbor is off
+                numberOfRuns += Long.bitCount(word & ~((word << 1) | (previousWord >>> 63)));
+                previousWord = word;
+            }
+            if(cardinality ==0){
+                return null;
+            }
+            int bestNonRunBytes = cardinality <= MAX_ARRAY_SIZE ? 2*cardinality : 8 * WORDS_PER_CHUNK;
+            if(allowRuns && 4 * numberOfRuns < bestNonRunBytes){
+                return RunContainer.fromWords(words, numberOfRuns);
+            }
+            if(cardinality <= MAX_ARRAY_SIZE){
+                return ArrayContainer.fromWords(words, cardinality);
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+    }
+
+    private static final class ArrayContainer extends Container{
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer(){
+            values = new char[4];
+        }
+        ArrayContainer(char[] values, int cardinality){
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        static ArrayContainer fromWords(long[] words, int cardinality){
+            char[] values = new char[cardinality];
+            int count=0;
+            for(int i=0; i< words.length; i++){
+                long word = words[i];
+                while(word !=0){
+                    values[count++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word -1;
+                }
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >=0;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if(index >=0){
+                return this;
+            }
+            if(cardinality >= MAX_ARRAY_SIZE){
+                return new BitmapContainer(toWords(), cardinality).add(value);
+            }
+            int insertionPoint = -index -1;
+            if(cardinality == values.length){
+                values = Arrays.copyOf(values, Math.min(MAX_ARRAY_SIZE, (values.length *3)/2 +1));
+            }
+            System.arraycopy(values, insertionPoint, values, insertionPoint+1, cardinality - insertionPoint);
+            values[insertionPoint] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if(index >=0){
+                System.arraycopy(values, index+1, values, index, cardinality - index -1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int rank(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            return index >=0 ? index +1 : -index -1;
+        }
+
+        @Override
+        int select(int j) {
+            return values[j];
+        }
+
+        @Override
+        void forEach(int highBits, IntConsumer consumer) {
+            for(int i=0; i< cardinality; i++){
+                consumer.accept(highBits | values[i]);
+            }
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator(int highBits) {
+            return new PrimitiveIterator.OfInt() {
+                private int index=0;
+                @Override
+                public int nextInt() {
+                    return highBits | values[index++];
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return index < cardinality;
+                }
+            };
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+
+        @Override
+        void copyWordsTo(long[] words, int wordOffset) {
+            for(int i=0; i< cardinality; i++){
+                int value = values[i];
+                words[wordOffset + (value >>> 6)] |= 1L << value;
+            }
+        }
+
+        @Override
+        void orInto(long[] words) {
+            copyWordsTo(words, 0);
+        }
+
+        @Override
+        Container or(Container other) {
+            if(other instanceof ArrayContainer && cardinality + other.cardinality() <= MAX_ARRAY_SIZE){
+                ArrayContainer otherArray = (ArrayContainer) other;
+                char[] merged = new char[cardinality + otherArray.cardinality];
+                int count=0, i=0, j=0;
+                while(i < cardinality || j < otherArray.cardinality){
+                    if(j == otherArray.cardinality || (i < cardinality && values[i] < otherArray.values[j])){
+                        merged[count++] = values[i++];
+                    }else if(i == cardinality || values[i] > otherArray.values[j]){
+                        merged[count++] = otherArray.values[j++];
+                    }else{
+                        merged[count++] = values[i++];
+                        j++;
+                    }
+                }
+                return new ArrayContainer(merged, count);
+            }
+            return super.or(other);
+        }
+
+        /**
+         * Keep only the values that are (or are not) in the other container.
+         */
+        Container filter(Container other, boolean keepIfContained){
+            char[] kept = new char[Math.max(1, cardinality)];
+            int count=0;
+            for(int i=0; i< cardinality; i++){
+                if(other.contains(values[i]) == keepIfContained){
+                    kept[count++] = values[i];
+                }
+            }
+            return count ==0 ? null : new ArrayContainer(kept, count);
+        }
+    }
+
+    private static final class BitmapContainer extends Container{
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) !=0;
+        }
+
+        @Override
+        Container add(char value) {
+            long mask = 1L << value;
+            int index = value >>> 6;
+            if((words[index] & mask) ==0){
+                words[index] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long mask = 1L << value;
+            int index = value >>> 6;
+            if((words[index] & mask) !=0){
+                words[index] &= ~mask;
+                cardinality--;
+                if(cardinality <= MAX_ARRAY_SIZE){
+                    return ArrayContainer.fromWords(words, cardinality);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int rank(char value) {
+            int index = value >>> 6;
+            int count=0;
+            for(int i=0; i< index; i++){
+                count += Long.bitCount(words[i]);
+            }
+            return count + Long.bitCount(words[index] & (-1L >>> (63 - (value & 63))));
+        }
+
+        @Override
+        int select(int j) {
+            int remaining = j;
+            for(int i=0; i< WORDS_PER_CHUNK; i++){
+                int bits = Long.bitCount(words[i]);
+                if(remaining < bits){
+                    long word = words[i];
+                    for(int k=0; k< remaining; k++){
+                        word &= word -1;
+                    }
+                    return i * 64 + Long.numberOfTrailingZeros(word);
+                }
+                remaining -= bits;
+            }
+            throw new IndexOutOfBoundsException("j: " + j);
+        }
+
+        @Override
+        void forEach(int highBits, IntConsumer consumer) {
+            for(int i=0; i< WORDS_PER_CHUNK; i++){
+                long word = words[i];
+                while(word !=0){
+                    consumer.accept(highBits | (i * 64 + Long.numberOfTrailingZeros(word)));
+                    word &= word -1;
+                }
+            }
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator(int highBits) {
+            return new PrimitiveIterator.OfInt() {
+                private int wordIndex=0;
+                private long word = words[0];
+                @Override
+                public int nextInt() {
+                    hasNext();
+                    int value = highBits | (wordIndex * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word -1;
+                    return value;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    while(word ==0 && wordIndex < WORDS_PER_CHUNK -1){
+                        word = words[++wordIndex];
+                    }
+                    return word !=0;
+                }
+            };
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(Arrays.copyOf(words, words.length), cardinality);
+        }
+
+        @Override
+        void copyWordsTo(long[] dest, int wordOffset) {
+            System.arraycopy(words, 0, dest, wordOffset, WORDS_PER_CHUNK);
+        }
+
+        @Override
+        void orInto(long[] dest) {
+            for(int i=0; i< WORDS_PER_CHUNK; i++){
+                dest[i] |= words[i];
+            }
+        }
+    }
+
+    private static final class RunContainer extends Container{
+        /**
+         * pairs of (start, length -1) sorted by start.
+         */
+        private final char[] runs;
+        private final int numberOfRuns;
+        private final int cardinality;
+
+        private RunContainer(char[] runs, int numberOfRuns) {
+            this.runs = runs;
+            this.numberOfRuns = numberOfRuns;
+            int count=0;
+            for(int i=0; i< numberOfRuns; i++){
+                count += runs[2*i+1] +1;
+            }
+            this.cardinality = count;
+        }
+
+        static RunContainer fromWords(long[] words, int numberOfRuns){
+            char[] runs = new char[2* numberOfRuns];
+            int count=0;
+            int start = -1;
+            for(int bit=0; bit < CHUNK_BITS; ){
+                long word = words[bit >>> 6] >>> (bit & 63);
+                if(start <0){
+                    if(word ==0){
+                        bit = (bit | 63) +1;
+                        continue;
+                    }
+                    start = bit + Long.numberOfTrailingZeros(word);
+                    bit = start;
+                }else{
+                    long inverted = ~word;
+                    if((bit & 63) !=0){
+                        //don't count the bits shifted in from the top as off
+                        inverted &= -1L >>> (bit & 63);
+                    }
+                    if(inverted ==0){
+                        bit = (bit | 63) +1;
+                        continue;
+                    }
+                    int end = bit + Long.numberOfTrailingZeros(inverted);
+                    runs[count++] = (char) start;
+                    runs[count++] = (char) (end - start -1);
+                    start = -1;
+                    bit = end;
+                }
+            }
+            if(start >=0){
+                runs[count++] = (char) start;
+                runs[count++] = (char) (CHUNK_BITS - start -1);
+            }
+            return new RunContainer(runs, count/2);
+        }
+
+        /**
+         * Index of the run whose start is the largest start &le; value, or -1.
+         */
+        private int runIndexFor(char value){
+            int low=0, high = numberOfRuns -1;
+            int found = -1;
+            while(low <= high){
+                int mid = (low + high) >>> 1;
+                if(runs[2*mid] <= value){
+                    found = mid;
+                    low = mid+1;
+                }else{
+                    high = mid -1;
+                }
+            }
+            return found;
+        }
+
+        @Override
+        boolean contains(char value) {
+            int index = runIndexFor(value);
+            return index >=0 && value <= runs[2*index] + runs[2*index+1];
+        }
+
+        @Override
+        Container add(char value) {
+            if(contains(value)){
+                return this;
+            }
+            return Container.fromWords(toWords(), false).add(value);
+        }
+
+        @Override
+        Container remove(char value) {
+            if(!contains(value)){
+                return this;
+            }
+            long[] words = toWords();
+            words[value >>> 6] &= ~(1L << value);
+            Container container = Container.fromWords(words, false);
+            //removed the only value
+            return container ==null ? new ArrayContainer() : container;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int rank(char value) {
+            int count=0;
+            for(int i=0; i< numberOfRuns; i++){
+                int start = runs[2*i];
+                if(start > value){
+                    break;
+                }
+                int end = start + runs[2*i+1];
+                count += Math.min(end, value) - start +1;
+            }
+            return count;
+        }
+
+        @Override
+        int select(int j) {
+            int remaining = j;
+            for(int i=0; i< numberOfRuns; i++){
+                int length = runs[2*i+1] +1;
+                if(remaining < length){
+                    return runs[2*i] + remaining;
+                }
+                remaining -= length;
+            }
+            throw new IndexOutOfBoundsException("j: " + j);
+        }
+
+        @Override
+        void forEach(int highBits, IntConsumer consumer) {
+            for(int i=0; i< numberOfRuns; i++){
+                int start = runs[2*i];
+                int end = start + runs[2*i+1];
+                for(int v = start; v <= end; v++){
+                    consumer.accept(highBits | v);
+                }
+            }
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator(int highBits) {
+            return new PrimitiveIterator.OfInt() {
+                private int runIndex=0;
+                private int offsetInRun=0;
+                @Override
+                public int nextInt() {
+                    int value = highBits | (runs[2*runIndex] + offsetInRun);
+                    if(offsetInRun++ == runs[2*runIndex+1]){
+                        runIndex++;
+                        offsetInRun=0;
+                    }
+                    return value;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return runIndex < numberOfRuns;
+                }
+            };
+        }
+
+        @Override
+        Container copy() {
+            //immutable
+            return this;
+        }
+
+        @Override
+        void copyWordsTo(long[] words, int wordOffset) {
+            for(int i=0; i< numberOfRuns; i++){
+                int start = runs[2*i];
+                setRange(words, wordOffset, start, start + runs[2*i+1] +1);
+            }
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package gov.nih.ncats.common.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An append only sequence of sorted (non-decreasing) {@code long}s,
+ * such as file offsets, that is stored compressed.
+ * Values are grouped into blocks of {@value #BLOCK_SIZE};
+ * each block stores the difference between consecutive values
+ * bit packed using only as many bits as the largest difference in that block needs.
+ * A skip index keeps the first value, word offset and bit width of each block
+ * so {@link #get(long)} only has to decode part of one block
+ * and {@link #binarySearch(long)} only has to decode one block
+ * after a binary search of the block's first values.
+ * The most recent, incomplete, block is kept uncompressed
+ * until it fills up.
+ * <p>
+ * Offsets are {@code long}s so this sequence can hold more than
+ * {@link Integer#MAX_VALUE} values.
+ * This class is not Thread-safe.
+ *
+ * @since 0.3.7
+ */
+public final class CompressedSortedLongArray {
+
+    private static final int BLOCK_SHIFT = 7;
+    /**
+     * The number of values in each compressed block.
+     */
+    public static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    /**
+     * Number of deltas in each block, the first value
+     * of the block is stored in the skip index.
+     */
+    private static final int DELTAS_PER_BLOCK = BLOCK_SIZE - 1;
+
+    /**
+     * The bit packed deltas of all the full blocks;
+     * each block starts at a new word.
+     */
+    private final GrowableLongArray words = new GrowableLongArray(0, true);
+    /**
+     * Skip index: the first value of each full block.
+     */
+    private final GrowableLongArray blockFirstValues = new GrowableLongArray(0, true);
+    /**
+     * Skip index: the offset into {@link #words} where each full block starts.
+     */
+    private final GrowableIntArray blockWordOffsets = new GrowableIntArray(0, true);
+    /**
+     * Skip index: the number of bits used for each delta in each full block.
+     */
+    private final GrowableByteArray blockBitWidths = new GrowableByteArray(0, true);
+
+    private final long[] currentBlock = new long[BLOCK_SIZE];
+    private int currentBlockLength;
+
+    private long currentLength;
+    private long lastValue;
+
+    /**
+     * Get the number of values in this sequence.
+     * @return the number of values; will always be >=0.
+     */
+    public long getCurrentLength() {
+        return currentLength;
+    }
+    /**
+     * Get an estimate of the number of bytes used to store
+     * the values of this sequence including the skip index.
+     * @return the number of bytes; will always be >0.
+     */
+    public long getCompressedSizeInBytes(){
+        return (long) words.getCurrentLength() * Long.BYTES
+                + (long) blockFirstValues.getCurrentLength() * (Long.BYTES + Integer.BYTES + 1)
+                + (long) currentBlock.length * Long.BYTES;
+    }
+    /**
+     * Append the given value to the end of this sequence.
+     * @param value the value to append; must be greater than or
+     * equal to the last value in this sequence.
+     * @throws IllegalArgumentException if value is less than the last value.
+     */
+    public void append(long value){
+        if(currentLength >0 && value < lastValue){
+            throw new IllegalArgumentException("values must be appended in sorted order: " + value + " < " + lastValue);
+        }
+        currentBlock[currentBlockLength++] = value;
+        lastValue = value;
+        currentLength++;
+        if(currentBlockLength == BLOCK_SIZE){
+            compressCurrentBlock();
+        }
+    }
+    /**
+     * Append all the given values in order.
+     * @param values the sorted values to append; can not be null.
+     * @throws IllegalArgumentException if the values are not sorted
+     * or the first value is less than the last value in this sequence.
+     * Any values before the out of order value will have been appended.
+     * @throws NullPointerException if values is null.
+     */
+    public void append(long[] values){
+        for(long value : values){
+            append(value);
+        }
+    }
+
+    private void compressCurrentBlock(){
+        long allDeltas = 0;
+        for(int i=1; i< BLOCK_SIZE; i++){
+            //OR-ing the deltas has the same highest bit as the largest delta
+            allDeltas |= currentBlock[i] - currentBlock[i-1];
+        }
+        int bitWidth = 64 - Long.numberOfLeadingZeros(allDeltas);
+        long[] packed = new long[(DELTAS_PER_BLOCK * bitWidth + 63) >>> 6];
+        long bitOffset = 0;
+        for(int i=1; i< BLOCK_SIZE && bitWidth >0; i++, bitOffset+=bitWidth){
+            long delta = currentBlock[i] - currentBlock[i-1];
+            int word = (int) (bitOffset >>> 6);
+            int shift = (int) (bitOffset & 63);
+            packed[word] |= delta << shift;
+            if(shift + bitWidth > 64){
+                packed[word +1] |= delta >>> (64 - shift);
+            }
+        }
+        blockFirstValues.append(currentBlock[0]);
+        blockWordOffsets.append(words.getCurrentLength());
+        blockBitWidths.append((byte) bitWidth);
+        words.append(packed);
+        currentBlockLength = 0;
+    }
+
+    private void assertValidOffset(long offset) {
+        if (offset <0 || offset >= currentLength){
+            throw new IndexOutOfBoundsException(
+                    "Index: "+offset+", Size: "+currentLength);
+        }
+    }
+    /**
+     * Get the value at the given offset.
+     * This only decodes the deltas of the block
+     * containing the offset up to that offset.
+     * @param offset the offset of the value to get.
+     * @return the value.
+     * @throws IndexOutOfBoundsException if offset is out of bounds.
+     */
+    public long get(long offset){
+        assertValidOffset(offset);
+        int block = (int) (offset >>> BLOCK_SHIFT);
+        int within = (int) (offset & BLOCK_MASK);
+        if(block == blockFirstValues.getCurrentLength()){
+            return currentBlock[within];
+        }
+        long value = blockFirstValues.get(block);
+        int bitWidth = blockBitWidths.get(block);
+        if(bitWidth ==0){
+            return value;
+        }
+        long wordOffset = blockWordOffsets.get(block);
+        for(int i=0; i< within; i++){
+            value += readBits(wordOffset, (long) i * bitWidth, bitWidth);
+        }
+        return value;
+    }
+
+    private long readBits(long wordOffset, long bitOffset, int bitWidth){
+        int word = (int) (wordOffset + (bitOffset >>> 6));
+        int shift = (int) (bitOffset & 63);
+        long bits = words.get(word) >>> shift;
+        if(shift + bitWidth > 64){
+            bits |= words.get(word +1) << (64 - shift);
+        }
+        return bitWidth == 64 ? bits : bits & ((1L << bitWidth) -1);
+    }
+    /**
+     * Decode all the values of the given block into the given array.
+     * @return the number of values in the block.
+     */
+    private int decodeBlock(int block, long[] out){
+        if(block == blockFirstValues.getCurrentLength()){
+            System.arraycopy(currentBlock, 0, out, 0, currentBlockLength);
+            return currentBlockLength;
+        }
+        long value = blockFirstValues.get(block);
+        int bitWidth = blockBitWidths.get(block);
+        long wordOffset = blockWordOffsets.get(block);
+        out[0] = value;
+        for(int i=1; i< BLOCK_SIZE; i++){
+            if(bitWidth >0){
+                value += readBits(wordOffset, (long) (i-1) * bitWidth, bitWidth);
+            }
+            out[i] = value;
+        }
+        return BLOCK_SIZE;
+    }
+    /**
+     * Searches this sequence for the given value using a binary search
+     * of the skip index followed by decoding a single block.
+     * If this sequence contains
+     * multiple elements with the specified value, there is no guarantee which
+     * one will be found.
+     *
+     * @param key the value to be searched for.
+     * @return index of the search key, if it is contained in this sequence;
+     *	       otherwise, <tt>(-(<i>insertion point</i>) - 1)</tt>.  The
+     *	       <i>insertion point</i> is defined as the point at which the
+     *	       key would be inserted: the index of the first
+     *	       element greater than the key, or {@link #getCurrentLength()} if all
+     *	       elements are less than the specified key.
+     */
+    public long binarySearch(long key){
+        if(currentLength ==0){
+            return -1;
+        }
+        int numberOfBlocks = blockFirstValues.getCurrentLength() + (currentBlockLength >0 ? 1 : 0);
+        //find the last block whose first value is <= key
+        int low = 0;
+        int high = numberOfBlocks -1;
+        while(low <= high){
+            int mid = (low + high) >>> 1;
+            if(firstValueOf(mid) <= key){
+                low = mid +1;
+            }else{
+                high = mid -1;
+            }
+        }
+        int block = high;
+        if(block <0){
+            return -1;
+        }
+        long[] values = new long[BLOCK_SIZE];
+        int length = decodeBlock(block, values);
+        long blockStart = (long) block << BLOCK_SHIFT;
+        int index = Arrays.binarySearch(values, 0, length, key);
+        if(index >=0){
+            return blockStart + index;
+        }
+        return -(blockStart + (-index -1)) -1;
+    }
+
+    private long firstValueOf(int block){
+        if(block == blockFirstValues.getCurrentLength()){
+            return currentBlock[0];
+        }
+        return blockFirstValues.get(block);
+    }
+    /**
+     * Create a new iterator that decodes
+     * one block at a time.
+     * @return a new iterator; will never be null.
+     */
+    public PrimitiveIterator.OfLong iterator(){
+        return new PrimitiveIterator.OfLong() {
+            private final long[] decoded = new long[BLOCK_SIZE];
+            private int decodedLength;
+            private int decodedOffset;
+            private int nextBlock;
+            private long remaining = currentLength;
+
+            @Override
+            public boolean hasNext() {
+                return remaining >0;
+            }
+
+            @Override
+            public long nextLong() {
+                if(!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                if(decodedOffset == decodedLength){
+                    decodedLength = decodeBlock(nextBlock++, decoded);
+                    decodedOffset = 0;
+                }
+                remaining--;
+                return decoded[decodedOffset++];
+            }
+        };
+    }
+    /**
+     * Create a sequential {@link LongStream}
+     * which decodes the values a block at a time.
+     * @return a new {@link LongStream}
+     * will never be null but may be empty.
+     */
+    public LongStream stream(){
+        return StreamSupport.longStream(Spliterators.spliterator(iterator(), currentLength,
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedSortedLongArray{" +
+                "currentLength=" + currentLength +
+                ", compressedSizeInBytes=" + getCompressedSizeInBytes() +
+                '}';
+    }
+}
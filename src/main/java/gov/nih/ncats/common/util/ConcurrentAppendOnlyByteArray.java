@@ -0,0 +1,285 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package gov.nih.ncats.common.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A thread-safe, append only, array of bytes that many
+ * threads can append to concurrently without locking.
+ * Each append atomically claims the next region of the array
+ * with a compare-and-set on the length and then copies its bytes
+ * into fixed size chunks of storage, so writers only contend
+ * on a single CAS no matter how many bytes they append.
+ * <p>
+ * The bytes of each append are always contiguous; appends from
+ * different threads are ordered by when they claimed their regions.
+ * Appends are published in that same order so a {@link Snapshot}
+ * only ever sees fully written appends, and since bytes are never
+ * modified once written, a snapshot never changes.
+ * <p>
+ * Publishing never waits on another writer either: a writer that
+ * finishes before the writers of earlier regions just records its
+ * region as completed, and whichever writer fills the gap
+ * publishes every contiguous completed region after its own.
+ *
+ * @since 0.3.7
+ */
+public final class ConcurrentAppendOnlyByteArray {
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE -1;
+
+    private static final int DIRECTORY_SHIFT = 10;
+    private static final int DIRECTORY_SIZE = 1 << DIRECTORY_SHIFT;
+    private static final int DIRECTORY_MASK = DIRECTORY_SIZE -1;
+    /**
+     * The maximum number of bytes this array can hold (64GB).
+     */
+    public static final long MAX_LENGTH = 1L << (CHUNK_SHIFT + 2 * DIRECTORY_SHIFT);
+    /**
+     * Two levels of lazily allocated chunks so an empty
+     * array only needs the top level directory.
+     */
+    private final AtomicReferenceArray<AtomicReferenceArray<byte[]>> directories = new AtomicReferenceArray<>(DIRECTORY_SIZE);
+    /**
+     * The length including regions that are still being written.
+     */
+    private final AtomicLong claimedLength = new AtomicLong();
+    /**
+     * The length of the prefix whose bytes have all been written.
+     */
+    private final AtomicLong publishedLength = new AtomicLong();
+    /**
+     * Regions that have been written but not yet published
+     * because an earlier region is still being written,
+     * keyed by their start offset and mapped to their end offset.
+     */
+    private final ConcurrentMap<Long, Long> completedRegions = new ConcurrentHashMap<>();
+
+    /**
+     * Get the number of bytes that have been completely appended.
+     * @return the length; will always be >=0.
+     */
+    public long getLength(){
+        return publishedLength.get();
+    }
+
+    public long append(byte value){
+        return append(new byte[]{value}, 0, 1);
+    }
+
+    public long append(byte[] bytes){
+        return append(bytes, 0, bytes.length);
+    }
+    /**
+     * Append the current values of the given {@link GrowableByteArray}
+     * as one contiguous region.
+     * The given array must not be modified by another thread during this call.
+     * @param other the bytes to append; can not be null.
+     * @return the offset in this array of the first appended byte.
+     * @throws IllegalStateException if appending would exceed {@link #MAX_LENGTH}.
+     * @throws NullPointerException if other is null.
+     */
+    public long append(GrowableByteArray other){
+        return append(other.asByteBuffer());
+    }
+    /**
+     * Append the given range of bytes as one contiguous region.
+     * @param bytes the bytes to append; can not be null.
+     * @param offset the offset into bytes of the first byte to append.
+     * @param length the number of bytes to append.
+     * @return the offset in this array of the first appended byte.
+     * @throws IndexOutOfBoundsException if offset or length are out of bounds of the given array.
+     * @throws IllegalStateException if appending would exceed {@link #MAX_LENGTH}.
+     * @throws NullPointerException if bytes is null.
+     */
+    public long append(byte[] bytes, int offset, int length){
+        Objects.requireNonNull(bytes);
+        if(offset <0 || length <0 || offset + length > bytes.length){
+            throw new IndexOutOfBoundsException("offset " + offset + " length " + length + " array length " + bytes.length);
+        }
+        long start = claim(length);
+        long end = start + length;
+        try{
+            for(long position = start; position < end;){
+                int within = (int) (position & CHUNK_MASK);
+                int n = (int) Math.min(end - position, CHUNK_SIZE - within);
+                System.arraycopy(bytes, offset, chunkFor(position), within, n);
+                position+=n;
+                offset+=n;
+            }
+        }finally{
+            publish(start, end);
+        }
+        return start;
+    }
+    /**
+     * Append the remaining bytes of the given buffer as one
+     * contiguous region.  The buffer's position is advanced to its limit.
+     * @param buffer the bytes to append; can not be null.
+     * @return the offset in this array of the first appended byte.
+     * @throws IllegalStateException if appending would exceed {@link #MAX_LENGTH}.
+     * @throws NullPointerException if buffer is null.
+     */
+    public long append(ByteBuffer buffer){
+        int length = buffer.remaining();
+        long start = claim(length);
+        long end = start + length;
+        try{
+            for(long position = start; position < end;){
+                int within = (int) (position & CHUNK_MASK);
+                int n = (int) Math.min(end - position, CHUNK_SIZE - within);
+                buffer.get(chunkFor(position), within, n);
+                position+=n;
+            }
+        }finally{
+            publish(start, end);
+        }
+        return start;
+    }
+
+    private long claim(int length){
+        while(true){
+            long start = claimedLength.get();
+            long end = start + length;
+            if(end > MAX_LENGTH){
+                throw new IllegalStateException("appending " + length + " bytes would exceed max length of " + MAX_LENGTH);
+            }
+            if(claimedLength.compareAndSet(start, end)){
+                return start;
+            }
+        }
+    }
+    /**
+     * Mark our region as completed and then publish as many
+     * contiguous completed regions as we can.  Even if the copy failed
+     * the region must be published or no later region would ever be.
+     * <p>
+     * Only the writer that removes the region starting at the
+     * current published length may advance it, so the
+     * published length only moves forward one whole region at a time.
+     * After advancing, that writer checks again for a region
+     * that was completed while it was publishing.
+     */
+    private void publish(long start, long end){
+        if(start == end){
+            //empty appends have nothing to publish and may share a start with another region
+            return;
+        }
+        completedRegions.put(start, end);
+        while(true){
+            long published = publishedLength.get();
+            Long next = completedRegions.remove(published);
+            if(next ==null){
+                return;
+            }
+            publishedLength.set(next);
+        }
+    }
+
+    private byte[] chunkFor(long position){
+        long chunkIndex = position >>> CHUNK_SHIFT;
+        int directoryIndex = (int) (chunkIndex >>> DIRECTORY_SHIFT);
+        AtomicReferenceArray<byte[]> directory = directories.get(directoryIndex);
+        if(directory ==null){
+            directories.compareAndSet(directoryIndex, null, new AtomicReferenceArray<>(DIRECTORY_SIZE));
+            directory = directories.get(directoryIndex);
+        }
+        int offsetInDirectory = (int) (chunkIndex & DIRECTORY_MASK);
+        byte[] chunk = directory.get(offsetInDirectory);
+        if(chunk ==null){
+            directory.compareAndSet(offsetInDirectory, null, new byte[CHUNK_SIZE]);
+            chunk = directory.get(offsetInDirectory);
+        }
+        return chunk;
+    }
+    /**
+     * Create a read-only snapshot of all the bytes that have been
+     * completely appended so far.  Appends that happen after
+     * this call are not visible to the snapshot.
+     * @return a new Snapshot; will never be null.
+     */
+    public Snapshot snapshot(){
+        return new Snapshot(publishedLength.get());
+    }
+    /**
+     * An immutable view of a prefix of a {@link ConcurrentAppendOnlyByteArray}
+     * which shares its storage.  Snapshots are thread-safe.
+     */
+    public final class Snapshot{
+        private final long length;
+
+        private Snapshot(long length){
+            this.length = length;
+        }
+
+        public long getLength(){
+            return length;
+        }
+
+        public byte get(long offset){
+            if(offset <0 || offset >= length){
+                throw new IndexOutOfBoundsException("Index: "+offset+", Size: "+length);
+            }
+            return chunkFor(offset)[(int) (offset & CHUNK_MASK)];
+        }
+        /**
+         * Copy the bytes of this snapshot into a new array.
+         * @return a new byte array; will never be null but may be empty.
+         * @throws IllegalStateException if this snapshot is too large to fit in an array.
+         */
+        public byte[] toArray(){
+            if(length > Integer.MAX_VALUE - 8){
+                throw new IllegalStateException("snapshot too large to fit in an array: " + length);
+            }
+            byte[] array = new byte[(int) length];
+            for(long position = 0; position < length;){
+                int n = (int) Math.min(length - position, CHUNK_SIZE);
+                System.arraycopy(chunkFor(position), 0, array, (int) position, n);
+                position+=n;
+            }
+            return array;
+        }
+        /**
+         * Write the bytes of this snapshot to the given OutputStream
+         * a chunk at a time without any intermediate copies.
+         * The stream is not closed.
+         * @param out the OutputStream to write to; can not be null.
+         * @throws IOException if there is a problem writing to the stream.
+         * @throws NullPointerException if out is null.
+         */
+        public void writeTo(OutputStream out) throws IOException{
+            Objects.requireNonNull(out);
+            for(long position = 0; position < length;){
+                int n = (int) Math.min(length - position, CHUNK_SIZE);
+                out.write(chunkFor(position), 0, n);
+                position+=n;
+            }
+        }
+    }
+}
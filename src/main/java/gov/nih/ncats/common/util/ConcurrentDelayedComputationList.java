@@ -0,0 +1,272 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * A thread safe version of {@link DelayedComputationList}.
+ * Reads never lock, they work off of a snapshot of the backing array
+ * which is republished by each structural modification.  Appending
+ * to the end of the list reuses the backing array when there is room
+ * so building up a large list is still amortized constant time; inserting
+ * or removing from the middle copies the backing array like {@link ArrayList} would.
+ * <p>
+ * Values are computed lazily by their {@link CachedSupplier}s which
+ * are already thread safe so many threads can compute different elements at the same time.
+ *
+ * @param <T> the type of element in the list.
+ */
+public class ConcurrentDelayedComputationList<T> extends AbstractList<T> implements ResetableCache {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private static final class Snapshot{
+        private final Object[] elements;
+        private final int size;
+
+        Snapshot(Object[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+    }
+
+    private final Object writeLock = new Object();
+
+    private volatile Snapshot snapshot;
+
+    public ConcurrentDelayedComputationList(){
+        this(10);
+    }
+    public ConcurrentDelayedComputationList(int initialSize){
+        if(initialSize <0){
+            throw new IllegalArgumentException("initial size can not be negative");
+        }
+        snapshot = new Snapshot(initialSize==0? EMPTY : new Object[initialSize], 0);
+    }
+
+    /**
+     * Wrap the given supplier in a new {@link CachedSupplier}, subclasses may override
+     * this to return their own specialized implementations.
+     * @param supplier the supplier to wrap.
+     * @return a new CachedSupplier.
+     */
+    protected CachedSupplier<T> newCachedSupplier(Supplier<T> supplier){
+        return CachedSupplier.of(supplier);
+    }
+
+    protected void removed( CachedSupplier<T> cachedSupplier){
+        //default to no-op
+    }
+
+    protected void added( CachedSupplier<T> cachedSupplier){
+        //default to no-op
+    }
+
+    @Override
+    public T get(int index) {
+        return getAsCachedSupplier(index).get();
+    }
+
+    public CachedSupplier<T> getAsCachedSupplier(int index){
+        Snapshot s = snapshot;
+        checkIndex(index, s.size);
+        return elementAt(s, index);
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size;
+    }
+
+    @Override
+    public T set(int index, T element) {
+        CachedSupplier<T> newObj = CachedSupplier.ofConstant(element);
+        CachedSupplier<T> oldObj;
+        synchronized (writeLock){
+            Snapshot s = snapshot;
+            checkIndex(index, s.size);
+            oldObj = elementAt(s, index);
+            //copy so iterators over the old snapshot aren't affected
+            Object[] copy = Arrays.copyOf(s.elements, s.elements.length);
+            copy[index] = newObj;
+            snapshot = new Snapshot(copy, s.size);
+        }
+        removed(oldObj);
+        added(newObj);
+        return oldObj.get();
+    }
+
+    @Override
+    public boolean add(T element) {
+        append(CachedSupplier.ofConstant(element));
+        return true;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        insert(index, CachedSupplier.ofConstant(element));
+    }
+
+    public boolean add(int index, Supplier<T> supplier){
+        CachedSupplier<T> cachedSupplier = newCachedSupplier(supplier);
+        insert(index, cachedSupplier);
+        added(cachedSupplier);
+        return true;
+    }
+
+    public boolean add(Supplier<T> supplier){
+        CachedSupplier<T> cachedSupplier = newCachedSupplier(supplier);
+        append(cachedSupplier);
+        added(cachedSupplier);
+        return true;
+    }
+
+    @Override
+    public T remove(int index) {
+        return removeAsCachedSupplier(index).get();
+    }
+
+    public CachedSupplier<T> removeAsCachedSupplier(int index) {
+        CachedSupplier<T> cachedSupplier;
+        synchronized (writeLock){
+            Snapshot s = snapshot;
+            checkIndex(index, s.size);
+            cachedSupplier = elementAt(s, index);
+            //always copy so readers of the old snapshot aren't affected
+            Object[] copy = new Object[s.elements.length];
+            System.arraycopy(s.elements, 0, copy, 0, index);
+            System.arraycopy(s.elements, index+1, copy, index, s.size - index -1);
+            snapshot = new Snapshot(copy, s.size -1);
+        }
+        removed(cachedSupplier);
+        return cachedSupplier;
+    }
+
+    @Override
+    public void clear() {
+        Snapshot s;
+        synchronized (writeLock){
+            s = snapshot;
+            snapshot = new Snapshot(EMPTY, 0);
+        }
+        for(int i=0; i< s.size; i++){
+            removed(elementAt(s, i));
+        }
+    }
+
+    /**
+     * Iterates over a snapshot of the list as it was when this method was called,
+     * it will never throw a {@link ConcurrentModificationException} and
+     * does not support {@link Iterator#remove()}.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        Snapshot s = snapshot;
+        return new Iterator<T>() {
+            private int current=0;
+            @Override
+            public boolean hasNext() {
+                return current < s.size;
+            }
+
+            @Override
+            public T next() {
+                if(!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                return elementAt(s, current++).get();
+            }
+        };
+    }
+
+    /**
+     * Iterate over the current snapshot of all the {@link CachedSupplier}s
+     * without computing anything.
+     * @return a new List of the current CachedSuppliers which is not backed by this list.
+     */
+    public List<CachedSupplier<T>> getCachedSuppliers(){
+        Snapshot s = snapshot;
+        List<CachedSupplier<T>> list = new ArrayList<>(s.size);
+        for(int i=0; i< s.size; i++){
+            list.add(elementAt(s, i));
+        }
+        return list;
+    }
+
+    @Override
+    public void resetCache() {
+        Snapshot s = snapshot;
+        for(int i=0; i< s.size; i++){
+            elementAt(s, i).resetCache();
+        }
+    }
+
+    /**
+     * Get the element at the given offset of the current backing array
+     * for clock style sweeps over the whole list.
+     * @param offset the offset into the array.
+     * @return the element at that offset or {@code null} if the offset
+     * is beyond the current size.
+     */
+    Object elementAtOffset(int offset){
+        Snapshot s = snapshot;
+        return offset < s.size ? s.elements[offset] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private CachedSupplier<T> elementAt(Snapshot s, int index){
+        return (CachedSupplier<T>) s.elements[index];
+    }
+
+    private void append(CachedSupplier<T> cachedSupplier){
+        synchronized (writeLock){
+            Snapshot s = snapshot;
+            Object[] elements = s.elements;
+            if(s.size == elements.length){
+                elements = Arrays.copyOf(elements, Math.max(10, elements.length + (elements.length >>1)));
+            }
+            //this slot is past the end of any published snapshot so it's safe to write in place
+            elements[s.size] = cachedSupplier;
+            snapshot = new Snapshot(elements, s.size+1);
+        }
+    }
+
+    private void insert(int index, CachedSupplier<T> cachedSupplier){
+        synchronized (writeLock){
+            Snapshot s = snapshot;
+            if(index <0 || index > s.size){
+                throw new IndexOutOfBoundsException("index: " + index + " size: " + s.size);
+            }
+            Object[] copy = new Object[Math.max(s.size+1, s.elements.length)];
+            System.arraycopy(s.elements, 0, copy, 0, index);
+            copy[index] = cachedSupplier;
+            System.arraycopy(s.elements, index, copy, index+1, s.size - index);
+            snapshot = new Snapshot(copy, s.size+1);
+        }
+    }
+
+    private static void checkIndex(int index, int size){
+        if(index <0 || index >= size){
+            throw new IndexOutOfBoundsException("index: " + index + " size: " + size);
+        }
+    }
+}
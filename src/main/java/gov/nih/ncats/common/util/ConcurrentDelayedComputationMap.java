@@ -0,0 +1,388 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * A thread safe version of {@link DelayedComputationMap} backed by a
+ * {@link ConcurrentHashMap}.  Values are still computed lazily and only once
+ * by their {@link CachedSupplier} and all mutations of the same key are done
+ * atomically using {@link ConcurrentHashMap#compute(Object, java.util.function.BiFunction)}.
+ * <p>
+ * Iterating over the {@link #entrySet()} or {@link #keySet()} is weakly consistent
+ * and does not force any value to be computed; only calling {@link Map.Entry#getValue()}
+ * will compute that entry's value.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
+public class ConcurrentDelayedComputationMap<K,V> extends AbstractMap<K,V> implements ConcurrentMap<K,V> {
+
+    private final ConcurrentHashMap<K,CachedSupplier<V>> supplierMap;
+
+    public ConcurrentDelayedComputationMap(){
+        supplierMap = new ConcurrentHashMap<>();
+    }
+
+    public ConcurrentDelayedComputationMap(int initialCapacity){
+        supplierMap = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    /**
+     * Wrap the given supplier in a new {@link CachedSupplier}, subclasses may override
+     * this to return their own specialized implementations.
+     * @param supplier the supplier to wrap.
+     * @return a new CachedSupplier.
+     */
+    protected CachedSupplier<V> newCachedSupplier(Supplier<V> supplier){
+        return CachedSupplier.of(supplier);
+    }
+
+    /**
+     * Called after the given supplier was put in this map.
+     * This is never called while holding a lock of the backing map
+     * so implementations are free to synchronize on the supplier.
+     */
+    protected void added(K key, CachedSupplier<V> value){
+        //no-op
+    }
+    /**
+     * Called after the given supplier was removed from this map.
+     * This is never called while holding a lock of the backing map
+     * so implementations are free to synchronize on the supplier.
+     */
+    protected void removed(K key, CachedSupplier<V> value){
+        //no-op
+    }
+
+    @Override
+    public int size() {
+        return supplierMap.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return supplierMap.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return supplierMap.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        CachedSupplier<V> cachedSupplier = supplierMap.get(key);
+        return cachedSupplier ==null ? null : cachedSupplier.get();
+    }
+
+    public CachedSupplier<V> getAsCachedSupplier(K key){
+        return supplierMap.get(key);
+    }
+
+    public CachedSupplier<V> put(K key, Supplier<V> value) {
+        return putCachedSupplier(key, newCachedSupplier(value));
+    }
+
+    @Override
+    public V put(K key, V value) {
+        CachedSupplier<V> old = putCachedSupplier(key, CachedSupplier.ofConstant(value));
+        return old==null? null : old.get();
+    }
+
+    public void putAndIgnoreReturn(K key, V value) {
+        putCachedSupplier(key, CachedSupplier.ofConstant(value));
+    }
+
+    private CachedSupplier<V> putCachedSupplier(K key, CachedSupplier<V> newObj){
+        Holder<CachedSupplier<V>> oldHolder = Holder.empty();
+        supplierMap.compute(key, (k, old)->{
+            oldHolder.set(old);
+            return newObj;
+        });
+        //callbacks are made outside of compute() since they may
+        //synchronize on a supplier that is busy computing and touching this map
+        CachedSupplier<V> old = oldHolder.get();
+        if(old !=null){
+            removed(key, old);
+        }
+        added(key, newObj);
+        return old;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Holder<CachedSupplier<V>> oldHolder = Holder.empty();
+        CachedSupplier<V> newObj = CachedSupplier.ofConstant(value);
+        supplierMap.compute(key, (k, old)->{
+            if(old !=null){
+                oldHolder.set(old);
+                return old;
+            }
+            return newObj;
+        });
+        CachedSupplier<V> old = oldHolder.get();
+        if(old ==null){
+            added(key, newObj);
+            return null;
+        }
+        return old.get();
+    }
+
+    @Override
+    public V remove(Object key) {
+        CachedSupplier<V> cachedSupplier = removeCachedSupplier(key);
+        return cachedSupplier ==null ? null : cachedSupplier.get();
+    }
+
+    public CachedSupplier<V> removeAsCachedSupplier(K key) {
+        return removeCachedSupplier(key);
+    }
+
+    private CachedSupplier<V> removeCachedSupplier(Object key){
+        Holder<CachedSupplier<V>> oldHolder = Holder.empty();
+        K k = asKey(key);
+        supplierMap.computeIfPresent(k, (ignored, old)->{
+            oldHolder.set(old);
+            return null;
+        });
+        CachedSupplier<V> old = oldHolder.get();
+        if(old !=null){
+            removed(k, old);
+        }
+        return old;
+    }
+
+    /**
+     * Cast a key passed in as an Object to our key type so it can be
+     * given to {@link ConcurrentHashMap#computeIfPresent(Object, java.util.function.BiFunction)}.
+     * The key can only be in the map if it is a K, and the mapping function
+     * is only called if it is, so the unchecked cast is safe.
+     */
+    @SuppressWarnings("unchecked")
+    private K asKey(Object key){
+        return (K) key;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if(key ==null){
+            return false;
+        }
+        while(true) {
+            CachedSupplier<V> expected = supplierMap.get(key);
+            //compute the value outside of the map's lock since
+            //the supplier might take a while or even touch this map
+            if (expected == null || !Objects.equals(value, expected.get())) {
+                return false;
+            }
+            Holder<Boolean> removedHolder = Holder.hold(Boolean.FALSE);
+            supplierMap.computeIfPresent(asKey(key), (k, old) -> {
+                if (old != expected) {
+                    return old;
+                }
+                removedHolder.set(Boolean.TRUE);
+                return null;
+            });
+            if (removedHolder.get()) {
+                removed(asKey(key), expected);
+                return true;
+            }
+            //someone else changed the mapping out from under us; check again
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        while(true) {
+            CachedSupplier<V> expected = supplierMap.get(key);
+            if (expected == null || !Objects.equals(oldValue, expected.get())) {
+                return false;
+            }
+            Holder<Boolean> replacedHolder = Holder.hold(Boolean.FALSE);
+            CachedSupplier<V> newObj = CachedSupplier.ofConstant(newValue);
+            supplierMap.computeIfPresent(key, (k, old) -> {
+                if (old != expected) {
+                    return old;
+                }
+                replacedHolder.set(Boolean.TRUE);
+                return newObj;
+            });
+            if (replacedHolder.get()) {
+                removed(key, expected);
+                added(key, newObj);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Holder<CachedSupplier<V>> oldHolder = Holder.empty();
+        CachedSupplier<V> newObj = CachedSupplier.ofConstant(value);
+        supplierMap.computeIfPresent(key, (k, old)->{
+            oldHolder.set(old);
+            return newObj;
+        });
+        CachedSupplier<V> old = oldHolder.get();
+        if(old ==null){
+            return null;
+        }
+        removed(key, old);
+        added(key, newObj);
+        return old.get();
+    }
+
+    /**
+     * Iterate over the {@link CachedSupplier}s currently in the map.
+     * @return a weakly consistent iterator.
+     */
+    Iterator<CachedSupplier<V>> cachedSupplierIterator(){
+        return supplierMap.values().iterator();
+    }
+
+    @Override
+    public void clear() {
+        for(K key : supplierMap.keySet()){
+            removeCachedSupplier(key);
+        }
+    }
+
+    /**
+     * A view of the keys in this map, iterating over the keys
+     * never calls any {@link CachedSupplier}s.
+     * @return a Set of the keys, which is backed by this map.
+     */
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                Iterator<Entry<K, V>> iter = entrySet().iterator();
+                return new Iterator<K>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iter.hasNext();
+                    }
+
+                    @Override
+                    public K next() {
+                        return iter.next().getKey();
+                    }
+
+                    @Override
+                    public void remove() {
+                        iter.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return supplierMap.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return supplierMap.containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                return o !=null && removeCachedSupplier(o) !=null;
+            }
+
+            @Override
+            public void clear() {
+                ConcurrentDelayedComputationMap.this.clear();
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                Iterator<Entry<K, CachedSupplier<V>>> iter = supplierMap.entrySet().iterator();
+                return new Iterator<Entry<K, V>>() {
+                    private K lastKey;
+                    @Override
+                    public boolean hasNext() {
+                        return iter.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        Entry<K, CachedSupplier<V>> next = iter.next();
+                        lastKey = next.getKey();
+                        return new DelayedComputationEntry<>(lastKey, next.getValue(), ConcurrentDelayedComputationMap.this);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if(lastKey ==null){
+                            throw new IllegalStateException();
+                        }
+                        removeCachedSupplier(lastKey);
+                        lastKey = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return supplierMap.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if(!(o instanceof Map.Entry)){
+                    return false;
+                }
+                Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+                Object key = entry.getKey();
+                if(key ==null){
+                    return false;
+                }
+                CachedSupplier<V> cachedSupplier = supplierMap.get(key);
+                return cachedSupplier !=null && Objects.equals(entry.getValue(), cachedSupplier.get());
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if(!(o instanceof Map.Entry)){
+                    return false;
+                }
+                Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+                return ConcurrentDelayedComputationMap.this.remove(entry.getKey(), entry.getValue());
+            }
+
+            @Override
+            public void clear() {
+                ConcurrentDelayedComputationMap.this.clear();
+            }
+        };
+    }
+}
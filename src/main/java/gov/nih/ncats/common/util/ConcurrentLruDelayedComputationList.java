@@ -0,0 +1,72 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import java.util.function.Supplier;
+
+/**
+ * A thread safe {@link LruDelayedComputationList} which limits the number
+ * of computed elements to a given cache size.  Instead of a separate LRU map,
+ * each element keeps its own access stamp and the least recently used
+ * elements are found with a clock sweep over the list, so many threads
+ * can compute and evict elements of the same list at the same time.
+ * <p>
+ * Since the clock sweep is an approximation of LRU, the element reset
+ * is not always exactly the least recently used one.
+ *
+ * @param <T> the type of element in the list.
+ */
+public class ConcurrentLruDelayedComputationList<T> extends ConcurrentDelayedComputationList<T> {
+
+    private final ClockSweepEvictor evictor;
+
+    public ConcurrentLruDelayedComputationList(int initialSize, int cacheSize) {
+        super(initialSize);
+        //the hand is only ever moved by the one thread currently sweeping
+        int[] handOffset = new int[1];
+        this.evictor = new ClockSweepEvictor(cacheSize, ()->{
+            Object next = elementAtOffset(handOffset[0]);
+            if(next ==null){
+                handOffset[0]=0;
+                return null;
+            }
+            handOffset[0]++;
+            return next;
+        });
+    }
+
+    @Override
+    protected CachedSupplier<T> newCachedSupplier(Supplier<T> supplier) {
+        return evictor.create(supplier);
+    }
+
+    @Override
+    protected void removed(CachedSupplier<T> cachedSupplier) {
+        evictor.detach(cachedSupplier);
+    }
+
+    /**
+     * Get the number of elements that currently have computed values.
+     * @return the number of computed elements.
+     */
+    public int getComputedCount(){
+        return evictor.getComputedCount();
+    }
+}
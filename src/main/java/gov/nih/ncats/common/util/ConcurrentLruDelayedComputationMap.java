@@ -0,0 +1,73 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+/**
+ * A thread safe {@link LruDelayedComputationMap} which limits the number
+ * of computed values to a given cache size.  Instead of a separate LRU map,
+ * each value keeps its own access stamp and the least recently used
+ * values are found with a clock sweep over the map, so many threads
+ * can compute and evict entries of the same map at the same time.
+ * <p>
+ * Since the clock sweep is an approximation of LRU, the value reset
+ * is not always exactly the least recently used one.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
+public class ConcurrentLruDelayedComputationMap<K,V> extends ConcurrentDelayedComputationMap<K,V> {
+
+    private final ClockSweepEvictor evictor;
+
+    public ConcurrentLruDelayedComputationMap(int initialSize, int cacheSize) {
+        super(initialSize);
+        //the hand is only ever moved by the one thread currently sweeping
+        Holder<Iterator<CachedSupplier<V>>> hand = Holder.empty();
+        this.evictor = new ClockSweepEvictor(cacheSize, ()->{
+            Iterator<CachedSupplier<V>> iter = hand.get();
+            if(iter ==null || !iter.hasNext()){
+                hand.set(cachedSupplierIterator());
+                return null;
+            }
+            return iter.next();
+        });
+    }
+
+    @Override
+    protected CachedSupplier<V> newCachedSupplier(Supplier<V> supplier) {
+        return evictor.create(supplier);
+    }
+
+    @Override
+    protected void removed(K key, CachedSupplier<V> value) {
+        evictor.detach(value);
+    }
+
+    /**
+     * Get the number of entries that currently have computed values.
+     * @return the number of computed values.
+     */
+    public int getComputedCount(){
+        return evictor.getComputedCount();
+    }
+}
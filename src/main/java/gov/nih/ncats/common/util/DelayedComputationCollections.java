@@ -22,6 +22,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
 
 public class DelayedComputationCollections {
 
@@ -37,9 +39,20 @@ public class DelayedComputationCollections {
         return new LruDelayedComputationList<>(initialSize, lruCacheSize);
     }
 
+    public  static <T> List<T> createMemoryBudgetedList(int initialSize, long maxBytes, ToLongFunction<? super T> weigher){
+        return new MemoryBudgetedDelayedComputationList<>(initialSize, maxBytes, weigher);
+    }
+
+    public  static <T> List<T> createConcurrentLeastRecentlyUsedList(int initialSize, int lruCacheSize){
+        return new ConcurrentLruDelayedComputationList<>(initialSize, lruCacheSize);
+    }
+
     public static <K,V> Map<K,V> createMap(){
         return new DelayedComputationMap<>();
     }
+    public static <K,V> ConcurrentMap<K,V> createConcurrentMap(){
+        return new ConcurrentDelayedComputationMap<>();
+    }
     public static <T> Set<T> createSet(){
         return Collections.newSetFromMap(createMap());
     }
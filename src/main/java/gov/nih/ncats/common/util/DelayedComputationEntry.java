@@ -0,0 +1,89 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A {@link Map.Entry} view of a key and its {@link CachedSupplier}
+ * which only computes the value when {@link #getValue()} is called.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
+class DelayedComputationEntry<K,V> implements Map.Entry<K,V> {
+
+    private final K key;
+    private final CachedSupplier<V> cachedSupplier;
+    private final Map<K,V> owner;
+
+    DelayedComputationEntry(K key, CachedSupplier<V> cachedSupplier, Map<K,V> owner) {
+        this.key = key;
+        this.cachedSupplier = Objects.requireNonNull(cachedSupplier);
+        this.owner = owner;
+    }
+
+    @Override
+    public K getKey() {
+        return key;
+    }
+
+    @Override
+    public V getValue() {
+        return cachedSupplier.get();
+    }
+
+    public CachedSupplier<V> getAsCachedSupplier(){
+        return cachedSupplier;
+    }
+
+    @Override
+    public V setValue(V value) {
+        //write through to the owning map, the returned old value
+        //is whatever this entry was mapped to
+        V oldValue = cachedSupplier.get();
+        owner.put(key, value);
+        return oldValue;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Map.Entry)) {
+            return false;
+        }
+        Map.Entry<?,?> other = (Map.Entry<?,?>) o;
+        return Objects.equals(key, other.getKey()) && Objects.equals(getValue(), other.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+        //don't force the computation just to print
+        return key + "=" + (cachedSupplier.hasRun() ? getValue() : "<not computed>");
+    }
+}
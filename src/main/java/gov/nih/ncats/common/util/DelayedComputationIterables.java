@@ -19,7 +19,9 @@
 package gov.nih.ncats.common.util;
 
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Stream;
 
 /**
@@ -41,6 +43,10 @@ public final class DelayedComputationIterables {
         return new GeneratedIterableBuilder(generatingFunction, new LruDelayedComputationList(initialSize,lruCacheSize ));
     }
 
+    public static <T,R> GeneratedIterableBuilder<T,R> builderUsingGenerator(Function<T,R> generatingFunction, int initialSize, long maxBytes, ToLongFunction<? super R> weigher){
+        return new GeneratedIterableBuilder<>(generatingFunction, new MemoryBudgetedDelayedComputationList<>(initialSize, maxBytes, weigher));
+    }
+
     public static class GeneratedIterableBuilder<T,R>{
 
         private final Function<T,R> generatingFunction;
@@ -59,6 +65,19 @@ public final class DelayedComputationIterables {
             return this;
         }
 
+        /**
+         * Compute elements ahead of the one currently being iterated over
+         * using the given executor.
+         * @param executor the executor to generate elements on; can not be null.
+         * @param maxWindowSize the max number of elements to generate ahead.
+         * @return this
+         * @see DelayedComputationList#enableReadAhead(Executor, int)
+         */
+        public GeneratedIterableBuilder<T,R> readAhead(Executor executor, int maxWindowSize){
+            this.backingList.enableReadAhead(executor, maxWindowSize);
+            return this;
+        }
+
         /**
          * Create an {@link Iterable}
          * that can iterate over the added items. This iterator
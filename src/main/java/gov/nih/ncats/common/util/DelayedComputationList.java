@@ -21,6 +21,9 @@ package gov.nih.ncats.common.util;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Supplier;
 
 public class DelayedComputationList<T> extends AbstractList<T> implements ResetableCache {
@@ -29,6 +32,8 @@ public class DelayedComputationList<T> extends AbstractList<T> implements Reseta
 
     private final CachedSupplierGroup group = new CachedSupplierGroup();
 
+    private ReadAhead readAhead;
+
     public DelayedComputationList(){
         cachedSupplierList = new ArrayList<>();
     }
@@ -38,9 +43,64 @@ public class DelayedComputationList<T> extends AbstractList<T> implements Reseta
     @Override
     public T get(int index) {
         CachedSupplier<T> cachedSupplier = getAsCachedSupplier(index);
+        if(readAhead !=null){
+            readAhead.consumed(index, cachedSupplier.hasRun());
+        }
         return cachedSupplier.get();
     }
 
+    /**
+     * Compute all the elements in the given Range in parallel
+     * using the common fork-join pool.  This method blocks until
+     * all the elements in the range have been computed.
+     * @param range the inclusive range of offsets to compute; can not be null.
+     * @throws IndexOutOfBoundsException if the range is outside of the list.
+     */
+    public void prefetch(Range range){
+        if(range.getBegin() <0 || range.getEnd() >= size()){
+            throw new IndexOutOfBoundsException("range: "+range+", list size: "+size());
+        }
+        //copy the suppliers out on this thread since the list itself isn't thread safe
+        List<CachedSupplier<T>> block = new ArrayList<>(cachedSupplierList.subList((int) range.getBegin(), (int) range.getEnd() +1));
+        block.parallelStream().forEach(CachedSupplier::get);
+    }
+
+    /**
+     * Turn on read-ahead mode: whenever element {@code i} is read
+     * by {@link #get(int)}, the next few elements after it are computed
+     * in the background using the given executor.  The number of elements
+     * to read ahead starts at 1 and adapts to how fast the elements are consumed:
+     * it doubles every time the reader catches up to an element that hasn't
+     * finished being computed yet and slowly shrinks while the reader never has to wait.
+     *
+     * @param executor the executor to compute elements on; can not be null.
+     * @param maxWindowSize the max number of elements to compute ahead of the current one;
+     *                      must be &ge; 1.
+     * @throws NullPointerException if executor is null.
+     * @throws IllegalArgumentException if maxWindowSize &lt; 1.
+     */
+    public void enableReadAhead(Executor executor, int maxWindowSize){
+        this.readAhead = new ReadAhead(executor, maxWindowSize);
+    }
+
+    /**
+     * Turn off read-ahead mode, any elements currently being computed
+     * in the background will still finish.
+     */
+    public void disableReadAhead(){
+        this.readAhead = null;
+    }
+
+    /**
+     * Wrap the given supplier in a new {@link CachedSupplier}, subclasses may override
+     * this to return their own specialized implementations.
+     * @param supplier the supplier to wrap.
+     * @return a new CachedSupplier.
+     */
+    protected CachedSupplier<T> newCachedSupplier(Supplier<T> supplier){
+        return CachedSupplier.of(supplier);
+    }
+
     protected void removed( CachedSupplier<T> cachedSupplier){
         //default to no-op
     }
@@ -88,14 +148,14 @@ public class DelayedComputationList<T> extends AbstractList<T> implements Reseta
         cachedSupplierList.add(index, CachedSupplier.ofConstant(element));
     }
     public boolean add(int index, Supplier<T> supplier){
-        CachedSupplier<T> cachedSupplier = group.add(CachedSupplier.of(supplier));
+        CachedSupplier<T> cachedSupplier = group.add(newCachedSupplier(supplier));
         cachedSupplierList.add(index,cachedSupplier);
         added(cachedSupplier);
         return true;
     }
 
     public boolean add(Supplier<T> supplier){
-        CachedSupplier<T> cachedSupplier = group.add(CachedSupplier.of(supplier));
+        CachedSupplier<T> cachedSupplier = group.add(newCachedSupplier(supplier));
         cachedSupplierList.add(cachedSupplier);
         added(cachedSupplier);
         return true;
@@ -110,4 +170,51 @@ public class DelayedComputationList<T> extends AbstractList<T> implements Reseta
     public void resetCache() {
         group.resetAll();
     }
+
+    private final class ReadAhead{
+        private final Executor executor;
+        private final int maxWindowSize;
+
+        private int windowSize=1;
+        private int hitsSinceResize;
+        private int lastIndex=-1;
+        private int scheduledUpTo=-1;
+
+        ReadAhead(Executor executor, int maxWindowSize){
+            if(maxWindowSize < 1){
+                throw new IllegalArgumentException("max window size must be >= 1");
+            }
+            this.executor = Objects.requireNonNull(executor);
+            this.maxWindowSize = maxWindowSize;
+        }
+
+        void consumed(int index, boolean alreadyComputed){
+            if(index != lastIndex+1){
+                //not reading sequentially anymore start over from here
+                scheduledUpTo = index;
+            }else if(!alreadyComputed && index <= scheduledUpTo){
+                //caught up to the background computation; read further ahead
+                windowSize = Math.min(maxWindowSize, windowSize*2);
+                hitsSinceResize=0;
+            }else if(++hitsSinceResize >= windowSize && windowSize >1){
+                windowSize--;
+                hitsSinceResize=0;
+            }
+            lastIndex = index;
+
+            int end = Math.min(size()-1, index + windowSize);
+            for(int i= Math.max(scheduledUpTo, index) +1; i<= end; i++){
+                CachedSupplier<T> next = getAsCachedSupplier(i);
+                if(!next.hasRun()){
+                    try {
+                        executor.execute(next::get);
+                    }catch(RejectedExecutionException e){
+                        //the reader will just compute it itself
+                        break;
+                    }
+                }
+                scheduledUpTo = i;
+            }
+        }
+    }
 }
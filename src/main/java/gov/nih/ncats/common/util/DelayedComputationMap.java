@@ -22,7 +22,7 @@ import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.stream.Collector;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class DelayedComputationMap<K,V> extends AbstractMap<K,V> {
@@ -42,6 +42,75 @@ public class DelayedComputationMap<K,V> extends AbstractMap<K,V> {
         return new AdaptedEntrySet(supplierMap.entrySet());
     }
 
+    /**
+     * A view of the keys in this map, iterating over the keys
+     * never calls any {@link CachedSupplier}s.
+     * @return a Set of the keys, which is backed by this map.
+     */
+    @Override
+    public Set<K> keySet() {
+        return new AbstractSet<K>() {
+            @Override
+            public Iterator<K> iterator() {
+                Iterator<Entry<K, CachedSupplier<V>>> iter = supplierMap.entrySet().iterator();
+                return new Iterator<K>() {
+                    private Entry<K, CachedSupplier<V>> last;
+                    @Override
+                    public boolean hasNext() {
+                        return iter.hasNext();
+                    }
+
+                    @Override
+                    public K next() {
+                        last = iter.next();
+                        return last.getKey();
+                    }
+
+                    @Override
+                    public void remove() {
+                        iter.remove();
+                        removed(last.getKey(), last.getValue());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return supplierMap.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return supplierMap.containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if(!supplierMap.containsKey(o)){
+                    return false;
+                }
+                removeAsCachedSupplier(asKey(o));
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return supplierMap.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return supplierMap.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        CachedSupplier<V> cachedSupplier = supplierMap.get(key);
+        return cachedSupplier ==null ? null : cachedSupplier.get();
+    }
+
     protected void added(K key, CachedSupplier<V> value){
         //no-op
     }
@@ -94,10 +163,19 @@ public class DelayedComputationMap<K,V> extends AbstractMap<K,V> {
             return null;
         }
         V oldValue = cachedSupplier.get();
-        removed((K) key, cachedSupplier);
+        removed(asKey(key), cachedSupplier);
         return oldValue;
 
     }
+    /**
+     * Cast a key passed in as an Object to our key type;
+     * only call this with a key that was found in the map,
+     * which can only be a K, so the unchecked cast is safe.
+     */
+    @SuppressWarnings("unchecked")
+    private K asKey(Object key){
+        return (K) key;
+    }
 
     public CachedSupplier<V> removeAsCachedSupplier(K key) {
         CachedSupplier<V> cachedSupplier = supplierMap.remove(key);
@@ -164,25 +242,53 @@ public class DelayedComputationMap<K,V> extends AbstractMap<K,V> {
 
         @Override
         public boolean contains(Object o) {
-            return delegate.contains(o);
+            if(!(o instanceof Map.Entry)){
+                return false;
+            }
+            Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+            CachedSupplier<V> cachedSupplier = supplierMap.get(entry.getKey());
+            if(cachedSupplier ==null){
+                return false;
+            }
+            return Objects.equals(entry.getValue(), cachedSupplier.get());
         }
 
+        /**
+         * Iterate over the entries without computing their values;
+         * each value is only computed when {@link Entry#getValue()} is called.
+         */
         @Override
         public Iterator<Entry<K, V>> iterator() {
-            return delegate.stream()
-                    .map(this::callCachedEntry)
-                    .iterator();
+            Iterator<Entry<K, CachedSupplier<V>>> iter = delegate.iterator();
+            return new Iterator<Entry<K, V>>() {
+                private Entry<K, CachedSupplier<V>> last;
+                @Override
+                public boolean hasNext() {
+                    return iter.hasNext();
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    last = iter.next();
+                    return lazyEntry(last);
+                }
+
+                @Override
+                public void remove() {
+                    iter.remove();
+                    removed(last.getKey(), last.getValue());
+                }
+            };
         }
 
-        //TODO handle toArray correctly
         @Override
         public Object[] toArray() {
-            return delegate.toArray();
+            return stream().toArray();
         }
 
         @Override
         public <T> T[] toArray(T[] a) {
-            return delegate.toArray(a);
+            return stream().collect(Collectors.toList()).toArray(a);
         }
 
         public boolean add(Entry<K, V> entry) {
@@ -209,7 +315,12 @@ public class DelayedComputationMap<K,V> extends AbstractMap<K,V> {
 
         @Override
         public boolean containsAll(Collection<?> c) {
-            return delegate.containsAll(c);
+            for(Object o : c){
+                if(!contains(o)){
+                    return false;
+                }
+            }
+            return true;
         }
 
         public boolean addAll(Collection<? extends Entry<K, V>> c) {
@@ -253,9 +364,9 @@ public class DelayedComputationMap<K,V> extends AbstractMap<K,V> {
 
         @Override
         public Spliterator<Entry<K, V>> spliterator() {
-            return Spliterators.spliterator(stream().iterator(),
+            return Spliterators.spliterator(iterator(),
                     delegate.size(),
-                    Spliterator.SIZED);
+                    Spliterator.SIZED | Spliterator.DISTINCT);
         }
 
         protected Iterator<Entry<K,CachedSupplier<V>>> cachedSupplierIterator(){
@@ -267,7 +378,7 @@ public class DelayedComputationMap<K,V> extends AbstractMap<K,V> {
             while(iter.hasNext()){
                 Entry<K,CachedSupplier<V>> entry = iter.next();
                 CachedSupplier<V> value = entry.getValue();
-                if(filter.test(new AbstractMap.SimpleEntry<>(entry.getKey(), value.get()))){
+                if(filter.test(lazyEntry(entry))){
                     iter.remove();
                     removed= true;
                     removed(entry.getKey(), value);
@@ -279,19 +390,29 @@ public class DelayedComputationMap<K,V> extends AbstractMap<K,V> {
 
         @Override
         public Stream<Entry<K, V>> stream() {
-            return delegate.stream().map( this::callCachedEntry);
+            return delegate.stream().map( this::lazyEntry);
         }
 
+        /**
+         * Unlike {@link #stream()}, this parallel stream will compute
+         * each entry's value as it is streamed so the values
+         * are computed in parallel across the fork-join pool.
+         */
         @Override
         public Stream<Entry<K, V>> parallelStream() {
             return delegate.parallelStream().map( this::callCachedEntry);
         }
 
+        private Entry<K,V> lazyEntry(Entry<K, CachedSupplier<V>> entry){
+            return new DelayedComputationEntry<>(entry.getKey(), entry.getValue(), DelayedComputationMap.this);
+        }
+
         private Entry<K,V> callCachedEntry(Entry<K, CachedSupplier<V>> entry){
-            return new AbstractMap.SimpleEntry<K,V>(entry.getKey(), entry.getValue().get());
+            entry.getValue().get();
+            return lazyEntry(entry);
         }
         public void forEach(Consumer<? super Entry<K, V>> action) {
-            delegate.forEach(e-> action.accept(callCachedEntry(e)));
+            delegate.forEach(e-> action.accept(lazyEntry(e)));
         }
     }
 }
@@ -20,12 +20,28 @@ package gov.nih.ncats.common.util;
 
 // $Id: GrayCode.java 2707 2009-06-22 09:29:24Z nguyenda $
 
+import gov.nih.ncats.common.functions.ThrowingGrayCodeConsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Observer;
 import java.util.Observable;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 // rip this off of wikipedia; knuth's vol. 4 algorithm M doesn't require
 //   all these auxilary arrays.... don't have it with me right now.
 public class GrayCode extends Observable {
+    /**
+     * The min number of codes each fork-join task
+     * in {@link #parallelForEach(ThrowingGrayCodeConsumer)} visits.
+     */
+    private static final long MIN_PARALLEL_CODES = 1 << 12;
 
     private int maxsize = 0, size = 0;
     private final int[] n, g, u, c;
@@ -106,6 +122,288 @@ public class GrayCode extends Observable {
 
     public int size () { return size; }
 
+    /**
+     * Get the number of digits in each code.
+     * @return the number of digits.
+     * @since 0.3.7
+     */
+    public int getNumberOfDigits () { return c.length; }
+
+    /**
+     * Get the total number of codes in this Gray code,
+     * which is the product of the number of values of every digit.
+     * @return the number of codes.
+     * @throws ArithmeticException if the number of codes does not fit in a long.
+     * @since 0.3.7
+     */
+    public long getNumberOfCodes () {
+        long total = 1;
+        for (int i = 0; i < c.length; ++i) {
+            total = Math.multiplyExact(total, n[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Compute the code at the given position in the Gray code sequence
+     * without generating the codes before it.
+     * @param rank the position of the code; the first code has rank 0.
+     * @return a new array of the digits of the code.
+     * @throws IndexOutOfBoundsException if rank is not between 0 and
+     * {@link #getNumberOfCodes()} (exclusive).
+     * @since 0.3.7
+     */
+    public int[] unrank (long rank) {
+        int[] code = new int[c.length];
+        unrank(rank, code, new int[c.length]);
+        return code;
+    }
+
+    /**
+     * Fill in the code at the given rank along with the direction each
+     * digit moves in next.  Digit i moves up while
+     * {@code rank / (n[0] * ... * n[i])} is even and down while it is odd.
+     */
+    private void unrank (long rank, int[] code, int[] directions) {
+        if (rank < 0 || rank >= getNumberOfCodes()) {
+            throw new IndexOutOfBoundsException("rank "+rank+" number of codes "+getNumberOfCodes());
+        }
+        long q = rank;
+        for (int i = 0; i < code.length; ++i) {
+            int b = (int) (q % n[i]);
+            q /= n[i];
+            boolean up = (q & 1) == 0;
+            code[i] = up ? b : n[i] - 1 - b;
+            directions[i] = up ? 1 : -1;
+        }
+    }
+
+    /**
+     * Compute the position of the given code in the Gray code sequence;
+     * this is the inverse of {@link #unrank(long)}.
+     * @param code the digits of the code; can not be null.
+     * @return the rank of the code.
+     * @throws IllegalArgumentException if the code has the wrong number of
+     * digits or a digit is out of range.
+     * @since 0.3.7
+     */
+    public long rank (int[] code) {
+        if (code.length != c.length) {
+            throw new IllegalArgumentException("code must have "+c.length+" digits");
+        }
+        long q = 0;
+        for (int i = code.length - 1; i >= 0; --i) {
+            if (code[i] < 0 || code[i] >= n[i]) {
+                throw new IllegalArgumentException("digit "+i+" is out of range: "+code[i]);
+            }
+            int b = (q & 1) == 0 ? code[i] : n[i] - 1 - code[i];
+            q = q * n[i] + b;
+        }
+        return q;
+    }
+
+    /**
+     * Call the given consumer for every code in order.
+     * Unlike {@link #generate()} this does not use the Observers
+     * or change the state of this object, so it can be called by several threads.
+     * @param consumer the consumer to call for each code; can not be null.
+     * @param <E> the exception that could be thrown by the consumer.
+     * @throws E the exception from the consumer.
+     * @since 0.3.7
+     */
+    public <E extends Throwable> void forEach (ThrowingGrayCodeConsumer<E> consumer) throws E {
+        forEach(0, getNumberOfCodes(), consumer);
+    }
+
+    /**
+     * Call the given consumer for every code from {@code fromRank} (inclusive)
+     * to {@code toRank} (exclusive), jumping straight to the first code.
+     * Disjoint ranges of ranks can be visited by different threads;
+     * see {@link #partition(int)}.
+     * @param fromRank the rank of the first code.
+     * @param toRank the rank after the last code.
+     * @param consumer the consumer to call for each code; can not be null.
+     * @param <E> the exception that could be thrown by the consumer.
+     * @throws E the exception from the consumer.
+     * @throws IndexOutOfBoundsException if the ranks are out of range.
+     * @since 0.3.7
+     */
+    public <E extends Throwable> void forEach (long fromRank, long toRank, ThrowingGrayCodeConsumer<E> consumer) throws E {
+        Objects.requireNonNull(consumer);
+        if (fromRank < 0 || toRank > getNumberOfCodes() || fromRank > toRank) {
+            throw new IndexOutOfBoundsException("from "+fromRank+" to "+toRank+" number of codes "+getNumberOfCodes());
+        }
+        if (fromRank == toRank) {
+            return;
+        }
+        int[] code = new int[c.length];
+        int[] directions = new int[c.length];
+        unrank(fromRank, code, directions);
+        consumer.accept(fromRank, code, -1);
+        for (long rank = fromRank + 1; rank < toRank; ++rank) {
+            consumer.accept(rank, code, next(code, directions));
+        }
+    }
+
+    /**
+     * Move the code to the next one in the sequence, which must exist.
+     * @return the offset of the digit that changed.
+     */
+    private int next (int[] code, int[] directions) {
+        int i = 0;
+        int j = code[0] + directions[0];
+        while (j >= n[i] || j < 0) {
+            directions[i] = -directions[i];
+            ++i;
+            j = code[i] + directions[i];
+        }
+        code[i] = j;
+        return i;
+    }
+
+    /**
+     * Call the given consumer for every code, splitting the ranks
+     * into disjoint ranges that are visited in parallel by the common fork-join pool.
+     * Each range reuses its own code array, and codes are only in order within a range.
+     * @param consumer the consumer to call for each code, which must be thread safe;
+     *                 can not be null.
+     * @since 0.3.7
+     */
+    public void parallelForEach (ThrowingGrayCodeConsumer<? extends RuntimeException> consumer) {
+        Objects.requireNonNull(consumer);
+        long total = getNumberOfCodes();
+        long threshold = Math.max(MIN_PARALLEL_CODES, total / (ForkJoinPool.getCommonPoolParallelism() * 8L));
+        ForkJoinPool.commonPool().invoke(new ForEachTask(0, total, threshold, consumer));
+    }
+
+    private final class ForEachTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long fromRank, toRank, threshold;
+        private final ThrowingGrayCodeConsumer<? extends RuntimeException> consumer;
+
+        ForEachTask (long fromRank, long toRank, long threshold,
+                     ThrowingGrayCodeConsumer<? extends RuntimeException> consumer) {
+            this.fromRank = fromRank;
+            this.toRank = toRank;
+            this.threshold = threshold;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute () {
+            if (toRank - fromRank <= threshold) {
+                forEach(fromRank, toRank, consumer);
+                return;
+            }
+            long mid = fromRank + (toRank - fromRank) / 2;
+            invokeAll(new ForEachTask(fromRank, mid, threshold, consumer),
+                      new ForEachTask(mid, toRank, threshold, consumer));
+        }
+    }
+
+    /**
+     * Split the ranks of all the codes into disjoint ranges of nearly equal
+     * length which can each be passed to {@link #forEach(long, long, ThrowingGrayCodeConsumer)}
+     * by a different worker.
+     * @param numberOfParts the max number of ranges to return; must be &gt; 0.
+     * @return the inclusive ranges of ranks in order; there are fewer
+     * than numberOfParts ranges if there are fewer codes.
+     * @throws IllegalArgumentException if numberOfParts &lt; 1.
+     * @since 0.3.7
+     */
+    public List<Range> partition (int numberOfParts) {
+        if (numberOfParts < 1) {
+            throw new IllegalArgumentException("number of parts must be >= 1");
+        }
+        long total = getNumberOfCodes();
+        int parts = (int) Math.min(numberOfParts, total);
+        List<Range> ranges = new ArrayList<>(parts);
+        long begin = 0;
+        for (int i = 0; i < parts; ++i) {
+            //spread what is left over the remaining parts so nothing overflows
+            long end = begin + (total - begin) / (parts - i);
+            ranges.add(new Range(begin, end - 1));
+            begin = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * Create a {@link Spliterator} over every code in order
+     * which splits by rank.  Each code is a new array.
+     * @return a new Spliterator; will never be null.
+     * @since 0.3.7
+     */
+    public Spliterator<int[]> spliterator () {
+        return new CodeSpliterator(0, getNumberOfCodes());
+    }
+
+    /**
+     * Create a sequential {@link Stream} of every code in order.
+     * Each code is a new array.
+     * @return a new Stream; will never be null.
+     * @since 0.3.7
+     */
+    public Stream<int[]> stream () {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    private final class CodeSpliterator implements Spliterator<int[]> {
+        private long rank;
+        private final long end;
+        private int[] code, directions;
+
+        CodeSpliterator (long rank, long end) {
+            this.rank = rank;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance (Consumer<? super int[]> action) {
+            Objects.requireNonNull(action);
+            if (rank >= end) {
+                return false;
+            }
+            if (code == null) {
+                code = new int[c.length];
+                directions = new int[c.length];
+                unrank(rank, code, directions);
+            } else {
+                next(code, directions);
+            }
+            ++rank;
+            action.accept(code.clone());
+            return true;
+        }
+
+        @Override
+        public Spliterator<int[]> trySplit () {
+            //can only split before the first code is generated
+            //since the state of the suffix is computed from its rank
+            if (code != null) {
+                return null;
+            }
+            long mid = rank + (end - rank) / 2;
+            if (mid <= rank) {
+                return null;
+            }
+            Spliterator<int[]> prefix = new CodeSpliterator(rank, mid);
+            rank = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize () {
+            return end - rank;
+        }
+
+        @Override
+        public int characteristics () {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | DISTINCT;
+        }
+    }
+
     public static GrayCode createBinaryGrayCode (int size) {
         return new GrayCode (2, size);
     }
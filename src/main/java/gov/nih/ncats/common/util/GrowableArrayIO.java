@@ -0,0 +1,192 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package gov.nih.ncats.common.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Shared helper code for reading and writing
+ * the Growable primitive arrays to NIO channels.
+ * The format is a small header: a 4 byte magic number,
+ * a 1 byte element type which is the JVM type descriptor
+ * of the primitive ('B', 'S', 'C', 'I' or 'J') and
+ * a 4 byte element count, followed by the values in big endian order.
+ *
+ * @since 0.3.7
+ */
+final class GrowableArrayIO {
+    /**
+     * "NCGA" in ASCII.
+     */
+    private static final int MAGIC_NUMBER = 0x4E434741;
+
+    static final int HEADER_SIZE = 9;
+    /**
+     * Size in bytes of the buffer used to transfer
+     * values to and from a channel.
+     */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private GrowableArrayIO(){
+        //can not instantiate
+    }
+
+    static ByteBuffer newTransferBuffer(){
+        return ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    static void writeHeader(WritableByteChannel channel, char elementType, int length) throws IOException{
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC_NUMBER);
+        header.put((byte) elementType);
+        header.putInt(length);
+        ((Buffer) header).flip();
+        writeFully(channel, header);
+    }
+    /**
+     * Read and validate the header.
+     * @return the number of elements that follow the header.
+     */
+    static int readHeader(ReadableByteChannel channel, char expectedElementType) throws IOException{
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header);
+        ((Buffer) header).flip();
+        return parseHeader(header, expectedElementType);
+    }
+
+    private static int parseHeader(ByteBuffer header, char expectedElementType) throws IOException{
+        int magicNumber = header.getInt();
+        if(magicNumber != MAGIC_NUMBER){
+            throw new IOException("not a growable array: invalid magic number " + Integer.toHexString(magicNumber));
+        }
+        char elementType = (char) header.get();
+        if(elementType != expectedElementType){
+            throw new IOException("expected element type " + expectedElementType + " but was " + elementType);
+        }
+        int length = header.getInt();
+        if(length <0){
+            throw new IOException("invalid length " + length);
+        }
+        return length;
+    }
+    /**
+     * Write the first {@code numberOfBytes} of the given transfer buffer
+     * to the channel.
+     */
+    static void writeTransferBuffer(WritableByteChannel channel, ByteBuffer buffer, int numberOfBytes) throws IOException{
+        ((Buffer) buffer).position(0);
+        ((Buffer) buffer).limit(numberOfBytes);
+        writeFully(channel, buffer);
+        ((Buffer) buffer).clear();
+    }
+    /**
+     * Fill the first {@code numberOfBytes} of the given transfer buffer
+     * from the channel.
+     */
+    static void readTransferBuffer(ReadableByteChannel channel, ByteBuffer buffer, int numberOfBytes) throws IOException{
+        ((Buffer) buffer).position(0);
+        ((Buffer) buffer).limit(numberOfBytes);
+        readFully(channel, buffer);
+        ((Buffer) buffer).clear();
+    }
+    /**
+     * Open the given file, validate its header
+     * and memory map the values region by region.
+     */
+    static MappedFile openMapped(Path path, char expectedElementType, int bytesPerElement) throws IOException{
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try{
+            int length = readHeader(channel, expectedElementType);
+            if(channel.size() < HEADER_SIZE + (long) length * bytesPerElement){
+                throw new EOFException("expected " + length + " values but file is too short " + path);
+            }
+            return new MappedFile(channel, length, bytesPerElement);
+        }catch(IOException | RuntimeException e){
+            channel.close();
+            throw e;
+        }
+    }
+    /**
+     * A file written by one of the Growable array's {@code writeTo()} methods
+     * which is memory mapped in regions since a single
+     * {@link MappedByteBuffer} is limited to 2GB.
+     */
+    static final class MappedFile implements Closeable {
+        /**
+         * The max number of bytes mapped at once; not final
+         * so tests can cover files made of several regions.
+         */
+        static int bytesPerRegion = 1 << 30;
+
+        private final FileChannel channel;
+        private final int length;
+        private final int bytesPerElement;
+
+        private MappedFile(FileChannel channel, int length, int bytesPerElement){
+            this.channel = channel;
+            this.length = length;
+            this.bytesPerElement = bytesPerElement;
+        }
+
+        int getLength(){
+            return length;
+        }
+
+        int getElementsPerRegion(){
+            return bytesPerRegion / bytesPerElement;
+        }
+        /**
+         * Map the given elements of the file.
+         */
+        ByteBuffer map(int firstElement, int numberOfElements) throws IOException{
+            return channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE + (long) firstElement * bytesPerElement,
+                    (long) numberOfElements * bytesPerElement);
+        }
+
+        @Override
+        public void close() throws IOException{
+            channel.close();
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException{
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException{
+        while(buffer.hasRemaining()){
+            if(channel.read(buffer) <0){
+                throw new EOFException("unexpected end of channel");
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package gov.nih.ncats.common.util;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * A thread local pool of Growable arrays so short lived
+ * buffers can be reused instead of reallocated.
+ * Arrays are kept in buckets by power of 2 capacity
+ * and each thread only retains up to a maximum number of bytes;
+ * arrays released beyond that are left for the garbage collector.
+ *
+ * @param <A> the type of Growable array.
+ * @since 0.3.7
+ */
+final class GrowableArrayPool<A> {
+    /**
+     * The smallest bucket holds arrays with capacity >= 2^4.
+     */
+    private static final int MIN_BUCKET = 4;
+    /**
+     * Arrays with capacity >= 2^21 are not pooled.
+     */
+    private static final int MAX_BUCKET = 20;
+    private static final int MAX_ARRAYS_PER_BUCKET = 16;
+    /**
+     * The default max number of bytes of arrays each thread retains.
+     */
+    static final long DEFAULT_MAX_RETAINED_BYTES = 1 << 20;
+
+    private final IntFunction<A> factory;
+    private final ToIntFunction<A> capacityOf;
+    private final Consumer<A> clearer;
+    private final int bytesPerElement;
+    private final long maxRetainedBytes;
+
+    private final ThreadLocal<Buckets> buckets = ThreadLocal.withInitial(Buckets::new);
+
+    GrowableArrayPool(IntFunction<A> factory, ToIntFunction<A> capacityOf, Consumer<A> clearer, int bytesPerElement){
+        this(factory, capacityOf, clearer, bytesPerElement, DEFAULT_MAX_RETAINED_BYTES);
+    }
+
+    GrowableArrayPool(IntFunction<A> factory, ToIntFunction<A> capacityOf, Consumer<A> clearer, int bytesPerElement, long maxRetainedBytes){
+        this.factory = factory;
+        this.capacityOf = capacityOf;
+        this.clearer = clearer;
+        this.bytesPerElement = bytesPerElement;
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    private final class Buckets{
+        @SuppressWarnings({"unchecked","rawtypes"})
+        private final ArrayDeque<A>[] deques = new ArrayDeque[MAX_BUCKET - MIN_BUCKET +1];
+        private long retainedBytes;
+
+        private ArrayDeque<A> get(int bucket){
+            int index = bucket - MIN_BUCKET;
+            if(deques[index] ==null){
+                deques[index] = new ArrayDeque<>(MAX_ARRAYS_PER_BUCKET);
+            }
+            return deques[index];
+        }
+    }
+    /**
+     * Get an empty array from the current thread's pool
+     * or create a new one if there isn't one available.
+     * @param minCapacity the min capacity of the array.
+     * @return an array with length 0 and at least the given capacity.
+     */
+    A acquire(int minCapacity){
+        if(minCapacity <0){
+            throw new IllegalArgumentException("min capacity must be >= 0: " + minCapacity);
+        }
+        //round up so every array in the bucket is big enough
+        int bucket = Math.max(MIN_BUCKET, 32 - Integer.numberOfLeadingZeros(Math.max(1, minCapacity) -1));
+        if(bucket > MAX_BUCKET){
+            return factory.apply(minCapacity);
+        }
+        Buckets pool = buckets.get();
+        A array = pool.get(bucket).pollLast();
+        if(array ==null){
+            return factory.apply(1 << bucket);
+        }
+        pool.retainedBytes -= bytesOf(array);
+        return array;
+    }
+    /**
+     * Clear the given array and return it to the current thread's pool
+     * if there is room; the caller must not use the array afterwards.
+     * @param array the array to release.
+     * @throws IllegalStateException if the array is already in the pool.
+     */
+    void release(A array){
+        int capacity = capacityOf.applyAsInt(array);
+        //round down so every array in the bucket is big enough
+        int bucket = 31 - Integer.numberOfLeadingZeros(capacity);
+        if(bucket < MIN_BUCKET || bucket > MAX_BUCKET){
+            return;
+        }
+        Buckets pool = buckets.get();
+        ArrayDeque<A> deque = pool.get(bucket);
+        for(A pooled : deque){
+            if(pooled == array){
+                throw new IllegalStateException("array was already released");
+            }
+        }
+        long bytes = bytesOf(array);
+        if(deque.size() >= MAX_ARRAYS_PER_BUCKET || pool.retainedBytes + bytes > maxRetainedBytes){
+            return;
+        }
+        clearer.accept(array);
+        deque.addLast(array);
+        pool.retainedBytes += bytes;
+    }
+
+    private long bytesOf(A array){
+        return (long) capacityOf.applyAsInt(array) * bytesPerElement;
+    }
+}
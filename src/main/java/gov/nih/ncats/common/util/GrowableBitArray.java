@@ -17,13 +17,16 @@
  */
 package gov.nih.ncats.common.util;
 
-
-
 import gov.nih.ncats.common.functions.ThrowingIntIndexedBooleanConsumer;
 
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A {@code GrowableBitArray} is a utility class
@@ -33,34 +36,38 @@ import java.util.stream.IntStream;
  * This is similar to an {@link java.util.ArrayList}
  * or {@link StringBuilder}
  * for primitive bits.
+ * The bits are packed 64 to a {@code long} word
+ * so shifting bits around for inserts and removes
+ * moves whole words at a time.
  * This class is not Thread-safe.
  * @author dkatzel
  *
  */
 public final class GrowableBitArray {
+	private static final int ADDRESS_BITS_PER_WORD = 6;
+	private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+	private static final long[] EMPTY = new long[0];
 	/**
 	 * The current length of valid data
-	 * this is not the same as the length
-	 * of the byte array (capacity) since
+	 * this is not the same as the number of bits
+	 * in the word array (capacity) since
 	 * there still might be room to grow.
-	 * There might even be old data in the array
-	 * past current length if the array
-	 * has been modified via the {@link #remove(int)}
-	 * methods.
+	 * All bits past current length are always
+	 * kept cleared.
 	 */
 	private int currentLength=0;
 	/**
-	 * Our actual byte array,
-	 * the capacity is the size of the array.
+	 * Our actual packed bits,
+	 * the capacity is 64 times the size of the array.
 	 */
-	private boolean[] data;
+	private long[] data;
 	/**
 	 * Creates a new {@link GrowableBitArray}
 	 * with the given initial capacity.
-	 * @param initialCapacity the initial size 
-	 * of the backing byte array.  When adding
-	 * bytes will cause the byte array to overflow,
-	 * the backing byte array will automatically
+	 * @param initialCapacity the initial number of bits
+	 * the backing array can hold.  When adding
+	 * bits will cause the backing array to overflow,
+	 * the backing array will automatically
 	 * grow larger.
 	 * @throws IllegalArgumentException if initialCapacity is <=0.
 	 */
@@ -68,12 +75,12 @@ public final class GrowableBitArray {
 		if(initialCapacity <=0){
 			throw new IllegalArgumentException("initial capacity should be > 0 :"+initialCapacity);
 		}
-		data = new boolean[initialCapacity];		
+		data = new long[wordsFor(initialCapacity)];
 	}
 
     /**
      * Creates a new {@link GrowableBitArray}
-     * where the backing byte array is an exact
+     * where the backing array is an exact
      * copy of the input BitSet and the initial
      * capacity is set to the BitSet's logical length.
      *
@@ -84,36 +91,29 @@ public final class GrowableBitArray {
      *
      */
 	public GrowableBitArray(BitSet bs){
-	    data = new boolean[bs.length()];
-        currentLength=data.length;
-
-        for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i+1)) {
-            data[i] = true;
-            if (i == Integer.MAX_VALUE) {
-                break; // or (i+1) would overflow
-            }
-
-        }
+		data = bs.toLongArray();
+		currentLength = bs.length();
     }
 	/**
 	 * Creates a new {@link GrowableBitArray}
-	 * where the backing byte array is an exact
+	 * where the backing array is an exact
 	 * copy of the input array and the initial
 	 * capacity is set to the array length.
 	 * This has similar (although optimized)
 	 * functionality to
 	 * <pre>
-	 * byte[] bytes = ...
-	 * GrowableBitArray gba = new GrowableBitArray(bytes.length);
-	 * gba.append(bytes);
+	 * boolean[] bits = ...
+	 * GrowableBitArray gba = new GrowableBitArray(bits.length);
+	 * gba.append(bits);
 	 * </pre>
-	 * @param bytes the initial byte values to set
+	 * @param bits the initial bit values to set
 	 * to the backing array.
-	 * @throws NullPointerException if bytes is null.
+	 * @throws NullPointerException if bits is null.
 	 */
-	public GrowableBitArray(boolean[] bytes){
-		data = Arrays.copyOf(bytes, bytes.length);
-		currentLength=data.length;
+	public GrowableBitArray(boolean[] bits){
+		data = bits.length==0? EMPTY : new long[wordsFor(bits.length)];
+		setBits(0, bits);
+		currentLength=bits.length;
 	}
 	private GrowableBitArray(GrowableBitArray copy){
 		data = Arrays.copyOf(copy.data, copy.data.length);
@@ -138,21 +138,29 @@ public final class GrowableBitArray {
 			"Index: "+offset+", Size: "+currentLength);
 	    }
 	}
-	private void assertValidRange(Range range) {
-		if (range.getBegin()<0 || range.getEnd() >= currentLength){
-		    throw new IndexOutOfBoundsException(
-			"range: "+range+", array size: "+currentLength);
-	    }
+	private static int wordsFor(int numberOfBits){
+		return (int)(((long) numberOfBits + BITS_PER_WORD -1) >>> ADDRESS_BITS_PER_WORD);
 	}
-	
+	private int wordsInUse(){
+		return wordsFor(currentLength);
+	}
+
 	public void reverse(){
-		int pivotPoint = currentLength/2;
-		for(int i=0; i<pivotPoint;i++){
-			boolean temp=data[i];
-			int reverseI = currentLength-i-1;
-			data[i] = data[reverseI];
-			data[reverseI] = temp;
+		int numberOfWords = wordsInUse();
+		if(numberOfWords ==0){
+			return;
+		}
+		//reverse the order of the words and the bits inside each word
+		//then shift everything down over the padding that is now at the beginning
+		long[] reversed = new long[numberOfWords];
+		for(int i=0; i< numberOfWords; i++){
+			reversed[numberOfWords -i -1] = Long.reverse(data[i]);
 		}
+		int padding = numberOfWords* BITS_PER_WORD - currentLength;
+		for(int i=0; i< numberOfWords; i++){
+			data[i] = readWord(reversed, padding + i* BITS_PER_WORD);
+		}
+		clearUnusedBits();
 	}
 	public int getCurrentLength() {
 		return currentLength;
@@ -160,22 +168,23 @@ public final class GrowableBitArray {
 
 	public void append(boolean value){
 		ensureCapacity(currentLength+1);
-		data[currentLength++]=value;
+		setBit(currentLength++, value);
 	}
 	
 	public void append(boolean[] values){
 		ensureCapacity(currentLength+values.length);
-		System.arraycopy(values, 0, data, currentLength, values.length);
+		setBits(currentLength, values);
 		currentLength+=values.length;
 	}
 	public void append(GrowableBitArray other){
-		ensureCapacity(currentLength+other.currentLength);
-		System.arraycopy(other.data, 0, data, currentLength, other.currentLength);
-		currentLength+=other.currentLength;
+		int otherLength = other.currentLength;
+		ensureCapacity(currentLength+otherLength);
+		copyBits(other.data, 0, data, currentLength, otherLength);
+		currentLength+=otherLength;
 	}
 	public boolean get(int offset){
 		assertValidOffset(offset);
-		return data[offset];
+		return (data[offset >>> ADDRESS_BITS_PER_WORD] & (1L << offset)) !=0;
 	}
 	
 	public void prepend(boolean value){
@@ -190,36 +199,26 @@ public final class GrowableBitArray {
 	}
 	public void replace(int offset, boolean value){
 		assertValidOffset(offset);
-		data[offset]=value;
+		setBit(offset, value);
 	}
 	public void insert(int offset, boolean[] values){
 		assertValidInsertOffset(offset);
-		ensureCapacity(currentLength+values.length);
-		System.arraycopy(data, offset, data, offset + values.length,
-				currentLength - offset);
-		
-		System.arraycopy(values, 0, data, offset, values.length);
-		currentLength+=values.length;
-		
+		openGap(offset, values.length);
+		setBits(offset, values);
 	}
 	
 	public void insert(int offset, GrowableBitArray other){
 		assertValidInsertOffset(offset);
-		ensureCapacity(currentLength+other.currentLength);
-		System.arraycopy(data, offset, data, offset + other.currentLength,
-				currentLength - offset);
-		
-		System.arraycopy(other.data, 0, data, offset, other.currentLength);
-		currentLength+=other.currentLength;
-		
+		//copy first in case we are inserting into ourselves
+		long[] otherData = other == this ? Arrays.copyOf(data, wordsInUse()) : other.data;
+		int otherLength = other.currentLength;
+		openGap(offset, otherLength);
+		copyBits(otherData, 0, data, offset, otherLength);
 	}
 	public void insert(int offset, boolean value){
 		assertValidInsertOffset(offset);
-		ensureCapacity(currentLength+1);
-		System.arraycopy(data, offset, data, offset + 1,
-				currentLength - offset);
-		data[offset] = value;
-		currentLength++;
+		openGap(offset, 1);
+		setBit(offset, value);
 	}
 	private void assertValidInsertOffset(int offset) {
 		//inserts allow offset to be length
@@ -232,23 +231,25 @@ public final class GrowableBitArray {
 
 	public boolean remove(int offset){
 		assertValidOffset(offset);
-		boolean oldValue = data[offset];
+		boolean oldValue = get(offset);
 
 		int numMoved = currentLength - offset - 1;
 		if (numMoved > 0){
-		    System.arraycopy(data, offset+1, data, offset,    numMoved);
+			copyBits(data, offset+1, data, offset, numMoved);
 		}
 		currentLength--;
+		setBit(currentLength, false);
 		return oldValue;
 	}
 	
 	public void ensureCapacity(int minCapacity) {
+		int minWords = wordsFor(minCapacity);
 		int oldCapacity = data.length;
-		if (minCapacity > oldCapacity) {
+		if (minWords > oldCapacity) {
 		    //algorithm borrowed from ArrayList
 		    int newCapacity = (oldCapacity * 3)/2 + 1;
-    	    if (newCapacity < minCapacity){
-    	    	newCapacity = minCapacity;
+    	    if (newCapacity < minWords){
+    	    	newCapacity = minWords;
     	    }
             // minCapacity is usually close to size, so this is a win:
             data = Arrays.copyOf(data, newCapacity);
@@ -256,25 +257,136 @@ public final class GrowableBitArray {
     }
 	
 	public boolean[] toArray(){
-		return Arrays.copyOf(data,currentLength);
+		boolean[] array = new boolean[currentLength];
+		for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i+1)) {
+			array[i] = true;
+		}
+		return array;
+	}
+
+	/**
+	 * Get the number of bits that are set to true.
+	 * @return the number of "on" bits.
+	 */
+	public int cardinality(){
+		int count=0;
+		int numberOfWords = wordsInUse();
+		for(int i=0; i< numberOfWords; i++){
+			count += Long.bitCount(data[i]);
+		}
+		return count;
+	}
+
+	/**
+	 * Get the offset of the first bit that is set to true
+	 * that occurs on or after the given offset.
+	 * @param fromOffset the offset to start looking from (inclusive).
+	 * @return the offset of the next on bit or -1 if there are no more.
+	 * @throws IndexOutOfBoundsException if fromOffset is negative.
+	 */
+	public int nextSetBit(int fromOffset){
+		if(fromOffset <0){
+			throw new IndexOutOfBoundsException("fromOffset < 0: " + fromOffset);
+		}
+		if(fromOffset >= currentLength){
+			return -1;
+		}
+		int wordIndex = fromOffset >>> ADDRESS_BITS_PER_WORD;
+		int numberOfWords = wordsInUse();
+		long word = data[wordIndex] & (-1L << fromOffset);
+		while(true){
+			if(word !=0){
+				return wordIndex * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+			}
+			if(++wordIndex == numberOfWords){
+				return -1;
+			}
+			word = data[wordIndex];
+		}
+	}
+
+	/**
+	 * Set this array to the bitwise AND of this array and the other array.
+	 * Bits past the end of the other array are treated as false.
+	 * The length of this array does not change.
+	 * @param other the other array; can not be null.
+	 */
+	public void and(GrowableBitArray other){
+		int numberOfWords = wordsInUse();
+		int common = Math.min(numberOfWords, other.wordsInUse());
+		for(int i=0; i< common; i++){
+			data[i] &= other.data[i];
+		}
+		Arrays.fill(data, common, numberOfWords, 0L);
+	}
+
+	/**
+	 * Set this array to the bitwise OR of this array and the other array.
+	 * If the other array is longer, this array grows to the other's length.
+	 * @param other the other array; can not be null.
+	 */
+	public void or(GrowableBitArray other){
+		growToAtLeast(other.currentLength);
+		int otherWords = other.wordsInUse();
+		for(int i=0; i< otherWords; i++){
+			data[i] |= other.data[i];
+		}
+	}
+
+	/**
+	 * Set this array to the bitwise XOR of this array and the other array.
+	 * If the other array is longer, this array grows to the other's length.
+	 * @param other the other array; can not be null.
+	 */
+	public void xor(GrowableBitArray other){
+		growToAtLeast(other.currentLength);
+		int otherWords = other.wordsInUse();
+		for(int i=0; i< otherWords; i++){
+			data[i] ^= other.data[i];
+		}
+	}
+
+	/**
+	 * Clear all the bits in this array whose corresponding
+	 * bit in the other array is set.
+	 * The length of this array does not change.
+	 * @param other the other array; can not be null.
+	 */
+	public void andNot(GrowableBitArray other){
+		int common = Math.min(wordsInUse(), other.wordsInUse());
+		for(int i=0; i< common; i++){
+			data[i] &= ~other.data[i];
+		}
 	}
 
     /**
      * Get an {@link IntStream} of all the array offsets
-     * for the bits that are set to true.
+     * for the bits that are set to true.  The offsets are found
+     * lazily as the stream is consumed.
      * @return an IntStream that may be empty if all values are set to false.
      *
      *
      */
 	public IntStream onBitsAsStream(){
-       GrowableIntArray ons = new GrowableIntArray();
-        forEachIndexed((i, v) -> {
-            if(v){
-                ons.append(i);
-            }
-        });
+		PrimitiveIterator.OfInt iter = new PrimitiveIterator.OfInt() {
+			private int next = nextSetBit(0);
+			@Override
+			public int nextInt() {
+				if(next <0){
+					throw new NoSuchElementException();
+				}
+				int current = next;
+				next = current +1 < currentLength ? nextSetBit(current+1) : -1;
+				return current;
+			}
 
-       return ons.stream();
+			@Override
+			public boolean hasNext() {
+				return next >=0;
+			}
+		};
+		return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(iter,
+				Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
     }
 
     /**
@@ -287,9 +399,7 @@ public final class GrowableBitArray {
      *
      */
     public BitSet asBitSet(){
-	    BitSet bs = new BitSet(currentLength);
-	    onBitsAsStream().forEach(bs::set);
-	    return bs;
+	    return BitSet.valueOf(Arrays.copyOf(data, wordsInUse()));
     }
     /**
      * Iterate over each element in the array and call the given consumer
@@ -302,7 +412,7 @@ public final class GrowableBitArray {
      */
     public <E extends Throwable> void forEachIndexed(ThrowingIntIndexedBooleanConsumer<E> consumer) throws E{
         for(int i=0; i< currentLength; i++){
-            consumer.accept(i, data[i]);
+            consumer.accept(i, (data[i >>> ADDRESS_BITS_PER_WORD] & (1L << i)) !=0);
         }
     }
 
@@ -318,7 +428,114 @@ public final class GrowableBitArray {
     public <E extends Throwable> void forEachIndexed(Range range, ThrowingIntIndexedBooleanConsumer<E> consumer) throws E{
         int end = (int) Math.min(currentLength, range.getEnd()+1);
         for(int i=(int) range.getBegin(); i< end; i++){
-            consumer.accept(i, data[i]);
+            consumer.accept(i, (data[i >>> ADDRESS_BITS_PER_WORD] & (1L << i)) !=0);
         }
     }
+
+	private void growToAtLeast(int length){
+		if(length > currentLength){
+			ensureCapacity(length);
+			currentLength = length;
+		}
+	}
+
+	private void setBit(int offset, boolean value){
+		int wordIndex = offset >>> ADDRESS_BITS_PER_WORD;
+		if(value){
+			data[wordIndex] |= 1L << offset;
+		}else{
+			data[wordIndex] &= ~(1L << offset);
+		}
+	}
+
+	private void setBits(int offset, boolean[] values){
+		for(int i=0; i< values.length; i++){
+			if(values[i]){
+				int bit = offset +i;
+				data[bit >>> ADDRESS_BITS_PER_WORD] |= 1L << bit;
+			}
+		}
+	}
+
+	/**
+	 * Shift everything from offset to the end up by length bits
+	 * leaving a gap of cleared bits.
+	 */
+	private void openGap(int offset, int length){
+		if(length ==0){
+			return;
+		}
+		ensureCapacity(currentLength+length);
+		copyBits(data, offset, data, offset + length, currentLength - offset);
+		clearBits(offset, offset+length);
+		currentLength+=length;
+	}
+
+	private void clearUnusedBits(){
+		int numberOfWords = wordsInUse();
+		if(numberOfWords >0 && (currentLength & (BITS_PER_WORD-1)) !=0){
+			data[numberOfWords-1] &= -1L >>> -currentLength;
+		}
+		Arrays.fill(data, numberOfWords, data.length, 0L);
+	}
+
+	private void clearBits(int fromOffset, int toOffset){
+		for(int i = fromOffset; i< toOffset; ){
+			int count = Math.min(BITS_PER_WORD - (i & (BITS_PER_WORD-1)), toOffset - i);
+			writeBits(data, i, 0L, count);
+			i+=count;
+		}
+	}
+
+	/**
+	 * Read the 64 bits starting at the given bit offset,
+	 * any bits past the end of the array are read as 0.
+	 */
+	private static long readWord(long[] words, int bitOffset){
+		int wordIndex = bitOffset >>> ADDRESS_BITS_PER_WORD;
+		int shift = bitOffset & (BITS_PER_WORD -1);
+		long low = wordIndex < words.length ? words[wordIndex] >>> shift : 0L;
+		if(shift ==0){
+			return low;
+		}
+		long high = wordIndex+1 < words.length ? words[wordIndex+1] << (BITS_PER_WORD - shift) : 0L;
+		return low | high;
+	}
+
+	/**
+	 * Write the lowest {@code count} bits of value starting at the given bit offset.
+	 */
+	private static void writeBits(long[] words, int bitOffset, long value, int count){
+		long mask = count == BITS_PER_WORD ? -1L : (1L << count) -1;
+		value &= mask;
+		int wordIndex = bitOffset >>> ADDRESS_BITS_PER_WORD;
+		int shift = bitOffset & (BITS_PER_WORD -1);
+		words[wordIndex] = (words[wordIndex] & ~(mask << shift)) | (value << shift);
+		int overflow = shift + count - BITS_PER_WORD;
+		if(overflow >0){
+			long highMask = (1L << overflow) -1;
+			words[wordIndex+1] = (words[wordIndex+1] & ~highMask) | (value >>> (BITS_PER_WORD - shift));
+		}
+	}
+
+	/**
+	 * Copy length bits a word at a time, works like {@link System#arraycopy(Object, int, Object, int, int)}
+	 * even if the source and destination overlap.
+	 */
+	private static void copyBits(long[] src, int srcOffset, long[] dest, int destOffset, int length){
+		if(src == dest && destOffset > srcOffset){
+			//copy from the end so we don't overwrite bits we haven't copied yet
+			int remaining = length;
+			while(remaining >0){
+				int count = Math.min(BITS_PER_WORD, remaining);
+				remaining -= count;
+				writeBits(dest, destOffset + remaining, readWord(src, srcOffset + remaining), count);
+			}
+		}else{
+			for(int i=0; i< length; i+= BITS_PER_WORD){
+				int count = Math.min(BITS_PER_WORD, length - i);
+				writeBits(dest, destOffset + i, readWord(src, srcOffset + i), count);
+			}
+		}
+	}
 }
@@ -21,10 +21,27 @@ package gov.nih.ncats.common.util;
 import gov.nih.ncats.common.functions.ThrowingIntIndexedCharConsumer;
 import gov.nih.ncats.common.iter.PrimitiveArrayIterators;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A {@code GrowableCharArray} is a utility class
@@ -38,7 +55,7 @@ import java.util.Objects;
  * @author dkatzel
  *
  */
-public final class GrowableCharArray implements Iterable<Character>{
+public final class GrowableCharArray implements Iterable<Character>, CharSequence{
 	/**
 	 * The current length of valid data
 	 * this is not the same as the length
@@ -55,6 +72,67 @@ public final class GrowableCharArray implements Iterable<Character>{
 	 * the capacity is the size of the array.
 	 */
 	private char[] data;
+	/**
+	 * The number of times this array has been
+	 * structurally modified (its length changed),
+	 * used by {@link View}s to fail fast.
+	 */
+	private int modCount;
+	/**
+	 * The JVM type descriptor used to tag
+	 * this type in the {@link #writeTo(WritableByteChannel)} header.
+	 */
+	private static final char ELEMENT_TYPE = 'C';
+	/**
+	 * log2 of the number of values in each segment
+	 * when this array is in segmented mode so that
+	 * an offset can be split into a segment index
+	 * and a position inside that segment with a shift and a mask.
+	 */
+	private static final int SEGMENT_SHIFT = 14;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+	/**
+	 * Batches larger than this are sorted
+	 * with {@link Arrays#parallelSort(char[])}.
+	 */
+	private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+	/**
+	 * Number of keys searched by each fork-join task
+	 * in {@link #binarySearchAll(char[])}.
+	 */
+	private static final int PARALLEL_SEARCH_BLOCK_SIZE = 1 << 16;
+	/**
+	 * The exact powers of 10 that can be represented as a double,
+	 * used by the fast path of {@link #parseDouble(int, int)}.
+	 */
+	private static final double[] EXACT_POWERS_OF_TEN = new double[23];
+	static{
+		EXACT_POWERS_OF_TEN[0] = 1;
+		for(int i=1; i< EXACT_POWERS_OF_TEN.length; i++){
+			EXACT_POWERS_OF_TEN[i] = EXACT_POWERS_OF_TEN[i-1] * 10;
+		}
+	}
+	/**
+	 * Decimals with at most this many significant digits
+	 * fit exactly in the 53 bit mantissa of a double.
+	 */
+	private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+	/**
+	 * Per thread pool of arrays used by {@link #acquire(int)}
+	 * and {@link #release()}.
+	 */
+	private static final GrowableArrayPool<GrowableCharArray> POOL = new GrowableArrayPool<>(
+			GrowableCharArray::new, GrowableCharArray::getCurrentCapacity, GrowableCharArray::clear, Character.BYTES);
+	/**
+	 * The fixed size chunks of data when this
+	 * array is in segmented mode; {@code null}
+	 * if the values are stored in {@link #data} instead.
+	 * Only the first {@link #numberOfSegments} chunks
+	 * have been allocated.
+	 */
+	private char[][] segments;
+	private int numberOfSegments;
 	/**
 	 * Creates a new {@link GrowableCharArray}
 	 * with the given initial capacity.
@@ -71,6 +149,34 @@ public final class GrowableCharArray implements Iterable<Character>{
 		}
 		data = new char[initialCapacity];		
 	}
+	/**
+	 * Creates a new {@link GrowableCharArray}
+	 * with the given initial capacity which may
+	 * optionally store its values in segmented mode.
+	 * In segmented mode the values are kept in a list of fixed size
+	 * chunks instead of one contiguous array, so growing
+	 * never copies the values already stored, and random access
+	 * is only a shift and a mask.  A contiguous array is only
+	 * ever created when requested by methods like {@link #toArray()}.
+	 * @param initialCapacity the initial capacity; when adding
+	 * chars will cause the capacity to overflow,
+	 * more storage will automatically be allocated.
+	 * @param segmented {@code true} to use segmented mode;
+	 * {@code false} to behave exactly like {@link #GrowableCharArray(int)}.
+	 * @throws IllegalArgumentException if initialCapacity is <0.
+	 * @since 0.3.7
+	 */
+	public GrowableCharArray(int initialCapacity, boolean segmented){
+		if(initialCapacity <0){
+			throw new IllegalArgumentException("initial capacity should be >= 0 :"+initialCapacity);
+		}
+		if(segmented){
+			segments = new char[Math.max(1, numberOfSegmentsFor(initialCapacity))][];
+			ensureCapacity(initialCapacity);
+		}else{
+			data = new char[initialCapacity];
+		}
+	}
 	
 	
 	/**
@@ -117,7 +223,15 @@ public final class GrowableCharArray implements Iterable<Character>{
 		currentLength=data.length;
 	}
 	private GrowableCharArray(GrowableCharArray copy){
-		data = Arrays.copyOf(copy.data, copy.data.length);
+		if(copy.segments ==null){
+			data = Arrays.copyOf(copy.data, copy.data.length);
+		}else{
+			segments = new char[copy.segments.length][];
+			numberOfSegments = copy.numberOfSegments;
+			for(int i=0; i< numberOfSegments; i++){
+				segments[i] = Arrays.copyOf(copy.segments[i], SEGMENT_SIZE);
+			}
+		}
 		currentLength = copy.currentLength;
 	}
 	/**
@@ -133,6 +247,17 @@ public final class GrowableCharArray implements Iterable<Character>{
 	public GrowableCharArray copy(){
 		return new GrowableCharArray(this);
 	}
+	/**
+	 * Is this array storing its values
+	 * in fixed size segments.
+	 * @return {@code true} if this array was created
+	 * in segmented mode; {@code false} otherwise.
+	 * @see #GrowableCharArray(int, boolean)
+	 * @since 0.3.7
+	 */
+	public boolean isSegmented(){
+		return segments !=null;
+	}
 	private void assertValidOffset(int offset) {
 		if (offset <0 || offset >= currentLength){
 		    throw new IndexOutOfBoundsException(
@@ -149,10 +274,10 @@ public final class GrowableCharArray implements Iterable<Character>{
 	public void reverse(){
 		int pivotPoint = currentLength/2;
 		for(int i=0; i<pivotPoint;i++){
-			char temp=data[i];
+			char temp=valueAt(i);
 			int reverseI = currentLength-i-1;
-			data[i] = data[reverseI];
-			data[reverseI] = temp;
+			setValueAt(i, valueAt(reverseI));
+			setValueAt(reverseI, temp);
 		}
 	}
 	public int getCurrentLength() {
@@ -161,22 +286,44 @@ public final class GrowableCharArray implements Iterable<Character>{
 
 	public void append(char value){
 		ensureCapacity(currentLength+1);
-		data[currentLength++]=value;
+		setValueAt(currentLength++, value);
+		modCount++;
 	}
 	
+	/**
+	 * Append {@code length} values of the given array
+	 * starting at {@code offset}.
+	 * @param values the array to copy the values from; can not be null.
+	 * @param offset the offset of the first value to append.
+	 * @param length the number of values to append.
+	 * @throws IndexOutOfBoundsException if offset or length are out of bounds of the given array.
+	 * @throws NullPointerException if values is null.
+	 * @since 0.3.7
+	 */
+	public void append(char[] values, int offset, int length){
+		if(offset <0 || length <0 || length > values.length - offset){
+			throw new IndexOutOfBoundsException("offset "+offset+", length "+length+", array length "+values.length);
+		}
+		ensureCapacity(currentLength+length);
+		copyIn(values, offset, currentLength, length);
+		currentLength+=length;
+		modCount++;
+	}
 	public void append(char[] values){
 		ensureCapacity(currentLength+values.length);
-		System.arraycopy(values, 0, data, currentLength, values.length);
+		copyIn(values, 0, currentLength, values.length);
 		currentLength+=values.length;
+		modCount++;
 	}
 	public void append(GrowableCharArray other){
 		ensureCapacity(currentLength+other.currentLength);
-		System.arraycopy(other.data, 0, data, currentLength, other.currentLength);
+		copyIn(other, currentLength);
 		currentLength+=other.currentLength;
+		modCount++;
 	}
 	public char get(int offset){
 		assertValidOffset(offset);
-		return data[offset];
+		return valueAt(offset);
 	}
 	
 	public void prepend(char value){
@@ -191,36 +338,36 @@ public final class GrowableCharArray implements Iterable<Character>{
 	}
 	public void replace(int offset, char value){
 		assertValidOffset(offset);
-		data[offset]=value;
+		setValueAt(offset, value);
 	}
 	public void insert(int offset, char[] values){
 		assertValidInsertOffset(offset);
 		ensureCapacity(currentLength+values.length);
-		System.arraycopy(data, offset, data, offset + values.length,
-				currentLength - offset);
+		move(offset, offset + values.length, currentLength - offset);
 		
-		System.arraycopy(values, 0, data, offset, values.length);
+		copyIn(values, 0, offset, values.length);
 		currentLength+=values.length;
+		modCount++;
 		
 	}
 	
 	public void insert(int offset, GrowableCharArray other){
 		assertValidInsertOffset(offset);
 		ensureCapacity(currentLength+other.currentLength);
-		System.arraycopy(data, offset, data, offset + other.currentLength,
-				currentLength - offset);
+		move(offset, offset + other.currentLength, currentLength - offset);
 		
-		System.arraycopy(other.data, 0, data, offset, other.currentLength);
+		copyIn(other, offset);
 		currentLength+=other.currentLength;
+		modCount++;
 		
 	}
 	public void insert(int offset, char value){
 		assertValidInsertOffset(offset);
 		ensureCapacity(currentLength+1);
-		System.arraycopy(data, offset, data, offset + 1,
-				currentLength - offset);
-		data[offset] = value;
+		move(offset, offset + 1, currentLength - offset);
+		setValueAt(offset, value);
 		currentLength++;
+		modCount++;
 	}
 	private void assertValidInsertOffset(int offset) {
 		//inserts allow offset to be length
@@ -234,10 +381,10 @@ public final class GrowableCharArray implements Iterable<Character>{
 		assertValidRange(range);
 		int numMoved = currentLength -(int)range.getBegin()-(int) range.getLength();
 		if (numMoved > 0){
-			System.arraycopy(data, (int)range.getEnd()+1, 
-					data, (int)range.getBegin(),  numMoved);
+			move((int)range.getEnd()+1, (int)range.getBegin(), numMoved);
 		}
 		currentLength-=(int)range.getLength();    
+		modCount++;
 	}
 	/**
 	 * Removes the value at the given offset
@@ -248,13 +395,14 @@ public final class GrowableCharArray implements Iterable<Character>{
 	 */
 	public char remove(int offset){
 		assertValidOffset(offset);
-		char oldValue = data[offset];
+		char oldValue = valueAt(offset);
 
 		int numMoved = currentLength - offset - 1;
 		if (numMoved > 0){
-		    System.arraycopy(data, offset+1, data, offset,    numMoved);
+		    move(offset+1, offset, numMoved);
 		}
 		currentLength--;
+		modCount++;
 		return oldValue;
 	}
 	/**
@@ -268,10 +416,130 @@ public final class GrowableCharArray implements Iterable<Character>{
 	 * will always be >=0;
 	 */
 	public int getCurrentCapacity(){
+		if(segments !=null){
+			return (int) Math.min(Integer.MAX_VALUE, (long) numberOfSegments << SEGMENT_SHIFT);
+		}
 		return data.length;
 	}
 	
+	/**
+	 * Get the value at the given offset without any bounds checking.
+	 */
+	private char valueAt(int offset){
+		if(segments ==null){
+			return data[offset];
+		}
+		return segments[offset >>> SEGMENT_SHIFT][offset & SEGMENT_MASK];
+	}
+	private void setValueAt(int offset, char value){
+		if(segments ==null){
+			data[offset] = value;
+		}else{
+			segments[offset >>> SEGMENT_SHIFT][offset & SEGMENT_MASK] = value;
+		}
+	}
+	private static int numberOfSegmentsFor(int capacity){
+		return (int) (((long) capacity + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+	}
+	/**
+	 * Copy {@code length} values from the given array
+	 * into this growable array starting at {@code offset}.
+	 * The capacity must already be large enough.
+	 */
+	private void copyIn(char[] src, int srcPos, int offset, int length){
+		if(segments ==null){
+			System.arraycopy(src, srcPos, data, offset, length);
+			return;
+		}
+		while(length >0){
+			int within = offset & SEGMENT_MASK;
+			int n = Math.min(length, SEGMENT_SIZE - within);
+			System.arraycopy(src, srcPos, segments[offset >>> SEGMENT_SHIFT], within, n);
+			srcPos+=n;
+			offset+=n;
+			length-=n;
+		}
+	}
+	/**
+	 * Copy all the current values of the other growable array
+	 * into this growable array starting at {@code offset}.
+	 * The capacity must already be large enough.
+	 */
+	private void copyIn(GrowableCharArray other, int offset){
+		if(other.segments ==null){
+			copyIn(other.data, 0, offset, other.currentLength);
+			return;
+		}
+		for(int copied=0; copied < other.currentLength; copied+=SEGMENT_SIZE){
+			copyIn(other.segments[copied >>> SEGMENT_SHIFT], 0, offset + copied, Math.min(SEGMENT_SIZE, other.currentLength - copied));
+		}
+	}
+	/**
+	 * Copy {@code length} values starting at {@code offset}
+	 * out of this growable array into the given array.
+	 */
+	private void copyOut(int offset, char[] dest, int destPos, int length){
+		if(segments ==null){
+			System.arraycopy(data, offset, dest, destPos, length);
+			return;
+		}
+		while(length >0){
+			int within = offset & SEGMENT_MASK;
+			int n = Math.min(length, SEGMENT_SIZE - within);
+			System.arraycopy(segments[offset >>> SEGMENT_SHIFT], within, dest, destPos, n);
+			destPos+=n;
+			offset+=n;
+			length-=n;
+		}
+	}
+	/**
+	 * Move {@code length} values inside this growable array
+	 * from offset {@code from} to offset {@code to}.
+	 * Like {@link System#arraycopy(Object, int, Object, int, int)}
+	 * this correctly handles overlapping regions.
+	 */
+	private void move(int from, int to, int length){
+		if(segments ==null){
+			System.arraycopy(data, from, data, to, length);
+			return;
+		}
+		if(to <= from){
+			while(length >0){
+				int fromWithin = from & SEGMENT_MASK;
+				int toWithin = to & SEGMENT_MASK;
+				int n = Math.min(length, SEGMENT_SIZE - Math.max(fromWithin, toWithin));
+				System.arraycopy(segments[from >>> SEGMENT_SHIFT], fromWithin, segments[to >>> SEGMENT_SHIFT], toWithin, n);
+				from+=n;
+				to+=n;
+				length-=n;
+			}
+			return;
+		}
+		//moving to the right so copy from the end
+		//so we never overwrite values we still need
+		int fromEnd = from + length;
+		int toEnd = to + length;
+		while(length >0){
+			int n = Math.min(length, Math.min(((fromEnd-1) & SEGMENT_MASK) +1, ((toEnd-1) & SEGMENT_MASK) +1));
+			fromEnd-=n;
+			toEnd-=n;
+			System.arraycopy(segments[fromEnd >>> SEGMENT_SHIFT], fromEnd & SEGMENT_MASK, segments[toEnd >>> SEGMENT_SHIFT], toEnd & SEGMENT_MASK, n);
+			length-=n;
+		}
+	}
+	
 	private  void ensureCapacity(int minCapacity) {
+		if(segments !=null){
+			//only the array of segment references ever gets copied
+			int neededSegments = numberOfSegmentsFor(minCapacity);
+			if(neededSegments > segments.length){
+				segments = Arrays.copyOf(segments, Math.max(neededSegments, segments.length*2));
+			}
+			while(numberOfSegments < neededSegments){
+				segments[numberOfSegments++] = new char[SEGMENT_SIZE];
+			}
+			return;
+		}
 		int oldCapacity = data.length;
 		if (minCapacity > oldCapacity) {
 		    //algorithm borrowed from ArrayList
@@ -285,7 +553,12 @@ public final class GrowableCharArray implements Iterable<Character>{
     }
 	
 	public char[] toArray(){
-		return Arrays.copyOf(data,currentLength);
+		if(segments ==null){
+			return Arrays.copyOf(data,currentLength);
+		}
+		char[] array = new char[currentLength];
+		copyOut(0, array, 0, currentLength);
+		return array;
 	}
 	
 	/**
@@ -314,9 +587,85 @@ public final class GrowableCharArray implements Iterable<Character>{
      *@see Arrays#binarySearch(byte[], byte)
      */
 	public int binarySearch(char key){
-		return Arrays.binarySearch(data, 0, currentLength, key);
+		if(segments ==null){
+			return Arrays.binarySearch(data, 0, currentLength, key);
+		}
+		int low = 0;
+		int high = currentLength - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			char midVal = valueAt(mid);
+			if (midVal < key){
+				low = mid + 1;
+			}else if (midVal > key){
+				high = mid - 1;
+			}else{
+				return mid;
+			}
+		}
+		return -(low + 1);
 	}
 	
+	/**
+	 * Search the current values in this growable array
+	 * for each of the given keys.  This is the same as calling
+	 * {@link #binarySearch(char)} for each key, but because
+	 * the keys are sorted, each search only has to gallop forward
+	 * from where the previous key was found, so searching
+	 * many keys is one pass over both arrays instead of
+	 * a full binary search per key.  Large key sets are split
+	 * into blocks which are searched in parallel.
+	 * The array must be sorted (as
+	 * by the {@link #sort()} method) prior to making this call.  If it
+	 * is not sorted, the results are undefined.
+	 * @param sortedKeys the values to be searched for which must
+	 * be in sorted order; can not be null.
+	 * @return a new int array the same length as {@code sortedKeys}
+	 * where each element is the result of searching for the key
+	 * at the same offset using the same convention as
+	 * {@link #binarySearch(char)}: the index of the key if it is contained
+	 * in this array; otherwise <tt>(-(<i>insertion point</i>) - 1)</tt>.
+	 * @throws NullPointerException if sortedKeys is null.
+	 * @since 0.3.7
+	 */
+	public int[] binarySearchAll(char[] sortedKeys){
+		int[] results = new int[sortedKeys.length];
+		if(sortedKeys.length <= PARALLEL_SEARCH_BLOCK_SIZE){
+			gallopingSearch(sortedKeys, 0, sortedKeys.length, results);
+		}else{
+			int numberOfBlocks = (sortedKeys.length + PARALLEL_SEARCH_BLOCK_SIZE -1) / PARALLEL_SEARCH_BLOCK_SIZE;
+			IntStream.range(0, numberOfBlocks).parallel().forEach(block -> {
+				int from = block * PARALLEL_SEARCH_BLOCK_SIZE;
+				gallopingSearch(sortedKeys, from, Math.min(sortedKeys.length, from + PARALLEL_SEARCH_BLOCK_SIZE), results);
+			});
+		}
+		return results;
+	}
+
+	private void gallopingSearch(char[] sortedKeys, int from, int to, int[] results){
+		//every value before lowerBound is less than the current key
+		int lowerBound = 0;
+		for(int k=from; k< to; k++){
+			char key = sortedKeys[k];
+			int high = lowerBound;
+			int step = 1;
+			while(high < currentLength && valueAt(high) < key){
+				lowerBound = high +1;
+				high += step;
+				step <<= 1;
+			}
+			high = Math.min(high, currentLength);
+			while(lowerBound < high){
+				int mid = (lowerBound + high) >>> 1;
+				if(valueAt(mid) < key){
+					lowerBound = mid +1;
+				}else{
+					high = mid;
+				}
+			}
+			results[k] = lowerBound < currentLength && valueAt(lowerBound) == key ? lowerBound : -(lowerBound + 1);
+		}
+	}
 	/**
 	 * Remove the given value from this
 	 * sorted array.  This method
@@ -371,19 +720,155 @@ public final class GrowableCharArray implements Iterable<Character>{
 	 * using the default comparator.
 	 */
 	public void sort(){
-		Arrays.sort(data, 0, currentLength);
+		if(segments ==null){
+			Arrays.sort(data, 0, currentLength);
+			return;
+		}
+		char[] sorted = toArray();
+		Arrays.sort(sorted);
+		copyIn(sorted, 0, 0, currentLength);
+	}
+	/**
+	 * Sort the current values in this growable array
+	 * using {@link Arrays#parallelSort(char[], int, int)}
+	 * which splits the work across the common fork-join pool.
+	 * For small arrays this is no faster than {@link #sort()}.
+	 * @since 0.3.7
+	 */
+	public void parallelSort(){
+		if(segments ==null){
+			Arrays.parallelSort(data, 0, currentLength);
+			return;
+		}
+		char[] sorted = toArray();
+		Arrays.parallelSort(sorted);
+		copyIn(sorted, 0, 0, currentLength);
 	}
 	
+	/**
+	 * Merge the given values into the
+	 * sorted backing array.  This has the same result
+	 * as {@link #sortedInsert(char[])} but is meant for large batches:
+	 * the batch is sorted first (in parallel if it is large)
+	 * and then both sorted runs are merged into a single new
+	 * array in one linear pass.
+	 * The given array is never modified.
+	 * Calling this method on an unsorted
+	 * backing array may not merge the values
+	 * correctly.
+	 * @param values the values to merge; can not be null.
+	 * @param valuesAlreadySorted {@code true} if the given values
+	 * are already in sorted order and don't need to be sorted again.
+	 * @throws NullPointerException if values is null.
+	 * @since 0.3.7
+	 */
+	public void sortedMerge(char[] values, boolean valuesAlreadySorted){
+		sortedMerge(values, valuesAlreadySorted, false);
+	}
+	/**
+	 * Merge the given values into the
+	 * sorted backing array and optionally remove any
+	 * duplicate values so that each value is only in the
+	 * resulting array once.
+	 * The given array is never modified.
+	 * Calling this method on an unsorted
+	 * backing array may not merge the values
+	 * correctly.
+	 * @param values the values to merge; can not be null.
+	 * @param valuesAlreadySorted {@code true} if the given values
+	 * are already in sorted order and don't need to be sorted again.
+	 * @param removeDuplicates {@code true} if duplicate values,
+	 * including any already in this array, should be removed.
+	 * @throws NullPointerException if values is null.
+	 * @since 0.3.7
+	 */
+	public void sortedMerge(char[] values, boolean valuesAlreadySorted, boolean removeDuplicates){
+		char[] sortedValues = values;
+		if(!valuesAlreadySorted){
+			sortedValues = Arrays.copyOf(values, values.length);
+			if(sortedValues.length > PARALLEL_SORT_THRESHOLD){
+				Arrays.parallelSort(sortedValues);
+			}else{
+				Arrays.sort(sortedValues);
+			}
+		}
+		char[] merged = new char[currentLength + sortedValues.length];
+		int ourIndex=0, otherIndex=0, mergedLength=0;
+		while(ourIndex < currentLength || otherIndex < sortedValues.length){
+			char next;
+			if(otherIndex == sortedValues.length
+					|| (ourIndex < currentLength && valueAt(ourIndex) <= sortedValues[otherIndex])){
+				next = valueAt(ourIndex++);
+			}else{
+				next = sortedValues[otherIndex++];
+			}
+			if(!removeDuplicates || mergedLength ==0 || merged[mergedLength-1] != next){
+				merged[mergedLength++] = next;
+			}
+		}
+		if(segments ==null){
+			data = merged;
+		}else{
+			ensureCapacity(mergedLength);
+			copyIn(merged, 0, 0, mergedLength);
+		}
+		currentLength = mergedLength;
+		modCount++;
+	}
 	/**
 	 * Set the current length to 0.
 	 */
 	public void clear(){
 		this.currentLength=0;
+		modCount++;
+	}
+	/**
+	 * Get an empty {@link GrowableCharArray} from the current thread's
+	 * pool of recycled arrays, or create a new one if none big enough is available.
+	 * Short lived buffers should be handed back with {@link #release()}
+	 * when they are no longer needed so they can be reused.
+	 * @param minCapacity the minimum capacity of the returned array.
+	 * @return an array with length 0 and a capacity of at least minCapacity.
+	 * @throws IllegalArgumentException if minCapacity is &lt; 0.
+	 * @since 0.3.7
+	 */
+	public static GrowableCharArray acquire(int minCapacity){
+		return POOL.acquire(minCapacity);
+	}
+	/**
+	 * Clear this array and return it to the current thread's
+	 * pool of recycled arrays so it can be handed out again by {@link #acquire(int)}.
+	 * Arrays that are segmented, very large, or would push the pool
+	 * past its retained memory cap are dropped instead.
+	 * This array must not be used after it is released.
+	 * @throws IllegalStateException if this array was already released.
+	 * @since 0.3.7
+	 */
+	public void release(){
+		if(segments ==null){
+			POOL.release(this);
+		}
 	}
 	
 	@Override
 	public Iterator<Character> iterator() {
-		return PrimitiveArrayIterators.create(data, currentLength);
+		if(segments ==null){
+			return PrimitiveArrayIterators.create(data, currentLength);
+		}
+		return new Iterator<Character>(){
+			private int offset=0;
+			@Override
+			public boolean hasNext() {
+				return offset < currentLength;
+			}
+			@Override
+			public Character next() {
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+				return valueAt(offset++);
+			}
+		};
 	}
 	
 	/**
@@ -410,6 +895,23 @@ public final class GrowableCharArray implements Iterable<Character>{
 			append(values);
 			return;
 		}
+		if(segments !=null){
+			//merge from the back in place so the
+			//existing segments never have to be copied
+			ensureCapacity(currentLength + values.length);
+			int ourIndex = currentLength -1;
+			int otherIndex = values.length -1;
+			for(int i = currentLength + values.length -1; otherIndex >=0; i--){
+				if(ourIndex >=0 && valueAt(ourIndex) > values[otherIndex]){
+					setValueAt(i, valueAt(ourIndex--));
+				}else{
+					setValueAt(i, values[otherIndex--]);
+				}
+			}
+			currentLength += values.length;
+			modCount++;
+			return;
+		}
 		char[] newData = new char[data.length + values.length];
 		int newCurrentLength = currentLength + values.length;
 		
@@ -454,6 +956,7 @@ public final class GrowableCharArray implements Iterable<Character>{
 			
 		data = newData;
 		currentLength = newCurrentLength;
+		modCount++;
 	}
 	
 	/**
@@ -467,7 +970,7 @@ public final class GrowableCharArray implements Iterable<Character>{
 	public int getCount(char value){
 		int count=0;
 		for(int i=0; i<currentLength; i++){
-			if(data[i] == value){
+			if(valueAt(i) == value){
 				count++;
 			}
 		}
@@ -483,9 +986,330 @@ public final class GrowableCharArray implements Iterable<Character>{
 	 * will never be null but may be empty.
 	 */
 	public String createNewString(){
-		return new String(data,0, currentLength);
+		if(segments ==null){
+			return new String(data,0, currentLength);
+		}
+		return new String(toArray());
+	}
+	/**
+	 * Get the current length of this array.
+	 * @return the same as {@link #getCurrentLength()}.
+	 * @since 0.3.7
+	 */
+	@Override
+	public int length(){
+		return currentLength;
+	}
+	/**
+	 * Get the char at the given offset.
+	 * @param index the offset.
+	 * @return the same as {@link #get(int)}.
+	 * @throws IndexOutOfBoundsException if the offset is out of bounds.
+	 * @since 0.3.7
+	 */
+	@Override
+	public char charAt(int index){
+		return get(index);
+	}
+	/**
+	 * Create a read-only {@link View} of the chars from {@code start} (inclusive)
+	 * to {@code end} (exclusive) which shares this array's storage
+	 * instead of copying it.  Like {@link #view(Range)}, the view becomes invalid
+	 * as soon as this array is structurally modified.
+	 * @param start the offset of the first char.
+	 * @param end the offset after the last char.
+	 * @return a new View; will never be null but may be empty.
+	 * @throws IndexOutOfBoundsException if start or end are out of bounds.
+	 * @since 0.3.7
+	 */
+	@Override
+	public View subSequence(int start, int end){
+		assertValidBounds(start, end);
+		return new View(start, end - start);
+	}
+	/**
+	 * Same as {@link #stream()}.
+	 * @since 0.3.7
+	 */
+	@Override
+	public IntStream chars(){
+		return stream();
+	}
+	/**
+	 * Create a new {@link String} of the current chars,
+	 * as required by {@link CharSequence#toString()}.
+	 * @return the same as {@link #createNewString()}.
+	 * @since 0.3.7
+	 */
+	@Override
+	public String toString(){
+		return createNewString();
 	}
 
+	private void assertValidBounds(int begin, int end){
+		if(begin <0 || end > currentLength || begin > end){
+			throw new IndexOutOfBoundsException("begin "+begin+", end "+end+", array size: "+currentLength);
+		}
+	}
+	/**
+	 * Do the current chars in this array equal the given chars.
+	 * Unlike comparing with {@link #createNewString()}, no String is created.
+	 * @param chars the chars to compare to; can not be null.
+	 * @return {@code true} if the lengths and every char are the same.
+	 * @throws NullPointerException if chars is null.
+	 * @since 0.3.7
+	 */
+	public boolean contentEquals(CharSequence chars){
+		if(chars.length() != currentLength){
+			return false;
+		}
+		if(chars instanceof GrowableCharArray){
+			GrowableCharArray other = (GrowableCharArray) chars;
+			for(int i=0; i< currentLength; i++){
+				if(valueAt(i) != other.valueAt(i)){
+					return false;
+				}
+			}
+			return true;
+		}
+		for(int i=0; i< currentLength; i++){
+			if(valueAt(i) != chars.charAt(i)){
+				return false;
+			}
+		}
+		return true;
+	}
+	/**
+	 * Compute the hash of the current chars using the same algorithm
+	 * as {@link String#hashCode()}, so the result is always equal to
+	 * {@code createNewString().hashCode()} but no String is created.
+	 * This does not change {@link #hashCode()} which is still identity based.
+	 * @return the hash of the current chars.
+	 * @since 0.3.7
+	 */
+	public int contentHashCode(){
+		int h = 0;
+		for(int i=0; i< currentLength; i++){
+			h = 31 * h + valueAt(i);
+		}
+		return h;
+	}
+	/**
+	 * Parse the chars in the given range as a signed decimal {@code int}
+	 * in the same format as {@link Integer#parseInt(String)} without creating a String.
+	 * @param range the range of offsets to parse; can not be null.
+	 * @return the parsed value.
+	 * @throws NumberFormatException if the chars are not a valid int.
+	 * @throws IndexOutOfBoundsException if the range is out of bounds.
+	 * @since 0.3.7
+	 */
+	public int parseInt(Range range){
+		assertValidRange(range);
+		return parseInt((int) range.getBegin(), (int) range.getEnd() +1);
+	}
+	/**
+	 * Parse the chars from {@code begin} (inclusive) to {@code end} (exclusive)
+	 * as a signed decimal {@code int} in the same format as
+	 * {@link Integer#parseInt(String)} without creating a String.
+	 * @param begin the offset of the first char.
+	 * @param end the offset after the last char.
+	 * @return the parsed value.
+	 * @throws NumberFormatException if the chars are not a valid int.
+	 * @throws IndexOutOfBoundsException if begin or end are out of bounds.
+	 * @since 0.3.7
+	 */
+	public int parseInt(int begin, int end){
+		long value = parseLong(begin, end);
+		if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE){
+			throw numberFormatException(begin, end);
+		}
+		return (int) value;
+	}
+	/**
+	 * Parse the chars in the given range as a signed decimal {@code long}
+	 * in the same format as {@link Long#parseLong(String)} without creating a String.
+	 * @param range the range of offsets to parse; can not be null.
+	 * @return the parsed value.
+	 * @throws NumberFormatException if the chars are not a valid long.
+	 * @throws IndexOutOfBoundsException if the range is out of bounds.
+	 * @since 0.3.7
+	 */
+	public long parseLong(Range range){
+		assertValidRange(range);
+		return parseLong((int) range.getBegin(), (int) range.getEnd() +1);
+	}
+	/**
+	 * Parse the chars from {@code begin} (inclusive) to {@code end} (exclusive)
+	 * as a signed decimal {@code long} in the same format as
+	 * {@link Long#parseLong(String)} without creating a String.
+	 * @param begin the offset of the first char.
+	 * @param end the offset after the last char.
+	 * @return the parsed value.
+	 * @throws NumberFormatException if the chars are not a valid long.
+	 * @throws IndexOutOfBoundsException if begin or end are out of bounds.
+	 * @since 0.3.7
+	 */
+	public long parseLong(int begin, int end){
+		assertValidBounds(begin, end);
+		if(begin == end){
+			throw numberFormatException(begin, end);
+		}
+		int i = begin;
+		boolean negative = false;
+		//accumulate negatively like Long.parseLong
+		//so Long.MIN_VALUE doesn't overflow
+		long limit = -Long.MAX_VALUE;
+		char first = valueAt(i);
+		if(first < '0'){
+			if(first == '-'){
+				negative = true;
+				limit = Long.MIN_VALUE;
+			}else if(first != '+'){
+				throw numberFormatException(begin, end);
+			}
+			if(++i == end){
+				throw numberFormatException(begin, end);
+			}
+		}
+		long multiplyMin = limit / 10;
+		long result = 0;
+		for(; i< end; i++){
+			int digit = Character.digit(valueAt(i), 10);
+			if(digit <0 || result < multiplyMin){
+				throw numberFormatException(begin, end);
+			}
+			result *= 10;
+			if(result < limit + digit){
+				throw numberFormatException(begin, end);
+			}
+			result -= digit;
+		}
+		return negative ? result : -result;
+	}
+	/**
+	 * Parse the chars in the given range as a {@code double}
+	 * in the same format as {@link Double#parseDouble(String)}.
+	 * @param range the range of offsets to parse; can not be null.
+	 * @return the parsed value.
+	 * @throws NumberFormatException if the chars are not a valid double.
+	 * @throws IndexOutOfBoundsException if the range is out of bounds.
+	 * @see #parseDouble(int, int)
+	 * @since 0.3.7
+	 */
+	public double parseDouble(Range range){
+		assertValidRange(range);
+		return parseDouble((int) range.getBegin(), (int) range.getEnd() +1);
+	}
+	/**
+	 * Parse the chars from {@code begin} (inclusive) to {@code end} (exclusive)
+	 * as a {@code double} in the same format as {@link Double#parseDouble(String)}.
+	 * Plain decimals like {@code -12.5} or {@code 3.1e-7} with at most 15 significant
+	 * digits are parsed directly without creating a String, and are still
+	 * correctly rounded; anything else falls back to {@link Double#parseDouble(String)}.
+	 * @param begin the offset of the first char.
+	 * @param end the offset after the last char.
+	 * @return the parsed value.
+	 * @throws NumberFormatException if the chars are not a valid double.
+	 * @throws IndexOutOfBoundsException if begin or end are out of bounds.
+	 * @since 0.3.7
+	 */
+	public double parseDouble(int begin, int end){
+		assertValidBounds(begin, end);
+		int i = begin;
+		boolean negative = false;
+		if(i < end && (valueAt(i) == '-' || valueAt(i) == '+')){
+			negative = valueAt(i) == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int significantDigits = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean seenDecimalPoint = false;
+		for(; i< end; i++){
+			char c = valueAt(i);
+			if(c >= '0' && c <= '9'){
+				digits++;
+				if(mantissa ==0 && c == '0'){
+					//leading zeros aren't significant
+					if(seenDecimalPoint){
+						exponent--;
+					}
+					continue;
+				}
+				if(++significantDigits > MAX_EXACT_DOUBLE_DIGITS){
+					return parseDoubleSlowly(begin, end);
+				}
+				mantissa = mantissa * 10 + (c - '0');
+				if(seenDecimalPoint){
+					exponent--;
+				}
+			}else if(c == '.' && !seenDecimalPoint){
+				seenDecimalPoint = true;
+			}else{
+				break;
+			}
+		}
+		if(digits ==0){
+			return parseDoubleSlowly(begin, end);
+		}
+		if(i < end){
+			char c = valueAt(i);
+			if(c != 'e' && c != 'E'){
+				return parseDoubleSlowly(begin, end);
+			}
+			i++;
+			boolean negativeExponent = false;
+			if(i < end && (valueAt(i) == '-' || valueAt(i) == '+')){
+				negativeExponent = valueAt(i) == '-';
+				i++;
+			}
+			int exponentDigits = end - i;
+			if(exponentDigits ==0 || exponentDigits > 3){
+				return parseDoubleSlowly(begin, end);
+			}
+			int explicitExponent = 0;
+			for(; i< end; i++){
+				int digit = valueAt(i) - '0';
+				if(digit <0 || digit > 9){
+					return parseDoubleSlowly(begin, end);
+				}
+				explicitExponent = explicitExponent * 10 + digit;
+			}
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+		double value;
+		if(mantissa ==0){
+			value = 0;
+		}else if(exponent >=0 && exponent < EXACT_POWERS_OF_TEN.length){
+			value = mantissa * EXACT_POWERS_OF_TEN[exponent];
+		}else if(exponent <0 && -exponent < EXACT_POWERS_OF_TEN.length){
+			value = mantissa / EXACT_POWERS_OF_TEN[-exponent];
+		}else{
+			return parseDoubleSlowly(begin, end);
+		}
+		return negative ? -value : value;
+	}
+
+	private double parseDoubleSlowly(int begin, int end){
+		return Double.parseDouble(subSequence(begin, end).toString());
+	}
+
+	private NumberFormatException numberFormatException(int begin, int end){
+		return new NumberFormatException("For input string: \"" + subSequence(begin, end) + "\"");
+	}
+
+	/**
+	 * Create a sequential {@link IntStream}
+	 * of the current array where each char
+	 * is widened to an int.  The values are not copied.
+	 * @return a new {@link IntStream}
+	 * will never be null but may be empty.
+	 * @since 0.3.7
+	 */
+	public IntStream stream() {
+		return StreamSupport.intStream(intSpliterator(), false);
+	}
 	/**
 	 * Iterate over each element in the list and call the given consumer
 	 * which captures the offset and the value.
@@ -500,7 +1324,7 @@ public final class GrowableCharArray implements Iterable<Character>{
 	public <E extends Throwable> void forEachIndexed(ThrowingIntIndexedCharConsumer<E> consumer) throws E{
 		Objects.requireNonNull(consumer);
 		for(int i=0; i< currentLength; i++){
-			consumer.accept(i, data[i]);
+			consumer.accept(i, valueAt(i));
 		}
 	}
 
@@ -516,7 +1340,531 @@ public final class GrowableCharArray implements Iterable<Character>{
     public <E extends Throwable> void forEachIndexed(Range range, ThrowingIntIndexedCharConsumer<E> consumer) throws E{
         int end = (int) Math.min(currentLength, range.getEnd()+1);
         for(int i=(int) range.getBegin(); i< end; i++){
-            consumer.accept(i, data[i]);
+            consumer.accept(i, valueAt(i));
         }
     }
+
+	/**
+	 * Write the current values of this array to the given channel
+	 * as a small header followed by the values in big endian order
+	 * using bulk buffer transfers.  The written data can be read back
+	 * with {@link #readFrom(ReadableByteChannel)} or {@link #mapFrom(Path)}.
+	 * The channel is not closed.
+	 * @param channel the channel to write to; can not be null.
+	 * @throws IOException if there is a problem writing to the channel.
+	 * @throws NullPointerException if channel is null.
+	 * @since 0.3.7
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException{
+		GrowableArrayIO.writeHeader(channel, ELEMENT_TYPE, currentLength);
+		ByteBuffer buffer = GrowableArrayIO.newTransferBuffer();
+		CharBuffer view = buffer.asCharBuffer();
+		int valuesPerTransfer = view.capacity();
+		for(int offset=0; offset< currentLength; offset+=valuesPerTransfer){
+			int length = Math.min(valuesPerTransfer, currentLength - offset);
+			((Buffer) view).clear();
+			if(segments ==null){
+				view.put(data, offset, length);
+			}else{
+				for(int copied=0; copied< length;){
+					int within = (offset + copied) & SEGMENT_MASK;
+					int n = Math.min(length - copied, SEGMENT_SIZE - within);
+					view.put(segments[(offset + copied) >>> SEGMENT_SHIFT], within, n);
+					copied+=n;
+				}
+			}
+			GrowableArrayIO.writeTransferBuffer(channel, buffer, length * Character.BYTES);
+		}
+	}
+	/**
+	 * Read a new {@link GrowableCharArray} from the given channel
+	 * which was previously written by {@link #writeTo(WritableByteChannel)}.
+	 * The channel is not closed.
+	 * @param channel the channel to read from; can not be null.
+	 * @return a new GrowableCharArray; will never be null.
+	 * @throws IOException if there is a problem reading from the channel
+	 * or the data was not written by {@link #writeTo(WritableByteChannel)}.
+	 * @throws NullPointerException if channel is null.
+	 * @since 0.3.7
+	 */
+	public static GrowableCharArray readFrom(ReadableByteChannel channel) throws IOException{
+		int length = GrowableArrayIO.readHeader(channel, ELEMENT_TYPE);
+		GrowableCharArray array = new GrowableCharArray(length);
+		ByteBuffer buffer = GrowableArrayIO.newTransferBuffer();
+		CharBuffer view = buffer.asCharBuffer();
+		int valuesPerTransfer = view.capacity();
+		for(int offset=0; offset< length; offset+=valuesPerTransfer){
+			int n = Math.min(valuesPerTransfer, length - offset);
+			GrowableArrayIO.readTransferBuffer(channel, buffer, n * Character.BYTES);
+			((Buffer) view).clear();
+			view.get(array.data, offset, n);
+		}
+		array.currentLength = length;
+		return array;
+	}
+	/**
+	 * Read a new {@link GrowableCharArray} from the given file
+	 * which was previously written by {@link #writeTo(WritableByteChannel)}
+	 * by memory mapping the file and bulk copying the values
+	 * out of the mapped regions.
+	 * @param path the path to the file to read; can not be null.
+	 * @return a new GrowableCharArray; will never be null.
+	 * @throws IOException if there is a problem reading the file
+	 * or the file was not written by {@link #writeTo(WritableByteChannel)}.
+	 * @throws NullPointerException if path is null.
+	 * @since 0.3.7
+	 */
+	public static GrowableCharArray mapFrom(Path path) throws IOException{
+		try(GrowableArrayIO.MappedFile file = GrowableArrayIO.openMapped(path, ELEMENT_TYPE, Character.BYTES)){
+			int length = file.getLength();
+			GrowableCharArray array = new GrowableCharArray(length);
+			int valuesPerRegion = file.getElementsPerRegion();
+			//advance by the number mapped so the offset can never overflow
+			for(int offset=0; offset< length; ){
+				int n = Math.min(valuesPerRegion, length - offset);
+				file.map(offset, n).asCharBuffer().get(array.data, offset, n);
+				offset+=n;
+			}
+			array.currentLength = length;
+			return array;
+		}
+	}
+	/**
+	 * Create a read-only {@link View} of the given range
+	 * of this array which shares this array's storage
+	 * instead of copying it.  The view becomes invalid
+	 * as soon as this array is structurally modified.
+	 * @param range the range of offsets to view; can not be null.
+	 * @return a new View; will never be null.
+	 * @throws IndexOutOfBoundsException if the range is out of bounds.
+	 * @throws NullPointerException if range is null.
+	 * @since 0.3.7
+	 */
+	public View view(Range range){
+		assertValidRange(range);
+		return new View((int) range.getBegin(), (int) range.getLength());
+	}
+	/**
+	 * Wrap the current values of this array in a read-only
+	 * {@link CharBuffer} with its position at 0 and its limit at
+	 * the current length.  The buffer shares this array's storage
+	 * so no values are copied, unless this array is in segmented
+	 * mode in which case the values have to first be copied
+	 * into a contiguous array.
+	 * The buffer should not be used after this array is structurally modified.
+	 * @return a new read-only CharBuffer; will never be null.
+	 * @since 0.3.7
+	 */
+	public CharBuffer asCharBuffer(){
+		return asCharBuffer(0, currentLength);
+	}
+	/**
+	 * Create a {@link Reader} that reads the current chars of this array
+	 * straight from its storage, instead of copying them first like
+	 * {@code new StringReader(createNewString())} would.
+	 * The reader supports marks, skips without reading, and bulk writes
+	 * its remaining chars with {@code transferTo(Writer)}.
+	 * Like a {@link View}, the reader throws {@link ConcurrentModificationException}
+	 * once this array is structurally modified.
+	 * @return a new Reader; will never be null.
+	 * @since 0.3.7
+	 */
+	public Reader asReader(){
+		return new ValueReader();
+	}
+	/**
+	 * Create a {@link Writer} that appends every char
+	 * written to it to the end of this array.
+	 * Flushing or closing the writer does nothing.
+	 * @return a new Writer; will never be null.
+	 * @since 0.3.7
+	 */
+	public Writer asWriter(){
+		return new AppendingWriter();
+	}
+
+	private CharBuffer asCharBuffer(int begin, int length){
+		if(segments ==null){
+			return CharBuffer.wrap(data, begin, length).slice().asReadOnlyBuffer();
+		}
+		char[] copy = new char[length];
+		copyOut(begin, copy, 0, length);
+		return CharBuffer.wrap(copy).asReadOnlyBuffer();
+	}
+	/**
+	 * Create a new {@link PrimitiveIterator.OfInt} over the current
+	 * values of this array which, unlike {@link #iterator()},
+	 * does not box each value.
+	 * @return a new iterator; will never be null.
+	 * @since 0.3.7
+	 */
+	public PrimitiveIterator.OfInt intIterator(){
+		return Spliterators.iterator(intSpliterator());
+	}
+	/**
+	 * Create a new {@link Spliterator.OfInt} over the current
+	 * values of this array that reads the values in place
+	 * without copying.  The spliterator reports
+	 * {@link Spliterator#SIZED}, {@link Spliterator#SUBSIZED}
+	 * and {@link Spliterator#ORDERED} and splits in half so parallel
+	 * streams divide the work evenly.  It fails fast with a
+	 * {@link ConcurrentModificationException} if this array
+	 * is structurally modified while it is being traversed.
+	 * @return a new spliterator; will never be null.
+	 * @since 0.3.7
+	 */
+	public Spliterator.OfInt intSpliterator(){
+		return new ValueSpliterator(0, currentLength, modCount);
+	}
+
+	private final class ValueSpliterator implements Spliterator.OfInt {
+		private int index;
+		private final int fence;
+		private final int expectedModCount;
+
+		ValueSpliterator(int origin, int fence, int expectedModCount){
+			this.index = origin;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
+
+		@Override
+		public Spliterator.OfInt trySplit() {
+			int mid = (index + fence) >>> 1;
+			if(index >= mid){
+				return null;
+			}
+			ValueSpliterator prefix = new ValueSpliterator(index, mid, expectedModCount);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			Objects.requireNonNull(action);
+			if(index >= fence){
+				return false;
+			}
+			action.accept(valueAt(index++));
+			checkForComodification();
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			Objects.requireNonNull(action);
+			if(segments ==null){
+				for(int i=index; i< fence; i++){
+					action.accept(data[i]);
+				}
+			}else{
+				//walk each segment directly so there is no per value shift and mask
+				for(int i=index; i< fence;){
+					char[] segment = segments[i >>> SEGMENT_SHIFT];
+					int within = i & SEGMENT_MASK;
+					int end = within + Math.min(fence - i, SEGMENT_SIZE - within);
+					for(int j=within; j< end; j++){
+						action.accept(segment[j]);
+					}
+					i+= end - within;
+				}
+			}
+			index = fence;
+			checkForComodification();
+		}
+
+		private void checkForComodification(){
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL;
+		}
+	}
+	/**
+	 * A read-only view of a range of a {@link GrowableCharArray}
+	 * that shares its parent's storage instead of copying it.
+	 * A view is only valid until its parent is structurally modified
+	 * (any change to the parent's length); after that,
+	 * every method on the view throws {@link ConcurrentModificationException}.
+	 * @since 0.3.7
+	 */
+	public final class View implements Iterable<Character>, CharSequence{
+		private final int begin;
+		private final int length;
+		private final int expectedModCount;
+
+		private View(int begin, int length){
+			this(begin, length, modCount);
+		}
+		private View(int begin, int length, int expectedModCount){
+			this.begin = begin;
+			this.length = length;
+			this.expectedModCount = expectedModCount;
+		}
+		private void checkForComodification(){
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException("parent array was modified after view was created");
+			}
+		}
+		/**
+		 * Is this view still valid.
+		 * @return {@code true} if the parent array has not been
+		 * structurally modified since this view was created.
+		 */
+		public boolean isValid(){
+			return modCount == expectedModCount;
+		}
+		public int getLength(){
+			checkForComodification();
+			return length;
+		}
+		public char get(int offset){
+			checkForComodification();
+			if(offset <0 || offset >= length){
+				throw new IndexOutOfBoundsException("Index: "+offset+", Size: "+length);
+			}
+			return valueAt(begin + offset);
+		}
+		/**
+		 * Copy the values of this view into a new array.
+		 * @return a new array; will never be null but may be empty.
+		 */
+		public char[] toArray(){
+			checkForComodification();
+			char[] array = new char[length];
+			copyOut(begin, array, 0, length);
+			return array;
+		}
+		public IntStream stream(){
+			checkForComodification();
+			return StreamSupport.intStream(new ValueSpliterator(begin, begin + length, expectedModCount), false);
+		}
+		@Override
+		public int length(){
+			return getLength();
+		}
+		@Override
+		public char charAt(int index){
+			return get(index);
+		}
+		/**
+		 * Create a view of part of this view which is
+		 * invalidated at the same time as this view.
+		 */
+		@Override
+		public View subSequence(int start, int end){
+			checkForComodification();
+			if(start <0 || end > length || start > end){
+				throw new IndexOutOfBoundsException("begin "+start+", end "+end+", length "+length);
+			}
+			return new View(begin + start, end - start, expectedModCount);
+		}
+		@Override
+		public IntStream chars(){
+			return stream();
+		}
+		/**
+		 * Create a new {@link String} of the chars in this view.
+		 */
+		@Override
+		public String toString(){
+			return new String(toArray());
+		}
+		/**
+		 * Wrap the values of this view in a read-only {@link CharBuffer}
+		 * that shares the parent's storage.
+		 * @return a new read-only CharBuffer; will never be null.
+		 * @see GrowableCharArray#asCharBuffer()
+		 */
+		public CharBuffer asCharBuffer(){
+			checkForComodification();
+			return GrowableCharArray.this.asCharBuffer(begin, length);
+		}
+		@Override
+		public Iterator<Character> iterator() {
+			checkForComodification();
+			return new Iterator<Character>(){
+				private int offset=0;
+				@Override
+				public boolean hasNext() {
+					return offset < length;
+				}
+				@Override
+				public Character next() {
+					checkForComodification();
+					if(!hasNext()){
+						throw new NoSuchElementException();
+					}
+					return valueAt(begin + offset++);
+				}
+			};
+		}
+	}
+
+	private final class ValueReader extends Reader{
+		private final int expectedModCount = modCount;
+		private final int end = currentLength;
+		private int position;
+		private int mark;
+
+		private void checkForComodification(){
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException("array was modified after reader was created");
+			}
+		}
+		@Override
+		public int read(){
+			checkForComodification();
+			if(position >= end){
+				return -1;
+			}
+			return valueAt(position++);
+		}
+		@Override
+		public int read(char[] cbuf, int off, int len){
+			checkForComodification();
+			if(off <0 || len <0 || len > cbuf.length - off){
+				throw new IndexOutOfBoundsException();
+			}
+			if(len ==0){
+				return 0;
+			}
+			if(position >= end){
+				return -1;
+			}
+			int n = Math.min(len, end - position);
+			copyOut(position, cbuf, off, n);
+			position+=n;
+			return n;
+		}
+		@Override
+		public long skip(long n){
+			if(n <0){
+				throw new IllegalArgumentException("skip value is negative");
+			}
+			checkForComodification();
+			int skipped = (int) Math.min(n, end - position);
+			position+=skipped;
+			return skipped;
+		}
+		@Override
+		public boolean ready(){
+			return true;
+		}
+		@Override
+		public boolean markSupported(){
+			return true;
+		}
+		@Override
+		public void mark(int readAheadLimit){
+			mark = position;
+		}
+		@Override
+		public void reset(){
+			position = mark;
+		}
+		/**
+		 * Write all the remaining chars to the given writer
+		 * with bulk writes straight from the array's storage.
+		 * This overrides {@code Reader#transferTo(Writer)}
+		 * on Java 10+ but is declared without {@code @Override}
+		 * so it still compiles against Java 8.
+		 */
+		public long transferTo(Writer out) throws IOException{
+			Objects.requireNonNull(out);
+			checkForComodification();
+			long transferred = end - position;
+			if(segments ==null){
+				out.write(data, position, end - position);
+				position = end;
+			}
+			while(position < end){
+				int within = position & SEGMENT_MASK;
+				int n = Math.min(end - position, SEGMENT_SIZE - within);
+				out.write(segments[position >>> SEGMENT_SHIFT], within, n);
+				position+=n;
+			}
+			return transferred;
+		}
+		@Override
+		public void close(){
+			//nothing to release
+		}
+	}
+
+	private final class AppendingWriter extends Writer{
+		@Override
+		public void write(int c){
+			GrowableCharArray.this.append((char) c);
+		}
+		@Override
+		public void write(char[] cbuf, int off, int len){
+			GrowableCharArray.this.append(cbuf, off, len);
+		}
+		@Override
+		public void write(String str, int off, int len){
+			appendChars(str, off, off + len);
+		}
+		@Override
+		public Writer append(CharSequence csq){
+			if(csq instanceof GrowableCharArray){
+				GrowableCharArray.this.append((GrowableCharArray) csq);
+				return this;
+			}
+			CharSequence chars = csq ==null ? "null" : csq;
+			appendChars(chars, 0, chars.length());
+			return this;
+		}
+		@Override
+		public Writer append(CharSequence csq, int start, int end){
+			CharSequence chars = csq ==null ? "null" : csq;
+			if(start <0 || end > chars.length() || start > end){
+				throw new IndexOutOfBoundsException("start "+start+", end "+end+", length "+chars.length());
+			}
+			appendChars(chars, start, end);
+			return this;
+		}
+		@Override
+		public Writer append(char c){
+			GrowableCharArray.this.append(c);
+			return this;
+		}
+		@Override
+		public void flush(){
+			//nothing to flush
+		}
+		@Override
+		public void close(){
+			//nothing to release
+		}
+	}
+	/**
+	 * Append the chars from {@code begin} (inclusive) to {@code end} (exclusive)
+	 * of the given sequence without creating a String.
+	 */
+	private void appendChars(CharSequence chars, int begin, int end){
+		if(begin <0 || end > chars.length() || begin > end){
+			throw new IndexOutOfBoundsException("begin "+begin+", end "+end+", length "+chars.length());
+		}
+		int length = end - begin;
+		ensureCapacity(currentLength+length);
+		if(segments ==null && chars instanceof String){
+			((String) chars).getChars(begin, end, data, currentLength);
+		}else{
+			for(int i=0; i< length; i++){
+				setValueAt(currentLength + i, chars.charAt(begin + i));
+			}
+		}
+		currentLength+=length;
+		modCount++;
+	}
 }
@@ -21,8 +21,19 @@ package gov.nih.ncats.common.util;
 import gov.nih.ncats.common.functions.ThrowingIntIndexedIntConsumer;
 import gov.nih.ncats.common.iter.PrimitiveArrayIterators;
 
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.LongBinaryOperator;
 import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A {@code GrowableIntArray} is a utility class
@@ -53,6 +64,50 @@ public final class GrowableIntArray implements Iterable<Integer>{
 	 * the capacity is the size of the array.
 	 */
 	private int[] data;
+	/**
+	 * The number of times this array has been
+	 * structurally modified (its length changed),
+	 * used by {@link View}s to fail fast.
+	 */
+	private int modCount;
+	/**
+	 * The JVM type descriptor used to tag
+	 * this type in the {@link #writeTo(WritableByteChannel)} header.
+	 */
+	private static final char ELEMENT_TYPE = 'I';
+	/**
+	 * log2 of the number of values in each segment
+	 * when this array is in segmented mode so that
+	 * an offset can be split into a segment index
+	 * and a position inside that segment with a shift and a mask.
+	 */
+	private static final int SEGMENT_SHIFT = 14;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+	/**
+	 * Batches larger than this are sorted
+	 * with {@link Arrays#parallelSort(int[])}.
+	 */
+	private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+	/**
+	 * Number of keys searched by each fork-join task
+	 * in {@link #binarySearchAll(int[])}.
+	 */
+	private static final int PARALLEL_SEARCH_BLOCK_SIZE = 1 << 16;
+	/**
+	 * Number of values processed by each fork-join task
+	 * in the {@code parallel} bulk operations.
+	 */
+	private static final int PARALLEL_KERNEL_BLOCK_SIZE = 1 << 16;
+	/**
+	 * The fixed size chunks of data when this
+	 * array is in segmented mode; {@code null}
+	 * if the values are stored in {@link #data} instead.
+	 * Only the first {@link #numberOfSegments} chunks
+	 * have been allocated.
+	 */
+	private int[][] segments;
+	private int numberOfSegments;
 	/**
 	 * Creates a new Growable array
 	 * with the given initial capacity.
@@ -69,6 +124,34 @@ public final class GrowableIntArray implements Iterable<Integer>{
 		}
 		data = new int[initialCapacity];		
 	}
+	/**
+	 * Creates a new {@link GrowableIntArray}
+	 * with the given initial capacity which may
+	 * optionally store its values in segmented mode.
+	 * In segmented mode the values are kept in a list of fixed size
+	 * chunks instead of one contiguous array, so growing
+	 * never copies the values already stored, and random access
+	 * is only a shift and a mask.  A contiguous array is only
+	 * ever created when requested by methods like {@link #toArray()}.
+	 * @param initialCapacity the initial capacity; when adding
+	 * ints will cause the capacity to overflow,
+	 * more storage will automatically be allocated.
+	 * @param segmented {@code true} to use segmented mode;
+	 * {@code false} to behave exactly like {@link #GrowableIntArray(int)}.
+	 * @throws IllegalArgumentException if initialCapacity is <0.
+	 * @since 0.3.7
+	 */
+	public GrowableIntArray(int initialCapacity, boolean segmented){
+		if(initialCapacity <0){
+			throw new IllegalArgumentException("initial capacity should be >= 0 :"+initialCapacity);
+		}
+		if(segmented){
+			segments = new int[Math.max(1, numberOfSegmentsFor(initialCapacity))][];
+			ensureCapacity(initialCapacity);
+		}else{
+			data = new int[initialCapacity];
+		}
+	}
 	/**
 	 * Creates a new Growable array
 	 * where the backing array contains
@@ -112,8 +195,26 @@ public final class GrowableIntArray implements Iterable<Integer>{
 		data = Arrays.copyOf(ints, ints.length);
 		currentLength=data.length;
 	}
+	/**
+	 * Create a new GrowableIntArray that takes ownership
+	 * of the given array instead of copying it.
+	 */
+	static GrowableIntArray wrap(int[] ints){
+		GrowableIntArray array = new GrowableIntArray(0);
+		array.data = ints;
+		array.currentLength = ints.length;
+		return array;
+	}
 	private GrowableIntArray(GrowableIntArray copy){
-		data = Arrays.copyOf(copy.data, copy.data.length);
+		if(copy.segments ==null){
+			data = Arrays.copyOf(copy.data, copy.data.length);
+		}else{
+			segments = new int[copy.segments.length][];
+			numberOfSegments = copy.numberOfSegments;
+			for(int i=0; i< numberOfSegments; i++){
+				segments[i] = Arrays.copyOf(copy.segments[i], SEGMENT_SIZE);
+			}
+		}
 		currentLength = copy.currentLength;
 	}
 	/**
@@ -136,6 +237,17 @@ public final class GrowableIntArray implements Iterable<Integer>{
 	public GrowableIntArray copy(){
 		return new GrowableIntArray(this);
 	}
+	/**
+	 * Is this array storing its values
+	 * in fixed size segments.
+	 * @return {@code true} if this array was created
+	 * in segmented mode; {@code false} otherwise.
+	 * @see #GrowableIntArray(int, boolean)
+	 * @since 0.3.7
+	 */
+	public boolean isSegmented(){
+		return segments !=null;
+	}
 	private void assertValidOffset(int offset) {
 		if (offset <0 || offset >= currentLength){
 		    throw new IndexOutOfBoundsException(
@@ -152,10 +264,10 @@ public final class GrowableIntArray implements Iterable<Integer>{
 	public void reverse(){
 		int pivotPoint = currentLength/2;
 		for(int i=0; i<pivotPoint;i++){
-			int temp=data[i];
+			int temp=valueAt(i);
 			int reverseI = currentLength-i-1;
-			data[i] = data[reverseI];
-			data[reverseI] = temp;
+			setValueAt(i, valueAt(reverseI));
+			setValueAt(reverseI, temp);
 		}
 	}
 	public int getCurrentLength() {
@@ -164,22 +276,25 @@ public final class GrowableIntArray implements Iterable<Integer>{
 
 	public void append(int value){
 		ensureCapacity(currentLength+1);
-		data[currentLength++]=value;
+		setValueAt(currentLength++, value);
+		modCount++;
 	}
 	
 	public void append(int[] values){
 		ensureCapacity(currentLength+values.length);
-		System.arraycopy(values, 0, data, currentLength, values.length);
+		copyIn(values, 0, currentLength, values.length);
 		currentLength+=values.length;
+		modCount++;
 	}
 	public void append(GrowableIntArray other){
 		ensureCapacity(currentLength+other.currentLength);
-		System.arraycopy(other.data, 0, data, currentLength, other.currentLength);
+		copyIn(other, currentLength);
 		currentLength+=other.currentLength;
+		modCount++;
 	}
 	public int get(int offset){
 		assertValidOffset(offset);
-		return data[offset];
+		return valueAt(offset);
 	}
 	
 	public void prepend(int value){
@@ -194,36 +309,36 @@ public final class GrowableIntArray implements Iterable<Integer>{
 	}
 	public void replace(int offset, int value){
 		assertValidOffset(offset);
-		data[offset]=value;
+		setValueAt(offset, value);
 	}
 	public void insert(int offset, int[] values){
 		assertValidInsertOffset(offset);
 		ensureCapacity(currentLength+values.length);
-		System.arraycopy(data, offset, data, offset + values.length,
-				currentLength - offset);
+		move(offset, offset + values.length, currentLength - offset);
 		
-		System.arraycopy(values, 0, data, offset, values.length);
+		copyIn(values, 0, offset, values.length);
 		currentLength+=values.length;
+		modCount++;
 		
 	}
 	
 	public void insert(int offset, GrowableIntArray other){
 		assertValidInsertOffset(offset);
 		ensureCapacity(currentLength+other.currentLength);
-		System.arraycopy(data, offset, data, offset + other.currentLength,
-				currentLength - offset);
+		move(offset, offset + other.currentLength, currentLength - offset);
 		
-		System.arraycopy(other.data, 0, data, offset, other.currentLength);
+		copyIn(other, offset);
 		currentLength+=other.currentLength;
+		modCount++;
 		
 	}
 	public void insert(int offset, int value){
 		assertValidInsertOffset(offset);
 		ensureCapacity(currentLength+1);
-		System.arraycopy(data, offset, data, offset + 1,
-				currentLength - offset);
-		data[offset] = value;
+		move(offset, offset + 1, currentLength - offset);
+		setValueAt(offset, value);
 		currentLength++;
+		modCount++;
 	}
 	private void assertValidInsertOffset(int offset) {
 		//inserts allow offset to be length
@@ -237,20 +352,21 @@ public final class GrowableIntArray implements Iterable<Integer>{
 		assertValidRange(range);
 		int numMoved = currentLength -(int)range.getBegin()-(int) range.getLength();
 		if (numMoved > 0){
-			System.arraycopy(data, (int)range.getEnd()+1, 
-					data, (int)range.getBegin(),  numMoved);
+			move((int)range.getEnd()+1, (int)range.getBegin(), numMoved);
 		}
 		currentLength-=(int)range.getLength();    
+		modCount++;
 	}
 	public int remove(int offset){
 		assertValidOffset(offset);
-		int oldValue = data[offset];
+		int oldValue = valueAt(offset);
 
 		int numMoved = currentLength - offset - 1;
 		if (numMoved > 0){
-		    System.arraycopy(data, offset+1, data, offset,    numMoved);
+		    move(offset+1, offset, numMoved);
 		}
 		currentLength--;
+		modCount++;
 		return oldValue;
 	}
 	/**
@@ -264,10 +380,130 @@ public final class GrowableIntArray implements Iterable<Integer>{
 	 * will always be >=0;
 	 */
 	public int getCurrentCapacity(){
+		if(segments !=null){
+			return (int) Math.min(Integer.MAX_VALUE, (long) numberOfSegments << SEGMENT_SHIFT);
+		}
 		return data.length;
 	}
 	
+	/**
+	 * Get the value at the given offset without any bounds checking.
+	 */
+	private int valueAt(int offset){
+		if(segments ==null){
+			return data[offset];
+		}
+		return segments[offset >>> SEGMENT_SHIFT][offset & SEGMENT_MASK];
+	}
+	private void setValueAt(int offset, int value){
+		if(segments ==null){
+			data[offset] = value;
+		}else{
+			segments[offset >>> SEGMENT_SHIFT][offset & SEGMENT_MASK] = value;
+		}
+	}
+	private static int numberOfSegmentsFor(int capacity){
+		return (int) (((long) capacity + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+	}
+	/**
+	 * Copy {@code length} values from the given array
+	 * into this growable array starting at {@code offset}.
+	 * The capacity must already be large enough.
+	 */
+	private void copyIn(int[] src, int srcPos, int offset, int length){
+		if(segments ==null){
+			System.arraycopy(src, srcPos, data, offset, length);
+			return;
+		}
+		while(length >0){
+			int within = offset & SEGMENT_MASK;
+			int n = Math.min(length, SEGMENT_SIZE - within);
+			System.arraycopy(src, srcPos, segments[offset >>> SEGMENT_SHIFT], within, n);
+			srcPos+=n;
+			offset+=n;
+			length-=n;
+		}
+	}
+	/**
+	 * Copy all the current values of the other growable array
+	 * into this growable array starting at {@code offset}.
+	 * The capacity must already be large enough.
+	 */
+	private void copyIn(GrowableIntArray other, int offset){
+		if(other.segments ==null){
+			copyIn(other.data, 0, offset, other.currentLength);
+			return;
+		}
+		for(int copied=0; copied < other.currentLength; copied+=SEGMENT_SIZE){
+			copyIn(other.segments[copied >>> SEGMENT_SHIFT], 0, offset + copied, Math.min(SEGMENT_SIZE, other.currentLength - copied));
+		}
+	}
+	/**
+	 * Copy {@code length} values starting at {@code offset}
+	 * out of this growable array into the given array.
+	 */
+	private void copyOut(int offset, int[] dest, int destPos, int length){
+		if(segments ==null){
+			System.arraycopy(data, offset, dest, destPos, length);
+			return;
+		}
+		while(length >0){
+			int within = offset & SEGMENT_MASK;
+			int n = Math.min(length, SEGMENT_SIZE - within);
+			System.arraycopy(segments[offset >>> SEGMENT_SHIFT], within, dest, destPos, n);
+			destPos+=n;
+			offset+=n;
+			length-=n;
+		}
+	}
+	/**
+	 * Move {@code length} values inside this growable array
+	 * from offset {@code from} to offset {@code to}.
+	 * Like {@link System#arraycopy(Object, int, Object, int, int)}
+	 * this correctly handles overlapping regions.
+	 */
+	private void move(int from, int to, int length){
+		if(segments ==null){
+			System.arraycopy(data, from, data, to, length);
+			return;
+		}
+		if(to <= from){
+			while(length >0){
+				int fromWithin = from & SEGMENT_MASK;
+				int toWithin = to & SEGMENT_MASK;
+				int n = Math.min(length, SEGMENT_SIZE - Math.max(fromWithin, toWithin));
+				System.arraycopy(segments[from >>> SEGMENT_SHIFT], fromWithin, segments[to >>> SEGMENT_SHIFT], toWithin, n);
+				from+=n;
+				to+=n;
+				length-=n;
+			}
+			return;
+		}
+		//moving to the right so copy from the end
+		//so we never overwrite values we still need
+		int fromEnd = from + length;
+		int toEnd = to + length;
+		while(length >0){
+			int n = Math.min(length, Math.min(((fromEnd-1) & SEGMENT_MASK) +1, ((toEnd-1) & SEGMENT_MASK) +1));
+			fromEnd-=n;
+			toEnd-=n;
+			System.arraycopy(segments[fromEnd >>> SEGMENT_SHIFT], fromEnd & SEGMENT_MASK, segments[toEnd >>> SEGMENT_SHIFT], toEnd & SEGMENT_MASK, n);
+			length-=n;
+		}
+	}
+	
 	private void ensureCapacity(int minCapacity) {
+		if(segments !=null){
+			//only the array of segment references ever gets copied
+			int neededSegments = numberOfSegmentsFor(minCapacity);
+			if(neededSegments > segments.length){
+				segments = Arrays.copyOf(segments, Math.max(neededSegments, segments.length*2));
+			}
+			while(numberOfSegments < neededSegments){
+				segments[numberOfSegments++] = new int[SEGMENT_SIZE];
+			}
+			return;
+		}
 		int oldCapacity = data.length;
 		if (minCapacity > oldCapacity) {
 		    //algorithm borrowed from ArrayList
@@ -281,7 +517,12 @@ public final class GrowableIntArray implements Iterable<Integer>{
     }
 	
 	public int[] toArray(){
-		return Arrays.copyOf(data,currentLength);
+		if(segments ==null){
+			return Arrays.copyOf(data,currentLength);
+		}
+		int[] array = new int[currentLength];
+		copyOut(0, array, 0, currentLength);
+		return array;
 	}
 	/**
 	 * Searches the current values in this growable array
@@ -309,7 +550,83 @@ public final class GrowableIntArray implements Iterable<Integer>{
      *@see Arrays#binarySearch(byte[], byte)
      */
 	public int binarySearch(int key){
-		return Arrays.binarySearch(data, 0, currentLength, key);
+		if(segments ==null){
+			return Arrays.binarySearch(data, 0, currentLength, key);
+		}
+		int low = 0;
+		int high = currentLength - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midVal = valueAt(mid);
+			if (midVal < key){
+				low = mid + 1;
+			}else if (midVal > key){
+				high = mid - 1;
+			}else{
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+	/**
+	 * Search the current values in this growable array
+	 * for each of the given keys.  This is the same as calling
+	 * {@link #binarySearch(int)} for each key, but because
+	 * the keys are sorted, each search only has to gallop forward
+	 * from where the previous key was found, so searching
+	 * many keys is one pass over both arrays instead of
+	 * a full binary search per key.  Large key sets are split
+	 * into blocks which are searched in parallel.
+	 * The array must be sorted (as
+	 * by the {@link #sort()} method) prior to making this call.  If it
+	 * is not sorted, the results are undefined.
+	 * @param sortedKeys the values to be searched for which must
+	 * be in sorted order; can not be null.
+	 * @return a new int array the same length as {@code sortedKeys}
+	 * where each element is the result of searching for the key
+	 * at the same offset using the same convention as
+	 * {@link #binarySearch(int)}: the index of the key if it is contained
+	 * in this array; otherwise <tt>(-(<i>insertion point</i>) - 1)</tt>.
+	 * @throws NullPointerException if sortedKeys is null.
+	 * @since 0.3.7
+	 */
+	public int[] binarySearchAll(int[] sortedKeys){
+		int[] results = new int[sortedKeys.length];
+		if(sortedKeys.length <= PARALLEL_SEARCH_BLOCK_SIZE){
+			gallopingSearch(sortedKeys, 0, sortedKeys.length, results);
+		}else{
+			int numberOfBlocks = (sortedKeys.length + PARALLEL_SEARCH_BLOCK_SIZE -1) / PARALLEL_SEARCH_BLOCK_SIZE;
+			IntStream.range(0, numberOfBlocks).parallel().forEach(block -> {
+				int from = block * PARALLEL_SEARCH_BLOCK_SIZE;
+				gallopingSearch(sortedKeys, from, Math.min(sortedKeys.length, from + PARALLEL_SEARCH_BLOCK_SIZE), results);
+			});
+		}
+		return results;
+	}
+
+	private void gallopingSearch(int[] sortedKeys, int from, int to, int[] results){
+		//every value before lowerBound is less than the current key
+		int lowerBound = 0;
+		for(int k=from; k< to; k++){
+			int key = sortedKeys[k];
+			int high = lowerBound;
+			int step = 1;
+			while(high < currentLength && valueAt(high) < key){
+				lowerBound = high +1;
+				high += step;
+				step <<= 1;
+			}
+			high = Math.min(high, currentLength);
+			while(lowerBound < high){
+				int mid = (lowerBound + high) >>> 1;
+				if(valueAt(mid) < key){
+					lowerBound = mid +1;
+				}else{
+					high = mid;
+				}
+			}
+			results[k] = lowerBound < currentLength && valueAt(lowerBound) == key ? lowerBound : -(lowerBound + 1);
+		}
 	}
 	/**
 	 * Remove the given value from this
@@ -383,6 +700,23 @@ public final class GrowableIntArray implements Iterable<Integer>{
 			append(values);
 			return;
 		}
+		if(segments !=null){
+			//merge from the back in place so the
+			//existing segments never have to be copied
+			ensureCapacity(currentLength + values.length);
+			int ourIndex = currentLength -1;
+			int otherIndex = values.length -1;
+			for(int i = currentLength + values.length -1; otherIndex >=0; i--){
+				if(ourIndex >=0 && valueAt(ourIndex) > values[otherIndex]){
+					setValueAt(i, valueAt(ourIndex--));
+				}else{
+					setValueAt(i, values[otherIndex--]);
+				}
+			}
+			currentLength += values.length;
+			modCount++;
+			return;
+		}
 		int[] newData = new int[data.length + values.length];
 		int newCurrentLength = currentLength + values.length;
 		
@@ -427,6 +761,7 @@ public final class GrowableIntArray implements Iterable<Integer>{
 			
 		data = newData;
 		currentLength = newCurrentLength;
+		modCount++;
 	}
 	
 	/**
@@ -434,18 +769,200 @@ public final class GrowableIntArray implements Iterable<Integer>{
 	 * using the default comparator.
 	 */
 	public void sort(){
-		Arrays.sort(data, 0, currentLength);
+		if(segments ==null){
+			Arrays.sort(data, 0, currentLength);
+			return;
+		}
+		int[] sorted = toArray();
+		Arrays.sort(sorted);
+		copyIn(sorted, 0, 0, currentLength);
+	}
+	/**
+	 * Sort the current values in this growable array
+	 * using {@link Arrays#parallelSort(int[], int, int)}
+	 * which splits the work across the common fork-join pool.
+	 * For small arrays this is no faster than {@link #sort()}.
+	 * @since 0.3.7
+	 */
+	public void parallelSort(){
+		if(segments ==null){
+			Arrays.parallelSort(data, 0, currentLength);
+			return;
+		}
+		int[] sorted = toArray();
+		Arrays.parallelSort(sorted);
+		copyIn(sorted, 0, 0, currentLength);
+	}
+	/**
+	 * Sort the current values in this growable array using
+	 * a least significant digit radix sort over 8 bit digits,
+	 * skipping any digit shared by every value.  This is not a comparison sort so it is usually much faster
+	 * than {@link #sort()} for large arrays, at the cost of a temporary
+	 * buffer the same size as the array.  Small arrays are sorted with {@link #sort()}.
+	 * @since 0.3.7
+	 */
+	public void radixSort(){
+		if(segments ==null){
+			RadixSort.sort(data, currentLength);
+			return;
+		}
+		int[] sorted = toArray();
+		RadixSort.sort(sorted, currentLength);
+		copyIn(sorted, 0, 0, currentLength);
+	}
+	/**
+	 * Sort the current values in this growable array like {@link #radixSort()}
+	 * but split the work across the common fork-join pool: this
+	 * partitions the values by their most significant digit in parallel
+	 * and then radix sorts each partition.
+	 * For small arrays this is no faster than {@link #radixSort()}.
+	 * @since 0.3.7
+	 */
+	public void parallelRadixSort(){
+		if(segments ==null){
+			RadixSort.parallelSort(data, currentLength);
+			return;
+		}
+		int[] sorted = toArray();
+		RadixSort.parallelSort(sorted, currentLength);
+		copyIn(sorted, 0, 0, currentLength);
+	}
+	/**
+	 * Compute the permutation that would sort this array
+	 * without changing this array.  The returned array holds the
+	 * offsets of the values in sorted order, so {@code get(permutation.get(0))}
+	 * is the smallest value; equal values keep their original order.
+	 * The permutation can be passed to {@link #reorder(GrowableIntArray)}
+	 * of this and any other arrays with the same length to sort them all to match.
+	 * @return a new GrowableIntArray of offsets; will never be null but may be empty.
+	 * @since 0.3.7
+	 */
+	public GrowableIntArray argsort(){
+		return GrowableIntArray.wrap(RadixSort.argsort(segments ==null ? data : toArray(), currentLength));
+	}
+	/**
+	 * Rearrange the current values of this array so the value at
+	 * offset {@code i} becomes the value that was at offset {@code permutation.get(i)}.
+	 * @param permutation the new order of the offsets, usually from {@link #argsort()};
+	 * can not be null.
+	 * @throws IllegalArgumentException if the permutation is not the same length
+	 * as this array or is not a permutation of all the offsets of this array.
+	 * @throws NullPointerException if permutation is null.
+	 * @since 0.3.7
+	 */
+	public void reorder(GrowableIntArray permutation){
+		if(permutation.getCurrentLength() != currentLength){
+			throw new IllegalArgumentException("permutation length " + permutation.getCurrentLength() + " does not match array size: "+currentLength);
+		}
+		BitSet seen = new BitSet(currentLength);
+		int[] reordered = new int[currentLength];
+		for(int i=0; i< currentLength; i++){
+			int offset = permutation.get(i);
+			if(offset <0 || offset >= currentLength || seen.get(offset)){
+				throw new IllegalArgumentException("not a permutation: offset " + offset + " at " + i);
+			}
+			seen.set(offset);
+			reordered[i] = valueAt(offset);
+		}
+		copyIn(reordered, 0, 0, currentLength);
 	}
 	
+	/**
+	 * Merge the given values into the
+	 * sorted backing array.  This has the same result
+	 * as {@link #sortedInsert(int[])} but is meant for large batches:
+	 * the batch is sorted first (in parallel if it is large)
+	 * and then both sorted runs are merged into a single new
+	 * array in one linear pass.
+	 * The given array is never modified.
+	 * Calling this method on an unsorted
+	 * backing array may not merge the values
+	 * correctly.
+	 * @param values the values to merge; can not be null.
+	 * @param valuesAlreadySorted {@code true} if the given values
+	 * are already in sorted order and don't need to be sorted again.
+	 * @throws NullPointerException if values is null.
+	 * @since 0.3.7
+	 */
+	public void sortedMerge(int[] values, boolean valuesAlreadySorted){
+		sortedMerge(values, valuesAlreadySorted, false);
+	}
+	/**
+	 * Merge the given values into the
+	 * sorted backing array and optionally remove any
+	 * duplicate values so that each value is only in the
+	 * resulting array once.
+	 * The given array is never modified.
+	 * Calling this method on an unsorted
+	 * backing array may not merge the values
+	 * correctly.
+	 * @param values the values to merge; can not be null.
+	 * @param valuesAlreadySorted {@code true} if the given values
+	 * are already in sorted order and don't need to be sorted again.
+	 * @param removeDuplicates {@code true} if duplicate values,
+	 * including any already in this array, should be removed.
+	 * @throws NullPointerException if values is null.
+	 * @since 0.3.7
+	 */
+	public void sortedMerge(int[] values, boolean valuesAlreadySorted, boolean removeDuplicates){
+		int[] sortedValues = values;
+		if(!valuesAlreadySorted){
+			sortedValues = Arrays.copyOf(values, values.length);
+			if(sortedValues.length > PARALLEL_SORT_THRESHOLD){
+				Arrays.parallelSort(sortedValues);
+			}else{
+				Arrays.sort(sortedValues);
+			}
+		}
+		int[] merged = new int[currentLength + sortedValues.length];
+		int ourIndex=0, otherIndex=0, mergedLength=0;
+		while(ourIndex < currentLength || otherIndex < sortedValues.length){
+			int next;
+			if(otherIndex == sortedValues.length
+					|| (ourIndex < currentLength && valueAt(ourIndex) <= sortedValues[otherIndex])){
+				next = valueAt(ourIndex++);
+			}else{
+				next = sortedValues[otherIndex++];
+			}
+			if(!removeDuplicates || mergedLength ==0 || merged[mergedLength-1] != next){
+				merged[mergedLength++] = next;
+			}
+		}
+		if(segments ==null){
+			data = merged;
+		}else{
+			ensureCapacity(mergedLength);
+			copyIn(merged, 0, 0, mergedLength);
+		}
+		currentLength = mergedLength;
+		modCount++;
+	}
 	/**
 	 * Set the current length to 0.
 	 */
 	public void clear(){
 		this.currentLength=0;
+		modCount++;
 	}
 	@Override
 	public Iterator<Integer> iterator() {
-		return PrimitiveArrayIterators.create(data, currentLength);
+		if(segments ==null){
+			return PrimitiveArrayIterators.create(data, currentLength);
+		}
+		return new Iterator<Integer>(){
+			private int offset=0;
+			@Override
+			public boolean hasNext() {
+				return offset < currentLength;
+			}
+			@Override
+			public Integer next() {
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+				return valueAt(offset++);
+			}
+		};
 	}
 	/**
 	 * Get the number of values
@@ -458,7 +975,7 @@ public final class GrowableIntArray implements Iterable<Integer>{
 	public int getCount(int value){
 		int count=0;
 		for(int i=0; i<currentLength; i++){
-			if(data[i] == value){
+			if(valueAt(i) == value){
 				count++;
 			}
 		}
@@ -471,7 +988,7 @@ public final class GrowableIntArray implements Iterable<Integer>{
 	 * will never be null but may be empty.
 	 */
 	public IntStream stream() {
-		return Arrays.stream(data, 0, currentLength);		
+		return StreamSupport.intStream(intSpliterator(), false);
 	}
 	/**
 	 * Create a sequential {@link IntStream}
@@ -483,7 +1000,8 @@ public final class GrowableIntArray implements Iterable<Integer>{
 	 * .2
 	 */
 	public IntStream stream(Range range) {
-		return Arrays.stream(data, (int) range.getBegin(), (int) range.getEnd() +1);
+		assertValidRange(range);
+		return StreamSupport.intStream(new ValueSpliterator((int) range.getBegin(), (int) range.getEnd() +1, modCount), false);
 	}
 	/**
 	 * Create a new List of Integers with the same data
@@ -517,7 +1035,7 @@ public final class GrowableIntArray implements Iterable<Integer>{
 	public <E extends Throwable> void forEachIndexed(ThrowingIntIndexedIntConsumer<E> consumer) throws E{
 		Objects.requireNonNull(consumer);
 		for(int i=0; i< currentLength; i++){
-			consumer.accept(i, data[i]);
+			consumer.accept(i, valueAt(i));
 		}
 	}
 
@@ -533,7 +1051,601 @@ public final class GrowableIntArray implements Iterable<Integer>{
 	public <E extends Throwable> void forEachIndexed(Range range, ThrowingIntIndexedIntConsumer<E> consumer) throws E{
 		int end = (int) Math.min(currentLength, range.getEnd()+1);
 		for(int i=(int) range.getBegin(); i< end; i++){
-			consumer.accept(i, data[i]);
+			consumer.accept(i, valueAt(i));
+		}
+	}
+
+	/**
+	 * Write the current values of this array to the given channel
+	 * as a small header followed by the values in big endian order
+	 * using bulk buffer transfers.  The written data can be read back
+	 * with {@link #readFrom(ReadableByteChannel)} or {@link #mapFrom(Path)}.
+	 * The channel is not closed.
+	 * @param channel the channel to write to; can not be null.
+	 * @throws IOException if there is a problem writing to the channel.
+	 * @throws NullPointerException if channel is null.
+	 * @since 0.3.7
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException{
+		GrowableArrayIO.writeHeader(channel, ELEMENT_TYPE, currentLength);
+		ByteBuffer buffer = GrowableArrayIO.newTransferBuffer();
+		IntBuffer view = buffer.asIntBuffer();
+		int valuesPerTransfer = view.capacity();
+		for(int offset=0; offset< currentLength; offset+=valuesPerTransfer){
+			int length = Math.min(valuesPerTransfer, currentLength - offset);
+			((Buffer) view).clear();
+			if(segments ==null){
+				view.put(data, offset, length);
+			}else{
+				for(int copied=0; copied< length;){
+					int within = (offset + copied) & SEGMENT_MASK;
+					int n = Math.min(length - copied, SEGMENT_SIZE - within);
+					view.put(segments[(offset + copied) >>> SEGMENT_SHIFT], within, n);
+					copied+=n;
+				}
+			}
+			GrowableArrayIO.writeTransferBuffer(channel, buffer, length * Integer.BYTES);
+		}
+	}
+	/**
+	 * Read a new {@link GrowableIntArray} from the given channel
+	 * which was previously written by {@link #writeTo(WritableByteChannel)}.
+	 * The channel is not closed.
+	 * @param channel the channel to read from; can not be null.
+	 * @return a new GrowableIntArray; will never be null.
+	 * @throws IOException if there is a problem reading from the channel
+	 * or the data was not written by {@link #writeTo(WritableByteChannel)}.
+	 * @throws NullPointerException if channel is null.
+	 * @since 0.3.7
+	 */
+	public static GrowableIntArray readFrom(ReadableByteChannel channel) throws IOException{
+		int length = GrowableArrayIO.readHeader(channel, ELEMENT_TYPE);
+		GrowableIntArray array = new GrowableIntArray(length);
+		ByteBuffer buffer = GrowableArrayIO.newTransferBuffer();
+		IntBuffer view = buffer.asIntBuffer();
+		int valuesPerTransfer = view.capacity();
+		for(int offset=0; offset< length; offset+=valuesPerTransfer){
+			int n = Math.min(valuesPerTransfer, length - offset);
+			GrowableArrayIO.readTransferBuffer(channel, buffer, n * Integer.BYTES);
+			((Buffer) view).clear();
+			view.get(array.data, offset, n);
+		}
+		array.currentLength = length;
+		return array;
+	}
+	/**
+	 * Read a new {@link GrowableIntArray} from the given file
+	 * which was previously written by {@link #writeTo(WritableByteChannel)}
+	 * by memory mapping the file and bulk copying the values
+	 * out of the mapped regions.
+	 * @param path the path to the file to read; can not be null.
+	 * @return a new GrowableIntArray; will never be null.
+	 * @throws IOException if there is a problem reading the file
+	 * or the file was not written by {@link #writeTo(WritableByteChannel)}.
+	 * @throws NullPointerException if path is null.
+	 * @since 0.3.7
+	 */
+	public static GrowableIntArray mapFrom(Path path) throws IOException{
+		try(GrowableArrayIO.MappedFile file = GrowableArrayIO.openMapped(path, ELEMENT_TYPE, Integer.BYTES)){
+			int length = file.getLength();
+			GrowableIntArray array = new GrowableIntArray(length);
+			int valuesPerRegion = file.getElementsPerRegion();
+			//advance by the number mapped so the offset can never overflow
+			for(int offset=0; offset< length; ){
+				int n = Math.min(valuesPerRegion, length - offset);
+				file.map(offset, n).asIntBuffer().get(array.data, offset, n);
+				offset+=n;
+			}
+			array.currentLength = length;
+			return array;
+		}
+	}
+	/**
+	 * Create a read-only {@link View} of the given range
+	 * of this array which shares this array's storage
+	 * instead of copying it.  The view becomes invalid
+	 * as soon as this array is structurally modified.
+	 * @param range the range of offsets to view; can not be null.
+	 * @return a new View; will never be null.
+	 * @throws IndexOutOfBoundsException if the range is out of bounds.
+	 * @throws NullPointerException if range is null.
+	 * @since 0.3.7
+	 */
+	public View view(Range range){
+		assertValidRange(range);
+		return new View((int) range.getBegin(), (int) range.getLength());
+	}
+	/**
+	 * Wrap the current values of this array in a read-only
+	 * {@link IntBuffer} with its position at 0 and its limit at
+	 * the current length.  The buffer shares this array's storage
+	 * so no values are copied, unless this array is in segmented
+	 * mode in which case the values have to first be copied
+	 * into a contiguous array.
+	 * The buffer should not be used after this array is structurally modified.
+	 * @return a new read-only IntBuffer; will never be null.
+	 * @since 0.3.7
+	 */
+	public IntBuffer asIntBuffer(){
+		return asIntBuffer(0, currentLength);
+	}
+
+	private IntBuffer asIntBuffer(int begin, int length){
+		if(segments ==null){
+			return IntBuffer.wrap(data, begin, length).slice().asReadOnlyBuffer();
+		}
+		int[] copy = new int[length];
+		copyOut(begin, copy, 0, length);
+		return IntBuffer.wrap(copy).asReadOnlyBuffer();
+	}
+	/**
+	 * Compute the sum of all the current values.
+	 * This is a simple counted loop over the backing storage
+	 * which the JIT can vectorize.
+	 * @return the sum; will be 0 if this array is empty.
+	 * @since 0.3.7
+	 */
+	public long sum(){
+		return reduce(0, currentLength, GrowableIntArray::sumKernel, Long::sum, 0);
+	}
+	/**
+	 * Compute the sum of all the current values
+	 * splitting large arrays into blocks that are summed in parallel.
+	 * @return the sum; will be 0 if this array is empty.
+	 * @since 0.3.7
+	 */
+	public long parallelSum(){
+		return parallelReduce(GrowableIntArray::sumKernel, Long::sum, 0);
+	}
+	/**
+	 * Get the smallest current value.
+	 * @return the minimum value.
+	 * @throws NoSuchElementException if this array is empty.
+	 * @since 0.3.7
+	 */
+	public int min(){
+		assertNotEmpty();
+		return (int) reduce(0, currentLength, GrowableIntArray::minKernel, Math::min, Integer.MAX_VALUE);
+	}
+	/**
+	 * Get the smallest current value
+	 * searching large arrays in parallel.
+	 * @return the minimum value.
+	 * @throws NoSuchElementException if this array is empty.
+	 * @since 0.3.7
+	 */
+	public int parallelMin(){
+		assertNotEmpty();
+		return (int) parallelReduce(GrowableIntArray::minKernel, Math::min, Integer.MAX_VALUE);
+	}
+	/**
+	 * Get the largest current value.
+	 * @return the maximum value.
+	 * @throws NoSuchElementException if this array is empty.
+	 * @since 0.3.7
+	 */
+	public int max(){
+		assertNotEmpty();
+		return (int) reduce(0, currentLength, GrowableIntArray::maxKernel, Math::max, Integer.MIN_VALUE);
+	}
+	/**
+	 * Get the largest current value
+	 * searching large arrays in parallel.
+	 * @return the maximum value.
+	 * @throws NoSuchElementException if this array is empty.
+	 * @since 0.3.7
+	 */
+	public int parallelMax(){
+		assertNotEmpty();
+		return (int) parallelReduce(GrowableIntArray::maxKernel, Math::max, Integer.MIN_VALUE);
+	}
+	/**
+	 * Add the given value to every current value in this array.
+	 * @param value the value to add.
+	 * @since 0.3.7
+	 */
+	public void addScalar(int value){
+		forEachBlock(0, currentLength, addScalarKernel(value));
+	}
+	/**
+	 * Add the given value to every current value in this array
+	 * splitting large arrays into blocks that are updated in parallel.
+	 * @param value the value to add.
+	 * @since 0.3.7
+	 */
+	public void parallelAddScalar(int value){
+		parallelForEachBlock(addScalarKernel(value));
+	}
+
+	private static InPlaceKernel addScalarKernel(int value){
+		return (array, from, to) -> {
+			for(int i=from; i< to; i++){
+				array[i] += value;
+			}
+		};
+	}
+	/**
+	 * Add each value of the other array to the value
+	 * at the same offset in this array.
+	 * @param other the array of values to add; can not be null
+	 * and must have the same length as this array.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 * @throws NullPointerException if other is null.
+	 * @since 0.3.7
+	 */
+	public void addAll(GrowableIntArray other){
+		if(other.currentLength != currentLength){
+			throw new IllegalArgumentException("arrays must have the same length: " + currentLength + " vs " + other.currentLength);
+		}
+		if(segments ==null && other.segments ==null){
+			int[] ours = data;
+			int[] theirs = other.data;
+			for(int i=0; i< currentLength; i++){
+				ours[i] += theirs[i];
+			}
+			return;
+		}
+		for(int i=0; i< currentLength; i++){
+			setValueAt(i, valueAt(i) + other.valueAt(i));
+		}
+	}
+	/**
+	 * Count the number of current values that match the given predicate.
+	 * @param predicate the predicate to test each value; can not be null.
+	 * @return the number of matching values; will always be >= 0.
+	 * @throws NullPointerException if predicate is null.
+	 * @since 0.3.7
+	 */
+	public int countMatching(IntPredicate predicate){
+		return (int) reduce(0, currentLength, countKernel(predicate), Long::sum, 0);
+	}
+	/**
+	 * Count the number of current values that match the given predicate
+	 * splitting large arrays into blocks that are tested in parallel.
+	 * @param predicate the thread-safe predicate to test each value; can not be null.
+	 * @return the number of matching values; will always be >= 0.
+	 * @throws NullPointerException if predicate is null.
+	 * @since 0.3.7
+	 */
+	public int parallelCountMatching(IntPredicate predicate){
+		return (int) parallelReduce(countKernel(predicate), Long::sum, 0);
+	}
+
+	private static Kernel countKernel(IntPredicate predicate){
+		Objects.requireNonNull(predicate);
+		return (array, from, to) -> {
+			long count = 0;
+			for(int i=from; i< to; i++){
+				if(predicate.test(array[i])){
+					count++;
+				}
+			}
+			return count;
+		};
+	}
+	/**
+	 * Remove every value that does NOT match the given predicate
+	 * in a single pass, shifting the values that are kept
+	 * down in place so their order is preserved.
+	 * @param keep the predicate that returns {@code true} for
+	 * the values to keep; can not be null.
+	 * @return the number of values removed.
+	 * @throws NullPointerException if keep is null.
+	 * @since 0.3.7
+	 */
+	public int compact(IntPredicate keep){
+		Objects.requireNonNull(keep);
+		int kept = 0;
+		if(segments ==null){
+			int[] array = data;
+			for(int i=0; i< currentLength; i++){
+				int value = array[i];
+				if(keep.test(value)){
+					array[kept++] = value;
+				}
+			}
+		}else{
+			for(int i=0; i< currentLength; i++){
+				int value = valueAt(i);
+				if(keep.test(value)){
+					setValueAt(kept++, value);
+				}
+			}
+		}
+		int removed = currentLength - kept;
+		if(removed >0){
+			currentLength = kept;
+			modCount++;
+		}
+		return removed;
+	}
+
+	private static long sumKernel(int[] array, int from, int to){
+		long sum = 0;
+		for(int i=from; i< to; i++){
+			sum += array[i];
+		}
+		return sum;
+	}
+
+	private static long minKernel(int[] array, int from, int to){
+		int min = Integer.MAX_VALUE;
+		for(int i=from; i< to; i++){
+			min = Math.min(min, array[i]);
+		}
+		return min;
+	}
+
+	private static long maxKernel(int[] array, int from, int to){
+		int max = Integer.MIN_VALUE;
+		for(int i=from; i< to; i++){
+			max = Math.max(max, array[i]);
+		}
+		return max;
+	}
+
+	private void assertNotEmpty(){
+		if(currentLength ==0){
+			throw new NoSuchElementException("array is empty");
+		}
+	}
+	/**
+	 * A bulk operation over a range of a primitive array
+	 * written as a plain counted loop.
+	 */
+	@FunctionalInterface
+	private interface Kernel{
+		long apply(int[] array, int from, int to);
+	}
+	/**
+	 * A bulk operation that updates a range of a primitive array
+	 * in place, written as a plain counted loop.
+	 */
+	@FunctionalInterface
+	private interface InPlaceKernel{
+		void apply(int[] array, int from, int to);
+	}
+	/**
+	 * Run the kernel over the given range of values
+	 * once per contiguous piece of storage and combine the results.
+	 */
+	private long reduce(int from, int to, Kernel kernel, LongBinaryOperator combiner, long identity){
+		if(segments ==null){
+			return kernel.apply(data, from, to);
+		}
+		long result = identity;
+		for(int i=from; i< to;){
+			int within = i & SEGMENT_MASK;
+			int end = within + Math.min(to - i, SEGMENT_SIZE - within);
+			result = combiner.applyAsLong(result, kernel.apply(segments[i >>> SEGMENT_SHIFT], within, end));
+			i+= end - within;
+		}
+		return result;
+	}
+
+	private long parallelReduce(Kernel kernel, LongBinaryOperator combiner, long identity){
+		if(currentLength <= PARALLEL_KERNEL_BLOCK_SIZE){
+			return reduce(0, currentLength, kernel, combiner, identity);
+		}
+		int numberOfBlocks = (currentLength + PARALLEL_KERNEL_BLOCK_SIZE -1) / PARALLEL_KERNEL_BLOCK_SIZE;
+		return IntStream.range(0, numberOfBlocks).parallel()
+				.mapToLong(block -> {
+					int from = block * PARALLEL_KERNEL_BLOCK_SIZE;
+					return reduce(from, Math.min(currentLength, from + PARALLEL_KERNEL_BLOCK_SIZE), kernel, combiner, identity);
+				})
+				.reduce(identity, combiner);
+	}
+	/**
+	 * Run the kernel over the given range of values
+	 * once per contiguous piece of storage.
+	 */
+	private void forEachBlock(int from, int to, InPlaceKernel kernel){
+		if(segments ==null){
+			kernel.apply(data, from, to);
+			return;
+		}
+		for(int i=from; i< to;){
+			int within = i & SEGMENT_MASK;
+			int end = within + Math.min(to - i, SEGMENT_SIZE - within);
+			kernel.apply(segments[i >>> SEGMENT_SHIFT], within, end);
+			i+= end - within;
+		}
+	}
+
+	private void parallelForEachBlock(InPlaceKernel kernel){
+		if(currentLength <= PARALLEL_KERNEL_BLOCK_SIZE){
+			forEachBlock(0, currentLength, kernel);
+			return;
+		}
+		int numberOfBlocks = (currentLength + PARALLEL_KERNEL_BLOCK_SIZE -1) / PARALLEL_KERNEL_BLOCK_SIZE;
+		IntStream.range(0, numberOfBlocks).parallel()
+				.forEach(block -> {
+					int from = block * PARALLEL_KERNEL_BLOCK_SIZE;
+					forEachBlock(from, Math.min(currentLength, from + PARALLEL_KERNEL_BLOCK_SIZE), kernel);
+				});
+	}
+	/**
+	 * Create a new {@link PrimitiveIterator.OfInt} over the current
+	 * values of this array which, unlike {@link #iterator()},
+	 * does not box each value.
+	 * @return a new iterator; will never be null.
+	 * @since 0.3.7
+	 */
+	public PrimitiveIterator.OfInt intIterator(){
+		return Spliterators.iterator(intSpliterator());
+	}
+	/**
+	 * Create a new {@link Spliterator.OfInt} over the current
+	 * values of this array that reads the values in place
+	 * without copying.  The spliterator reports
+	 * {@link Spliterator#SIZED}, {@link Spliterator#SUBSIZED}
+	 * and {@link Spliterator#ORDERED} and splits in half so parallel
+	 * streams divide the work evenly.  It fails fast with a
+	 * {@link ConcurrentModificationException} if this array
+	 * is structurally modified while it is being traversed.
+	 * @return a new spliterator; will never be null.
+	 * @since 0.3.7
+	 */
+	public Spliterator.OfInt intSpliterator(){
+		return new ValueSpliterator(0, currentLength, modCount);
+	}
+
+	private final class ValueSpliterator implements Spliterator.OfInt {
+		private int index;
+		private final int fence;
+		private final int expectedModCount;
+
+		ValueSpliterator(int origin, int fence, int expectedModCount){
+			this.index = origin;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
+
+		@Override
+		public Spliterator.OfInt trySplit() {
+			int mid = (index + fence) >>> 1;
+			if(index >= mid){
+				return null;
+			}
+			ValueSpliterator prefix = new ValueSpliterator(index, mid, expectedModCount);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			Objects.requireNonNull(action);
+			if(index >= fence){
+				return false;
+			}
+			action.accept(valueAt(index++));
+			checkForComodification();
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			Objects.requireNonNull(action);
+			if(segments ==null){
+				for(int i=index; i< fence; i++){
+					action.accept(data[i]);
+				}
+			}else{
+				//walk each segment directly so there is no per value shift and mask
+				for(int i=index; i< fence;){
+					int[] segment = segments[i >>> SEGMENT_SHIFT];
+					int within = i & SEGMENT_MASK;
+					int end = within + Math.min(fence - i, SEGMENT_SIZE - within);
+					for(int j=within; j< end; j++){
+						action.accept(segment[j]);
+					}
+					i+= end - within;
+				}
+			}
+			index = fence;
+			checkForComodification();
+		}
+
+		private void checkForComodification(){
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL;
+		}
+	}
+	/**
+	 * A read-only view of a range of a {@link GrowableIntArray}
+	 * that shares its parent's storage instead of copying it.
+	 * A view is only valid until its parent is structurally modified
+	 * (any change to the parent's length); after that,
+	 * every method on the view throws {@link ConcurrentModificationException}.
+	 * @since 0.3.7
+	 */
+	public final class View implements Iterable<Integer>{
+		private final int begin;
+		private final int length;
+		private final int expectedModCount;
+
+		private View(int begin, int length){
+			this.begin = begin;
+			this.length = length;
+			this.expectedModCount = modCount;
+		}
+		private void checkForComodification(){
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException("parent array was modified after view was created");
+			}
+		}
+		/**
+		 * Is this view still valid.
+		 * @return {@code true} if the parent array has not been
+		 * structurally modified since this view was created.
+		 */
+		public boolean isValid(){
+			return modCount == expectedModCount;
+		}
+		public int getLength(){
+			checkForComodification();
+			return length;
+		}
+		public int get(int offset){
+			checkForComodification();
+			if(offset <0 || offset >= length){
+				throw new IndexOutOfBoundsException("Index: "+offset+", Size: "+length);
+			}
+			return valueAt(begin + offset);
+		}
+		/**
+		 * Copy the values of this view into a new array.
+		 * @return a new array; will never be null but may be empty.
+		 */
+		public int[] toArray(){
+			checkForComodification();
+			int[] array = new int[length];
+			copyOut(begin, array, 0, length);
+			return array;
+		}
+		public IntStream stream(){
+			checkForComodification();
+			return StreamSupport.intStream(new ValueSpliterator(begin, begin + length, expectedModCount), false);
+		}
+		/**
+		 * Wrap the values of this view in a read-only {@link IntBuffer}
+		 * that shares the parent's storage.
+		 * @return a new read-only IntBuffer; will never be null.
+		 * @see GrowableIntArray#asIntBuffer()
+		 */
+		public IntBuffer asIntBuffer(){
+			checkForComodification();
+			return GrowableIntArray.this.asIntBuffer(begin, length);
+		}
+		@Override
+		public Iterator<Integer> iterator() {
+			checkForComodification();
+			return new Iterator<Integer>(){
+				private int offset=0;
+				@Override
+				public boolean hasNext() {
+					return offset < length;
+				}
+				@Override
+				public Integer next() {
+					checkForComodification();
+					if(!hasNext()){
+						throw new NoSuchElementException();
+					}
+					return valueAt(begin + offset++);
+				}
+			};
 		}
 	}
 }
@@ -21,10 +21,26 @@ package gov.nih.ncats.common.util;
 import gov.nih.ncats.common.functions.ThrowingIntIndexedShortConsumer;
 import gov.nih.ncats.common.iter.PrimitiveArrayIterators;
 
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A {@code GrowableShortArray} is a utility class
@@ -55,6 +71,45 @@ public final class GrowableShortArray implements Iterable<Short>{
 	 * the capacity is the size of the array.
 	 */
 	private short[] data;
+	/**
+	 * The number of times this array has been
+	 * structurally modified (its length changed),
+	 * used by {@link View}s to fail fast.
+	 */
+	private int modCount;
+	/**
+	 * The JVM type descriptor used to tag
+	 * this type in the {@link #writeTo(WritableByteChannel)} header.
+	 */
+	private static final char ELEMENT_TYPE = 'S';
+	/**
+	 * log2 of the number of values in each segment
+	 * when this array is in segmented mode so that
+	 * an offset can be split into a segment index
+	 * and a position inside that segment with a shift and a mask.
+	 */
+	private static final int SEGMENT_SHIFT = 14;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+	/**
+	 * Batches larger than this are sorted
+	 * with {@link Arrays#parallelSort(short[])}.
+	 */
+	private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+	/**
+	 * Number of keys searched by each fork-join task
+	 * in {@link #binarySearchAll(short[])}.
+	 */
+	private static final int PARALLEL_SEARCH_BLOCK_SIZE = 1 << 16;
+	/**
+	 * The fixed size chunks of data when this
+	 * array is in segmented mode; {@code null}
+	 * if the values are stored in {@link #data} instead.
+	 * Only the first {@link #numberOfSegments} chunks
+	 * have been allocated.
+	 */
+	private short[][] segments;
+	private int numberOfSegments;
 	/**
 	 * Creates a new {@link GrowableShortArray}
 	 * with the given initial capacity.
@@ -71,6 +126,34 @@ public final class GrowableShortArray implements Iterable<Short>{
 		}
 		data = new short[initialCapacity];		
 	}
+	/**
+	 * Creates a new {@link GrowableShortArray}
+	 * with the given initial capacity which may
+	 * optionally store its values in segmented mode.
+	 * In segmented mode the values are kept in a list of fixed size
+	 * chunks instead of one contiguous array, so growing
+	 * never copies the values already stored, and random access
+	 * is only a shift and a mask.  A contiguous array is only
+	 * ever created when requested by methods like {@link #toArray()}.
+	 * @param initialCapacity the initial capacity; when adding
+	 * shorts will cause the capacity to overflow,
+	 * more storage will automatically be allocated.
+	 * @param segmented {@code true} to use segmented mode;
+	 * {@code false} to behave exactly like {@link #GrowableShortArray(int)}.
+	 * @throws IllegalArgumentException if initialCapacity is <0.
+	 * @since 0.3.7
+	 */
+	public GrowableShortArray(int initialCapacity, boolean segmented){
+		if(initialCapacity <0){
+			throw new IllegalArgumentException("initial capacity should be >= 0 :"+initialCapacity);
+		}
+		if(segmented){
+			segments = new short[Math.max(1, numberOfSegmentsFor(initialCapacity))][];
+			ensureCapacity(initialCapacity);
+		}else{
+			data = new short[initialCapacity];
+		}
+	}
 	
 	
 	/**
@@ -117,7 +200,15 @@ public final class GrowableShortArray implements Iterable<Short>{
 		currentLength=data.length;
 	}
 	private GrowableShortArray(GrowableShortArray copy){
-		data = Arrays.copyOf(copy.data, copy.data.length);
+		if(copy.segments ==null){
+			data = Arrays.copyOf(copy.data, copy.data.length);
+		}else{
+			segments = new short[copy.segments.length][];
+			numberOfSegments = copy.numberOfSegments;
+			for(int i=0; i< numberOfSegments; i++){
+				segments[i] = Arrays.copyOf(copy.segments[i], SEGMENT_SIZE);
+			}
+		}
 		currentLength = copy.currentLength;
 	}
 	/**
@@ -133,6 +224,17 @@ public final class GrowableShortArray implements Iterable<Short>{
 	public GrowableShortArray copy(){
 		return new GrowableShortArray(this);
 	}
+	/**
+	 * Is this array storing its values
+	 * in fixed size segments.
+	 * @return {@code true} if this array was created
+	 * in segmented mode; {@code false} otherwise.
+	 * @see #GrowableShortArray(int, boolean)
+	 * @since 0.3.7
+	 */
+	public boolean isSegmented(){
+		return segments !=null;
+	}
 	private void assertValidOffset(int offset) {
 		if (offset <0 || offset >= currentLength){
 		    throw new IndexOutOfBoundsException(
@@ -149,10 +251,10 @@ public final class GrowableShortArray implements Iterable<Short>{
 	public void reverse(){
 		int pivotPoint = currentLength/2;
 		for(int i=0; i<pivotPoint;i++){
-			short temp=data[i];
+			short temp=valueAt(i);
 			int reverseI = currentLength-i-1;
-			data[i] = data[reverseI];
-			data[reverseI] = temp;
+			setValueAt(i, valueAt(reverseI));
+			setValueAt(reverseI, temp);
 		}
 	}
 	public int getCurrentLength() {
@@ -161,22 +263,25 @@ public final class GrowableShortArray implements Iterable<Short>{
 
 	public void append(short value){
 		ensureCapacity(currentLength+1);
-		data[currentLength++]=value;
+		setValueAt(currentLength++, value);
+		modCount++;
 	}
 	
 	public void append(short[] values){
 		ensureCapacity(currentLength+values.length);
-		System.arraycopy(values, 0, data, currentLength, values.length);
+		copyIn(values, 0, currentLength, values.length);
 		currentLength+=values.length;
+		modCount++;
 	}
 	public void append(GrowableShortArray other){
 		ensureCapacity(currentLength+other.currentLength);
-		System.arraycopy(other.data, 0, data, currentLength, other.currentLength);
+		copyIn(other, currentLength);
 		currentLength+=other.currentLength;
+		modCount++;
 	}
 	public short get(int offset){
 		assertValidOffset(offset);
-		return data[offset];
+		return valueAt(offset);
 	}
 	
 	public void prepend(short value){
@@ -191,36 +296,36 @@ public final class GrowableShortArray implements Iterable<Short>{
 	}
 	public void replace(int offset, short value){
 		assertValidOffset(offset);
-		data[offset]=value;
+		setValueAt(offset, value);
 	}
 	public void insert(int offset, short[] values){
 		assertValidInsertOffset(offset);
 		ensureCapacity(currentLength+values.length);
-		System.arraycopy(data, offset, data, offset + values.length,
-				currentLength - offset);
+		move(offset, offset + values.length, currentLength - offset);
 		
-		System.arraycopy(values, 0, data, offset, values.length);
+		copyIn(values, 0, offset, values.length);
 		currentLength+=values.length;
+		modCount++;
 		
 	}
 	
 	public void insert(int offset, GrowableShortArray other){
 		assertValidInsertOffset(offset);
 		ensureCapacity(currentLength+other.currentLength);
-		System.arraycopy(data, offset, data, offset + other.currentLength,
-				currentLength - offset);
+		move(offset, offset + other.currentLength, currentLength - offset);
 		
-		System.arraycopy(other.data, 0, data, offset, other.currentLength);
+		copyIn(other, offset);
 		currentLength+=other.currentLength;
+		modCount++;
 		
 	}
 	public void insert(int offset, short value){
 		assertValidInsertOffset(offset);
 		ensureCapacity(currentLength+1);
-		System.arraycopy(data, offset, data, offset + 1,
-				currentLength - offset);
-		data[offset] = value;
+		move(offset, offset + 1, currentLength - offset);
+		setValueAt(offset, value);
 		currentLength++;
+		modCount++;
 	}
 	private void assertValidInsertOffset(int offset) {
 		//inserts allow offset to be length
@@ -234,10 +339,10 @@ public final class GrowableShortArray implements Iterable<Short>{
 		assertValidRange(range);
 		int numMoved = currentLength -(int)range.getBegin()-(int) range.getLength();
 		if (numMoved > 0){
-			System.arraycopy(data, (int)range.getEnd()+1, 
-					data, (int)range.getBegin(),  numMoved);
+			move((int)range.getEnd()+1, (int)range.getBegin(), numMoved);
 		}
 		currentLength-=(int)range.getLength();    
+		modCount++;
 	}
 	/**
 	 * Removes the value at the given offset
@@ -248,13 +353,14 @@ public final class GrowableShortArray implements Iterable<Short>{
 	 */
 	public short remove(int offset){
 		assertValidOffset(offset);
-		short oldValue = data[offset];
+		short oldValue = valueAt(offset);
 
 		int numMoved = currentLength - offset - 1;
 		if (numMoved > 0){
-		    System.arraycopy(data, offset+1, data, offset,    numMoved);
+		    move(offset+1, offset, numMoved);
 		}
 		currentLength--;
+		modCount++;
 		return oldValue;
 	}
 	/**
@@ -268,10 +374,130 @@ public final class GrowableShortArray implements Iterable<Short>{
 	 * will always be >=0;
 	 */
 	public int getCurrentCapacity(){
+		if(segments !=null){
+			return (int) Math.min(Integer.MAX_VALUE, (long) numberOfSegments << SEGMENT_SHIFT);
+		}
 		return data.length;
 	}
 	
+	/**
+	 * Get the value at the given offset without any bounds checking.
+	 */
+	private short valueAt(int offset){
+		if(segments ==null){
+			return data[offset];
+		}
+		return segments[offset >>> SEGMENT_SHIFT][offset & SEGMENT_MASK];
+	}
+	private void setValueAt(int offset, short value){
+		if(segments ==null){
+			data[offset] = value;
+		}else{
+			segments[offset >>> SEGMENT_SHIFT][offset & SEGMENT_MASK] = value;
+		}
+	}
+	private static int numberOfSegmentsFor(int capacity){
+		return (int) (((long) capacity + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+	}
+	/**
+	 * Copy {@code length} values from the given array
+	 * into this growable array starting at {@code offset}.
+	 * The capacity must already be large enough.
+	 */
+	private void copyIn(short[] src, int srcPos, int offset, int length){
+		if(segments ==null){
+			System.arraycopy(src, srcPos, data, offset, length);
+			return;
+		}
+		while(length >0){
+			int within = offset & SEGMENT_MASK;
+			int n = Math.min(length, SEGMENT_SIZE - within);
+			System.arraycopy(src, srcPos, segments[offset >>> SEGMENT_SHIFT], within, n);
+			srcPos+=n;
+			offset+=n;
+			length-=n;
+		}
+	}
+	/**
+	 * Copy all the current values of the other growable array
+	 * into this growable array starting at {@code offset}.
+	 * The capacity must already be large enough.
+	 */
+	private void copyIn(GrowableShortArray other, int offset){
+		if(other.segments ==null){
+			copyIn(other.data, 0, offset, other.currentLength);
+			return;
+		}
+		for(int copied=0; copied < other.currentLength; copied+=SEGMENT_SIZE){
+			copyIn(other.segments[copied >>> SEGMENT_SHIFT], 0, offset + copied, Math.min(SEGMENT_SIZE, other.currentLength - copied));
+		}
+	}
+	/**
+	 * Copy {@code length} values starting at {@code offset}
+	 * out of this growable array into the given array.
+	 */
+	private void copyOut(int offset, short[] dest, int destPos, int length){
+		if(segments ==null){
+			System.arraycopy(data, offset, dest, destPos, length);
+			return;
+		}
+		while(length >0){
+			int within = offset & SEGMENT_MASK;
+			int n = Math.min(length, SEGMENT_SIZE - within);
+			System.arraycopy(segments[offset >>> SEGMENT_SHIFT], within, dest, destPos, n);
+			destPos+=n;
+			offset+=n;
+			length-=n;
+		}
+	}
+	/**
+	 * Move {@code length} values inside this growable array
+	 * from offset {@code from} to offset {@code to}.
+	 * Like {@link System#arraycopy(Object, int, Object, int, int)}
+	 * this correctly handles overlapping regions.
+	 */
+	private void move(int from, int to, int length){
+		if(segments ==null){
+			System.arraycopy(data, from, data, to, length);
+			return;
+		}
+		if(to <= from){
+			while(length >0){
+				int fromWithin = from & SEGMENT_MASK;
+				int toWithin = to & SEGMENT_MASK;
+				int n = Math.min(length, SEGMENT_SIZE - Math.max(fromWithin, toWithin));
+				System.arraycopy(segments[from >>> SEGMENT_SHIFT], fromWithin, segments[to >>> SEGMENT_SHIFT], toWithin, n);
+				from+=n;
+				to+=n;
+				length-=n;
+			}
+			return;
+		}
+		//moving to the right so copy from the end
+		//so we never overwrite values we still need
+		int fromEnd = from + length;
+		int toEnd = to + length;
+		while(length >0){
+			int n = Math.min(length, Math.min(((fromEnd-1) & SEGMENT_MASK) +1, ((toEnd-1) & SEGMENT_MASK) +1));
+			fromEnd-=n;
+			toEnd-=n;
+			System.arraycopy(segments[fromEnd >>> SEGMENT_SHIFT], fromEnd & SEGMENT_MASK, segments[toEnd >>> SEGMENT_SHIFT], toEnd & SEGMENT_MASK, n);
+			length-=n;
+		}
+	}
+	
 	private  void ensureCapacity(int minCapacity) {
+		if(segments !=null){
+			//only the array of segment references ever gets copied
+			int neededSegments = numberOfSegmentsFor(minCapacity);
+			if(neededSegments > segments.length){
+				segments = Arrays.copyOf(segments, Math.max(neededSegments, segments.length*2));
+			}
+			while(numberOfSegments < neededSegments){
+				segments[numberOfSegments++] = new short[SEGMENT_SIZE];
+			}
+			return;
+		}
 		int oldCapacity = data.length;
 		if (minCapacity > oldCapacity) {
 		    //algorithm borrowed from ArrayList
@@ -285,7 +511,12 @@ public final class GrowableShortArray implements Iterable<Short>{
     }
 	
 	public short[] toArray(){
-		return Arrays.copyOf(data,currentLength);
+		if(segments ==null){
+			return Arrays.copyOf(data,currentLength);
+		}
+		short[] array = new short[currentLength];
+		copyOut(0, array, 0, currentLength);
+		return array;
 	}
 	
 	/**
@@ -314,9 +545,85 @@ public final class GrowableShortArray implements Iterable<Short>{
      *@see Arrays#binarySearch(byte[], byte)
      */
 	public int binarySearch(short key){
-		return Arrays.binarySearch(data, 0, currentLength, key);
+		if(segments ==null){
+			return Arrays.binarySearch(data, 0, currentLength, key);
+		}
+		int low = 0;
+		int high = currentLength - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			short midVal = valueAt(mid);
+			if (midVal < key){
+				low = mid + 1;
+			}else if (midVal > key){
+				high = mid - 1;
+			}else{
+				return mid;
+			}
+		}
+		return -(low + 1);
 	}
 	
+	/**
+	 * Search the current values in this growable array
+	 * for each of the given keys.  This is the same as calling
+	 * {@link #binarySearch(short)} for each key, but because
+	 * the keys are sorted, each search only has to gallop forward
+	 * from where the previous key was found, so searching
+	 * many keys is one pass over both arrays instead of
+	 * a full binary search per key.  Large key sets are split
+	 * into blocks which are searched in parallel.
+	 * The array must be sorted (as
+	 * by the {@link #sort()} method) prior to making this call.  If it
+	 * is not sorted, the results are undefined.
+	 * @param sortedKeys the values to be searched for which must
+	 * be in sorted order; can not be null.
+	 * @return a new int array the same length as {@code sortedKeys}
+	 * where each element is the result of searching for the key
+	 * at the same offset using the same convention as
+	 * {@link #binarySearch(short)}: the index of the key if it is contained
+	 * in this array; otherwise <tt>(-(<i>insertion point</i>) - 1)</tt>.
+	 * @throws NullPointerException if sortedKeys is null.
+	 * @since 0.3.7
+	 */
+	public int[] binarySearchAll(short[] sortedKeys){
+		int[] results = new int[sortedKeys.length];
+		if(sortedKeys.length <= PARALLEL_SEARCH_BLOCK_SIZE){
+			gallopingSearch(sortedKeys, 0, sortedKeys.length, results);
+		}else{
+			int numberOfBlocks = (sortedKeys.length + PARALLEL_SEARCH_BLOCK_SIZE -1) / PARALLEL_SEARCH_BLOCK_SIZE;
+			IntStream.range(0, numberOfBlocks).parallel().forEach(block -> {
+				int from = block * PARALLEL_SEARCH_BLOCK_SIZE;
+				gallopingSearch(sortedKeys, from, Math.min(sortedKeys.length, from + PARALLEL_SEARCH_BLOCK_SIZE), results);
+			});
+		}
+		return results;
+	}
+
+	private void gallopingSearch(short[] sortedKeys, int from, int to, int[] results){
+		//every value before lowerBound is less than the current key
+		int lowerBound = 0;
+		for(int k=from; k< to; k++){
+			short key = sortedKeys[k];
+			int high = lowerBound;
+			int step = 1;
+			while(high < currentLength && valueAt(high) < key){
+				lowerBound = high +1;
+				high += step;
+				step <<= 1;
+			}
+			high = Math.min(high, currentLength);
+			while(lowerBound < high){
+				int mid = (lowerBound + high) >>> 1;
+				if(valueAt(mid) < key){
+					lowerBound = mid +1;
+				}else{
+					high = mid;
+				}
+			}
+			results[k] = lowerBound < currentLength && valueAt(lowerBound) == key ? lowerBound : -(lowerBound + 1);
+		}
+	}
 	/**
 	 * Remove the given value from this
 	 * sorted array.  This method
@@ -371,19 +678,202 @@ public final class GrowableShortArray implements Iterable<Short>{
 	 * using the default comparator.
 	 */
 	public void sort(){
-		Arrays.sort(data, 0, currentLength);
+		if(segments ==null){
+			Arrays.sort(data, 0, currentLength);
+			return;
+		}
+		short[] sorted = toArray();
+		Arrays.sort(sorted);
+		copyIn(sorted, 0, 0, currentLength);
+	}
+	/**
+	 * Sort the current values in this growable array
+	 * using {@link Arrays#parallelSort(short[], int, int)}
+	 * which splits the work across the common fork-join pool.
+	 * For small arrays this is no faster than {@link #sort()}.
+	 * @since 0.3.7
+	 */
+	public void parallelSort(){
+		if(segments ==null){
+			Arrays.parallelSort(data, 0, currentLength);
+			return;
+		}
+		short[] sorted = toArray();
+		Arrays.parallelSort(sorted);
+		copyIn(sorted, 0, 0, currentLength);
+	}
+	/**
+	 * Sort the current values in this growable array using
+	 * a counting sort, since there are only 2^16 possible values:
+	 * one pass counts each value into a fixed {@code int[65536]} histogram
+	 * and a second pass rewrites the array from the counts in place.
+	 * This is not a comparison sort so it is usually much faster
+	 * than {@link #sort()} for large arrays and, other than the histogram,
+	 * needs no temporary buffer.  Small arrays are sorted with {@link #sort()}.
+	 * @since 0.3.7
+	 */
+	public void radixSort(){
+		if(segments ==null){
+			RadixSort.sort(data, currentLength);
+			return;
+		}
+		short[] sorted = toArray();
+		RadixSort.sort(sorted, currentLength);
+		copyIn(sorted, 0, 0, currentLength);
+	}
+	/**
+	 * Sort the current values in this growable array like {@link #radixSort()}
+	 * but split the work across the common fork-join pool: this
+	 * counts the values in parallel chunks.
+	 * For small arrays this is no faster than {@link #radixSort()}.
+	 * @since 0.3.7
+	 */
+	public void parallelRadixSort(){
+		if(segments ==null){
+			RadixSort.parallelSort(data, currentLength);
+			return;
+		}
+		short[] sorted = toArray();
+		RadixSort.parallelSort(sorted, currentLength);
+		copyIn(sorted, 0, 0, currentLength);
+	}
+	/**
+	 * Compute the permutation that would sort this array
+	 * without changing this array.  The returned array holds the
+	 * offsets of the values in sorted order, so {@code get(permutation.get(0))}
+	 * is the smallest value; equal values keep their original order.
+	 * The permutation can be passed to {@link #reorder(GrowableIntArray)}
+	 * of this and any other arrays with the same length to sort them all to match.
+	 * @return a new GrowableIntArray of offsets; will never be null but may be empty.
+	 * @since 0.3.7
+	 */
+	public GrowableIntArray argsort(){
+		return GrowableIntArray.wrap(RadixSort.argsort(segments ==null ? data : toArray(), currentLength));
+	}
+	/**
+	 * Rearrange the current values of this array so the value at
+	 * offset {@code i} becomes the value that was at offset {@code permutation.get(i)}.
+	 * @param permutation the new order of the offsets, usually from {@link #argsort()};
+	 * can not be null.
+	 * @throws IllegalArgumentException if the permutation is not the same length
+	 * as this array or is not a permutation of all the offsets of this array.
+	 * @throws NullPointerException if permutation is null.
+	 * @since 0.3.7
+	 */
+	public void reorder(GrowableIntArray permutation){
+		if(permutation.getCurrentLength() != currentLength){
+			throw new IllegalArgumentException("permutation length " + permutation.getCurrentLength() + " does not match array size: "+currentLength);
+		}
+		BitSet seen = new BitSet(currentLength);
+		short[] reordered = new short[currentLength];
+		for(int i=0; i< currentLength; i++){
+			int offset = permutation.get(i);
+			if(offset <0 || offset >= currentLength || seen.get(offset)){
+				throw new IllegalArgumentException("not a permutation: offset " + offset + " at " + i);
+			}
+			seen.set(offset);
+			reordered[i] = valueAt(offset);
+		}
+		copyIn(reordered, 0, 0, currentLength);
 	}
 	
+	/**
+	 * Merge the given values into the
+	 * sorted backing array.  This has the same result
+	 * as {@link #sortedInsert(short[])} but is meant for large batches:
+	 * the batch is sorted first (in parallel if it is large)
+	 * and then both sorted runs are merged into a single new
+	 * array in one linear pass.
+	 * The given array is never modified.
+	 * Calling this method on an unsorted
+	 * backing array may not merge the values
+	 * correctly.
+	 * @param values the values to merge; can not be null.
+	 * @param valuesAlreadySorted {@code true} if the given values
+	 * are already in sorted order and don't need to be sorted again.
+	 * @throws NullPointerException if values is null.
+	 * @since 0.3.7
+	 */
+	public void sortedMerge(short[] values, boolean valuesAlreadySorted){
+		sortedMerge(values, valuesAlreadySorted, false);
+	}
+	/**
+	 * Merge the given values into the
+	 * sorted backing array and optionally remove any
+	 * duplicate values so that each value is only in the
+	 * resulting array once.
+	 * The given array is never modified.
+	 * Calling this method on an unsorted
+	 * backing array may not merge the values
+	 * correctly.
+	 * @param values the values to merge; can not be null.
+	 * @param valuesAlreadySorted {@code true} if the given values
+	 * are already in sorted order and don't need to be sorted again.
+	 * @param removeDuplicates {@code true} if duplicate values,
+	 * including any already in this array, should be removed.
+	 * @throws NullPointerException if values is null.
+	 * @since 0.3.7
+	 */
+	public void sortedMerge(short[] values, boolean valuesAlreadySorted, boolean removeDuplicates){
+		short[] sortedValues = values;
+		if(!valuesAlreadySorted){
+			sortedValues = Arrays.copyOf(values, values.length);
+			if(sortedValues.length > PARALLEL_SORT_THRESHOLD){
+				Arrays.parallelSort(sortedValues);
+			}else{
+				Arrays.sort(sortedValues);
+			}
+		}
+		short[] merged = new short[currentLength + sortedValues.length];
+		int ourIndex=0, otherIndex=0, mergedLength=0;
+		while(ourIndex < currentLength || otherIndex < sortedValues.length){
+			short next;
+			if(otherIndex == sortedValues.length
+					|| (ourIndex < currentLength && valueAt(ourIndex) <= sortedValues[otherIndex])){
+				next = valueAt(ourIndex++);
+			}else{
+				next = sortedValues[otherIndex++];
+			}
+			if(!removeDuplicates || mergedLength ==0 || merged[mergedLength-1] != next){
+				merged[mergedLength++] = next;
+			}
+		}
+		if(segments ==null){
+			data = merged;
+		}else{
+			ensureCapacity(mergedLength);
+			copyIn(merged, 0, 0, mergedLength);
+		}
+		currentLength = mergedLength;
+		modCount++;
+	}
 	/**
 	 * Set the current length to 0.
 	 */
 	public void clear(){
 		this.currentLength=0;
+		modCount++;
 	}
 	
 	@Override
 	public Iterator<Short> iterator() {
-		return PrimitiveArrayIterators.create(data, currentLength);
+		if(segments ==null){
+			return PrimitiveArrayIterators.create(data, currentLength);
+		}
+		return new Iterator<Short>(){
+			private int offset=0;
+			@Override
+			public boolean hasNext() {
+				return offset < currentLength;
+			}
+			@Override
+			public Short next() {
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+				return valueAt(offset++);
+			}
+		};
 	}
 	
 	/**
@@ -410,6 +900,23 @@ public final class GrowableShortArray implements Iterable<Short>{
 			append(values);
 			return;
 		}
+		if(segments !=null){
+			//merge from the back in place so the
+			//existing segments never have to be copied
+			ensureCapacity(currentLength + values.length);
+			int ourIndex = currentLength -1;
+			int otherIndex = values.length -1;
+			for(int i = currentLength + values.length -1; otherIndex >=0; i--){
+				if(ourIndex >=0 && valueAt(ourIndex) > values[otherIndex]){
+					setValueAt(i, valueAt(ourIndex--));
+				}else{
+					setValueAt(i, values[otherIndex--]);
+				}
+			}
+			currentLength += values.length;
+			modCount++;
+			return;
+		}
 		short[] newData = new short[data.length + values.length];
 		int newCurrentLength = currentLength + values.length;
 		
@@ -454,6 +961,7 @@ public final class GrowableShortArray implements Iterable<Short>{
 			
 		data = newData;
 		currentLength = newCurrentLength;
+		modCount++;
 	}
 	
 	/**
@@ -467,13 +975,24 @@ public final class GrowableShortArray implements Iterable<Short>{
 	public int getCount(short value){
 		int count=0;
 		for(int i=0; i<currentLength; i++){
-			if(data[i] == value){
+			if(valueAt(i) == value){
 				count++;
 			}
 		}
 		return count;
 	}
 
+	/**
+	 * Create a sequential {@link IntStream}
+	 * of the current array where each short
+	 * is widened to an int.  The values are not copied.
+	 * @return a new {@link IntStream}
+	 * will never be null but may be empty.
+	 * @since 0.3.7
+	 */
+	public IntStream stream() {
+		return StreamSupport.intStream(intSpliterator(), false);
+	}
 	/**
 	 * Iterate over each element in the list and call the given consumer
 	 * which captures the offset and the value.
@@ -488,7 +1007,7 @@ public final class GrowableShortArray implements Iterable<Short>{
 	public <E extends Throwable> void forEachIndexed(ThrowingIntIndexedShortConsumer<E> consumer) throws E{
 		Objects.requireNonNull(consumer);
 		for(int i=0; i< currentLength; i++){
-			consumer.accept(i, data[i]);
+			consumer.accept(i, valueAt(i));
 		}
 	}
 
@@ -504,7 +1023,315 @@ public final class GrowableShortArray implements Iterable<Short>{
     public <E extends Throwable> void forEachIndexed(Range range, ThrowingIntIndexedShortConsumer<E> consumer) throws E{
         int end = (int) Math.min(currentLength, range.getEnd()+1);
         for(int i=(int) range.getBegin(); i< end; i++){
-            consumer.accept(i, data[i]);
+            consumer.accept(i, valueAt(i));
         }
     }
+
+	/**
+	 * Write the current values of this array to the given channel
+	 * as a small header followed by the values in big endian order
+	 * using bulk buffer transfers.  The written data can be read back
+	 * with {@link #readFrom(ReadableByteChannel)} or {@link #mapFrom(Path)}.
+	 * The channel is not closed.
+	 * @param channel the channel to write to; can not be null.
+	 * @throws IOException if there is a problem writing to the channel.
+	 * @throws NullPointerException if channel is null.
+	 * @since 0.3.7
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException{
+		GrowableArrayIO.writeHeader(channel, ELEMENT_TYPE, currentLength);
+		ByteBuffer buffer = GrowableArrayIO.newTransferBuffer();
+		ShortBuffer view = buffer.asShortBuffer();
+		int valuesPerTransfer = view.capacity();
+		for(int offset=0; offset< currentLength; offset+=valuesPerTransfer){
+			int length = Math.min(valuesPerTransfer, currentLength - offset);
+			((Buffer) view).clear();
+			if(segments ==null){
+				view.put(data, offset, length);
+			}else{
+				for(int copied=0; copied< length;){
+					int within = (offset + copied) & SEGMENT_MASK;
+					int n = Math.min(length - copied, SEGMENT_SIZE - within);
+					view.put(segments[(offset + copied) >>> SEGMENT_SHIFT], within, n);
+					copied+=n;
+				}
+			}
+			GrowableArrayIO.writeTransferBuffer(channel, buffer, length * Short.BYTES);
+		}
+	}
+	/**
+	 * Read a new {@link GrowableShortArray} from the given channel
+	 * which was previously written by {@link #writeTo(WritableByteChannel)}.
+	 * The channel is not closed.
+	 * @param channel the channel to read from; can not be null.
+	 * @return a new GrowableShortArray; will never be null.
+	 * @throws IOException if there is a problem reading from the channel
+	 * or the data was not written by {@link #writeTo(WritableByteChannel)}.
+	 * @throws NullPointerException if channel is null.
+	 * @since 0.3.7
+	 */
+	public static GrowableShortArray readFrom(ReadableByteChannel channel) throws IOException{
+		int length = GrowableArrayIO.readHeader(channel, ELEMENT_TYPE);
+		GrowableShortArray array = new GrowableShortArray(length);
+		ByteBuffer buffer = GrowableArrayIO.newTransferBuffer();
+		ShortBuffer view = buffer.asShortBuffer();
+		int valuesPerTransfer = view.capacity();
+		for(int offset=0; offset< length; offset+=valuesPerTransfer){
+			int n = Math.min(valuesPerTransfer, length - offset);
+			GrowableArrayIO.readTransferBuffer(channel, buffer, n * Short.BYTES);
+			((Buffer) view).clear();
+			view.get(array.data, offset, n);
+		}
+		array.currentLength = length;
+		return array;
+	}
+	/**
+	 * Read a new {@link GrowableShortArray} from the given file
+	 * which was previously written by {@link #writeTo(WritableByteChannel)}
+	 * by memory mapping the file and bulk copying the values
+	 * out of the mapped regions.
+	 * @param path the path to the file to read; can not be null.
+	 * @return a new GrowableShortArray; will never be null.
+	 * @throws IOException if there is a problem reading the file
+	 * or the file was not written by {@link #writeTo(WritableByteChannel)}.
+	 * @throws NullPointerException if path is null.
+	 * @since 0.3.7
+	 */
+	public static GrowableShortArray mapFrom(Path path) throws IOException{
+		try(GrowableArrayIO.MappedFile file = GrowableArrayIO.openMapped(path, ELEMENT_TYPE, Short.BYTES)){
+			int length = file.getLength();
+			GrowableShortArray array = new GrowableShortArray(length);
+			int valuesPerRegion = file.getElementsPerRegion();
+			//advance by the number mapped so the offset can never overflow
+			for(int offset=0; offset< length; ){
+				int n = Math.min(valuesPerRegion, length - offset);
+				file.map(offset, n).asShortBuffer().get(array.data, offset, n);
+				offset+=n;
+			}
+			array.currentLength = length;
+			return array;
+		}
+	}
+	/**
+	 * Create a read-only {@link View} of the given range
+	 * of this array which shares this array's storage
+	 * instead of copying it.  The view becomes invalid
+	 * as soon as this array is structurally modified.
+	 * @param range the range of offsets to view; can not be null.
+	 * @return a new View; will never be null.
+	 * @throws IndexOutOfBoundsException if the range is out of bounds.
+	 * @throws NullPointerException if range is null.
+	 * @since 0.3.7
+	 */
+	public View view(Range range){
+		assertValidRange(range);
+		return new View((int) range.getBegin(), (int) range.getLength());
+	}
+	/**
+	 * Wrap the current values of this array in a read-only
+	 * {@link ShortBuffer} with its position at 0 and its limit at
+	 * the current length.  The buffer shares this array's storage
+	 * so no values are copied, unless this array is in segmented
+	 * mode in which case the values have to first be copied
+	 * into a contiguous array.
+	 * The buffer should not be used after this array is structurally modified.
+	 * @return a new read-only ShortBuffer; will never be null.
+	 * @since 0.3.7
+	 */
+	public ShortBuffer asShortBuffer(){
+		return asShortBuffer(0, currentLength);
+	}
+
+	private ShortBuffer asShortBuffer(int begin, int length){
+		if(segments ==null){
+			return ShortBuffer.wrap(data, begin, length).slice().asReadOnlyBuffer();
+		}
+		short[] copy = new short[length];
+		copyOut(begin, copy, 0, length);
+		return ShortBuffer.wrap(copy).asReadOnlyBuffer();
+	}
+	/**
+	 * Create a new {@link PrimitiveIterator.OfInt} over the current
+	 * values of this array which, unlike {@link #iterator()},
+	 * does not box each value.
+	 * @return a new iterator; will never be null.
+	 * @since 0.3.7
+	 */
+	public PrimitiveIterator.OfInt intIterator(){
+		return Spliterators.iterator(intSpliterator());
+	}
+	/**
+	 * Create a new {@link Spliterator.OfInt} over the current
+	 * values of this array that reads the values in place
+	 * without copying.  The spliterator reports
+	 * {@link Spliterator#SIZED}, {@link Spliterator#SUBSIZED}
+	 * and {@link Spliterator#ORDERED} and splits in half so parallel
+	 * streams divide the work evenly.  It fails fast with a
+	 * {@link ConcurrentModificationException} if this array
+	 * is structurally modified while it is being traversed.
+	 * @return a new spliterator; will never be null.
+	 * @since 0.3.7
+	 */
+	public Spliterator.OfInt intSpliterator(){
+		return new ValueSpliterator(0, currentLength, modCount);
+	}
+
+	private final class ValueSpliterator implements Spliterator.OfInt {
+		private int index;
+		private final int fence;
+		private final int expectedModCount;
+
+		ValueSpliterator(int origin, int fence, int expectedModCount){
+			this.index = origin;
+			this.fence = fence;
+			this.expectedModCount = expectedModCount;
+		}
+
+		@Override
+		public Spliterator.OfInt trySplit() {
+			int mid = (index + fence) >>> 1;
+			if(index >= mid){
+				return null;
+			}
+			ValueSpliterator prefix = new ValueSpliterator(index, mid, expectedModCount);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			Objects.requireNonNull(action);
+			if(index >= fence){
+				return false;
+			}
+			action.accept(valueAt(index++));
+			checkForComodification();
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			Objects.requireNonNull(action);
+			if(segments ==null){
+				for(int i=index; i< fence; i++){
+					action.accept(data[i]);
+				}
+			}else{
+				//walk each segment directly so there is no per value shift and mask
+				for(int i=index; i< fence;){
+					short[] segment = segments[i >>> SEGMENT_SHIFT];
+					int within = i & SEGMENT_MASK;
+					int end = within + Math.min(fence - i, SEGMENT_SIZE - within);
+					for(int j=within; j< end; j++){
+						action.accept(segment[j]);
+					}
+					i+= end - within;
+				}
+			}
+			index = fence;
+			checkForComodification();
+		}
+
+		private void checkForComodification(){
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL;
+		}
+	}
+	/**
+	 * A read-only view of a range of a {@link GrowableShortArray}
+	 * that shares its parent's storage instead of copying it.
+	 * A view is only valid until its parent is structurally modified
+	 * (any change to the parent's length); after that,
+	 * every method on the view throws {@link ConcurrentModificationException}.
+	 * @since 0.3.7
+	 */
+	public final class View implements Iterable<Short>{
+		private final int begin;
+		private final int length;
+		private final int expectedModCount;
+
+		private View(int begin, int length){
+			this.begin = begin;
+			this.length = length;
+			this.expectedModCount = modCount;
+		}
+		private void checkForComodification(){
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException("parent array was modified after view was created");
+			}
+		}
+		/**
+		 * Is this view still valid.
+		 * @return {@code true} if the parent array has not been
+		 * structurally modified since this view was created.
+		 */
+		public boolean isValid(){
+			return modCount == expectedModCount;
+		}
+		public int getLength(){
+			checkForComodification();
+			return length;
+		}
+		public short get(int offset){
+			checkForComodification();
+			if(offset <0 || offset >= length){
+				throw new IndexOutOfBoundsException("Index: "+offset+", Size: "+length);
+			}
+			return valueAt(begin + offset);
+		}
+		/**
+		 * Copy the values of this view into a new array.
+		 * @return a new array; will never be null but may be empty.
+		 */
+		public short[] toArray(){
+			checkForComodification();
+			short[] array = new short[length];
+			copyOut(begin, array, 0, length);
+			return array;
+		}
+		public IntStream stream(){
+			checkForComodification();
+			return StreamSupport.intStream(new ValueSpliterator(begin, begin + length, expectedModCount), false);
+		}
+		/**
+		 * Wrap the values of this view in a read-only {@link ShortBuffer}
+		 * that shares the parent's storage.
+		 * @return a new read-only ShortBuffer; will never be null.
+		 * @see GrowableShortArray#asShortBuffer()
+		 */
+		public ShortBuffer asShortBuffer(){
+			checkForComodification();
+			return GrowableShortArray.this.asShortBuffer(begin, length);
+		}
+		@Override
+		public Iterator<Short> iterator() {
+			checkForComodification();
+			return new Iterator<Short>(){
+				private int offset=0;
+				@Override
+				public boolean hasNext() {
+					return offset < length;
+				}
+				@Override
+				public Short next() {
+					checkForComodification();
+					if(!hasNext()){
+						throw new NoSuchElementException();
+					}
+					return valueAt(begin + offset++);
+				}
+			};
+		}
+	}
 }
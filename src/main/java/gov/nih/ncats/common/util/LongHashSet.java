@@ -0,0 +1,279 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package gov.nih.ncats.common.util;
+
+import gov.nih.ncats.common.functions.ThrowableLongConsumer;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A hash set of primitive {@code long}s that never boxes.
+ * Values are stored using open addressing with linear probing; removals
+ * shift later values back so there are no tombstones.
+ * This class is not Thread-safe.
+ *
+ * @since 0.3.7
+ */
+public final class LongHashSet {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    /**
+     * The value used to mark an empty slot.
+     * Whether the actual value 0 is in the set is tracked separately.
+     */
+    private static final long FREE_KEY = 0;
+
+    private long[] keys;
+    private int mask;
+    /**
+     * The number of values in the array
+     * (not counting the zero value).
+     */
+    private int assigned;
+    private int resizeAt;
+
+    private boolean hasZeroKey;
+
+    /**
+     * Creates a new empty set with a default expected size.
+     */
+    public LongHashSet(){
+        this(16);
+    }
+    /**
+     * Creates a new empty set big enough to hold the given number
+     * of values without having to grow.
+     * @param expectedNumberOfValues the expected number of values.
+     * @throws IllegalArgumentException if expectedNumberOfValues is &lt; 0.
+     */
+    public LongHashSet(int expectedNumberOfValues){
+        allocate(tableSizeFor(MapUtil.computeMinHashMapSizeWithoutRehashing(expectedNumberOfValues, LOAD_FACTOR)));
+    }
+
+    private static int tableSizeFor(int minSize){
+        int size = Integer.highestOneBit(Math.max(2, minSize -1)) << 1;
+        if(size <=0){
+            throw new IllegalArgumentException("too many values: " + minSize);
+        }
+        return size;
+    }
+
+    private void allocate(int tableSize){
+        keys = new long[tableSize];
+        mask = tableSize -1;
+        resizeAt = Math.min(tableSize -1, (int) Math.ceil(tableSize * LOAD_FACTOR));
+    }
+
+    private static int hash(long key){
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int slotOf(long key){
+        for(int slot = hash(key) & mask; ; slot = (slot +1) & mask){
+            long existing = keys[slot];
+            if(existing == key){
+                return slot;
+            }
+            if(existing == FREE_KEY){
+                return -1;
+            }
+        }
+    }
+
+    public int size(){
+        return assigned + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty(){
+        return size() ==0;
+    }
+
+    public boolean contains(long value){
+        if(value == FREE_KEY){
+            return hasZeroKey;
+        }
+        return slotOf(value) >=0;
+    }
+    /**
+     * Add the given value to this set.
+     * @param value the value to add.
+     * @return {@code true} if the value was not already in this set.
+     */
+    public boolean add(long value){
+        if(value == FREE_KEY){
+            boolean added = !hasZeroKey;
+            hasZeroKey = true;
+            return added;
+        }
+        for(int slot = hash(value) & mask; ; slot = (slot +1) & mask){
+            long existing = keys[slot];
+            if(existing == value){
+                return false;
+            }
+            if(existing == FREE_KEY){
+                keys[slot] = value;
+                if(++assigned >= resizeAt){
+                    rehash(keys.length << 1);
+                }
+                return true;
+            }
+        }
+    }
+    /**
+     * Remove the given value from this set.
+     * @param value the value to remove.
+     * @return {@code true} if the value was in this set; {@code false} otherwise.
+     */
+    public boolean remove(long value){
+        if(value == FREE_KEY){
+            boolean removed = hasZeroKey;
+            hasZeroKey = false;
+            return removed;
+        }
+        int slot = slotOf(value);
+        if(slot <0){
+            return false;
+        }
+        shiftBack(slot);
+        assigned--;
+        return true;
+    }
+    /**
+     * Fill the now empty slot by shifting back any later
+     * value in the same probe run that would no longer be
+     * reachable from its home slot.
+     */
+    private void shiftBack(int gap){
+        for(int slot = (gap +1) & mask; ; slot = (slot +1) & mask){
+            long key = keys[slot];
+            if(key == FREE_KEY){
+                break;
+            }
+            int home = hash(key) & mask;
+            //can this value move back to the gap?
+            //only if its home slot is not cyclically between the gap and its current slot
+            if(((slot - home) & mask) >= ((slot - gap) & mask)){
+                keys[gap] = key;
+                gap = slot;
+            }
+        }
+        keys[gap] = FREE_KEY;
+    }
+
+    private void rehash(int newTableSize){
+        long[] oldKeys = keys;
+        allocate(newTableSize);
+        for(long key : oldKeys){
+            if(key != FREE_KEY){
+                int slot = hash(key) & mask;
+                while(keys[slot] != FREE_KEY){
+                    slot = (slot +1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+    /**
+     * Remove all values from this set
+     * keeping the current capacity.
+     */
+    public void clear(){
+        Arrays.fill(keys, FREE_KEY);
+        assigned = 0;
+        hasZeroKey = false;
+    }
+    /**
+     * Call the given consumer for each value in this set
+     * in no particular order.
+     * @param consumer the consumer of each value; can not be null.
+     * @param <E> the Throwable that might be thrown by the consumer.
+     * @throws E the Throwable from the consumer.
+     * @throws NullPointerException if consumer is null.
+     */
+    public <E extends Throwable> void forEach(ThrowableLongConsumer<E> consumer) throws E{
+        Objects.requireNonNull(consumer);
+        if(hasZeroKey){
+            consumer.accept(FREE_KEY);
+        }
+        for(long key : keys){
+            if(key != FREE_KEY){
+                consumer.accept(key);
+            }
+        }
+    }
+    /**
+     * Create a new array of all the values in this set
+     * in no particular order.
+     * @return a new array; will never be null but may be empty.
+     */
+    public long[] toArray(){
+        long[] result = new long[size()];
+        int offset = 0;
+        if(hasZeroKey){
+            result[offset++] = FREE_KEY;
+        }
+        for(long key : keys){
+            if(key != FREE_KEY){
+                result[offset++] = key;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LongHashSet)){
+            return false;
+        }
+        LongHashSet other = (LongHashSet) o;
+        if(size() != other.size() || hasZeroKey != other.hasZeroKey){
+            return false;
+        }
+        for(long key : keys){
+            if(key != FREE_KEY && other.slotOf(key) <0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for(long key : keys){
+            result += Long.hashCode(key);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        forEach(value -> {
+            if(builder.length() >1){
+                builder.append(", ");
+            }
+            builder.append(value);
+        });
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package gov.nih.ncats.common.util;
+
+import gov.nih.ncats.common.functions.ThrowingLongIntConsumer;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A hash map of primitive {@code long} keys
+ * to primitive {@code int} values that never boxes.
+ * Entries are stored in parallel key and value arrays
+ * using open addressing with linear probing; removals
+ * shift later entries back so there are no tombstones.
+ * This class is not Thread-safe.
+ *
+ * @since 0.3.7
+ */
+public final class LongIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    /**
+     * The key used to mark an empty slot.
+     * The entry for the actual key 0 is stored separately.
+     */
+    private static final long FREE_KEY = 0;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    /**
+     * The number of entries in the arrays
+     * (not counting the zero key).
+     */
+    private int assigned;
+    private int resizeAt;
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    /**
+     * Creates a new empty map with a default expected size.
+     */
+    public LongIntHashMap(){
+        this(16);
+    }
+    /**
+     * Creates a new empty map big enough to hold the given number
+     * of entries without having to grow.
+     * @param expectedNumberOfEntries the expected number of entries.
+     * @throws IllegalArgumentException if expectedNumberOfEntries is &lt; 0.
+     */
+    public LongIntHashMap(int expectedNumberOfEntries){
+        allocate(tableSizeFor(MapUtil.computeMinHashMapSizeWithoutRehashing(expectedNumberOfEntries, LOAD_FACTOR)));
+    }
+
+    private static int tableSizeFor(int minSize){
+        int size = Integer.highestOneBit(Math.max(2, minSize -1)) << 1;
+        if(size <=0){
+            throw new IllegalArgumentException("too many entries: " + minSize);
+        }
+        return size;
+    }
+
+    private void allocate(int tableSize){
+        keys = new long[tableSize];
+        values = new int[tableSize];
+        mask = tableSize -1;
+        resizeAt = Math.min(tableSize -1, (int) Math.ceil(tableSize * LOAD_FACTOR));
+    }
+
+    private static int hash(long key){
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    /**
+     * Find the slot containing the given non-zero key.
+     * @return the slot or -1 if the key is not in the table.
+     */
+    private int slotOf(long key){
+        for(int slot = hash(key) & mask; ; slot = (slot +1) & mask){
+            long existing = keys[slot];
+            if(existing == key){
+                return slot;
+            }
+            if(existing == FREE_KEY){
+                return -1;
+            }
+        }
+    }
+
+    public int size(){
+        return assigned + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty(){
+        return size() ==0;
+    }
+
+    public boolean containsKey(long key){
+        if(key == FREE_KEY){
+            return hasZeroKey;
+        }
+        return slotOf(key) >=0;
+    }
+    /**
+     * Get the value mapped to the given key.
+     * @param key the key to look up.
+     * @param defaultValue the value to return if the key is not in this map.
+     * @return the mapped value or {@code defaultValue}.
+     */
+    public int getOrDefault(long key, int defaultValue){
+        if(key == FREE_KEY){
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = slotOf(key);
+        return slot <0 ? defaultValue : values[slot];
+    }
+    /**
+     * Map the given key to the given value,
+     * replacing any previous value for that key.
+     * @param key the key.
+     * @param value the value.
+     * @return {@code true} if this key was not previously in the map;
+     * {@code false} if an existing value was replaced.
+     */
+    public boolean put(long key, int value){
+        if(key == FREE_KEY){
+            boolean added = !hasZeroKey;
+            hasZeroKey = true;
+            zeroValue = value;
+            return added;
+        }
+        for(int slot = hash(key) & mask; ; slot = (slot +1) & mask){
+            long existing = keys[slot];
+            if(existing == key){
+                values[slot] = value;
+                return false;
+            }
+            if(existing == FREE_KEY){
+                keys[slot] = key;
+                values[slot] = value;
+                if(++assigned >= resizeAt){
+                    rehash(keys.length << 1);
+                }
+                return true;
+            }
+        }
+    }
+    /**
+     * Add the given amount to the value mapped to the given key,
+     * treating a missing key as mapped to 0.  This is useful for counting.
+     * @param key the key.
+     * @param amount the amount to add.
+     * @return the new value mapped to the key.
+     */
+    public int addTo(long key, int amount){
+        if(key == FREE_KEY){
+            zeroValue = hasZeroKey ? zeroValue + amount : amount;
+            hasZeroKey = true;
+            return zeroValue;
+        }
+        for(int slot = hash(key) & mask; ; slot = (slot +1) & mask){
+            long existing = keys[slot];
+            if(existing == key){
+                return values[slot] += amount;
+            }
+            if(existing == FREE_KEY){
+                keys[slot] = key;
+                values[slot] = amount;
+                if(++assigned >= resizeAt){
+                    rehash(keys.length << 1);
+                }
+                return amount;
+            }
+        }
+    }
+    /**
+     * Remove the given key from this map.
+     * @param key the key to remove.
+     * @return {@code true} if the key was in this map; {@code false} otherwise.
+     */
+    public boolean remove(long key){
+        if(key == FREE_KEY){
+            boolean removed = hasZeroKey;
+            hasZeroKey = false;
+            zeroValue = 0;
+            return removed;
+        }
+        int slot = slotOf(key);
+        if(slot <0){
+            return false;
+        }
+        shiftBack(slot);
+        assigned--;
+        return true;
+    }
+    /**
+     * Fill the now empty slot by shifting back any later
+     * entry in the same probe run that would no longer be
+     * reachable from its home slot.
+     */
+    private void shiftBack(int gap){
+        for(int slot = (gap +1) & mask; ; slot = (slot +1) & mask){
+            long key = keys[slot];
+            if(key == FREE_KEY){
+                break;
+            }
+            int home = hash(key) & mask;
+            //can this entry move back to the gap?
+            //only if its home slot is not cyclically between the gap and its current slot
+            if(((slot - home) & mask) >= ((slot - gap) & mask)){
+                keys[gap] = key;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = FREE_KEY;
+        values[gap] = 0;
+    }
+
+    private void rehash(int newTableSize){
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newTableSize);
+        for(int i=0; i< oldKeys.length; i++){
+            long key = oldKeys[i];
+            if(key != FREE_KEY){
+                int slot = hash(key) & mask;
+                while(keys[slot] != FREE_KEY){
+                    slot = (slot +1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    /**
+     * Remove all entries from this map
+     * keeping the current capacity.
+     */
+    public void clear(){
+        Arrays.fill(keys, FREE_KEY);
+        Arrays.fill(values, 0);
+        assigned = 0;
+        hasZeroKey = false;
+        zeroValue = 0;
+    }
+    /**
+     * Call the given consumer for each entry in this map
+     * in no particular order.
+     * @param consumer the consumer of each key and value; can not be null.
+     * @param <E> the Throwable that might be thrown by the consumer.
+     * @throws E the Throwable from the consumer.
+     * @throws NullPointerException if consumer is null.
+     */
+    public <E extends Throwable> void forEach(ThrowingLongIntConsumer<E> consumer) throws E{
+        Objects.requireNonNull(consumer);
+        if(hasZeroKey){
+            consumer.accept(FREE_KEY, zeroValue);
+        }
+        for(int i=0; i< keys.length; i++){
+            if(keys[i] != FREE_KEY){
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+    /**
+     * Create a new array of all the keys in this map
+     * in no particular order.
+     * @return a new array; will never be null but may be empty.
+     */
+    public long[] keys(){
+        long[] result = new long[size()];
+        int offset = 0;
+        if(hasZeroKey){
+            result[offset++] = FREE_KEY;
+        }
+        for(long key : keys){
+            if(key != FREE_KEY){
+                result[offset++] = key;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LongIntHashMap)){
+            return false;
+        }
+        LongIntHashMap other = (LongIntHashMap) o;
+        if(size() != other.size() || hasZeroKey != other.hasZeroKey
+                || (hasZeroKey && zeroValue != other.zeroValue)){
+            return false;
+        }
+        for(int i=0; i< keys.length; i++){
+            long key = keys[i];
+            if(key != FREE_KEY){
+                int slot = other.slotOf(key);
+                if(slot <0 || other.values[slot] != values[i]){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hasZeroKey ? zeroValue : 0;
+        for(int i=0; i< keys.length; i++){
+            if(keys[i] != FREE_KEY){
+                result += Long.hashCode(keys[i]) ^ values[i];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) -> {
+            if(builder.length() >1){
+                builder.append(", ");
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+}
@@ -21,10 +21,15 @@ package gov.nih.ncats.common.util;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class LruDelayedComputationList<T> extends DelayedComputationList<T> {
     private Map<CachedSupplier<T>, Boolean> lruCache;
     private Map<CachedSupplier<T>, CachedSupplier.SupplierInvocationListener> listeners = new HashMap<>();
+    //suppliers can be computed on other threads by read-ahead or prefetch
+    //so the listeners just queue them up and the lru map is only touched by the reading thread
+    private final Queue<CachedSupplier<T>> computed = new ConcurrentLinkedQueue<>();
 
 
     public LruDelayedComputationList(int initialSize, int cacheSize) {
@@ -37,6 +42,29 @@ public class LruDelayedComputationList<T> extends DelayedComputationList<T> {
     }
 
 
+    @Override
+    public T get(int index) {
+        T value = super.get(index);
+        updateLru();
+        return value;
+    }
+
+    @Override
+    public void prefetch(Range range) {
+        super.prefetch(range);
+        updateLru();
+    }
+
+    private void updateLru(){
+        CachedSupplier<T> next;
+        while((next = computed.poll()) !=null){
+            //might have been removed while it was waiting in the queue
+            if(listeners.containsKey(next)) {
+                lruCache.put(next, Boolean.TRUE);
+            }
+        }
+    }
+
     @Override
     protected void removed(CachedSupplier<T> cachedSupplier) {
         this.lruCache.remove(cachedSupplier);
@@ -48,7 +76,7 @@ public class LruDelayedComputationList<T> extends DelayedComputationList<T> {
 
     @Override
     protected void added(CachedSupplier<T> cachedSupplier) {
-        CachedSupplier.SupplierInvocationListener listener = ()-> lruCache.put(cachedSupplier, Boolean.TRUE);
+        CachedSupplier.SupplierInvocationListener listener = ()-> computed.add(cachedSupplier);
        cachedSupplier.addListener(listener);
        listeners.put(cachedSupplier, listener);
     }
@@ -0,0 +1,322 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A {@link DelayedComputationList} that limits the total estimated size
+ * of its computed elements instead of the number of computed elements like
+ * {@link LruDelayedComputationList} does.  Each computed value is weighed
+ * by a user supplied function and the least recently used elements are reset
+ * until the total weight fits in the budget.  The most recently used element
+ * is always kept even if it alone is bigger than the budget.
+ * <p>
+ * Optionally, computed values can also be held by {@link SoftReference}s so the garbage collector
+ * can reclaim them under memory pressure before the budget is reached;
+ * an element whose value was reclaimed is recomputed the next time it is needed.
+ * Values that are {@code null} are never cached when using soft references, and the
+ * weight of a reclaimed value stops counting against the budget the next time
+ * the list is used after the garbage collector enqueues its reference.
+ *
+ * @param <T> the type of element in the list.
+ */
+public class MemoryBudgetedDelayedComputationList<T> extends DelayedComputationList<T> {
+
+    private final long maxBytes;
+    /**
+     * The weight of a supplier whose value has been dropped.
+     */
+    private static final long DROPPED = Long.MIN_VALUE;
+
+    private final ToLongFunction<? super T> weigher;
+    private final boolean softReferences;
+
+    //access ordered so iteration starts at the least recently used
+    private final LinkedHashMap<BudgetedCachedSupplier, Long> computedWeights = new LinkedHashMap<>(16, 0.75F, true);
+    //suppliers can be computed or dropped on other threads by read-ahead, prefetch or the GC
+    //so they queue themselves up and the weights are only updated by the reading thread
+    private final Queue<BudgetedCachedSupplier> computed = new ConcurrentLinkedQueue<>();
+    private long totalBytes;
+    //soft references to values the garbage collector has reclaimed
+    private final ReferenceQueue<T> reclaimedValues = new ReferenceQueue<>();
+    //CachedSupplier.resetAllCaches() doesn't notify each supplier
+    //so notice when the version changes
+    private long generatedVersion = CachedSupplier.getGeneratedVersion();
+
+    /**
+     * Create a new list.
+     * @param initialSize the initial size of the list.
+     * @param maxBytes the max total estimated number of bytes of computed values to keep.
+     * @param weigher function to estimate the number of bytes of a computed value; can not be null.
+     * @throws NullPointerException if weigher is null.
+     * @throws IllegalArgumentException if maxBytes is negative.
+     */
+    public MemoryBudgetedDelayedComputationList(int initialSize, long maxBytes, ToLongFunction<? super T> weigher) {
+        this(initialSize, maxBytes, weigher, false);
+    }
+
+    /**
+     * Create a new list.
+     * @param initialSize the initial size of the list.
+     * @param maxBytes the max total estimated number of bytes of computed values to keep.
+     * @param weigher function to estimate the number of bytes of a computed value; can not be null.
+     * @param softReferences if {@code true} then computed values are only softly referenced
+     *                       and may be given up when the garbage collector needs the memory.
+     * @throws NullPointerException if weigher is null.
+     * @throws IllegalArgumentException if maxBytes is negative.
+     */
+    public MemoryBudgetedDelayedComputationList(int initialSize, long maxBytes, ToLongFunction<? super T> weigher, boolean softReferences) {
+        super(initialSize);
+        if(maxBytes <0){
+            throw new IllegalArgumentException("max bytes can not be negative");
+        }
+        this.maxBytes = maxBytes;
+        this.weigher = Objects.requireNonNull(weigher);
+        this.softReferences = softReferences;
+    }
+
+    /**
+     * Get the total estimated size of the values currently
+     * tracked as computed.
+     * @return the number of bytes.
+     */
+    public long getTotalBytes(){
+        updateWeights();
+        return totalBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    protected CachedSupplier<T> newCachedSupplier(Supplier<T> supplier) {
+        return new BudgetedCachedSupplier(supplier);
+    }
+
+    @Override
+    public T get(int index) {
+        T value = super.get(index);
+        updateWeights();
+        CachedSupplier<T> cachedSupplier = getAsCachedSupplier(index);
+        //mark as most recently used
+        computedWeights.get(cachedSupplier);
+        enforceBudget();
+        return value;
+    }
+
+    /**
+     * Reset every element and forget all their weights.
+     */
+    @Override
+    public void resetCache() {
+        super.resetCache();
+        computed.clear();
+        computedWeights.clear();
+        totalBytes = 0;
+    }
+
+    @Override
+    public void prefetch(Range range) {
+        super.prefetch(range);
+        updateWeights();
+        enforceBudget();
+    }
+
+    @Override
+    protected void removed(CachedSupplier<T> cachedSupplier) {
+        if(cachedSupplier instanceof MemoryBudgetedDelayedComputationList.BudgetedCachedSupplier){
+            BudgetedCachedSupplier budgeted = (BudgetedCachedSupplier) cachedSupplier;
+            budgeted.attached=false;
+            Long weight = computedWeights.remove(budgeted);
+            if(weight !=null){
+                totalBytes -= weight;
+            }
+        }
+    }
+
+    private void updateWeights(){
+        Reference<? extends T> reclaimed;
+        while((reclaimed = reclaimedValues.poll()) !=null){
+            @SuppressWarnings("unchecked")
+            ValueReference ref = (ValueReference) reclaimed;
+            ref.supplier.clearSoftValue(ref);
+        }
+        long version = CachedSupplier.getGeneratedVersion();
+        if(version != generatedVersion){
+            generatedVersion = version;
+            Iterator<Map.Entry<BudgetedCachedSupplier, Long>> iter = computedWeights.entrySet().iterator();
+            while(iter.hasNext()){
+                Map.Entry<BudgetedCachedSupplier, Long> entry = iter.next();
+                if(!entry.getKey().hasRun()){
+                    iter.remove();
+                    totalBytes -= entry.getValue();
+                }
+            }
+        }
+        BudgetedCachedSupplier next;
+        while((next = computed.poll()) !=null){
+            //might have been removed while it was waiting in the queue
+            if(!next.attached){
+                continue;
+            }
+            //only the latest weight matters even if the supplier was queued several times
+            long weight = next.weight;
+            Long oldWeight = weight == DROPPED ? computedWeights.remove(next) : computedWeights.put(next, weight);
+            if(oldWeight !=null){
+                totalBytes -= oldWeight;
+            }
+            if(weight != DROPPED){
+                totalBytes += weight;
+            }
+        }
+    }
+
+    private void enforceBudget(){
+        Iterator<Map.Entry<BudgetedCachedSupplier, Long>> iter = computedWeights.entrySet().iterator();
+        //always keep at least the most recently used
+        while(totalBytes > maxBytes && computedWeights.size() >1 && iter.hasNext()){
+            Map.Entry<BudgetedCachedSupplier, Long> eldest = iter.next();
+            iter.remove();
+            totalBytes -= eldest.getValue();
+            eldest.getKey().resetCache();
+        }
+    }
+
+    private final class BudgetedCachedSupplier extends CachedSupplier<T>{
+        private volatile boolean attached=true;
+        //written while holding this lock before being added to the queue
+        private volatile long weight;
+
+        private volatile ValueReference softValue;
+        //the CachedSupplier version softValue was computed with
+        //since the soft path never sets the version in the parent class
+        private volatile long softVersion;
+
+        BudgetedCachedSupplier(Supplier<T> c) {
+            super(c);
+        }
+
+        @Override
+        protected T directCall() {
+            T value = super.directCall();
+            weight = weigher.applyAsLong(value);
+            computed.add(this);
+            return value;
+        }
+
+        @Override
+        public T get() {
+            if(!softReferences){
+                return super.get();
+            }
+            T value = getSoftValue();
+            if(value !=null){
+                return value;
+            }
+            synchronized (this){
+                value = getSoftValue();
+                if(value ==null){
+                    long version = CachedSupplier.getGeneratedVersion();
+                    value = directCall();
+                    softVersion = version;
+                    softValue = new ValueReference(value, this);
+                }
+                return value;
+            }
+        }
+
+        @Override
+        protected boolean cacheHasBeenReset() {
+            if(softReferences){
+                return softValue !=null && softVersion != CachedSupplier.getGeneratedVersion();
+            }
+            return super.cacheHasBeenReset();
+        }
+
+        private T getSoftValue(){
+            ValueReference ref = softValue;
+            if(ref ==null){
+                return null;
+            }
+            T value = ref.get();
+            //reclaimed by the garbage collector or reset by resetAllCaches()
+            if(value ==null || softVersion != CachedSupplier.getGeneratedVersion()){
+                clearSoftValue(ref);
+                return null;
+            }
+            return value;
+        }
+        /**
+         * Forget the given soft value, and stop counting its weight,
+         * unless it has already been replaced.
+         */
+        private synchronized void clearSoftValue(ValueReference ref){
+            if(softValue == ref){
+                softValue = null;
+                dropped();
+            }
+        }
+
+        private void dropped(){
+            weight = DROPPED;
+            computed.add(this);
+        }
+
+        @Override
+        public boolean hasRun() {
+            if(softReferences){
+                return getSoftValue() !=null;
+            }
+            return super.hasRun();
+        }
+
+        @Override
+        public synchronized void resetCache() {
+            softValue = null;
+            super.resetCache();
+            dropped();
+        }
+    }
+
+    /**
+     * A soft reference to a computed value which remembers
+     * its supplier so the weight can be dropped once it is enqueued.
+     */
+    private final class ValueReference extends SoftReference<T>{
+        private final BudgetedCachedSupplier supplier;
+
+        ValueReference(T value, BudgetedCachedSupplier supplier){
+            super(value, reclaimedValues);
+            this.supplier = supplier;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Fixed size chunks of memory outside of the java heap,
+ * either direct {@link ByteBuffer}s or regions of a memory-mapped file,
+ * used as the storage for the off-heap growable arrays.
+ * Growing only ever adds more chunks, nothing already
+ * stored is copied.
+ */
+final class OffHeapChunks implements Closeable {
+    /**
+     * The default number of elements in each chunk, {@value}.
+     */
+    static final int DEFAULT_ELEMENTS_PER_CHUNK = 1 << 20;
+
+    private final int bytesPerElementShift;
+    private final int elementsPerChunkShift;
+    private final long elementsPerChunkMask;
+    private final FileChannel channel;
+
+    private ByteBuffer[] chunks = new ByteBuffer[4];
+    private int numberOfChunks;
+
+    private OffHeapChunks(int bytesPerElement, int elementsPerChunk, FileChannel channel){
+        if(elementsPerChunk <=0 || Integer.bitCount(elementsPerChunk) !=1){
+            throw new IllegalArgumentException("elements per chunk must be a positive power of 2: " + elementsPerChunk);
+        }
+        if((long) elementsPerChunk * bytesPerElement > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("chunks can not be larger than 2GB");
+        }
+        this.bytesPerElementShift = Integer.numberOfTrailingZeros(bytesPerElement);
+        this.elementsPerChunkShift = Integer.numberOfTrailingZeros(elementsPerChunk);
+        this.elementsPerChunkMask = elementsPerChunk -1L;
+        this.channel = channel;
+    }
+
+    static OffHeapChunks direct(int bytesPerElement, int elementsPerChunk){
+        return new OffHeapChunks(bytesPerElement, elementsPerChunk, null);
+    }
+
+    /**
+     * Create chunks that are mapped regions of the given file.
+     * The file is created if it doesn't exist and truncated if it does.
+     * <p>
+     * The file is only scratch space for values that don't fit in memory:
+     * values are written in native byte order and neither the length
+     * nor the byte order is stored, so the file can not be reopened
+     * as an array later.  Use the Growable arrays' {@code writeTo()}
+     * and {@code mapFrom()} for a file format that can be read back.
+     */
+    static OffHeapChunks memoryMapped(Path file, int bytesPerElement, int elementsPerChunk) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new OffHeapChunks(bytesPerElement, elementsPerChunk, channel);
+        }catch(RuntimeException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    int elementsPerChunk(){
+        return 1 << elementsPerChunkShift;
+    }
+
+    long capacity(){
+        return (long) numberOfChunks << elementsPerChunkShift;
+    }
+
+    ByteBuffer chunkFor(long index){
+        return chunks[(int) (index >>> elementsPerChunkShift)];
+    }
+
+    int byteOffsetFor(long index){
+        return (int) (index & elementsPerChunkMask) << bytesPerElementShift;
+    }
+
+    void ensureCapacity(long minCapacity){
+        while(capacity() < minCapacity){
+            addChunk();
+        }
+    }
+
+    private void addChunk(){
+        int chunkBytes = 1 << (elementsPerChunkShift + bytesPerElementShift);
+        ByteBuffer chunk;
+        if(channel ==null){
+            chunk = ByteBuffer.allocateDirect(chunkBytes);
+        }else{
+            try {
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE, (long) numberOfChunks * chunkBytes, chunkBytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        chunk.order(ByteOrder.nativeOrder());
+        if(numberOfChunks == chunks.length){
+            //only the chunk references are copied
+            chunks = Arrays.copyOf(chunks, chunks.length *2);
+        }
+        chunks[numberOfChunks++] = chunk;
+    }
+
+    /**
+     * Drop all the chunks; mapped chunks are only
+     * unmapped once they are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        Arrays.fill(chunks, null);
+        numberOfChunks=0;
+        if(channel !=null){
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * An off-heap version of {@link GrowableIntArray}
+ * whose values are stored in fixed size chunks of
+ * direct memory or a memory-mapped file instead of a single
+ * {@code int[]} on the java heap.  Offsets are {@code long}s so
+ * this array can hold more than {@link Integer#MAX_VALUE} values,
+ * and growing the array only adds a new chunk; existing values are never copied.
+ * <p>
+ * Call {@link #close()} when done to release the file handle of a memory-mapped array.
+ * This class is not Thread-safe.
+ */
+public final class OffHeapIntArray implements Closeable {
+
+    private static final int BYTES_PER_ELEMENT = Integer.BYTES;
+
+    private final OffHeapChunks chunks;
+    private long currentLength=0;
+
+    /**
+     * Creates a new {@link OffHeapIntArray} backed by direct memory
+     * using the default chunk size of {@value OffHeapChunks#DEFAULT_ELEMENTS_PER_CHUNK} values.
+     */
+    public OffHeapIntArray(){
+        this(OffHeapChunks.DEFAULT_ELEMENTS_PER_CHUNK);
+    }
+
+    /**
+     * Creates a new {@link OffHeapIntArray} backed by direct memory.
+     * @param elementsPerChunk the number of values in each chunk; must be a power of 2.
+     * @throws IllegalArgumentException if elementsPerChunk is not a positive power of 2.
+     */
+    public OffHeapIntArray(int elementsPerChunk){
+        this(OffHeapChunks.direct(BYTES_PER_ELEMENT, elementsPerChunk));
+    }
+
+    private OffHeapIntArray(OffHeapChunks chunks){
+        this.chunks = chunks;
+    }
+
+    /**
+     * Creates a new {@link OffHeapIntArray} backed by the given memory-mapped file
+     * using the default chunk size of {@value OffHeapChunks#DEFAULT_ELEMENTS_PER_CHUNK} values.
+     * The file will be created if it doesn't exist and truncated if it does.
+     * @param file the file to map; can not be null.
+     * @return a new OffHeapIntArray.
+     * @throws IOException if there is a problem opening the file.
+     */
+    public static OffHeapIntArray memoryMapped(Path file) throws IOException {
+        return memoryMapped(file, OffHeapChunks.DEFAULT_ELEMENTS_PER_CHUNK);
+    }
+
+    /**
+     * Creates a new {@link OffHeapIntArray} backed by the given memory-mapped file.
+     * The file will be created if it doesn't exist and truncated if it does.
+     * The file always grows by whole chunks so it may be larger than the data written.
+     * The file is only scratch space; the length and byte order are not
+     * stored so it can not be reopened as an array once this array is closed.
+     * @param file the file to map; can not be null.
+     * @param elementsPerChunk the number of values in each chunk; must be a power of 2.
+     * @return a new OffHeapIntArray.
+     * @throws IOException if there is a problem opening the file.
+     */
+    public static OffHeapIntArray memoryMapped(Path file, int elementsPerChunk) throws IOException {
+        return new OffHeapIntArray(OffHeapChunks.memoryMapped(file, BYTES_PER_ELEMENT, elementsPerChunk));
+    }
+
+    private void assertValidOffset(long offset) {
+        if (offset <0 || offset >= currentLength){
+            throw new IndexOutOfBoundsException(
+                    "Index: "+offset+", Size: "+currentLength);
+        }
+    }
+
+    private void assertValidInsertOffset(long offset) {
+        //inserts allow offset to be length
+        if(offset !=currentLength){
+            assertValidOffset(offset);
+        }
+    }
+
+    public long getCurrentLength() {
+        return currentLength;
+    }
+
+    /**
+     * Get the current capacity of all the chunks.
+     * @return the current capacity; will always be &ge; 0.
+     */
+    public long getCurrentCapacity(){
+        return chunks.capacity();
+    }
+
+    private int unsafeGet(long offset){
+        return chunks.chunkFor(offset).getInt(chunks.byteOffsetFor(offset));
+    }
+
+    private void unsafeSet(long offset, int value){
+        chunks.chunkFor(offset).putInt(chunks.byteOffsetFor(offset), value);
+    }
+
+    public int get(long offset){
+        assertValidOffset(offset);
+        return unsafeGet(offset);
+    }
+
+    public void replace(long offset, int value){
+        assertValidOffset(offset);
+        unsafeSet(offset, value);
+    }
+
+    public void append(int value){
+        chunks.ensureCapacity(currentLength+1);
+        unsafeSet(currentLength++, value);
+    }
+
+    public void append(int[] values){
+        chunks.ensureCapacity(currentLength+values.length);
+        for(int value : values){
+            unsafeSet(currentLength++, value);
+        }
+    }
+
+    public void append(GrowableIntArray other){
+        chunks.ensureCapacity(currentLength+other.getCurrentLength());
+        other.forEachIndexed((i, value) -> unsafeSet(currentLength++, value));
+    }
+
+    public void insert(long offset, int value){
+        assertValidInsertOffset(offset);
+        chunks.ensureCapacity(currentLength+1);
+        for(long i = currentLength; i > offset; i--){
+            unsafeSet(i, unsafeGet(i-1));
+        }
+        unsafeSet(offset, value);
+        currentLength++;
+    }
+
+    public int remove(long offset){
+        assertValidOffset(offset);
+        int oldValue = unsafeGet(offset);
+        for(long i = offset+1; i < currentLength; i++){
+            unsafeSet(i-1, unsafeGet(i));
+        }
+        currentLength--;
+        return oldValue;
+    }
+
+    /**
+     * Set the current length to 0.
+     * The chunks are kept to be reused.
+     */
+    public void clear(){
+        currentLength=0;
+    }
+
+    /**
+     * Searches the current values in this array
+     * using the binary search algorithm.  The array must be sorted
+     * prior to making this call.  If it is not sorted, the results are undefined.
+     *
+     * @param key the value to be searched for.
+     * @return index of the search key, if it is contained in the array;
+     *	       otherwise, <tt>(-(<i>insertion point</i>) - 1)</tt>.
+     * @see GrowableIntArray#binarySearch(int)
+     */
+    public long binarySearch(int key){
+        long low = 0;
+        long high = currentLength - 1;
+
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int midVal = unsafeGet(mid);
+
+            if (midVal < key) {
+                low = mid + 1;
+            } else if (midVal > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Insert the given value into the
+     * sorted backing array.
+     * Calling this method on an unsorted
+     * backing array may not insert the value
+     * correctly.
+     * @param value the value to insert.
+     * @return the index that this value
+     * was inserted into.
+     */
+    public long sortedInsert(int value){
+        long index = binarySearch(value);
+        if(index <0){
+            //not found
+            //value returned is (-insertion point) -1)
+            index = -index -1;
+        }
+        insert(index, value);
+        return index;
+    }
+
+    /**
+     * Insert the given sorted array of values into the
+     * sorted backing array.  The values are merged in place
+     * starting from the end so nothing is shifted more than once.
+     *
+     * Calling this method on an unsorted
+     * backing array may not insert the value
+     * correctly.
+     * @param values the sorted values to insert.
+     */
+    public void sortedInsert(int[] values){
+        if(values.length ==0){
+            return;
+        }
+        chunks.ensureCapacity(currentLength + values.length);
+        long ourIndex = currentLength -1;
+        int otherIndex = values.length -1;
+        long writeIndex = currentLength + values.length -1;
+        while(otherIndex >=0){
+            if(ourIndex >=0 && unsafeGet(ourIndex) > values[otherIndex]){
+                unsafeSet(writeIndex--, unsafeGet(ourIndex--));
+            }else{
+                unsafeSet(writeIndex--, values[otherIndex--]);
+            }
+        }
+        currentLength += values.length;
+    }
+
+    /**
+     * Remove the given value from this
+     * sorted array.
+     * @param value the value to remove
+     * @return {@code true} if the value
+     * was found and removed; {@code false}
+     * if the value does not exist in the
+     * sorted backing array.
+     */
+    public boolean sortedRemove(int value){
+        long index = binarySearch(value);
+        if (index >= 0) {
+            remove(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Create a sequential {@link IntStream}
+     * of the current array.
+     * @return a new {@link IntStream}
+     * will never be null but may be empty.
+     */
+    public IntStream stream() {
+        return LongStream.range(0, currentLength).mapToInt(this::unsafeGet);
+    }
+
+    /**
+     * Copy the current values into a new heap array.
+     * @return a new int array.
+     * @throws IllegalStateException if there are too many values to fit in a java array.
+     */
+    public int[] toArray(){
+        if(currentLength > Integer.MAX_VALUE - 8){
+            throw new IllegalStateException("too many values to fit in an array: " + currentLength);
+        }
+        int[] array = new int[(int) currentLength];
+        for(int i=0; i< array.length; i++){
+            array[i] = unsafeGet(i);
+        }
+        return array;
+    }
+
+    @Override
+    public void close() throws IOException {
+        currentLength=0;
+        chunks.close();
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapIntArray{length=" + currentLength + ", first values=" +
+                Arrays.toString(stream().limit(10).toArray()) + "}";
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package gov.nih.ncats.common.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Radix sort kernels used by the {@code Growable} primitive arrays.
+ * {@code int}s and {@code long}s are sorted with a least significant digit
+ * radix sort over 8 bit digits, skipping any digit every value shares;
+ * the parallel versions first partition the values by their most significant
+ * digit across the common fork-join pool and then sort each bucket on its own.
+ * {@code short}s only have 2^16 possible values so they are counting sorted.
+ * Signed values are ordered by flipping their sign bit.
+ *
+ * @since 0.3.7
+ */
+final class RadixSort {
+
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+    /**
+     * Shorter arrays (and buckets) are sorted with {@link Arrays#sort(int[], int, int)}
+     * since the histograms cost more than they save.
+     */
+    private static final int MIN_RADIX_SORT_LENGTH = 1 << 8;
+    /**
+     * Shorter arrays are sorted sequentially by the parallel versions.
+     */
+    private static final int MIN_PARALLEL_LENGTH = 1 << 16;
+    private static final int NUMBER_OF_SHORT_VALUES = 1 << Short.SIZE;
+
+    private RadixSort(){
+        //can not instantiate
+    }
+
+    private static int digit(int value, int shift){
+        return ((value ^ Integer.MIN_VALUE) >>> shift) & DIGIT_MASK;
+    }
+
+    private static int digit(long value, int shift){
+        return (int) ((value ^ Long.MIN_VALUE) >>> shift) & DIGIT_MASK;
+    }
+
+    private static int numberOfChunks(int length){
+        return Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, length / MIN_PARALLEL_LENGTH));
+    }
+
+    /**
+     * Turn the per chunk histograms of the top digit into the offset
+     * each chunk should write its first value of each bucket to.
+     * @return the start offset of each bucket followed by the length.
+     */
+    private static int[] toChunkOffsets(int[][] counts, int length){
+        int[] bucketStarts = new int[RADIX +1];
+        int sum = 0;
+        for(int b=0; b< RADIX; b++){
+            bucketStarts[b] = sum;
+            for(int[] chunkCounts : counts){
+                int count = chunkCounts[b];
+                chunkCounts[b] = sum;
+                sum += count;
+            }
+        }
+        bucketStarts[RADIX] = length;
+        return bucketStarts;
+    }
+
+    static void sort(int[] a, int length){
+        if(length < MIN_RADIX_SORT_LENGTH){
+            Arrays.sort(a, 0, length);
+            return;
+        }
+        int[] buffer = new int[length];
+        if(lsd(a, buffer, 0, length, Integer.BYTES)){
+            System.arraycopy(buffer, 0, a, 0, length);
+        }
+    }
+    /**
+     * Sort {@code a[from, to)} by the given number of low digits
+     * using {@code buffer[from, to)} as scratch space.
+     * @return {@code true} if the sorted values ended up in the buffer.
+     */
+    private static boolean lsd(int[] a, int[] buffer, int from, int to, int numberOfDigits){
+        int[][] counts = new int[numberOfDigits][RADIX];
+        for(int i=from; i< to; i++){
+            int value = a[i];
+            for(int d=0; d< numberOfDigits; d++){
+                counts[d][digit(value, d * RADIX_BITS)]++;
+            }
+        }
+        int[] src = a;
+        int[] dest = buffer;
+        boolean swapped = false;
+        for(int d=0; d< numberOfDigits; d++){
+            int shift = d * RADIX_BITS;
+            int[] offsets = counts[d];
+            if(offsets[digit(src[from], shift)] == to - from){
+                //every value has the same digit
+                continue;
+            }
+            int sum = from;
+            for(int b=0; b< RADIX; b++){
+                int count = offsets[b];
+                offsets[b] = sum;
+                sum += count;
+            }
+            for(int i=from; i< to; i++){
+                int value = src[i];
+                dest[offsets[digit(value, shift)]++] = value;
+            }
+            int[] temp = src;
+            src = dest;
+            dest = temp;
+            swapped = !swapped;
+        }
+        return swapped;
+    }
+
+    static void parallelSort(int[] a, int length){
+        if(length < MIN_PARALLEL_LENGTH){
+            sort(a, length);
+            return;
+        }
+        int[] buffer = new int[length];
+        int topShift = Integer.SIZE - RADIX_BITS;
+        int chunks = numberOfChunks(length);
+        int chunkSize = (length + chunks -1) / chunks;
+        int[][] counts = new int[chunks][RADIX];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] chunkCounts = counts[c];
+            for(int i= c * chunkSize, end = Math.min(length, i + chunkSize); i< end; i++){
+                chunkCounts[digit(a[i], topShift)]++;
+            }
+        });
+        int[] bucketStarts = toChunkOffsets(counts, length);
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] offsets = counts[c];
+            for(int i= c * chunkSize, end = Math.min(length, i + chunkSize); i< end; i++){
+                int value = a[i];
+                buffer[offsets[digit(value, topShift)]++] = value;
+            }
+        });
+        IntStream.range(0, RADIX).parallel().forEach(b -> {
+            int from = bucketStarts[b];
+            int to = bucketStarts[b +1];
+            if(to - from < MIN_RADIX_SORT_LENGTH){
+                Arrays.sort(buffer, from, to);
+            }else if(lsd(buffer, a, from, to, Integer.BYTES -1)){
+                return;
+            }
+            System.arraycopy(buffer, from, a, from, to - from);
+        });
+    }
+
+    static int[] argsort(int[] a, int length){
+        int[] keys = Arrays.copyOf(a, length);
+        int[] keyBuffer = new int[length];
+        int[] indexes = new int[length];
+        for(int i=0; i< length; i++){
+            indexes[i] = i;
+        }
+        int[] indexBuffer = new int[length];
+        int[][] counts = new int[Integer.BYTES][RADIX];
+        for(int i=0; i< length; i++){
+            int value = keys[i];
+            for(int d=0; d< Integer.BYTES; d++){
+                counts[d][digit(value, d * RADIX_BITS)]++;
+            }
+        }
+        for(int d=0; d< Integer.BYTES && length >0; d++){
+            int shift = d * RADIX_BITS;
+            int[] offsets = counts[d];
+            if(offsets[digit(keys[0], shift)] == length){
+                continue;
+            }
+            toOffsets(offsets);
+            for(int i=0; i< length; i++){
+                int value = keys[i];
+                int offset = offsets[digit(value, shift)]++;
+                keyBuffer[offset] = value;
+                indexBuffer[offset] = indexes[i];
+            }
+            int[] temp = keys;
+            keys = keyBuffer;
+            keyBuffer = temp;
+            temp = indexes;
+            indexes = indexBuffer;
+            indexBuffer = temp;
+        }
+        return indexes;
+    }
+
+    private static void toOffsets(int[] counts){
+        int sum = 0;
+        for(int b=0; b< counts.length; b++){
+            int count = counts[b];
+            counts[b] = sum;
+            sum += count;
+        }
+    }
+
+    static void sort(long[] a, int length){
+        if(length < MIN_RADIX_SORT_LENGTH){
+            Arrays.sort(a, 0, length);
+            return;
+        }
+        long[] buffer = new long[length];
+        if(lsd(a, buffer, 0, length, Long.BYTES)){
+            System.arraycopy(buffer, 0, a, 0, length);
+        }
+    }
+    /**
+     * Sort {@code a[from, to)} by the given number of low digits
+     * using {@code buffer[from, to)} as scratch space.
+     * @return {@code true} if the sorted values ended up in the buffer.
+     */
+    private static boolean lsd(long[] a, long[] buffer, int from, int to, int numberOfDigits){
+        int[][] counts = new int[numberOfDigits][RADIX];
+        for(int i=from; i< to; i++){
+            long value = a[i];
+            for(int d=0; d< numberOfDigits; d++){
+                counts[d][digit(value, d * RADIX_BITS)]++;
+            }
+        }
+        long[] src = a;
+        long[] dest = buffer;
+        boolean swapped = false;
+        for(int d=0; d< numberOfDigits; d++){
+            int shift = d * RADIX_BITS;
+            int[] offsets = counts[d];
+            if(offsets[digit(src[from], shift)] == to - from){
+                //every value has the same digit
+                continue;
+            }
+            int sum = from;
+            for(int b=0; b< RADIX; b++){
+                int count = offsets[b];
+                offsets[b] = sum;
+                sum += count;
+            }
+            for(int i=from; i< to; i++){
+                long value = src[i];
+                dest[offsets[digit(value, shift)]++] = value;
+            }
+            long[] temp = src;
+            src = dest;
+            dest = temp;
+            swapped = !swapped;
+        }
+        return swapped;
+    }
+
+    static void parallelSort(long[] a, int length){
+        if(length < MIN_PARALLEL_LENGTH){
+            sort(a, length);
+            return;
+        }
+        long[] buffer = new long[length];
+        int topShift = Long.SIZE - RADIX_BITS;
+        int chunks = numberOfChunks(length);
+        int chunkSize = (length + chunks -1) / chunks;
+        int[][] counts = new int[chunks][RADIX];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] chunkCounts = counts[c];
+            for(int i= c * chunkSize, end = Math.min(length, i + chunkSize); i< end; i++){
+                chunkCounts[digit(a[i], topShift)]++;
+            }
+        });
+        int[] bucketStarts = toChunkOffsets(counts, length);
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] offsets = counts[c];
+            for(int i= c * chunkSize, end = Math.min(length, i + chunkSize); i< end; i++){
+                long value = a[i];
+                buffer[offsets[digit(value, topShift)]++] = value;
+            }
+        });
+        IntStream.range(0, RADIX).parallel().forEach(b -> {
+            int from = bucketStarts[b];
+            int to = bucketStarts[b +1];
+            if(to - from < MIN_RADIX_SORT_LENGTH){
+                Arrays.sort(buffer, from, to);
+            }else if(lsd(buffer, a, from, to, Long.BYTES -1)){
+                return;
+            }
+            System.arraycopy(buffer, from, a, from, to - from);
+        });
+    }
+
+    static int[] argsort(long[] a, int length){
+        long[] keys = Arrays.copyOf(a, length);
+        long[] keyBuffer = new long[length];
+        int[] indexes = new int[length];
+        for(int i=0; i< length; i++){
+            indexes[i] = i;
+        }
+        int[] indexBuffer = new int[length];
+        int[][] counts = new int[Long.BYTES][RADIX];
+        for(int i=0; i< length; i++){
+            long value = keys[i];
+            for(int d=0; d< Long.BYTES; d++){
+                counts[d][digit(value, d * RADIX_BITS)]++;
+            }
+        }
+        for(int d=0; d< Long.BYTES && length >0; d++){
+            int shift = d * RADIX_BITS;
+            int[] offsets = counts[d];
+            if(offsets[digit(keys[0], shift)] == length){
+                continue;
+            }
+            toOffsets(offsets);
+            for(int i=0; i< length; i++){
+                long value = keys[i];
+                int offset = offsets[digit(value, shift)]++;
+                keyBuffer[offset] = value;
+                indexBuffer[offset] = indexes[i];
+            }
+            long[] temp = keys;
+            keys = keyBuffer;
+            keyBuffer = temp;
+            int[] tempIndexes = indexes;
+            indexes = indexBuffer;
+            indexBuffer = tempIndexes;
+        }
+        return indexes;
+    }
+
+    static void sort(short[] a, int length){
+        if(length < MIN_RADIX_SORT_LENGTH){
+            Arrays.sort(a, 0, length);
+            return;
+        }
+        int[] counts = new int[NUMBER_OF_SHORT_VALUES];
+        for(int i=0; i< length; i++){
+            counts[a[i] - Short.MIN_VALUE]++;
+        }
+        int offset = 0;
+        for(int v=0; v< NUMBER_OF_SHORT_VALUES; v++){
+            int count = counts[v];
+            if(count >0){
+                Arrays.fill(a, offset, offset + count, (short) (v + Short.MIN_VALUE));
+                offset += count;
+            }
+        }
+    }
+
+    static void parallelSort(short[] a, int length){
+        if(length < MIN_PARALLEL_LENGTH){
+            sort(a, length);
+            return;
+        }
+        int chunks = Math.min(ForkJoinPool.getCommonPoolParallelism(), numberOfChunks(length));
+        int chunkSize = (length + chunks -1) / chunks;
+        int[] counts = IntStream.range(0, chunks).parallel()
+                            .mapToObj(c -> {
+                                int[] chunkCounts = new int[NUMBER_OF_SHORT_VALUES];
+                                for(int i= c * chunkSize, end = Math.min(length, i + chunkSize); i< end; i++){
+                                    chunkCounts[a[i] - Short.MIN_VALUE]++;
+                                }
+                                return chunkCounts;
+                            })
+                            .reduce((x, y) -> {
+                                for(int v=0; v< NUMBER_OF_SHORT_VALUES; v++){
+                                    x[v] += y[v];
+                                }
+                                return x;
+                            }).get();
+        int[] starts = Arrays.copyOf(counts, NUMBER_OF_SHORT_VALUES);
+        toOffsets(starts);
+        //fill the values back in parallel in groups of RADIX values
+        IntStream.range(0, NUMBER_OF_SHORT_VALUES / RADIX).parallel().forEach(group -> {
+            for(int v= group * RADIX, end = v + RADIX; v< end; v++){
+                if(counts[v] >0){
+                    Arrays.fill(a, starts[v], starts[v] + counts[v], (short) (v + Short.MIN_VALUE));
+                }
+            }
+        });
+    }
+
+    static int[] argsort(short[] a, int length){
+        int[] offsets = new int[NUMBER_OF_SHORT_VALUES];
+        for(int i=0; i< length; i++){
+            offsets[a[i] - Short.MIN_VALUE]++;
+        }
+        toOffsets(offsets);
+        int[] indexes = new int[length];
+        for(int i=0; i< length; i++){
+            indexes[offsets[a[i] - Short.MIN_VALUE]++] = i;
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package gov.nih.ncats.common.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A pool of canonical {@link String}s keyed on their char content
+ * which lets parsers look up a String for a run of chars
+ * in a {@link GrowableCharArray} or any other {@link CharSequence}
+ * without first creating a new String; a new String is only
+ * allocated the first time each distinct content is seen.
+ * Unlike {@link String#intern()} the pool is owned by the caller
+ * so it can be discarded or cleared once parsing is done.
+ * Strings are stored using open addressing with linear probing
+ * and hashed with the same algorithm as {@link String#hashCode()}.
+ * This class is not Thread-safe.
+ *
+ * @since 0.3.7
+ */
+public final class StringInterner {
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private String[] strings;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * Creates a new empty pool with a default expected size.
+     */
+    public StringInterner(){
+        this(16);
+    }
+    /**
+     * Creates a new empty pool big enough to hold the given number
+     * of distinct Strings without having to grow.
+     * @param expectedNumberOfStrings the expected number of distinct Strings.
+     * @throws IllegalArgumentException if expectedNumberOfStrings is &lt; 0.
+     */
+    public StringInterner(int expectedNumberOfStrings){
+        allocate(tableSizeFor(MapUtil.computeMinHashMapSizeWithoutRehashing(expectedNumberOfStrings, LOAD_FACTOR)));
+    }
+
+    private static int tableSizeFor(int minSize){
+        int size = Integer.highestOneBit(Math.max(2, minSize -1)) << 1;
+        if(size <=0){
+            throw new IllegalArgumentException("too many values: " + minSize);
+        }
+        return size;
+    }
+
+    private void allocate(int tableSize){
+        strings = new String[tableSize];
+        mask = tableSize -1;
+        resizeAt = Math.min(tableSize -1, (int) Math.ceil(tableSize * LOAD_FACTOR));
+    }
+
+    private static int spread(int hashCode){
+        int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int hashCodeOf(CharSequence chars, int begin, int end){
+        int h = 0;
+        for(int i=begin; i< end; i++){
+            h = 31 * h + chars.charAt(i);
+        }
+        return h;
+    }
+
+    private static boolean contentEquals(String s, CharSequence chars, int begin, int end){
+        if(s.length() != end - begin){
+            return false;
+        }
+        for(int i=0; i< s.length(); i++){
+            if(s.charAt(i) != chars.charAt(begin + i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size ==0;
+    }
+    /**
+     * Get the canonical String with the same content as the given chars,
+     * adding it to this pool if it isn't already there.
+     * If the given chars are a String not yet in the pool,
+     * that String instance becomes the canonical one.
+     * @param chars the chars to look up; can not be null.
+     * @return the canonical String; will never be null.
+     * @throws NullPointerException if chars is null.
+     */
+    public String intern(CharSequence chars){
+        return intern(chars, 0, chars.length());
+    }
+    /**
+     * Get the canonical String with the same content as the
+     * chars from {@code begin} (inclusive) to {@code end} (exclusive)
+     * of the given sequence, adding it to this pool if it isn't already there.
+     * No String is created if the content is already in the pool.
+     * @param chars the chars to look up; can not be null.
+     * @param begin the offset of the first char.
+     * @param end the offset after the last char.
+     * @return the canonical String; will never be null.
+     * @throws NullPointerException if chars is null.
+     * @throws IndexOutOfBoundsException if begin or end are out of bounds.
+     */
+    public String intern(CharSequence chars, int begin, int end){
+        Objects.requireNonNull(chars);
+        if(begin <0 || end > chars.length() || begin > end){
+            throw new IndexOutOfBoundsException("begin " + begin + ", end " + end + ", length " + chars.length());
+        }
+        int hashCode = hashCodeOf(chars, begin, end);
+        for(int slot = spread(hashCode) & mask; ; slot = (slot +1) & mask){
+            String existing = strings[slot];
+            if(existing ==null){
+                String s = (chars instanceof String && begin ==0 && end == chars.length())
+                                ? (String) chars
+                                : chars.subSequence(begin, end).toString();
+                strings[slot] = s;
+                if(++size >= resizeAt){
+                    rehash(strings.length << 1);
+                }
+                return s;
+            }
+            if(existing.hashCode() == hashCode && contentEquals(existing, chars, begin, end)){
+                return existing;
+            }
+        }
+    }
+    /**
+     * Get the canonical String with the same content as the given chars
+     * without adding it to this pool.
+     * @param chars the chars to look up; can not be null.
+     * @return the canonical String or {@code null} if there isn't one.
+     * @throws NullPointerException if chars is null.
+     */
+    public String get(CharSequence chars){
+        int end = chars.length();
+        int hashCode = hashCodeOf(chars, 0, end);
+        for(int slot = spread(hashCode) & mask; ; slot = (slot +1) & mask){
+            String existing = strings[slot];
+            if(existing ==null){
+                return null;
+            }
+            if(existing.hashCode() == hashCode && contentEquals(existing, chars, 0, end)){
+                return existing;
+            }
+        }
+    }
+
+    private void rehash(int newTableSize){
+        String[] oldStrings = strings;
+        allocate(newTableSize);
+        for(String s : oldStrings){
+            if(s !=null){
+                int slot = spread(s.hashCode()) & mask;
+                while(strings[slot] !=null){
+                    slot = (slot +1) & mask;
+                }
+                strings[slot] = s;
+            }
+        }
+    }
+    /**
+     * Remove all the Strings from this pool.
+     */
+    public void clear(){
+        Arrays.fill(strings, null);
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "StringInterner{size=" + size + "}";
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+public class TestArrayUtilAsList {
+
+    @Test
+    public void longListIsAViewOfTheArray(){
+        long[] array = {5, 10, 15, 10};
+        List<Long> sut = ArrayUtil.asList(array);
+        assertTrue(sut instanceof RandomAccess);
+        assertEquals(4, sut.size());
+        assertEquals(Long.valueOf(10), sut.get(1));
+        assertEquals(1, sut.indexOf(10L));
+        assertEquals(3, sut.lastIndexOf(10L));
+        assertEquals(-1, sut.indexOf(10));
+        assertEquals(-1, sut.indexOf(null));
+        assertTrue(sut.containsAll(Arrays.asList(15L, 5L)));
+        assertFalse(sut.containsAll(Arrays.asList(15L, 6L)));
+
+        assertEquals(Long.valueOf(5), sut.set(0, 6L));
+        assertEquals(6, array[0]);
+        array[3] = 20;
+        assertEquals(Long.valueOf(20), sut.get(3));
+    }
+
+    @Test
+    public void equalsAndHashCodeMatchOtherLists(){
+        assertEquals(Arrays.asList(1L, 2L), ArrayUtil.asList(new long[]{1, 2}));
+        assertEquals(ArrayUtil.asList(new long[]{1, 2}), Arrays.asList(1L, 2L));
+        assertEquals(Arrays.asList(1L, 2L).hashCode(), ArrayUtil.asList(new long[]{1, 2}).hashCode());
+        assertNotEquals(Arrays.asList(1, 2), ArrayUtil.asList(new long[]{1, 2}));
+
+        assertEquals(Arrays.asList((short)1, (short)-2), ArrayUtil.asList(new short[]{1, -2}));
+        assertEquals(Arrays.asList((short)1, (short)-2).hashCode(), ArrayUtil.asList(new short[]{1, -2}).hashCode());
+        assertEquals(Arrays.asList((byte)1, (byte)-2), ArrayUtil.asList(new byte[]{1, -2}));
+        assertEquals(Arrays.asList((byte)1, (byte)-2).hashCode(), ArrayUtil.asList(new byte[]{1, -2}).hashCode());
+        assertEquals(Arrays.asList('a', 'b'), ArrayUtil.asList(new char[]{'a', 'b'}));
+        assertEquals(Arrays.asList('a', 'b').hashCode(), ArrayUtil.asList(new char[]{'a', 'b'}).hashCode());
+        assertEquals(Arrays.asList(1.5, Double.NaN), ArrayUtil.asList(new double[]{1.5, Double.NaN}));
+        assertEquals(Arrays.asList(1.5, Double.NaN).hashCode(), ArrayUtil.asList(new double[]{1.5, Double.NaN}).hashCode());
+    }
+
+    @Test
+    public void doubleListUsesDoubleEquality(){
+        List<Double> sut = ArrayUtil.asList(new double[]{0.0, -0.0, Double.NaN});
+        assertEquals(0, sut.indexOf(0.0));
+        assertEquals(1, sut.indexOf(-0.0));
+        assertEquals(2, sut.indexOf(Double.NaN));
+        assertTrue(sut.contains(Double.NaN));
+    }
+
+    @Test
+    public void smallTypesSearchByValue(){
+        List<Short> shorts = ArrayUtil.asList(new short[]{3, 4, 3});
+        assertEquals(2, shorts.lastIndexOf((short)3));
+        assertEquals(-1, shorts.indexOf(3));
+        List<Byte> bytes = ArrayUtil.asList(new byte[]{3, 4, 3});
+        assertTrue(bytes.contains((byte)4));
+        List<Character> chars = ArrayUtil.asList("hello".toCharArray());
+        assertEquals(2, chars.indexOf('l'));
+        assertEquals(3, chars.lastIndexOf('l'));
+        assertTrue(chars.containsAll(Arrays.asList('o', 'h')));
+    }
+
+    @Test
+    public void forEachUsesPrimitiveConsumerWhenGiven(){
+        long[] sum = new long[1];
+        ArrayUtil.asList(new long[]{1, 2, 3}).forEach(new PrimitiveSum(sum));
+        assertEquals(6, sum[0]);
+
+        List<Integer> boxed = new ArrayList<>();
+        ArrayUtil.asList(new int[]{4, 5}).forEach(boxed::add);
+        assertEquals(Arrays.asList(4, 5), boxed);
+    }
+
+    private static final class PrimitiveSum implements Consumer<Object>, LongConsumer, IntConsumer, DoubleConsumer{
+        private final long[] sum;
+
+        private PrimitiveSum(long[] sum){
+            this.sum = sum;
+        }
+
+        @Override
+        public void accept(Object value){
+            fail("value should not have been boxed");
+        }
+
+        @Override
+        public void accept(long value){
+            sum[0] += value;
+        }
+
+        @Override
+        public void accept(int value){
+            sum[0] += value;
+        }
+
+        @Override
+        public void accept(double value){
+            sum[0] += (long) value;
+        }
+    }
+
+    @Test
+    public void spliteratorsSplitAndStream(){
+        int n = 10_000;
+        short[] shorts = new short[n];
+        char[] chars = new char[n];
+        double[] doubles = new double[n];
+        byte[] bytes = new byte[n];
+        for(int i=0; i< n; i++){
+            shorts[i] = (short) i;
+            chars[i] = (char) i;
+            doubles[i] = i;
+            bytes[i] = (byte) i;
+        }
+        long expected = (long) n * (n -1) /2;
+        assertEquals(expected, ArrayUtil.asList(shorts).parallelStream().mapToLong(Short::longValue).sum());
+        assertEquals(expected, ArrayUtil.asList(chars).parallelStream().mapToLong(c -> c).sum());
+        assertEquals(expected, ArrayUtil.asList(doubles).parallelStream().mapToDouble(Double::doubleValue).sum(), 0D);
+        assertEquals(Arrays.asList((byte)0, (byte)1, (byte)2),
+                ArrayUtil.asList(bytes).stream().limit(3).collect(Collectors.toList()));
+        assertEquals(n, ArrayUtil.asList(shorts).spliterator().getExactSizeIfKnown());
+    }
+}
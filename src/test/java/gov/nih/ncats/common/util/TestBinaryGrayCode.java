@@ -0,0 +1,105 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+public class TestBinaryGrayCode {
+
+    private static long toMask(BitSet bs){
+        long[] words = bs.toLongArray();
+        return words.length ==0 ? 0 : words[0];
+    }
+
+    @Test
+    public void masksMatchBitSets(){
+        for(int numBits = 1; numBits <= 10; numBits++){
+            BinaryGrayCode sut = new BinaryGrayCode(numBits);
+            List<Long> expected = new ArrayList<>();
+            sut.traverse(bs -> expected.add(toMask(bs)));
+
+            List<Long> actual = new ArrayList<>();
+            sut.traverseMasks(actual::add);
+            assertEquals(expected, actual);
+            for(int rank=0; rank< expected.size(); rank++){
+                assertEquals(expected.get(rank).longValue(), sut.getMask(rank));
+            }
+        }
+    }
+
+    @Test
+    public void flippedBitIsTheOnlyChange(){
+        BinaryGrayCode sut = new BinaryGrayCode(8);
+        long[] previous = new long[1];
+        AtomicLong count = new AtomicLong();
+        sut.traverseFlips((mask, flippedBit) -> {
+            if(count.getAndIncrement() ==0){
+                assertEquals(-1, flippedBit);
+                assertEquals(0, mask);
+            }else{
+                assertEquals(1L << flippedBit, mask ^ previous[0]);
+            }
+            previous[0] = mask;
+        });
+        assertEquals(256, count.get());
+    }
+
+    @Test
+    public void parallelTraversalVisitsEveryMaskOnce(){
+        BinaryGrayCode sut = new BinaryGrayCode(20);
+        boolean[] seen = new boolean[1 << 20];
+        AtomicLong count = new AtomicLong();
+        AtomicLong restarts = new AtomicLong();
+        sut.parallelTraverseFlips((mask, flippedBit) -> {
+            seen[(int) mask] = true;
+            count.incrementAndGet();
+            if(flippedBit == -1){
+                restarts.incrementAndGet();
+            }
+        });
+        assertEquals(1 << 20, count.get());
+        assertTrue(restarts.get() >= 1);
+        for(boolean b : seen){
+            assertTrue(b);
+        }
+    }
+
+    @Test
+    public void largeCodeSpacesDoNotBuildBitSets(){
+        BinaryGrayCode sut = new BinaryGrayCode(BinaryGrayCode.MAX_MASK_BITS);
+        long rank = Long.MAX_VALUE;
+        long last = sut.getMask(rank);
+        //last code only has the highest bit of the reflected code set
+        assertEquals(1L, last);
+        assertEquals(1, Long.bitCount(sut.getMask(rank -1) ^ last));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void tooManyBitsForMasks(){
+        new BinaryGrayCode(64).traverseMasks(mask -> {});
+    }
+}
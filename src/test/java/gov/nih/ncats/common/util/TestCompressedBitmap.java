@@ -0,0 +1,140 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+public class TestCompressedBitmap {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void addRemoveContainsMatchBitSet(){
+        CompressedBitmap sut = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        for(int i=0; i< 50_000; i++){
+            //mix of sparse and dense chunks
+            int position = random.nextBoolean() ? random.nextInt(10_000) : random.nextInt(5_000_000);
+            if(random.nextInt(4) ==0){
+                assertEquals(expected.get(position), sut.remove(position));
+                expected.clear(position);
+            }else{
+                assertEquals(!expected.get(position), sut.add(position));
+                expected.set(position);
+            }
+        }
+        assertMatches(expected, sut);
+        sut.runOptimize();
+        assertMatches(expected, sut);
+    }
+
+    @Test
+    public void rankAndSelect(){
+        BitSet expected = randomBitSet(300_000, 0.3);
+        CompressedBitmap sut = CompressedBitmap.valueOf(expected);
+        int j=0;
+        for(int i = expected.nextSetBit(0); i >=0; i = expected.nextSetBit(i+1)){
+            assertEquals(i, sut.select(j));
+            assertEquals(j+1, sut.rank(i));
+            j++;
+        }
+        assertEquals(0, sut.rank(-1));
+        assertEquals(expected.cardinality(), sut.rank(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void runsFromRangesAndGrowableBitArray(){
+        CompressedBitmap sut = new CompressedBitmap();
+        sut.add(new Range(100, 200_000));
+        sut.add(new Range(1_000_000, 1_000_063));
+        BitSet expected = new BitSet();
+        expected.set(100, 200_001);
+        expected.set(1_000_000, 1_000_064);
+        assertMatches(expected, sut);
+
+        sut.remove(150);
+        expected.clear(150);
+        assertMatches(expected, sut);
+
+        GrowableBitArray array = sut.toGrowableBitArray();
+        assertEquals(expected, array.asBitSet());
+        assertEquals(sut, CompressedBitmap.valueOf(array));
+    }
+
+    @Test
+    public void setAlgebraMatchesBitSet(){
+        BitSet a = randomBitSet(400_000, 0.001);
+        a.set(70_000, 140_000);
+        BitSet b = randomBitSet(400_000, 0.5);
+        b.set(300_000, 300_500);
+
+        BitSet and = (BitSet) a.clone();
+        and.and(b);
+        CompressedBitmap sut = CompressedBitmap.valueOf(a);
+        sut.and(CompressedBitmap.valueOf(b));
+        assertMatches(and, sut);
+
+        BitSet or = (BitSet) a.clone();
+        or.or(b);
+        sut = CompressedBitmap.valueOf(a);
+        sut.or(CompressedBitmap.valueOf(b));
+        assertMatches(or, sut);
+
+        BitSet xor = (BitSet) a.clone();
+        xor.xor(b);
+        sut = CompressedBitmap.valueOf(a);
+        sut.xor(CompressedBitmap.valueOf(b));
+        assertMatches(xor, sut);
+
+        BitSet andNot = (BitSet) a.clone();
+        andNot.andNot(b);
+        sut = CompressedBitmap.valueOf(a);
+        sut.andNot(CompressedBitmap.valueOf(b));
+        assertMatches(andNot, sut);
+    }
+
+    private BitSet randomBitSet(int length, double density){
+        BitSet bs = new BitSet(length);
+        for(int i=0; i< length; i++){
+            if(random.nextDouble() < density){
+                bs.set(i);
+            }
+        }
+        return bs;
+    }
+
+    private static void assertMatches(BitSet expected, CompressedBitmap actual){
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.stream().boxed().collect(Collectors.toList()),
+                     actual.stream().boxed().collect(Collectors.toList()));
+        BitSet forEach = new BitSet();
+        actual.forEach(forEach::set);
+        assertEquals(expected, forEach);
+        assertEquals(expected, actual.toBitSet());
+        for(int i = expected.nextSetBit(0); i >=0; i = expected.nextSetBit(i+1)){
+            assertTrue(actual.contains(i));
+        }
+    }
+}
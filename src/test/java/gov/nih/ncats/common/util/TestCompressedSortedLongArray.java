@@ -0,0 +1,101 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+public class TestCompressedSortedLongArray {
+
+    private final Random random = new Random(11);
+
+    private long[] randomOffsets(int length){
+        long[] values = new long[length];
+        long offset = 0;
+        for(int i=0; i< length; i++){
+            //line lengths between 0 and 200 bytes
+            offset += random.nextInt(200);
+            values[i] = offset;
+        }
+        return values;
+    }
+
+    @Test
+    public void getMatchesAppendedValues(){
+        long[] expected = randomOffsets(10_000);
+        CompressedSortedLongArray sut = new CompressedSortedLongArray();
+        sut.append(expected);
+
+        assertEquals(expected.length, sut.getCurrentLength());
+        for(int i=0; i< expected.length; i++){
+            assertEquals(expected[i], sut.get(i));
+        }
+        assertArrayEquals(expected, sut.stream().toArray());
+        assertTrue("should be much smaller than 8 bytes per value",
+                sut.getCompressedSizeInBytes() < expected.length * 2L);
+    }
+
+    @Test
+    public void binarySearchMatchesArraysBinarySearch(){
+        long[] values = randomOffsets(5_000);
+        CompressedSortedLongArray sut = new CompressedSortedLongArray();
+        sut.append(values);
+        for(int i=0; i< 2_000; i++){
+            long key = random.nextInt((int) values[values.length -1] + 100) - 50;
+            int expected = Arrays.binarySearch(values, key);
+            long actual = sut.binarySearch(key);
+            if(expected >=0){
+                assertEquals(key, sut.get(actual));
+            }else{
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void extremeDeltasAndRepeatedValues(){
+        CompressedSortedLongArray sut = new CompressedSortedLongArray();
+        long[] expected = new long[300];
+        for(int i=0; i< expected.length; i++){
+            expected[i] = i < 150 ? Long.MIN_VALUE : Long.MAX_VALUE - (expected.length - i);
+        }
+        sut.append(expected);
+        assertArrayEquals(expected, sut.stream().toArray());
+        assertEquals(Long.MIN_VALUE, sut.get(140));
+        assertEquals(Long.MAX_VALUE -1, sut.get(299));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void appendingOutOfOrderShouldThrowException(){
+        CompressedSortedLongArray sut = new CompressedSortedLongArray();
+        sut.append(10);
+        sut.append(9);
+    }
+
+    @Test
+    public void emptySequence(){
+        CompressedSortedLongArray sut = new CompressedSortedLongArray();
+        assertEquals(-1, sut.binarySearch(5));
+        assertEquals(0, sut.stream().count());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+public class TestConcurrentAppendOnlyByteArray {
+
+    private static final int RECORD_SIZE = 9;
+
+    @Test
+    public void concurrentAppendsAreEachContiguous() throws Exception{
+        ConcurrentAppendOnlyByteArray sut = new ConcurrentAppendOnlyByteArray();
+        int numberOfThreads = 8;
+        int recordsPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        try{
+            List<Future<?>> futures = new ArrayList<>();
+            for(int t=0; t< numberOfThreads; t++){
+                byte threadId = (byte) t;
+                futures.add(executor.submit(() -> {
+                    for(long seq=0; seq< recordsPerThread; seq++){
+                        sut.append(ByteBuffer.allocate(RECORD_SIZE).put(threadId).putLong(seq).array());
+                    }
+                }));
+            }
+            for(Future<?> future : futures){
+                future.get();
+            }
+        }finally{
+            executor.shutdown();
+        }
+        ConcurrentAppendOnlyByteArray.Snapshot snapshot = sut.snapshot();
+        assertEquals((long) numberOfThreads * recordsPerThread * RECORD_SIZE, snapshot.getLength());
+
+        //each thread's records must be intact and in the order that thread appended them
+        long[] nextSeq = new long[numberOfThreads];
+        ByteBuffer records = ByteBuffer.wrap(snapshot.toArray());
+        while(records.hasRemaining()){
+            int threadId = records.get();
+            assertEquals(nextSeq[threadId]++, records.getLong());
+        }
+        for(long seq : nextSeq){
+            assertEquals(recordsPerThread, seq);
+        }
+    }
+
+    @Test
+    public void appendsSpanningChunks() throws IOException{
+        ConcurrentAppendOnlyByteArray sut = new ConcurrentAppendOnlyByteArray();
+        byte[] large = new byte[200_000];
+        for(int i=0; i< large.length; i++){
+            large[i] = (byte) i;
+        }
+        assertEquals(0, sut.append((byte) 42));
+        assertEquals(1, sut.append(large, 100, 150_000));
+        assertEquals(150_001, sut.append(new GrowableByteArray(new byte[]{1, 2, 3})));
+
+        ConcurrentAppendOnlyByteArray.Snapshot snapshot = sut.snapshot();
+        assertEquals(150_004, snapshot.getLength());
+        assertEquals(42, snapshot.get(0));
+        assertEquals((byte) 100, snapshot.get(1));
+        assertEquals((byte) (100 + 149_999), snapshot.get(150_000));
+        assertEquals(3, snapshot.get(150_003));
+
+        sut.append(new byte[10]);
+        assertEquals("snapshot should not change", 150_004, snapshot.getLength());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.writeTo(out);
+        assertArrayEquals(snapshot.toArray(), out.toByteArray());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getBeyondSnapshotShouldThrowException(){
+        ConcurrentAppendOnlyByteArray sut = new ConcurrentAppendOnlyByteArray();
+        sut.append(new byte[]{1, 2});
+        sut.snapshot().get(2);
+    }
+}
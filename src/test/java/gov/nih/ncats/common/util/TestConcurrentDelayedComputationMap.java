@@ -0,0 +1,188 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+public class TestConcurrentDelayedComputationMap {
+
+    @Test
+    public void dontComputeUntilGetCalled(){
+        ConcurrentDelayedComputationMap<String, Integer> sut = new ConcurrentDelayedComputationMap<>();
+        AtomicInteger counter = new AtomicInteger();
+        sut.put("A", ()-> counter.incrementAndGet());
+        sut.put("B", ()-> counter.incrementAndGet());
+
+        assertFalse(sut.getAsCachedSupplier("A").hasRun());
+        assertFalse(sut.getAsCachedSupplier("B").hasRun());
+
+        assertEquals(1, sut.get("A").intValue());
+        assertEquals(1, sut.get("A").intValue());
+        assertFalse(sut.getAsCachedSupplier("B").hasRun());
+    }
+
+    @Test
+    public void iteratingEntriesDoesNotComputeValues(){
+        ConcurrentDelayedComputationMap<Integer, Integer> sut = new ConcurrentDelayedComputationMap<>();
+        AtomicInteger counter = new AtomicInteger();
+        for(int i=0; i< 10; i++){
+            int value = i;
+            sut.put(i, ()-> {
+                counter.incrementAndGet();
+                return value *2;
+            });
+        }
+        Set<Integer> keys = new HashSet<>();
+        for(Map.Entry<Integer, Integer> e : sut.entrySet()){
+            keys.add(e.getKey());
+        }
+        keys.addAll(sut.keySet());
+        assertEquals(10, keys.size());
+        assertEquals(0, counter.get());
+
+        Map.Entry<Integer, Integer> first = sut.entrySet().iterator().next();
+        assertEquals(first.getKey() *2, first.getValue().intValue());
+        assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void removeAndReplaceOnlyIfValueMatches(){
+        ConcurrentDelayedComputationMap<String, Integer> sut = new ConcurrentDelayedComputationMap<>();
+        sut.put("A", ()-> 1);
+
+        assertFalse(sut.replace("A", 2, 3));
+        assertTrue(sut.replace("A", 1, 3));
+        assertEquals(3, sut.get("A").intValue());
+
+        assertFalse(sut.remove("A", 1));
+        assertTrue(sut.remove("A", 3));
+        assertFalse(sut.containsKey("A"));
+        assertNull(sut.replace("A", 5));
+    }
+
+    @Test
+    public void manyThreadsOnlyComputeEachValueOnce() throws Exception{
+        ConcurrentDelayedComputationMap<Integer, Integer> sut = new ConcurrentDelayedComputationMap<>();
+        AtomicInteger counter = new AtomicInteger();
+        int numKeys = 100;
+        for(int i=0; i< numKeys; i++){
+            int value = i;
+            sut.put(i, ()-> {
+                counter.incrementAndGet();
+                return value;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < numKeys; i++) {
+                        assertEquals(i, sut.get(i).intValue());
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        }finally{
+            executor.shutdownNow();
+        }
+        assertEquals(numKeys, counter.get());
+    }
+
+    @Test
+    public void lruMapNeverKeepsMoreThanCacheSizeComputed(){
+        ConcurrentLruDelayedComputationMap<Integer, Integer> sut = new ConcurrentLruDelayedComputationMap<>(100, 5);
+        AtomicInteger counter = new AtomicInteger();
+        for(int i=0; i< 100; i++){
+            int value = i;
+            sut.put(i, ()-> {
+                counter.incrementAndGet();
+                return value;
+            });
+        }
+        for(int i=0; i< 100; i++){
+            assertEquals(i, sut.get(i).intValue());
+            assertTrue(sut.getComputedCount() <= 5);
+        }
+        assertEquals(100, counter.get());
+        //reading them all again has to recompute the ones that were reset
+        for(int i=0; i< 100; i++){
+            assertEquals(i, sut.get(i).intValue());
+        }
+        assertTrue(counter.get() > 100);
+    }
+
+    @Test
+    public void lruMapRemovedValueIsNotReset(){
+        ConcurrentLruDelayedComputationMap<Integer, Integer> sut = new ConcurrentLruDelayedComputationMap<>(10, 2);
+        for(int i=0; i< 10; i++){
+            int value = i;
+            sut.put(i, ()-> value);
+        }
+        sut.get(0);
+        CachedSupplier<Integer> removed = sut.removeAsCachedSupplier(0);
+        for(int i=1; i< 10; i++){
+            sut.get(i);
+        }
+        assertTrue(removed.hasRun());
+        assertTrue(sut.getComputedCount() <= 2);
+    }
+
+    @Test
+    public void lruMapRemoveWhileComputingDoesNotDeadlock() throws Exception{
+        ConcurrentLruDelayedComputationMap<String, Integer> sut = new ConcurrentLruDelayedComputationMap<>(16, 10);
+        CountDownLatch computing = new CountDownLatch(1);
+        //"Aa" and "BB" have the same hashCode so they share a bin of the backing map
+        sut.put("Aa", ()-> {
+            computing.countDown();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sut.put("BB", 2);
+            return 1;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2, r->{
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Future<Integer> computed = executor.submit(() -> sut.get("Aa"));
+            computing.await();
+            Future<CachedSupplier<Integer>> removed = executor.submit(() -> sut.removeAsCachedSupplier("Aa"));
+
+            assertEquals(1, computed.get(10, TimeUnit.SECONDS).intValue());
+            assertNotNull(removed.get(10, TimeUnit.SECONDS));
+            assertFalse(sut.containsKey("Aa"));
+            assertEquals(2, sut.get("BB").intValue());
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+public class TestConcurrentLruDelayedComputationList {
+
+    @Test
+    public void addingToEndOnlyCachedEverything(){
+        ConcurrentLruDelayedComputationList<Integer> list = new ConcurrentLruDelayedComputationList<>(10, 20);
+
+        AtomicInteger counter = new AtomicInteger();
+        for(int i=0; i< 10; i++){
+            list.add(()->counter.getAndIncrement());
+        }
+
+        for(int i=0; i< 10; i++){
+            assertEquals(Integer.valueOf(i), list.get(i));
+        }
+        //do it again should have cached value
+        for(int i=0; i< 10; i++){
+            assertEquals(Integer.valueOf(i), list.get(i));
+        }
+        assertEquals(10, list.getComputedCount());
+    }
+
+    @Test
+    public void addingToEndOnlyResetBeforeCalledAgain(){
+        ConcurrentLruDelayedComputationList<Integer> list = new ConcurrentLruDelayedComputationList<>(10, 5);
+
+        AtomicInteger counter = new AtomicInteger();
+        for(int i=0; i< 10; i++){
+            list.add(()->counter.getAndIncrement());
+        }
+
+        for(int i=0; i< 10; i++){
+            assertEquals(Integer.valueOf(i), list.get(i));
+            assertTrue(list.getComputedCount() <= 5);
+        }
+        //the first element was reset long ago so has to be recomputed
+        assertEquals(Integer.valueOf(10), list.get(0));
+    }
+
+    @Test
+    public void recentlyUsedElementsGetSecondChance(){
+        ConcurrentLruDelayedComputationList<Integer> list = new ConcurrentLruDelayedComputationList<>(10, 3);
+        for(int i=0; i< 10; i++){
+            int value = i;
+            list.add(()-> value);
+        }
+        for(int i=0; i< 10; i++){
+            list.get(i);
+            //keep touching element 0 so it always looks recently used
+            list.get(0);
+        }
+        assertTrue(list.getAsCachedSupplier(0).hasRun());
+        assertTrue(list.getComputedCount() <= 3);
+    }
+
+    @Test
+    public void insertAndRemoveInMiddle(){
+        ConcurrentLruDelayedComputationList<Integer> list = new ConcurrentLruDelayedComputationList<>(2, 5);
+        for(int i=0; i< 10; i++){
+            int value = i;
+            list.add(()-> value);
+        }
+        list.add(4, ()-> 100);
+        assertEquals(11, list.size());
+        assertEquals(Integer.valueOf(100), list.get(4));
+        assertEquals(Integer.valueOf(4), list.get(5));
+
+        assertEquals(Integer.valueOf(100), list.remove(4));
+        assertEquals(10, list.size());
+        for(int i=0; i< 10; i++){
+            assertEquals(Integer.valueOf(i), list.get(i));
+        }
+    }
+
+    @Test
+    public void manyThreadsComputeAndEvict() throws Exception{
+        int size = 10_000;
+        int cacheSize = 100;
+        ConcurrentLruDelayedComputationList<Integer> list = new ConcurrentLruDelayedComputationList<>(size, cacheSize);
+        for(int i=0; i< size; i++){
+            int value = i;
+            list.add(()-> value);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < size; i++) {
+                        int index = (i * 7 + offset * 1_000) % size;
+                        assertEquals(index, list.get(index).intValue());
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        }finally{
+            executor.shutdownNow();
+        }
+        //trigger one more sweep now that everyone is done
+        list.get(0);
+        assertTrue(list.getComputedCount() <= cacheSize);
+    }
+
+    @Test
+    public void iteratorDoesNotSeeLaterSet(){
+        ConcurrentDelayedComputationList<String> list = new ConcurrentDelayedComputationList<>();
+        list.add("a");
+        list.add("b");
+        Iterator<String> iter = list.iterator();
+        list.set(1, "changed");
+
+        assertEquals("a", iter.next());
+        assertEquals("b", iter.next());
+        assertEquals("changed", list.get(1));
+    }
+}
@@ -26,6 +26,9 @@ import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
@@ -72,6 +75,40 @@ public class TestDelayedComputationList {
         assertFalse(iter.hasNext());
     }
 
+    @Test
+    public void prefetchComputesWholeRange(){
+        DelayedComputationList<Integer> sut = new DelayedComputationList<>();
+        for(int i=0; i< 20; i++){
+            int value = i;
+            sut.add(()-> value);
+        }
+        sut.prefetch(new Range(5, 14));
+        for(int i=0; i< 20; i++){
+            assertEquals(i + " offset", i>=5 && i <=14, sut.getAsCachedSupplier(i).hasRun());
+        }
+    }
+
+    @Test
+    public void readAheadComputesNextElementsInBackground() throws InterruptedException {
+        DelayedComputationList<Integer> sut = new DelayedComputationList<>();
+        for(int i=0; i< 100; i++){
+            int value = i;
+            sut.add(()-> value);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            sut.enableReadAhead(executor, 8);
+            for (int i = 0; i < 50; i++) {
+                assertEquals(Integer.valueOf(i), sut.get(i));
+            }
+        }finally {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        assertTrue(sut.getAsCachedSupplier(50).hasRun());
+        assertFalse(sut.getAsCachedSupplier(99).hasRun());
+    }
+
     private void add(DelayedComputationList<BigInteger> sut, int value){
         sut.add(()->fibonacciComputerRule.fibonacci(value));
     }
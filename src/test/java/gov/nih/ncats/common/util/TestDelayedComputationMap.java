@@ -22,6 +22,7 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import java.math.BigInteger;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
@@ -113,4 +114,43 @@ public class TestDelayedComputationMap {
         assertTrue(removed.hasRun());
         assertFalse(sut.getAsCachedSupplier("B").hasRun());
     }
+
+    @Test
+    public void iteratingKeysAndEntriesDoesNotCompute(){
+        DelayedComputationMap<String, BigInteger> sut = new DelayedComputationMap<>();
+
+        sut.put("fib(5)", ()-> fibonacciComputerRule.fibonacci(5));
+        sut.put("fib(15)", ()-> fibonacciComputerRule.fibonacci(15));
+
+        assertEquals(2, sut.keySet().size());
+        for(String key : sut.keySet()){
+            assertFalse(sut.getAsCachedSupplier(key).hasRun());
+        }
+        for(Map.Entry<String, BigInteger> entry : sut.entrySet()){
+            assertFalse(sut.getAsCachedSupplier(entry.getKey()).hasRun());
+        }
+        sut.entrySet().forEach(e-> assertFalse(sut.getAsCachedSupplier(e.getKey()).hasRun()));
+
+        Map.Entry<String, BigInteger> entry = sut.entrySet().stream()
+                                                .filter(e-> e.getKey().equals("fib(15)"))
+                                                .findAny().get();
+        assertFalse(sut.getAsCachedSupplier("fib(5)").hasRun());
+        assertEquals(BigInteger.valueOf(610), entry.getValue());
+        assertTrue(sut.getAsCachedSupplier("fib(15)").hasRun());
+        assertFalse(sut.getAsCachedSupplier("fib(5)").hasRun());
+    }
+
+    @Test
+    public void parallelStreamComputesValues(){
+        DelayedComputationMap<Integer, Integer> sut = new DelayedComputationMap<>();
+        for(int i=0; i< 100; i++){
+            int value = i;
+            sut.put(i, ()-> value * 2);
+        }
+        int sum = sut.entrySet().parallelStream().mapToInt(Map.Entry::getKey).sum();
+        assertEquals(4950, sum);
+        for(int i=0; i< 100; i++){
+            assertTrue(sut.getAsCachedSupplier(i).hasRun());
+        }
+    }
 }
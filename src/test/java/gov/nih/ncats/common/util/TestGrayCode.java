@@ -0,0 +1,185 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+public class TestGrayCode {
+
+    private static List<int[]> generateWithObserver(GrayCode grayCode){
+        List<int[]> codes = new ArrayList<>();
+        grayCode.addObserver(new Observer() {
+            @Override
+            public void update(Observable o, Object arg) {
+                codes.add(((int[]) arg).clone());
+            }
+        });
+        grayCode.generate();
+        return codes;
+    }
+
+    private static List<int[]> forEach(GrayCode grayCode, long from, long to){
+        List<int[]> codes = new ArrayList<>();
+        grayCode.forEach(from, to, (rank, code, changedDigit) -> codes.add(code.clone()));
+        return codes;
+    }
+
+    private static void assertSameCodes(List<int[]> expected, List<int[]> actual){
+        assertEquals(expected.size(), actual.size());
+        for(int i=0; i< expected.size(); i++){
+            assertArrayEquals("code " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void forEachMatchesGenerate(){
+        assertSameCodes(generateWithObserver(new GrayCode(new int[]{3, 2, 4})),
+                forEach(new GrayCode(new int[]{3, 2, 4}), 0, 24));
+        assertSameCodes(generateWithObserver(new GrayCode(3, 3)),
+                forEach(new GrayCode(3, 3), 0, 27));
+        assertSameCodes(generateWithObserver(GrayCode.createBinaryGrayCode(5)),
+                forEach(GrayCode.createBinaryGrayCode(5), 0, 32));
+    }
+
+    @Test
+    public void rankAndUnrankAreInverses(){
+        GrayCode sut = new GrayCode(new int[]{3, 5, 2, 7});
+        assertEquals(210, sut.getNumberOfCodes());
+        List<int[]> codes = forEach(sut, 0, sut.getNumberOfCodes());
+        for(int rank=0; rank< codes.size(); rank++){
+            assertArrayEquals(codes.get(rank), sut.unrank(rank));
+            assertEquals(rank, sut.rank(codes.get(rank)));
+        }
+    }
+
+    @Test
+    public void eachStepChangesOneDigitByOne(){
+        GrayCode sut = new GrayCode(new int[]{4, 3, 5});
+        int[] previous = new int[3];
+        AtomicLong expectedRank = new AtomicLong();
+        sut.forEach((rank, code, changedDigit) -> {
+            assertEquals(expectedRank.getAndIncrement(), rank);
+            if(rank ==0){
+                assertEquals(-1, changedDigit);
+            }else{
+                for(int i=0; i< code.length; i++){
+                    if(i == changedDigit){
+                        assertEquals(1, Math.abs(code[i] - previous[i]));
+                    }else{
+                        assertEquals(previous[i], code[i]);
+                    }
+                }
+            }
+            System.arraycopy(code, 0, previous, 0, code.length);
+        });
+        assertEquals(60, expectedRank.get());
+    }
+
+    @Test
+    public void subRangesJoinToTheWholeSequence(){
+        GrayCode sut = new GrayCode(new int[]{3, 4, 2, 3});
+        List<int[]> all = forEach(sut, 0, sut.getNumberOfCodes());
+        List<int[]> joined = new ArrayList<>();
+        List<Range> ranges = sut.partition(5);
+        assertEquals(5, ranges.size());
+        for(Range range : ranges){
+            joined.addAll(forEach(sut, range.getBegin(), range.getEnd() +1));
+        }
+        assertSameCodes(all, joined);
+        assertEquals(3, new GrayCode(3, 1).partition(10).size());
+    }
+
+    @Test
+    public void partitionOfHugeCodeDoesNotOverflow(){
+        GrayCode sut = GrayCode.createBinaryGrayCode(62);
+        long total = sut.getNumberOfCodes();
+        List<Range> ranges = sut.partition(7);
+        assertEquals(7, ranges.size());
+        long begin = 0;
+        for(Range range : ranges){
+            assertEquals(begin, range.getBegin());
+            long length = range.getEnd() - range.getBegin() +1;
+            assertTrue(length == total / 7 || length == total / 7 +1);
+            begin = range.getEnd() +1;
+        }
+        assertEquals(total, begin);
+    }
+
+    @Test
+    public void parallelForEachVisitsEveryCodeOnce(){
+        GrayCode sut = GrayCode.createBinaryGrayCode(18);
+        long total = sut.getNumberOfCodes();
+        boolean[] seen = new boolean[(int) total];
+        AtomicLong count = new AtomicLong();
+        sut.parallelForEach((rank, code, changedDigit) -> {
+            seen[(int) sut.rank(code)] = true;
+            assertEquals(rank, sut.rank(code));
+            count.incrementAndGet();
+        });
+        assertEquals(total, count.get());
+        for(boolean b : seen){
+            assertTrue(b);
+        }
+    }
+
+    @Test
+    public void streamMatchesForEach(){
+        GrayCode sut = new GrayCode(new int[]{5, 5, 5, 5, 5, 5});
+        List<int[]> expected = forEach(sut, 0, sut.getNumberOfCodes());
+        assertSameCodes(expected, sut.stream().collect(Collectors.toList()));
+        assertSameCodes(expected, sut.stream().parallel().collect(Collectors.toList()));
+        assertEquals(15625, sut.spliterator().getExactSizeIfKnown());
+    }
+
+    @Test
+    public void largeSpaceCanJumpToAnyRank(){
+        GrayCode sut = GrayCode.createBinaryGrayCode(62);
+        long rank = (1L << 61) + 12345;
+        int[] code = sut.unrank(rank);
+        assertEquals(rank, sut.rank(code));
+        List<int[]> next = forEach(sut, rank, rank + 3);
+        assertArrayEquals(code, next.get(0));
+        assertArrayEquals(sut.unrank(rank + 2), next.get(2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void unrankOutOfRange(){
+        new GrayCode(2, 3).unrank(8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rankInvalidDigit(){
+        new GrayCode(2, 3).rank(new int[]{0, 2, 0});
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void tooManyCodes(){
+        GrayCode.createBinaryGrayCode(64).getNumberOfCodes();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+public class TestGrowableArrayBulkOperations {
+
+    private final Random random = new Random(3);
+
+    @Test
+    public void sumMinMaxMatchStreams(){
+        int[] values = random.ints(200_000).toArray();
+        for(GrowableIntArray sut : new GrowableIntArray[]{new GrowableIntArray(values), segmented(values)}){
+            assertEquals(IntStream.of(values).asLongStream().sum(), sut.sum());
+            assertEquals(IntStream.of(values).asLongStream().sum(), sut.parallelSum());
+            assertEquals(IntStream.of(values).min().getAsInt(), sut.min());
+            assertEquals(IntStream.of(values).min().getAsInt(), sut.parallelMin());
+            assertEquals(IntStream.of(values).max().getAsInt(), sut.max());
+            assertEquals(IntStream.of(values).max().getAsInt(), sut.parallelMax());
+            assertEquals(IntStream.of(values).filter(v -> v % 3 ==0).count(), sut.countMatching(v -> v % 3 ==0));
+            assertEquals(IntStream.of(values).filter(v -> v % 3 ==0).count(), sut.parallelCountMatching(v -> v % 3 ==0));
+        }
+    }
+
+    @Test
+    public void addScalarAndAddAll(){
+        GrowableLongArray sut = new GrowableLongArray(new long[]{1, 2, 3});
+        sut.addScalar(10);
+        assertArrayEquals(new long[]{11, 12, 13}, sut.toArray());
+        sut.addAll(new GrowableLongArray(new long[]{1, 1, 1}));
+        assertArrayEquals(new long[]{12, 13, 14}, sut.toArray());
+
+        int[] values = IntStream.range(0, 100_000).toArray();
+        GrowableIntArray large = segmented(values);
+        large.parallelAddScalar(-1);
+        large.addAll(new GrowableIntArray(values));
+        assertArrayEquals(IntStream.range(0, 100_000).map(i -> 2 * i -1).toArray(), large.toArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addAllDifferentLengthsShouldThrowException(){
+        new GrowableIntArray(new int[]{1, 2}).addAll(new GrowableIntArray(new int[]{1}));
+    }
+
+    @Test
+    public void compactKeepsMatchingValuesInOrder(){
+        int[] values = IntStream.range(0, 50_000).toArray();
+        for(GrowableIntArray sut : new GrowableIntArray[]{new GrowableIntArray(values), segmented(values)}){
+            assertEquals(25_000, sut.compact(v -> v % 2 ==0));
+            assertArrayEquals(IntStream.range(0, 25_000).map(i -> i * 2).toArray(), sut.toArray());
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void minOfEmptyArrayShouldThrowException(){
+        new GrowableLongArray(0).min();
+    }
+
+    private static GrowableIntArray segmented(int[] values){
+        GrowableIntArray array = new GrowableIntArray(0, true);
+        array.append(values);
+        return array;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+public class TestGrowableArrayIO {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private final Random random = new Random(7);
+
+    @Test
+    public void intRoundTripThroughStreamChannels() throws IOException{
+        GrowableIntArray expected = new GrowableIntArray(random.ints(100_003).toArray());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        expected.writeTo(Channels.newChannel(out));
+
+        assertEquals(9 + 100_003 * 4, out.size());
+        GrowableIntArray actual = GrowableIntArray.readFrom(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+        assertArrayEquals(expected.toArray(), actual.toArray());
+    }
+
+    @Test
+    public void segmentedLongRoundTripThroughMappedFile() throws IOException{
+        GrowableLongArray expected = new GrowableLongArray(0, true);
+        expected.append(random.longs(70_000).toArray());
+        File file = tmpDir.newFile();
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)){
+            expected.writeTo(channel);
+        }
+        assertArrayEquals(expected.toArray(), GrowableLongArray.mapFrom(file.toPath()).toArray());
+    }
+
+    @Test
+    public void mapFromReadsFilesSpanningSeveralRegions() throws IOException{
+        int oldBytesPerRegion = GrowableArrayIO.MappedFile.bytesPerRegion;
+        //small regions so every type needs many maps and a partial last region
+        GrowableArrayIO.MappedFile.bytesPerRegion = 64;
+        try{
+            byte[] bytes = new byte[1_001];
+            random.nextBytes(bytes);
+            assertArrayEquals(bytes, GrowableByteArray.mapFrom(writeToFile(new GrowableByteArray(bytes)::writeTo)).toArray());
+
+            char[] chars = new char[1_003];
+            for(int i=0; i< chars.length; i++){
+                chars[i] = (char) random.nextInt();
+            }
+            assertArrayEquals(chars, GrowableCharArray.mapFrom(writeToFile(new GrowableCharArray(chars)::writeTo)).toArray());
+
+            short[] shorts = new short[1_005];
+            for(int i=0; i< shorts.length; i++){
+                shorts[i] = (short) random.nextInt();
+            }
+            assertArrayEquals(shorts, GrowableShortArray.mapFrom(writeToFile(new GrowableShortArray(shorts)::writeTo)).toArray());
+
+            int[] ints = random.ints(1_007).toArray();
+            assertArrayEquals(ints, GrowableIntArray.mapFrom(writeToFile(new GrowableIntArray(ints)::writeTo)).toArray());
+
+            long[] longs = random.longs(1_009).toArray();
+            assertArrayEquals(longs, GrowableLongArray.mapFrom(writeToFile(new GrowableLongArray(longs)::writeTo)).toArray());
+        }finally{
+            GrowableArrayIO.MappedFile.bytesPerRegion = oldBytesPerRegion;
+        }
+    }
+
+    private interface Writable{
+        void writeTo(FileChannel channel) throws IOException;
+    }
+
+    private Path writeToFile(Writable array) throws IOException{
+        File file = tmpDir.newFile();
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)){
+            array.writeTo(channel);
+        }
+        return file.toPath();
+    }
+
+    @Test
+    public void emptyArrayRoundTrip() throws IOException{
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new GrowableCharArray(10).writeTo(Channels.newChannel(out));
+        GrowableCharArray actual = GrowableCharArray.readFrom(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+        assertEquals(0, actual.getCurrentLength());
+    }
+
+    @Test
+    public void byteAndShortRoundTrip() throws IOException{
+        byte[] bytes = new byte[200_000];
+        random.nextBytes(bytes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new GrowableByteArray(bytes).writeTo(Channels.newChannel(out));
+        assertArrayEquals(bytes, GrowableByteArray.readFrom(Channels.newChannel(new ByteArrayInputStream(out.toByteArray()))).toArray());
+
+        short[] shorts = {1, -2, 3, Short.MAX_VALUE};
+        out.reset();
+        new GrowableShortArray(shorts).writeTo(Channels.newChannel(out));
+        assertArrayEquals(shorts, GrowableShortArray.readFrom(Channels.newChannel(new ByteArrayInputStream(out.toByteArray()))).toArray());
+    }
+
+    @Test(expected = IOException.class)
+    public void readingWrongTypeShouldThrowIOException() throws IOException{
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new GrowableIntArray(new int[]{1, 2, 3}).writeTo(Channels.newChannel(out));
+        GrowableLongArray.readFrom(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedFileShouldThrowEOFException() throws IOException{
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new GrowableIntArray(new int[]{1, 2, 3}).writeTo(Channels.newChannel(out));
+        File file = tmpDir.newFile();
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)){
+            channel.write(ByteBuffer.wrap(Arrays.copyOf(out.toByteArray(), out.size() -1)));
+        }
+        GrowableIntArray.mapFrom(file.toPath());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+public class TestGrowableArrayParallelSearch {
+
+    private final Random random = new Random(99);
+
+    @Test
+    public void parallelSortMatchesSort(){
+        long[] values = random.longs(100_000, -1_000, 1_000).toArray();
+        GrowableLongArray sut = new GrowableLongArray(values);
+        sut.append(5L);
+        sut.parallelSort();
+
+        long[] expected = Arrays.copyOf(values, values.length +1);
+        expected[values.length] = 5L;
+        Arrays.sort(expected);
+        assertArrayEquals(expected, sut.toArray());
+    }
+
+    @Test
+    public void binarySearchAllMatchesBinarySearch(){
+        assertSearchAllMatchesBinarySearch(new GrowableIntArray(random.ints(10_000, 0, 50_000).toArray()), 1_000);
+    }
+
+    @Test
+    public void binarySearchAllLargeKeySetSearchesInParallel(){
+        assertSearchAllMatchesBinarySearch(new GrowableIntArray(random.ints(200_000, 0, 1_000_000).toArray()), 300_000);
+    }
+
+    @Test
+    public void binarySearchAllOnSegmentedArray(){
+        GrowableIntArray sut = new GrowableIntArray(0, true);
+        sut.append(random.ints(50_000, 0, 100_000).toArray());
+        assertSearchAllMatchesBinarySearch(sut, 5_000);
+    }
+
+    @Test
+    public void binarySearchAllKeysOutsideValues(){
+        GrowableShortArray sut = new GrowableShortArray(new short[]{10, 20, 30});
+        assertArrayEquals(new int[]{-1, -1, 1, -4}, sut.binarySearchAll(new short[]{-5, 5, 20, 40}));
+        assertEquals(0, new GrowableShortArray(0).binarySearchAll(new short[0]).length);
+    }
+
+    private void assertSearchAllMatchesBinarySearch(GrowableIntArray sut, int numberOfKeys){
+        sut.parallelSort();
+        int[] keys = random.ints(numberOfKeys, -10, 1_100_000).toArray();
+        Arrays.sort(keys);
+        int[] actual = sut.binarySearchAll(keys);
+        for(int i=0; i< keys.length; i++){
+            int expected = sut.binarySearch(keys[i]);
+            if(expected >=0){
+                //duplicates may be found at any matching index
+                assertTrue(actual[i] >=0);
+                assertEquals(keys[i], sut.get(actual[i]));
+            }else{
+                assertEquals(expected, actual[i]);
+            }
+        }
+    }
+}
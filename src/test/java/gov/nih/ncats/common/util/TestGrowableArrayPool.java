@@ -0,0 +1,117 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+public class TestGrowableArrayPool {
+
+    @Test
+    public void acquiredArrayIsEmptyWithEnoughCapacity(){
+        GrowableCharArray array = GrowableCharArray.acquire(200);
+        assertEquals(0, array.getCurrentLength());
+        assertTrue(array.getCurrentCapacity() >= 200);
+        array.release();
+    }
+
+    @Test
+    public void releasedArrayIsReusedAndCleared(){
+        GrowableByteArray array = GrowableByteArray.acquire(100);
+        array.append(new byte[]{1, 2, 3});
+        array.release();
+
+        GrowableByteArray reused = GrowableByteArray.acquire(100);
+        assertSame(array, reused);
+        assertEquals(0, reused.getCurrentLength());
+        reused.release();
+    }
+
+    @Test
+    public void grownArrayGoesToLargerBucket(){
+        GrowableCharArray array = GrowableCharArray.acquire(20);
+        for(int i=0; i< 1000; i++){
+            array.append('x');
+        }
+        array.release();
+
+        GrowableCharArray big = GrowableCharArray.acquire(1000);
+        assertSame(array, big);
+        big.release();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releasingTwiceIsAnError(){
+        GrowableCharArray array = GrowableCharArray.acquire(50);
+        array.release();
+        try{
+            array.release();
+        }finally{
+            //leave the pool empty for other tests
+            GrowableCharArray.acquire(50);
+        }
+    }
+
+    @Test
+    public void retainedMemoryIsCapped(){
+        GrowableArrayPool<GrowableByteArray> pool = new GrowableArrayPool<>(GrowableByteArray::new,
+                GrowableByteArray::getCurrentCapacity, GrowableByteArray::clear, 1, 1024);
+        GrowableByteArray first = pool.acquire(1024);
+        GrowableByteArray second = pool.acquire(1024);
+        pool.release(first);
+        pool.release(second);
+
+        assertSame(first, pool.acquire(1024));
+        assertNotSame(second, pool.acquire(1024));
+    }
+
+    @Test
+    public void hugeAndSegmentedArraysAreNotPooled(){
+        GrowableByteArray segmented = new GrowableByteArray(64, true);
+        segmented.append((byte)1);
+        segmented.release();
+        assertNotSame(segmented, GrowableByteArray.acquire(64));
+
+        GrowableArrayPool<GrowableByteArray> pool = new GrowableArrayPool<>(GrowableByteArray::new,
+                GrowableByteArray::getCurrentCapacity, GrowableByteArray::clear, 1, Long.MAX_VALUE);
+        GrowableByteArray huge = pool.acquire(1 << 22);
+        pool.release(huge);
+        assertNotSame(huge, pool.acquire(1 << 22));
+    }
+
+    @Test
+    public void eachThreadHasItsOwnPool() throws Exception{
+        GrowableCharArray array = GrowableCharArray.acquire(300);
+        array.release();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try{
+            Future<GrowableCharArray> other = executor.submit(() -> GrowableCharArray.acquire(300));
+            assertNotSame(array, other.get());
+        }finally{
+            executor.shutdown();
+        }
+        assertSame(array, GrowableCharArray.acquire(300));
+    }
+}
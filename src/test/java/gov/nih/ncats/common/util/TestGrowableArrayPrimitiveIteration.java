@@ -0,0 +1,79 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.*;
+public class TestGrowableArrayPrimitiveIteration {
+
+    @Test
+    public void intIteratorDoesNotBox(){
+        GrowableIntArray sut = new GrowableIntArray(new int[]{3, 1, 2});
+        PrimitiveIterator.OfInt iter = sut.intIterator();
+        assertEquals(3, iter.nextInt());
+        assertEquals(1, iter.nextInt());
+        assertEquals(2, iter.nextInt());
+        assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void spliteratorIsSizedAndSplitsInHalf(){
+        GrowableLongArray sut = new GrowableLongArray(LongStream.range(0, 1000).toArray());
+        Spliterator.OfLong spliterator = sut.longSpliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        assertEquals(1000, spliterator.getExactSizeIfKnown());
+
+        Spliterator.OfLong prefix = spliterator.trySplit();
+        assertEquals(500, prefix.estimateSize());
+        assertEquals(500, spliterator.estimateSize());
+        assertEquals(0, StreamSupport.longStream(prefix, false).min().getAsLong());
+        assertEquals(500, StreamSupport.longStream(spliterator, false).min().getAsLong());
+    }
+
+    @Test
+    public void parallelStreamOfSegmentedArray(){
+        GrowableIntArray sut = new GrowableIntArray(0, true);
+        sut.append(IntStream.range(0, 100_000).toArray());
+        assertEquals(IntStream.range(0, 100_000).asLongStream().sum(), sut.stream().parallel().asLongStream().sum());
+        assertArrayEquals(IntStream.rangeClosed(40_000, 40_010).toArray(), sut.stream(new Range(40_000, 40_010)).toArray());
+    }
+
+    @Test
+    public void shortAndCharStreamsWidenValues(){
+        assertArrayEquals(new int[]{-1, 2}, new GrowableShortArray(new short[]{-1, 2}).stream().toArray());
+        assertEquals("ab", new GrowableCharArray(new char[]{'a', 'b'}).stream()
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString());
+        assertArrayEquals(new int[]{-3, 4}, new GrowableByteArray(new byte[]{-3, 4}).stream().toArray());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void spliteratorFailsFastIfArrayModified(){
+        GrowableIntArray sut = new GrowableIntArray(new int[]{1, 2, 3});
+        sut.intSpliterator().forEachRemaining((int value) -> sut.append(value));
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+public class TestGrowableArrayRadixSort {
+
+    private static final int[] LENGTHS = {0, 1, 10, 300, 5_000, 200_000};
+
+    private final Random random = new Random(42);
+
+    private int[] randomInts(int length){
+        int[] values = new int[length];
+        for(int i=0; i< length; i++){
+            //mix of full range values and lots of duplicates
+            values[i] = i %3 ==0 ? random.nextInt(100) - 50 : random.nextInt();
+        }
+        return values;
+    }
+
+    private long[] randomLongs(int length){
+        long[] values = new long[length];
+        for(int i=0; i< length; i++){
+            values[i] = i %3 ==0 ? random.nextInt(100) - 50 : random.nextLong();
+        }
+        return values;
+    }
+
+    private short[] randomShorts(int length){
+        short[] values = new short[length];
+        for(int i=0; i< length; i++){
+            values[i] = (short) random.nextInt();
+        }
+        return values;
+    }
+
+    private static GrowableIntArray ints(int[] values, boolean segmented){
+        GrowableIntArray array = new GrowableIntArray(1, segmented);
+        array.append(values);
+        return array;
+    }
+
+    @Test
+    public void radixSortInts(){
+        for(int length : LENGTHS){
+            int[] values = randomInts(length);
+            int[] expected = values.clone();
+            Arrays.sort(expected);
+            for(boolean segmented : new boolean[]{false, true}){
+                GrowableIntArray sut = ints(values, segmented);
+                sut.radixSort();
+                assertArrayEquals(expected, sut.toArray());
+
+                sut = ints(values, segmented);
+                sut.parallelRadixSort();
+                assertArrayEquals(expected, sut.toArray());
+            }
+        }
+    }
+
+    @Test
+    public void radixSortIntExtremes(){
+        int[] values = new int[1000];
+        for(int i=0; i< values.length; i++){
+            values[i] = i %2 ==0 ? Integer.MIN_VALUE + i : Integer.MAX_VALUE - i;
+        }
+        int[] expected = values.clone();
+        Arrays.sort(expected);
+        GrowableIntArray sut = ints(values, false);
+        sut.radixSort();
+        assertArrayEquals(expected, sut.toArray());
+    }
+
+    @Test
+    public void radixSortLongs(){
+        for(int length : LENGTHS){
+            long[] values = randomLongs(length);
+            long[] expected = values.clone();
+            Arrays.sort(expected);
+            for(boolean segmented : new boolean[]{false, true}){
+                GrowableLongArray sut = new GrowableLongArray(1, segmented);
+                sut.append(values);
+                sut.radixSort();
+                assertArrayEquals(expected, sut.toArray());
+
+                sut = new GrowableLongArray(1, segmented);
+                sut.append(values);
+                sut.parallelRadixSort();
+                assertArrayEquals(expected, sut.toArray());
+            }
+        }
+    }
+
+    @Test
+    public void radixSortShorts(){
+        for(int length : LENGTHS){
+            short[] values = randomShorts(length);
+            short[] expected = values.clone();
+            Arrays.sort(expected);
+            for(boolean segmented : new boolean[]{false, true}){
+                GrowableShortArray sut = new GrowableShortArray(1, segmented);
+                sut.append(values);
+                sut.radixSort();
+                assertArrayEquals(expected, sut.toArray());
+
+                sut = new GrowableShortArray(1, segmented);
+                sut.append(values);
+                sut.parallelRadixSort();
+                assertArrayEquals(expected, sut.toArray());
+            }
+        }
+    }
+
+    @Test
+    public void argsortIsStableAndReordersParallelArrays(){
+        for(int length : LENGTHS){
+            int[] keys = randomInts(length);
+            long[] longKeys = randomLongs(length);
+            short[] shortKeys = randomShorts(length);
+
+            GrowableIntArray sut = ints(keys, false);
+            GrowableIntArray permutation = sut.argsort();
+            assertStableSortPermutation(permutation, i -> keys[i]);
+            assertArrayEquals(keys, sut.toArray());
+
+            GrowableIntArray ids = new GrowableIntArray(length);
+            for(int i=0; i< length; i++){
+                ids.append(i * 7);
+            }
+            sut.reorder(permutation);
+            ids.reorder(permutation);
+            int[] expected = keys.clone();
+            Arrays.sort(expected);
+            assertArrayEquals(expected, sut.toArray());
+            for(int i=0; i< length; i++){
+                assertEquals(permutation.get(i) * 7, ids.get(i));
+            }
+
+            GrowableLongArray longs = new GrowableLongArray(1, true);
+            longs.append(longKeys);
+            assertStableSortPermutation(longs.argsort(), i -> longKeys[i]);
+
+            GrowableShortArray shorts = new GrowableShortArray(1);
+            shorts.append(shortKeys);
+            assertStableSortPermutation(shorts.argsort(), i -> shortKeys[i]);
+        }
+    }
+
+    private interface Key{
+        long get(int offset);
+    }
+
+    private static void assertStableSortPermutation(GrowableIntArray permutation, Key key){
+        for(int i=1; i< permutation.getCurrentLength(); i++){
+            long previous = key.get(permutation.get(i-1));
+            long current = key.get(permutation.get(i));
+            assertTrue(previous <= current);
+            if(previous == current){
+                assertTrue(permutation.get(i-1) < permutation.get(i));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reorderRejectsDuplicateOffsets(){
+        GrowableLongArray sut = new GrowableLongArray(new long[]{1, 2, 3});
+        sut.reorder(new GrowableIntArray(new int[]{0, 1, 1}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reorderRejectsWrongLength(){
+        GrowableShortArray sut = new GrowableShortArray(new short[]{1, 2, 3});
+        sut.reorder(new GrowableIntArray(new int[]{0, 1}));
+    }
+}
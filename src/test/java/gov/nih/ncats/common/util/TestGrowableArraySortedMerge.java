@@ -0,0 +1,89 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+public class TestGrowableArraySortedMerge {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void mergeUnsortedBatchMatchesSortedInsert(){
+        int[] initial = randomInts(1_000);
+        Arrays.sort(initial);
+        int[] batch = randomInts(20_000);
+        int[] batchCopy = Arrays.copyOf(batch, batch.length);
+
+        GrowableIntArray expected = new GrowableIntArray(initial);
+        for(int value : batch){
+            expected.sortedInsert(value);
+        }
+        GrowableIntArray sut = new GrowableIntArray(initial);
+        sut.sortedMerge(batch, false);
+
+        assertArrayEquals(expected.toArray(), sut.toArray());
+        assertArrayEquals("caller's array should not be sorted", batchCopy, batch);
+    }
+
+    @Test
+    public void mergeAlreadySortedBatch(){
+        GrowableLongArray sut = new GrowableLongArray(new long[]{1, 5, 9});
+        sut.sortedMerge(new long[]{0, 5, 10}, true);
+        assertArrayEquals(new long[]{0, 1, 5, 5, 9, 10}, sut.toArray());
+    }
+
+    @Test
+    public void removeDuplicates(){
+        GrowableIntArray sut = new GrowableIntArray(new int[]{1, 1, 3, 7});
+        sut.sortedMerge(new int[]{7, 3, 2, 2, 8}, false, true);
+        assertArrayEquals(new int[]{1, 2, 3, 7, 8}, sut.toArray());
+    }
+
+    @Test
+    public void mergeIntoEmptyArray(){
+        GrowableByteArray sut = new GrowableByteArray();
+        sut.sortedMerge(new byte[]{3, -1, 2}, false);
+        assertArrayEquals(new byte[]{-1, 2, 3}, sut.toArray());
+    }
+
+    @Test
+    public void mergeIntoSegmentedArray(){
+        GrowableIntArray sut = new GrowableIntArray(0, true);
+        sut.append(IntStream.range(0, 20_000).map(i -> i * 2).toArray());
+        sut.sortedMerge(IntStream.range(0, 20_000).map(i -> i * 2 + 1).toArray(), true);
+
+        assertTrue(sut.isSegmented());
+        assertArrayEquals(IntStream.range(0, 40_000).toArray(), sut.toArray());
+    }
+
+    private int[] randomInts(int length){
+        int[] values = new int[length];
+        for(int i=0; i< length; i++){
+            values[i] = random.nextInt(5_000);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package gov.nih.ncats.common.util;
+
+import gov.nih.ncats.common.io.TextLineParser;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ConcurrentModificationException;
+
+import static org.junit.Assert.*;
+public class TestGrowableArrayStreams {
+
+    private static final int LARGE = 50_000;
+
+    private static byte[] bytes(int length){
+        byte[] bytes = new byte[length];
+        for(int i=0; i< length; i++){
+            bytes[i] = (byte) (i * 31);
+        }
+        return bytes;
+    }
+
+    private static GrowableByteArray byteArray(byte[] values, boolean segmented){
+        GrowableByteArray array = new GrowableByteArray(1, segmented);
+        array.append(values);
+        return array;
+    }
+
+    @Test
+    public void inputStreamReadsWithoutCopying() throws IOException{
+        byte[] expected = bytes(LARGE);
+        for(boolean segmented : new boolean[]{false, true}){
+            InputStream in = byteArray(expected, segmented).asInputStream();
+            assertEquals(LARGE, in.available());
+            assertEquals(expected[0] & 0xFF, in.read());
+            byte[] buffer = new byte[LARGE];
+            int offset = 1;
+            int n;
+            while((n = in.read(buffer, offset, Math.min(7_000, LARGE - offset))) > 0){
+                offset += n;
+            }
+            assertEquals(LARGE, offset);
+            assertEquals(-1, in.read());
+            buffer[0] = expected[0];
+            assertArrayEquals(expected, buffer);
+        }
+    }
+
+    @Test
+    public void skipMarkAndReset() throws IOException{
+        InputStream in = byteArray(new byte[]{1, 2, 3, 4, 5}, true).asInputStream();
+        assertEquals(2, in.skip(2));
+        assertTrue(in.markSupported());
+        in.mark(10);
+        assertEquals(3, in.read());
+        in.reset();
+        assertEquals(3, in.read());
+        assertEquals(2, in.skip(100));
+        assertEquals(0, in.skip(-1));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void transferToWritesRemainingBytes() throws Exception{
+        byte[] expected = bytes(LARGE);
+        for(boolean segmented : new boolean[]{false, true}){
+            InputStream in = byteArray(expected, segmented).asInputStream();
+            in.skip(10);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            //call through reflection so this compiles against Java 8
+            Method transferTo = in.getClass().getMethod("transferTo", OutputStream.class);
+            transferTo.setAccessible(true);
+            assertEquals((long) LARGE - 10, transferTo.invoke(in, out));
+            byte[] actual = out.toByteArray();
+            assertEquals(LARGE - 10, actual.length);
+            for(int i=0; i< actual.length; i++){
+                assertEquals(expected[i + 10], actual[i]);
+            }
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void inputStreamFailsFastWhenArrayChanges() throws IOException{
+        GrowableByteArray array = byteArray(new byte[]{1, 2, 3}, false);
+        InputStream in = array.asInputStream();
+        in.read();
+        array.append((byte) 4);
+        in.read();
+    }
+
+    @Test
+    public void outputStreamAppends() throws IOException{
+        GrowableByteArray array = new GrowableByteArray(2, true);
+        try(OutputStream out = array.asOutputStream()){
+            out.write(7);
+            out.write(new byte[]{1, 2, 3, 4}, 1, 2);
+            out.write(bytes(LARGE));
+        }
+        assertEquals(LARGE + 3, array.getCurrentLength());
+        assertEquals(7, array.get(0));
+        assertEquals(2, array.get(1));
+        assertEquals(3, array.get(2));
+        assertEquals(bytes(LARGE)[LARGE -1], array.get(LARGE + 2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void appendRangeOutOfBounds(){
+        new GrowableByteArray(2).append(new byte[3], 2, 2);
+    }
+
+    @Test
+    public void readerAndWriterRoundTrip() throws Exception{
+        for(boolean segmented : new boolean[]{false, true}){
+            GrowableCharArray array = new GrowableCharArray(4, segmented);
+            try(Writer writer = array.asWriter()){
+                writer.write("hello ");
+                writer.append(new StringBuilder("big world"), 4, 9);
+                writer.write('!');
+                writer.write(" xyz".toCharArray(), 0, 2);
+                writer.append(null);
+            }
+            assertEquals("hello world! xnull", array.toString());
+
+            Reader reader = array.asReader();
+            assertEquals('h', reader.read());
+            assertEquals(5, reader.skip(5));
+            char[] buffer = new char[5];
+            assertEquals(5, reader.read(buffer));
+            assertEquals("world", new String(buffer));
+            StringWriter rest = new StringWriter();
+            Method transferTo = reader.getClass().getMethod("transferTo", Writer.class);
+            transferTo.setAccessible(true);
+            assertEquals(7L, transferTo.invoke(reader, rest));
+            assertEquals("! xnull", rest.toString());
+            assertEquals(-1, reader.read());
+        }
+    }
+
+    @Test
+    public void textLineParserOverInMemoryBytes() throws IOException{
+        GrowableByteArray array = new GrowableByteArray(16);
+        try(Writer writer = new OutputStreamWriter(array.asOutputStream(), StandardCharsets.UTF_8)){
+            writer.write("line 1\nline 2\r\nline 3");
+        }
+        TextLineParser parser = new TextLineParser(array.asInputStream());
+        assertEquals("line 1\n", parser.nextLine());
+        assertEquals("line 2\r\n", parser.nextLine());
+        assertEquals("line 3", parser.nextLine());
+        assertFalse(parser.hasNextLine());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ConcurrentModificationException;
+
+import static org.junit.Assert.*;
+public class TestGrowableArrayViews {
+
+    @Test
+    public void viewSharesParentValues(){
+        GrowableByteArray sut = new GrowableByteArray(new byte[]{1, 2, 3, 4, 5});
+        GrowableByteArray.View view = sut.view(new Range(1, 3));
+
+        assertEquals(3, view.getLength());
+        assertArrayEquals(new byte[]{2, 3, 4}, view.toArray());
+        assertArrayEquals(new int[]{2, 3, 4}, view.stream().toArray());
+
+        sut.replace(2, (byte) 42);
+        assertTrue(view.isValid());
+        assertEquals(42, view.get(1));
+    }
+
+    @Test
+    public void viewFailsFastAfterParentGrows(){
+        GrowableIntArray sut = new GrowableIntArray(new int[]{1, 2, 3});
+        GrowableIntArray.View view = sut.view(new Range(0, 1));
+        sut.append(4);
+
+        assertFalse(view.isValid());
+        try{
+            view.get(0);
+            fail("should throw ConcurrentModificationException");
+        }catch(ConcurrentModificationException expected){
+            //expected
+        }
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void viewFailsFastAfterParentRemoves(){
+        GrowableLongArray sut = new GrowableLongArray(new long[]{1, 2, 3});
+        GrowableLongArray.View view = sut.view(new Range(0, 1));
+        sut.remove(0);
+        view.toArray();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void viewOutOfRangeShouldThrowException(){
+        new GrowableIntArray(new int[]{1, 2, 3}).view(new Range(1, 3));
+    }
+
+    @Test
+    public void asByteBufferWrapsCurrentValues(){
+        GrowableByteArray sut = new GrowableByteArray(100);
+        sut.append(new byte[]{9, 8, 7});
+        ByteBuffer buffer = sut.asByteBuffer();
+
+        assertTrue(buffer.isReadOnly());
+        assertEquals(0, buffer.position());
+        assertEquals(3, buffer.limit());
+        assertEquals(8, buffer.get(1));
+
+        sut.replace(1, (byte) 0);
+        assertEquals("buffer shares storage", 0, buffer.get(1));
+
+        ByteBuffer viewBuffer = sut.view(new Range(1, 2)).asByteBuffer();
+        assertEquals(2, viewBuffer.remaining());
+        assertEquals(7, viewBuffer.get(1));
+    }
+
+    @Test
+    public void asIntBufferOfSegmentedArray(){
+        GrowableIntArray sut = new GrowableIntArray(0, true);
+        for(int i=0; i< 20_000; i++){
+            sut.append(i);
+        }
+        IntBuffer buffer = sut.asIntBuffer();
+        assertEquals(20_000, buffer.remaining());
+        assertEquals(19_999, buffer.get(19_999));
+    }
+}
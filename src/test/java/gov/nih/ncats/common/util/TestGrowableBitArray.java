@@ -0,0 +1,145 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+public class TestGrowableBitArray {
+
+    private final Random random = new Random(1234);
+
+    @Test
+    public void randomEditsMatchBooleanList(){
+        GrowableBitArray sut = new GrowableBitArray(10);
+        List<Boolean> expected = new ArrayList<>();
+        for(int i=0; i< 5_000; i++){
+            int op = random.nextInt(5);
+            boolean value = random.nextBoolean();
+            if(op ==0 || expected.isEmpty()){
+                sut.append(value);
+                expected.add(value);
+            }else if(op ==1){
+                int offset = random.nextInt(expected.size()+1);
+                boolean[] values = randomBits(random.nextInt(150));
+                sut.insert(offset, values);
+                for(int j=0; j< values.length; j++){
+                    expected.add(offset +j, values[j]);
+                }
+            }else if(op ==2){
+                int offset = random.nextInt(expected.size());
+                assertEquals(expected.remove(offset), sut.remove(offset));
+            }else if(op==3){
+                int offset = random.nextInt(expected.size());
+                sut.replace(offset, value);
+                expected.set(offset, value);
+            }else{
+                int offset = random.nextInt(expected.size()+1);
+                boolean[] values = randomBits(random.nextInt(150));
+                sut.insert(offset, new GrowableBitArray(values));
+                for(int j=0; j< values.length; j++){
+                    expected.add(offset +j, values[j]);
+                }
+            }
+        }
+        assertBitsEqual(expected, sut);
+
+        sut.reverse();
+        List<Boolean> reversed = new ArrayList<>(expected);
+        Collections.reverse(reversed);
+        assertBitsEqual(reversed, sut);
+    }
+
+    @Test
+    public void onBitsAndBitSetConversion(){
+        boolean[] bits = randomBits(1_000);
+        GrowableBitArray sut = new GrowableBitArray(bits);
+
+        List<Integer> expectedOns = IntStream.range(0, bits.length).filter(i-> bits[i]).boxed().collect(Collectors.toList());
+        assertEquals(expectedOns, sut.onBitsAsStream().boxed().collect(Collectors.toList()));
+        assertEquals(expectedOns.size(), sut.cardinality());
+
+        BitSet bs = sut.asBitSet();
+        assertEquals(expectedOns, bs.stream().boxed().collect(Collectors.toList()));
+        GrowableBitArray fromBitSet = new GrowableBitArray(bs);
+        assertEquals(expectedOns, fromBitSet.onBitsAsStream().boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void bulkOperationsMatchBitSet(){
+        boolean[] a = randomBits(700);
+        boolean[] b = randomBits(300);
+
+        BitSet expected = new GrowableBitArray(a).asBitSet();
+        BitSet other = new GrowableBitArray(b).asBitSet();
+
+        GrowableBitArray sut = new GrowableBitArray(a);
+        sut.and(new GrowableBitArray(b));
+        BitSet and = (BitSet) expected.clone();
+        and.and(other);
+        assertEquals(and, sut.asBitSet());
+        assertEquals(700, sut.getCurrentLength());
+
+        sut = new GrowableBitArray(b);
+        sut.or(new GrowableBitArray(a));
+        BitSet or = (BitSet) expected.clone();
+        or.or(other);
+        assertEquals(or, sut.asBitSet());
+        assertEquals(700, sut.getCurrentLength());
+
+        sut = new GrowableBitArray(a);
+        sut.xor(new GrowableBitArray(b));
+        BitSet xor = (BitSet) expected.clone();
+        xor.xor(other);
+        assertEquals(xor, sut.asBitSet());
+
+        sut = new GrowableBitArray(a);
+        sut.andNot(new GrowableBitArray(b));
+        BitSet andNot = (BitSet) expected.clone();
+        andNot.andNot(other);
+        assertEquals(andNot, sut.asBitSet());
+    }
+
+    private boolean[] randomBits(int length){
+        boolean[] bits = new boolean[length];
+        for(int i=0; i< length; i++){
+            bits[i] = random.nextBoolean();
+        }
+        return bits;
+    }
+
+    private static void assertBitsEqual(List<Boolean> expected, GrowableBitArray actual){
+        assertEquals(expected.size(), actual.getCurrentLength());
+        boolean[] array = actual.toArray();
+        for(int i=0; i< expected.size(); i++){
+            assertEquals("offset " + i, expected.get(i), actual.get(i));
+            assertEquals("offset " + i, expected.get(i), array[i]);
+        }
+        assertEquals(expected.stream().filter(b->b).count(), actual.cardinality());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+public class TestGrowableCharArrayCharSequence {
+
+    private static GrowableCharArray of(String s, boolean segmented){
+        GrowableCharArray array = new GrowableCharArray(4, segmented);
+        array.append(s.toCharArray());
+        return array;
+    }
+
+    @Test
+    public void charSequenceMethods(){
+        for(boolean segmented : new boolean[]{false, true}){
+            GrowableCharArray sut = of("hello world", segmented);
+            assertEquals(11, sut.length());
+            assertEquals('w', sut.charAt(6));
+            assertEquals("hello world", sut.toString());
+            assertEquals("world", sut.subSequence(6, 11).toString());
+            assertEquals("or", sut.subSequence(6, 11).subSequence(1, 3).toString());
+            assertEquals("hello world", sut.chars().collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString());
+            assertEquals("hello world", new StringBuilder(sut).toString());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void subSequenceOutOfBounds(){
+        of("abc", false).subSequence(1, 4);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void subSequenceIsInvalidatedByParentChange(){
+        GrowableCharArray sut = of("abcdef", false);
+        CharSequence sub = sut.subSequence(1, 4).subSequence(0, 2);
+        sut.append('g');
+        sub.charAt(0);
+    }
+
+    @Test
+    public void contentEqualsAndHashCode(){
+        GrowableCharArray sut = of("some text", false);
+        assertTrue(sut.contentEquals("some text"));
+        assertTrue(sut.contentEquals(of("some text", true)));
+        assertTrue(sut.contentEquals(new StringBuilder("some text")));
+        assertFalse(sut.contentEquals("some texT"));
+        assertFalse(sut.contentEquals("some tex"));
+        assertEquals("some text".hashCode(), sut.contentHashCode());
+        assertEquals(0, new GrowableCharArray(2).contentHashCode());
+    }
+
+    @Test
+    public void parseIntAndLong(){
+        GrowableCharArray sut = of("x,-2147483648,+42,9223372036854775807,-9223372036854775808", false);
+        assertEquals(Integer.MIN_VALUE, sut.parseInt(2, 13));
+        assertEquals(42, sut.parseInt(new Range(14, 16)));
+        assertEquals(Long.MAX_VALUE, sut.parseLong(18, 37));
+        assertEquals(Long.MIN_VALUE, sut.parseLong(38, sut.length()));
+    }
+
+    @Test
+    public void invalidIntegersThrowNumberFormatException(){
+        for(String s : new String[]{"", "-", "+", "12a", "2147483648", "9223372036854775808", "--1", " 1"}){
+            GrowableCharArray sut = of(s, false);
+            try{
+                sut.parseInt(0, sut.length());
+                fail("expected NumberFormatException for '" + s + "'");
+            }catch(NumberFormatException expected){
+                //expected
+            }
+        }
+    }
+
+    @Test
+    public void parseDoubleMatchesDouble(){
+        String[] values = {"0", "-0", "1", "-1.5", "3.14159", ".5", "5.", "1e10", "1.5E-7", "-2.5e+3",
+                "0.000001", "123456789012345", "1234567890123456789", "1e300", "4.9e-324",
+                "NaN", "-Infinity", "0x1p3", "1.0d", "007.250"};
+        Random random = new Random(1234);
+        for(boolean segmented : new boolean[]{false, true}){
+            for(String value : values){
+                GrowableCharArray sut = of("[" + value + "]", segmented);
+                assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)),
+                        Double.doubleToLongBits(sut.parseDouble(1, sut.length() -1)));
+            }
+            for(int i=0; i< 2000; i++){
+                String value = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(20) - 10));
+                GrowableCharArray sut = of(value, segmented);
+                assertEquals(value, Double.parseDouble(value), sut.parseDouble(new Range(0, sut.length() -1)), 0D);
+            }
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void invalidDoubleThrowsNumberFormatException(){
+        GrowableCharArray sut = of("1.2.3", false);
+        sut.parseDouble(0, sut.length());
+    }
+}
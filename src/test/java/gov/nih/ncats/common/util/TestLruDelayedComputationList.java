@@ -21,6 +21,13 @@ package gov.nih.ncats.common.util;
 import org.junit.Test;
 
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.Assert.*;
 public class TestLruDelayedComputationList {
@@ -90,4 +97,44 @@ public class TestLruDelayedComputationList {
             assertTrue(list.getAsCachedSupplier(i).hasRun());
         }
     }
+
+    @Test
+    public void removeWhileReadAheadIsComputingElement() throws Exception{
+        LruDelayedComputationList<Integer> list = new LruDelayedComputationList<>(10, 5);
+        for(int i=0; i< 3; i++){
+            int value = i;
+            list.add(()-> value);
+        }
+        CountDownLatch firing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        //block the background thread while it is notifying listeners
+        list.getAsCachedSupplier(1).addListener(()->{
+            firing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<Future<?>> background = new CopyOnWriteArrayList<>();
+        try {
+            list.enableReadAhead(r -> background.add(executor.submit(r)), 1);
+            assertEquals(Integer.valueOf(0), list.get(0));
+            assertTrue(firing.await(10, TimeUnit.SECONDS));
+
+            CachedSupplier<Integer> removed = list.removeAsCachedSupplier(1);
+            release.countDown();
+
+            assertEquals(1, background.size());
+            //would throw an ExecutionException if the listeners were modified while firing
+            background.get(0).get(10, TimeUnit.SECONDS);
+            assertTrue(removed.hasRun());
+            assertEquals(Integer.valueOf(1), removed.get());
+            assertEquals(Integer.valueOf(2), list.get(1));
+        }finally{
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
 }
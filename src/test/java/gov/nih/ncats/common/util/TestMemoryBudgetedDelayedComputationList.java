@@ -0,0 +1,186 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+public class TestMemoryBudgetedDelayedComputationList {
+
+    @Test
+    public void evictsLeastRecentlyUsedUntilUnderBudget(){
+        MemoryBudgetedDelayedComputationList<byte[]> list = new MemoryBudgetedDelayedComputationList<>(10, 1_000, a-> a.length);
+        list.add(()-> new byte[400]);
+        list.add(()-> new byte[400]);
+        list.add(()-> new byte[100]);
+        list.add(()-> new byte[500]);
+
+        list.get(0);
+        list.get(1);
+        list.get(2);
+        assertEquals(900, list.getTotalBytes());
+        //touch 0 so 1 is now the least recently used
+        list.get(0);
+        list.get(3);
+
+        assertTrue(list.getAsCachedSupplier(0).hasRun());
+        assertFalse(list.getAsCachedSupplier(1).hasRun());
+        assertTrue(list.getAsCachedSupplier(2).hasRun());
+        assertTrue(list.getAsCachedSupplier(3).hasRun());
+        assertEquals(1_000, list.getTotalBytes());
+    }
+
+    @Test
+    public void alwaysKeepsMostRecentEvenIfOverBudget(){
+        MemoryBudgetedDelayedComputationList<byte[]> list = new MemoryBudgetedDelayedComputationList<>(10, 100, a-> a.length);
+        list.add(()-> new byte[50]);
+        list.add(()-> new byte[500]);
+
+        list.get(0);
+        list.get(1);
+        assertFalse(list.getAsCachedSupplier(0).hasRun());
+        assertTrue(list.getAsCachedSupplier(1).hasRun());
+        assertEquals(500, list.getTotalBytes());
+    }
+
+    @Test
+    public void removedElementNoLongerCounts(){
+        MemoryBudgetedDelayedComputationList<byte[]> list = new MemoryBudgetedDelayedComputationList<>(10, 1_000, a-> a.length);
+        list.add(()-> new byte[400]);
+        list.add(()-> new byte[400]);
+        list.get(0);
+        list.get(1);
+        list.remove(0);
+        assertEquals(400, list.getTotalBytes());
+    }
+
+    @Test
+    public void softReferencesStillCacheValues(){
+        MemoryBudgetedDelayedComputationList<Integer> list = new MemoryBudgetedDelayedComputationList<>(10, 1_000, i-> 4, true);
+        AtomicInteger counter = new AtomicInteger();
+        for(int i=0; i< 10; i++){
+            list.add(counter::getAndIncrement);
+        }
+        for(int i=0; i< 10; i++){
+            assertEquals(Integer.valueOf(i), list.get(i));
+        }
+        //strongly held by the Integer cache so they won't be cleared
+        for(int i=0; i< 10; i++){
+            assertEquals(Integer.valueOf(i), list.get(i));
+        }
+        assertEquals(40, list.getTotalBytes());
+    }
+
+    @Test
+    public void resetCacheForgetsWeights(){
+        MemoryBudgetedDelayedComputationList<byte[]> list = new MemoryBudgetedDelayedComputationList<>(10, 1_000, a-> a.length);
+        list.add(()-> new byte[400]);
+        list.add(()-> new byte[400]);
+        list.add(()-> new byte[400]);
+        list.get(0);
+        list.get(1);
+        list.resetCache();
+        assertEquals(0, list.getTotalBytes());
+
+        //nothing should be evicted to pay for the values that were reset
+        list.get(1);
+        list.get(2);
+        assertTrue(list.getAsCachedSupplier(1).hasRun());
+        assertTrue(list.getAsCachedSupplier(2).hasRun());
+        assertEquals(800, list.getTotalBytes());
+    }
+
+    @Test
+    public void resetAllCachesForgetsWeights(){
+        MemoryBudgetedDelayedComputationList<byte[]> list = new MemoryBudgetedDelayedComputationList<>(10, 1_000, a-> a.length);
+        list.add(()-> new byte[400]);
+        list.add(()-> new byte[400]);
+        list.get(0);
+        list.get(1);
+        CachedSupplier.resetAllCaches();
+        assertEquals(0, list.getTotalBytes());
+        list.get(0);
+        assertEquals(400, list.getTotalBytes());
+    }
+
+    @Test
+    public void resetAllCachesRecomputesSoftValues(){
+        MemoryBudgetedDelayedComputationList<byte[]> list = new MemoryBudgetedDelayedComputationList<>(10, 1_000, a-> a.length, true);
+        AtomicInteger counter = new AtomicInteger();
+        list.add(()-> new byte[100 * counter.incrementAndGet()]);
+        byte[] first = list.get(0);
+        assertEquals(100, list.getTotalBytes());
+
+        CachedSupplier.resetAllCaches();
+        assertFalse(list.getAsCachedSupplier(0).hasRun());
+        assertEquals(0, list.getTotalBytes());
+
+        byte[] second = list.get(0);
+        assertNotSame(first, second);
+        assertEquals(2, counter.get());
+        assertEquals(200, list.getTotalBytes());
+    }
+
+    @Test
+    public void reclaimedSoftValueNoLongerCounts() throws Exception{
+        MemoryBudgetedDelayedComputationList<byte[]> list = new MemoryBudgetedDelayedComputationList<>(10, 1_000, a-> a.length, true);
+        list.add(()-> new byte[400]);
+        list.add(()-> new byte[300]);
+        byte[] held = list.get(0);
+        list.get(1);
+        assertEquals(700, list.getTotalBytes());
+
+        //simulate the garbage collector clearing the first value
+        CachedSupplier<byte[]> supplier = list.getAsCachedSupplier(0);
+        Field softValue = supplier.getClass().getDeclaredField("softValue");
+        softValue.setAccessible(true);
+        ((SoftReference<?>) softValue.get(supplier)).clear();
+
+        assertFalse(supplier.hasRun());
+        assertEquals(300, list.getTotalBytes());
+        assertEquals(400, held.length);
+    }
+
+    @Test
+    public void enqueuedSoftValueStopsCountingWithoutTouchingIt() throws Exception{
+        MemoryBudgetedDelayedComputationList<byte[]> list = new MemoryBudgetedDelayedComputationList<>(10, 1_000, a-> a.length, true);
+        list.add(()-> new byte[400]);
+        list.add(()-> new byte[300]);
+        list.get(0);
+        list.get(1);
+        assertEquals(700, list.getTotalBytes());
+
+        //simulate the garbage collector reclaiming the first value
+        CachedSupplier<byte[]> supplier = list.getAsCachedSupplier(0);
+        Field softValue = supplier.getClass().getDeclaredField("softValue");
+        softValue.setAccessible(true);
+        SoftReference<?> ref = (SoftReference<?>) softValue.get(supplier);
+        ref.clear();
+        assertTrue(ref.enqueue());
+
+        assertEquals(300, list.getTotalBytes());
+        assertFalse(supplier.hasRun());
+        assertEquals(300, list.getTotalBytes());
+    }
+}
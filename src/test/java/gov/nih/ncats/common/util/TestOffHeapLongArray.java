@@ -0,0 +1,104 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+public class TestOffHeapLongArray {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void appendAcrossManyChunks() throws IOException {
+        try(OffHeapLongArray sut = new OffHeapLongArray(16)){
+            for(long i=0; i< 1_000; i++){
+                sut.append(i * 3);
+            }
+            assertEquals(1_000, sut.getCurrentLength());
+            assertEquals(1_008, sut.getCurrentCapacity());
+            for(long i=0; i< 1_000; i++){
+                assertEquals(i*3, sut.get(i));
+            }
+            assertEquals(300, sut.binarySearch(900));
+            assertEquals(-2, sut.binarySearch(1));
+        }
+    }
+
+    @Test
+    public void sortedInsertMatchesGrowableArray() throws IOException {
+        Random random = new Random(5);
+        GrowableLongArray expected = new GrowableLongArray(10);
+        try(OffHeapLongArray sut = new OffHeapLongArray(8)){
+            for(int i=0; i< 200; i++){
+                long value = random.nextInt(1_000);
+                expected.sortedInsert(value);
+                long index = sut.sortedInsert(value);
+                assertEquals(value, sut.get(index));
+            }
+            assertArrayEquals(expected.toArray(), sut.toArray());
+        }
+    }
+
+    @Test
+    public void sortedInsertArraysAndRemove() throws IOException {
+        Random random = new Random(7);
+        GrowableLongArray expected = new GrowableLongArray(10);
+        try(OffHeapLongArray sut = new OffHeapLongArray(8)){
+            for(int i=0; i< 20; i++){
+                long[] values = random.longs(random.nextInt(30), 0, 500).sorted().toArray();
+                expected.sortedInsert(values);
+                sut.sortedInsert(values);
+            }
+            assertArrayEquals(expected.toArray(), sut.toArray());
+
+            for(int i=0; i< 100; i++){
+                long value = random.nextInt(500);
+                assertEquals(expected.sortedRemove(value), sut.sortedRemove(value));
+            }
+            assertArrayEquals(expected.toArray(), sut.toArray());
+            assertArrayEquals(expected.toArray(), sut.stream().toArray());
+        }
+    }
+
+    @Test
+    public void memoryMappedFile() throws IOException {
+        File file = tmpDir.newFile();
+        try(OffHeapLongArray sut = OffHeapLongArray.memoryMapped(file.toPath(), 1024)){
+            for(long i=0; i< 5_000; i++){
+                sut.append(Long.MAX_VALUE - i);
+            }
+            sut.insert(0, 42L);
+            assertEquals(42L, sut.get(0));
+            assertEquals(Long.MAX_VALUE, sut.get(1));
+            assertEquals(42L, sut.remove(0));
+            assertEquals(Long.MAX_VALUE - 4_999, sut.get(4_999));
+        }
+        //grows by whole chunks
+        assertEquals(5 * 1024 * Long.BYTES, file.length());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+public class TestPrimitiveHashMaps {
+
+    private final Random random = new Random(31);
+
+    @Test
+    public void intIntMapMatchesHashMap(){
+        IntIntHashMap sut = new IntIntHashMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for(int i=0; i< 50_000; i++){
+            //small key range so there are plenty of collisions and removals of existing keys
+            int key = random.nextInt(2_000) - 1_000;
+            int op = random.nextInt(4);
+            if(op ==0){
+                assertEquals(expected.remove(key) !=null, sut.remove(key));
+            }else if(op ==1){
+                assertEquals(expected.merge(key, 1, Integer::sum).intValue(), sut.addTo(key, 1));
+            }else{
+                int value = random.nextInt();
+                assertEquals(expected.put(key, value) ==null, sut.put(key, value));
+            }
+            assertEquals(expected.size(), sut.size());
+        }
+        for(int key = -1_000; key < 1_000; key++){
+            assertEquals(expected.containsKey(key), sut.containsKey(key));
+            assertEquals(expected.getOrDefault(key, -1).intValue(), sut.getOrDefault(key, -1));
+        }
+        Map<Integer, Integer> iterated = new HashMap<>();
+        sut.forEach(iterated::put);
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void longIntMapZeroKey(){
+        LongIntHashMap sut = new LongIntHashMap();
+        assertFalse(sut.containsKey(0L));
+        assertTrue(sut.put(0L, 5));
+        assertFalse(sut.put(0L, 6));
+        assertTrue(sut.put(Long.MAX_VALUE, 7));
+        assertEquals(6, sut.getOrDefault(0L, -1));
+        assertEquals(2, sut.size());
+        assertTrue(sut.remove(0L));
+        assertEquals(-1, sut.getOrDefault(0L, -1));
+        assertArrayEquals(new long[]{Long.MAX_VALUE}, sut.keys());
+
+        LongIntHashMap other = new LongIntHashMap(1);
+        other.put(Long.MAX_VALUE, 7);
+        assertEquals(other, sut);
+        assertEquals(other.hashCode(), sut.hashCode());
+    }
+
+    @Test
+    public void longSetMatchesHashSet(){
+        LongHashSet sut = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for(int i=0; i< 50_000; i++){
+            long value = random.nextInt(3_000) * 0x1_0000_0000L;
+            if(random.nextBoolean()){
+                assertEquals(expected.add(value), sut.add(value));
+            }else{
+                assertEquals(expected.remove(value), sut.remove(value));
+            }
+        }
+        assertEquals(expected.size(), sut.size());
+        Set<Long> iterated = new HashSet<>();
+        sut.forEach(iterated::add);
+        assertEquals(expected, iterated);
+        for(long value : expected){
+            assertTrue(sut.contains(value));
+        }
+    }
+
+    @Test
+    public void intSetClear(){
+        IntHashSet sut = new IntHashSet(100);
+        for(int i=0; i< 100; i++){
+            sut.add(i);
+        }
+        assertEquals(100, sut.size());
+        assertEquals(100, sut.toArray().length);
+        sut.clear();
+        assertTrue(sut.isEmpty());
+        assertFalse(sut.contains(0));
+        assertFalse(sut.contains(50));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+public class TestSegmentedGrowableArrays {
+
+    private static final int SEGMENT_SIZE = 1 << 14;
+
+    private final Random random = new Random(5678);
+
+    @Test
+    public void appendAcrossSegmentsDoesNotChangeValues(){
+        GrowableIntArray sut = new GrowableIntArray(0, true);
+        assertTrue(sut.isSegmented());
+        int n = 3 * SEGMENT_SIZE + 17;
+        for(int i=0; i< n; i++){
+            sut.append(i);
+        }
+        assertEquals(n, sut.getCurrentLength());
+        assertEquals(4 * SEGMENT_SIZE, sut.getCurrentCapacity());
+        for(int i=0; i< n; i++){
+            assertEquals(i, sut.get(i));
+        }
+        int[] expected = new int[n];
+        Arrays.setAll(expected, i-> i);
+        assertArrayEquals(expected, sut.toArray());
+        assertArrayEquals(expected, sut.stream().toArray());
+        assertEquals(SEGMENT_SIZE +5, sut.binarySearch(SEGMENT_SIZE +5));
+        assertEquals(-(n+1), sut.binarySearch(n+10));
+    }
+
+    @Test
+    public void randomEditsMatchContiguousArray(){
+        GrowableIntArray contiguous = new GrowableIntArray(10);
+        GrowableIntArray segmented = new GrowableIntArray(10, true);
+        for(int i=0; i< 400; i++){
+            int op = random.nextInt(6);
+            if(op ==0 || contiguous.getCurrentLength() ==0){
+                int[] values = randomInts(random.nextInt(SEGMENT_SIZE/2));
+                contiguous.append(values);
+                segmented.append(values);
+            }else if(op ==1){
+                int offset = random.nextInt(contiguous.getCurrentLength()+1);
+                int[] values = randomInts(random.nextInt(SEGMENT_SIZE/4));
+                contiguous.insert(offset, values);
+                segmented.insert(offset, values);
+            }else if(op ==2){
+                int offset = random.nextInt(contiguous.getCurrentLength());
+                assertEquals(contiguous.remove(offset), segmented.remove(offset));
+            }else if(op==3){
+                int begin = random.nextInt(contiguous.getCurrentLength());
+                int end = Math.min(contiguous.getCurrentLength()-1, begin + random.nextInt(SEGMENT_SIZE));
+                Range range = new Range(begin, end);
+                contiguous.remove(range);
+                segmented.remove(range);
+            }else if(op==4){
+                int offset = random.nextInt(contiguous.getCurrentLength());
+                int value = random.nextInt();
+                contiguous.replace(offset, value);
+                segmented.replace(offset, value);
+            }else{
+                contiguous.reverse();
+                segmented.reverse();
+            }
+            assertEquals(contiguous.getCurrentLength(), segmented.getCurrentLength());
+        }
+        assertArrayEquals(contiguous.toArray(), segmented.toArray());
+
+        contiguous.sort();
+        segmented.sort();
+        assertArrayEquals(contiguous.toArray(), segmented.toArray());
+
+        int[] sortedValues = randomInts(SEGMENT_SIZE +3);
+        Arrays.sort(sortedValues);
+        contiguous.sortedInsert(sortedValues);
+        segmented.sortedInsert(sortedValues);
+        assertArrayEquals(contiguous.toArray(), segmented.toArray());
+        assertArrayEquals(contiguous.toArray(), segmented.copy().toArray());
+    }
+
+    @Test
+    public void appendOtherArraysInEitherMode(){
+        GrowableLongArray segmented = new GrowableLongArray(0, true);
+        GrowableLongArray contiguous = new GrowableLongArray(SEGMENT_SIZE +1);
+        for(long i=0; i< SEGMENT_SIZE +1; i++){
+            contiguous.append(i);
+        }
+        segmented.append(contiguous);
+        segmented.append(segmented.copy());
+        contiguous.append(segmented);
+
+        assertEquals(2 * (SEGMENT_SIZE +1), segmented.getCurrentLength());
+        assertEquals(3 * (SEGMENT_SIZE +1), contiguous.getCurrentLength());
+        for(int i=0; i< contiguous.getCurrentLength(); i++){
+            assertEquals(i % (SEGMENT_SIZE +1), contiguous.get(i));
+        }
+        assertArrayEquals(Arrays.copyOf(contiguous.toArray(), segmented.getCurrentLength()), segmented.stream().toArray());
+    }
+
+    @Test
+    public void segmentedBytesBehaveLikeContiguousBytes(){
+        byte[] bytes = new byte[2 * SEGMENT_SIZE + 100];
+        random.nextBytes(bytes);
+        GrowableByteArray segmented = new GrowableByteArray(0, true);
+        segmented.append(bytes);
+
+        GrowableByteArray contiguous = new GrowableByteArray(bytes);
+        assertEquals(contiguous, segmented);
+        assertEquals(contiguous.hashCode(), segmented.hashCode());
+
+        Range range = new Range(SEGMENT_SIZE - 10, SEGMENT_SIZE + 10);
+        assertEquals(contiguous.subArray(range), segmented.subArray(range));
+        assertArrayEquals(contiguous.stream(range).toArray(), segmented.stream(range).toArray());
+
+        List<Byte> iterated = new ArrayList<>();
+        segmented.forEach(iterated::add);
+        assertEquals(bytes.length, iterated.size());
+        assertEquals(bytes[SEGMENT_SIZE], iterated.get(SEGMENT_SIZE).byteValue());
+    }
+
+    @Test
+    public void segmentedCharsCreateString(){
+        GrowableCharArray segmented = new GrowableCharArray(0, true);
+        StringBuilder builder = new StringBuilder();
+        for(int i=0; i< SEGMENT_SIZE + 50; i++){
+            char c = (char) ('a' + i % 26);
+            segmented.append(c);
+            builder.append(c);
+        }
+        assertEquals(builder.toString(), segmented.createNewString());
+    }
+
+    private int[] randomInts(int length){
+        int[] values = new int[length];
+        for(int i=0; i< length; i++){
+            values[i] = random.nextInt(1000);
+        }
+        return values;
+    }
+}
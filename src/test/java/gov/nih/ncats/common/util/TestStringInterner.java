@@ -0,0 +1,79 @@
+/*
+ * NCATS-COMMON
+ *
+ * Copyright 2020 NIH/NCATS
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+
+package gov.nih.ncats.common.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+public class TestStringInterner {
+
+    @Test
+    public void sameContentReturnsSameInstance(){
+        StringInterner sut = new StringInterner();
+        String first = sut.intern(new StringBuilder("abc"));
+        assertEquals("abc", first);
+        assertSame(first, sut.intern(new String("abc")));
+        assertSame(first, sut.intern("xabcx", 1, 4));
+        assertEquals(1, sut.size());
+    }
+
+    @Test
+    public void internsRangesOfGrowableCharArrayWithoutCopying(){
+        GrowableCharArray line = new GrowableCharArray(20);
+        line.append("foo\tbar\tfoo".toCharArray());
+        StringInterner sut = new StringInterner();
+        String foo = sut.intern(line, 0, 3);
+        assertEquals("foo", foo);
+        assertEquals("bar", sut.intern(line, 4, 7));
+        assertSame(foo, sut.intern(line, 8, 11));
+        assertSame(foo, sut.get("foo"));
+        assertNull(sut.get("baz"));
+    }
+
+    @Test
+    public void stringArgumentBecomesCanonical(){
+        StringInterner sut = new StringInterner();
+        String s = new String("value");
+        assertSame(s, sut.intern(s));
+    }
+
+    @Test
+    public void growsAndKeepsEveryString(){
+        StringInterner sut = new StringInterner(2);
+        for(int i=0; i< 10_000; i++){
+            sut.intern(Integer.toString(i));
+        }
+        assertEquals(10_000, sut.size());
+        for(int i=0; i< 10_000; i++){
+            assertEquals(Integer.toString(i), sut.get(Integer.toString(i)));
+        }
+        assertEquals("", sut.intern(""));
+        assertEquals(10_001, sut.size());
+        sut.clear();
+        assertTrue(sut.isEmpty());
+        assertNull(sut.get("1"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void invalidRange(){
+        new StringInterner().intern("abc", 2, 4);
+    }
+}